@@ -3,12 +3,13 @@ package org.warehouse;
 import org.warehouse.exceptions.*;
 import org.warehouse.management.WareHouse;
 import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialCatalog;
 import org.warehouse.model.material.MaterialType;
 import org.warehouse.model.user.User;
 import org.warehouse.model.user.UserFunctionalities;
+import org.warehouse.model.user.WarehouseAssignments;
 
 import java.util.HashMap;
-import java.util.Map;
 
 /**
  * The main class that demonstrates warehouse and user functionalities.
@@ -16,9 +17,9 @@ import java.util.Map;
  */
 public class Main {
     public static void main(String[] args) {
-        // Create two types of materials: Iron and Coal
-        MaterialType ironType = new MaterialType("Iron", "Metal used in construction", "src/main/resources/materials/iron.png", 1000);
-        MaterialType coalType = new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 1000);
+        // Take the two types of materials, Iron and Coal, from the generated catalog
+        MaterialType ironType = MaterialCatalog.IRON;
+        MaterialType coalType = MaterialCatalog.COAL;
 
         // Create Material instances for Iron and Coal with initial quantities
         Material iron = new Material(ironType, 100);
@@ -27,13 +28,13 @@ public class Main {
         // Create Warehouses for two users
         WareHouse user1_wareHouse1 = new WareHouse(new HashMap<>());
         WareHouse user1_wareHouse2 = new WareHouse(new HashMap<>());
-        Map<Integer, WareHouse> user1_warehouses = new HashMap<>();
+        WarehouseAssignments user1_warehouses = new WarehouseAssignments();
         user1_warehouses.put(1, user1_wareHouse1);
         user1_warehouses.put(2, user1_wareHouse2);
 
         WareHouse user2_wareHouse1 = new WareHouse(new HashMap<>());
         WareHouse user2_wareHouse2 = new WareHouse(new HashMap<>());
-        Map<Integer, WareHouse> user2_warehouses = new HashMap<>();
+        WarehouseAssignments user2_warehouses = new WarehouseAssignments();
         user2_warehouses.put(1, user2_wareHouse1);
         user2_warehouses.put(2, user2_wareHouse2);
 
@@ -0,0 +1,275 @@
+package org.warehouse.admission;
+
+import org.warehouse.exceptions.RequestRejected;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits how many requests run at once and rejects the excess quickly instead of letting it pile up.
+ * A request first has to be admitted with {@link #acquire()} and reports its completion with
+ * {@link #release(long)}. While fewer requests than the current limit are running, requests are admitted
+ * immediately. Otherwise they wait in a bounded queue for a limited time, and a request that finds the
+ * queue full or waits too long is rejected with {@link RequestRejected}.
+ * The limit adapts to the observed latency in the manner of additive-increase/multiplicative-decrease:
+ * after every window of completed requests, the average latency of the window is compared with the
+ * lowest latency seen recently. If it has grown beyond a tolerance the system is queueing internally and
+ * the limit is cut; if it has not and the limit was fully used, the limit grows by one. The first window only
+ * sets the baseline. A release wakes one queued request for every slot it leaves free.
+ */
+public class AdmissionController {
+
+    private static final int WINDOW_SIZE = 20;          // Completed requests per limit adjustment.
+    private static final double LATENCY_TOLERANCE = 2.0; // How far latency may grow over the baseline.
+    private static final double DECREASE_FACTOR = 0.8;   // How much the limit is cut on rising latency.
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+
+    private final int minimumLimit;        // The limit never drops below this.
+    private final int maximumLimit;        // The limit never grows above this.
+    private final int maximumQueueLength;  // Requests allowed to wait for a slot.
+    private final long maximumWaitNanos;   // How long a request may wait for a slot.
+
+    private double limit;                  // The current concurrency limit.
+    private int inFlight;                  // Requests admitted and not yet released.
+    private int queued;                    // Requests waiting for a slot.
+
+    private long baselineLatencyNanos;     // The lowest recent latency, an estimate of the unloaded latency.
+    private long windowLatencyNanos;       // The summed latency of the current window.
+    private long windowMinimumNanos = Long.MAX_VALUE; // The lowest latency of the current window.
+    private int windowSamples;             // Completed requests in the current window.
+    private boolean windowSaturated;       // Whether the limit was fully used during the current window.
+
+    private long admittedCount;            // Requests admitted so far.
+    private long rejectedCount;            // Requests rejected so far.
+
+    // The depth of decorated operations running on each thread, so nested operations are not admitted again.
+    private static final ThreadLocal<int[]> NESTING = ThreadLocal.withInitial(() -> new int[1]);
+
+    /**
+     * Constructs a new AdmissionController.
+     *
+     * @param initialLimit The concurrency limit to start with.
+     * @param minimumLimit The lowest concurrency limit.
+     * @param maximumLimit The highest concurrency limit.
+     * @param maximumQueueLength The number of requests allowed to wait for a slot; 0 rejects immediately when full.
+     * @param maximumWait How long a request may wait for a slot.
+     * @param unit The unit of maximumWait.
+     */
+    public AdmissionController(int initialLimit, int minimumLimit, int maximumLimit, int maximumQueueLength,
+                               long maximumWait, TimeUnit unit) {
+        if (minimumLimit <= 0 || minimumLimit > maximumLimit || initialLimit < minimumLimit || initialLimit > maximumLimit) {
+            throw new IllegalArgumentException("The limits should satisfy 0 < minimum <= initial <= maximum");
+        }
+        this.limit = initialLimit;
+        this.minimumLimit = minimumLimit;
+        this.maximumLimit = maximumLimit;
+        this.maximumQueueLength = maximumQueueLength;
+        this.maximumWaitNanos = unit.toNanos(maximumWait);
+    }
+
+    /**
+     * Admits a request, waiting in the queue if the limit is reached.
+     *
+     * @return The admission time, to be passed to {@link #release(long)} when the request completes.
+     * @throws RequestRejected If the queue is full or no slot became free in time.
+     */
+    public long acquire() {
+        lock.lock();
+        try {
+            if (inFlight >= (int) limit) {
+                windowSaturated = true;
+                if (queued >= maximumQueueLength) {
+                    rejectedCount++;
+                    throw new RequestRejected("The request was rejected because " + inFlight + " requests are running and the queue is full");
+                }
+                queued++;
+                try {
+                    long remaining = maximumWaitNanos;
+                    while (inFlight >= (int) limit) {
+                        if (remaining <= 0) {
+                            rejectedCount++;
+                            throw new RequestRejected("The request was rejected because no slot became free in time");
+                        }
+                        remaining = slotFreed.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    rejectedCount++;
+                    throw new RequestRejected("The request was interrupted while waiting for a slot");
+                } finally {
+                    queued--;
+                }
+            }
+            inFlight++;
+            admittedCount++;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports the completion of an admitted request, successful or not, and frees its slot.
+     *
+     * @param admittedAt The admission time returned by {@link #acquire()}.
+     */
+    public void release(long admittedAt) {
+        long latency = System.nanoTime() - admittedAt;
+        lock.lock();
+        try {
+            inFlight--;
+            sample(latency);
+            // The window may just have raised the limit, so wake one waiter for every slot that is now free.
+            for (int free = (int) limit - inFlight; free > 0 && queued > 0; free--) {
+                slotFreed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admits an operation of a decorator unless the current thread is already running an admitted operation of
+     * any decorator. A transfer between two decorated inventories calls into the destination while it holds its
+     * slot and the warehouse locks; admitting that nested call again could reject or block a request that was
+     * already admitted, so it runs as part of the outer operation instead.
+     *
+     * @return The admission time, to be passed to {@link #releaseOperation(long)} when the operation completes.
+     * @throws RequestRejected If the operation is not nested and the queue is full or no slot became free in time.
+     */
+    long acquireOperation() {
+        int[] depth = NESTING.get();
+        if (depth[0] > 0) {
+            depth[0]++;
+            return 0;
+        }
+        long admittedAt = acquire();
+        depth[0] = 1;
+        return admittedAt;
+    }
+
+    /**
+     * Reports the completion of an operation admitted with {@link #acquireOperation()}, freeing its slot unless
+     * it was nested in another operation.
+     *
+     * @param admittedAt The admission time returned by {@link #acquireOperation()}.
+     */
+    void releaseOperation(long admittedAt) {
+        int[] depth = NESTING.get();
+        if (--depth[0] == 0) {
+            release(admittedAt);
+        }
+    }
+
+    /**
+     * Gets the current concurrency limit.
+     *
+     * @return The limit.
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of requests currently running.
+     *
+     * @return The number of admitted requests not yet released.
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of requests waiting for a slot.
+     *
+     * @return The queue length.
+     */
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of requests admitted so far.
+     *
+     * @return The admitted count.
+     */
+    public long getAdmittedCount() {
+        lock.lock();
+        try {
+            return admittedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of requests rejected so far.
+     *
+     * @return The rejected count.
+     */
+    public long getRejectedCount() {
+        lock.lock();
+        try {
+            return rejectedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method adding a latency sample to the window and adjusting the limit when the window is full.
+     */
+    private void sample(long latency) {
+        windowLatencyNanos += latency;
+        windowMinimumNanos = Math.min(windowMinimumNanos, latency);
+        windowSamples++;
+        if (inFlight + 1 >= (int) limit) {
+            windowSaturated = true;
+        }
+        if (windowSamples < WINDOW_SIZE) {
+            return;
+        }
+
+        if (baselineLatencyNanos == 0) {
+            // The first window only sets the baseline; comparing it with its own minimum would take warm-up jitter for queueing.
+            baselineLatencyNanos = windowMinimumNanos;
+        } else {
+            // Follow a lower baseline at once, but let it rise only slowly so one fast window is not forgotten immediately.
+            if (windowMinimumNanos < baselineLatencyNanos) {
+                baselineLatencyNanos = windowMinimumNanos;
+            } else {
+                baselineLatencyNanos += (windowMinimumNanos - baselineLatencyNanos) / 10;
+            }
+
+            long averageLatency = windowLatencyNanos / windowSamples;
+            if (averageLatency > baselineLatencyNanos * LATENCY_TOLERANCE) {
+                limit = Math.max(minimumLimit, limit * DECREASE_FACTOR);
+            } else if (windowSaturated) {
+                limit = Math.min(maximumLimit, limit + 1);
+            }
+        }
+
+        windowLatencyNanos = 0;
+        windowMinimumNanos = Long.MAX_VALUE;
+        windowSamples = 0;
+        windowSaturated = false;
+    }
+}
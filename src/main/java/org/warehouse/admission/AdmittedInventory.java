@@ -0,0 +1,159 @@
+package org.warehouse.admission;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.management.Inventory;
+import org.warehouse.management.InventorySnapshot;
+import org.warehouse.management.TransferReport;
+import org.warehouse.model.material.Material;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An inventory decorator that passes every operation through an {@link AdmissionController}.
+ * Operations beyond the controller's limit wait in its bounded queue or fail fast with
+ * {@link RequestRejected} before they reach the backing inventory. Operations nested in an admitted operation on
+ * the same thread, such as the calls a transfer makes into a decorated destination, run without being admitted again.
+ * Snapshots are passed through unadmitted, since reading one is a volatile read that cannot overload the warehouse.
+ */
+public class AdmittedInventory implements Inventory {
+
+    private final Inventory delegate;               // The inventory protected by admission control.
+    private final AdmissionController controller;   // Decides which operations may run.
+
+    /**
+     * Constructs a new AdmittedInventory.
+     *
+     * @param delegate The inventory protected by admission control.
+     * @param controller Decides which operations may run; may be shared with other decorators.
+     */
+    public AdmittedInventory(Inventory delegate, AdmissionController controller) {
+        this.delegate = delegate;
+        this.controller = controller;
+    }
+
+    @Override
+    public Material addMaterial(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.addMaterial(material, quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        long admittedAt = controller.acquireOperation();
+        try {
+            delegate.updateMaterialQuantity(material, quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public Material removeMaterial(Material material) throws MaterialNotFound {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.removeMaterial(material);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public int dropSomeQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.dropSomeQuantity(material, quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public void transferFullMaterial(Inventory toWarehouse, Material material) throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        long admittedAt = controller.acquireOperation();
+        try {
+            delegate.transferFullMaterial(toWarehouse, material);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public int transferSomeQuantityOfMaterial(Inventory toWarehouse, Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.transferSomeQuantityOfMaterial(toWarehouse, material, quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public void addQuantities(Map<Material, Integer> quantities) throws ExceedingCapacity, InvalidQuantity {
+        long admittedAt = controller.acquireOperation();
+        try {
+            delegate.addQuantities(quantities);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public TransferReport transferMaterials(Inventory toWarehouse, Collection<Material> materials) {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.transferMaterials(toWarehouse, materials);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public TransferReport transferAllMaterials(Inventory toWarehouse) {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.transferAllMaterials(toWarehouse);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public Map<Material, Integer> listAllMaterials() {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.listAllMaterials();
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public InventorySnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public int getMaterialQuantity(Inventory warehouse, Material material) throws MaterialNotFound {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.getMaterialQuantity(warehouse == this ? delegate : warehouse, material);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public Object acquireLockOwner() {
+        return delegate.acquireLockOwner();
+    }
+
+    @Override
+    public void releaseLockOwner() {
+        delegate.releaseLockOwner();
+    }
+}
@@ -0,0 +1,88 @@
+package org.warehouse.admission;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.user.UserFunctionalitiesInterface;
+
+/**
+ * A wallet decorator that passes every operation through an {@link AdmissionController}.
+ * Operations beyond the controller's limit wait in its bounded queue or fail fast with
+ * {@link RequestRejected} before they reach the backing user functionalities.
+ */
+public class AdmittedUserFunctionalities implements UserFunctionalitiesInterface {
+
+    private final UserFunctionalitiesInterface delegate; // The wallet protected by admission control.
+    private final AdmissionController controller;        // Decides which operations may run.
+
+    /**
+     * Constructs a new AdmittedUserFunctionalities.
+     *
+     * @param delegate The wallet protected by admission control.
+     * @param controller Decides which operations may run; may be shared with other decorators.
+     */
+    public AdmittedUserFunctionalities(UserFunctionalitiesInterface delegate, AdmissionController controller) {
+        this.delegate = delegate;
+        this.controller = controller;
+    }
+
+    @Override
+    public void upgradeLevel() {
+        long admittedAt = controller.acquireOperation();
+        try {
+            delegate.upgradeLevel();
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public void checkInventory(WareHouse assignedWarehouse, Material material) {
+        long admittedAt = controller.acquireOperation();
+        try {
+            delegate.checkInventory(assignedWarehouse, material);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public int updateMoney(int quantity) throws InvalidQuantityOfMoney {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.updateMoney(quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public int updateGems(int quantity) throws InvalidQuantityOfGems {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.updateGems(quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public int spendMoney(int quantity) throws InvalidQuantityOfMoney, ExceedingAmountOfMoney {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.spendMoney(quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+
+    @Override
+    public int spendGems(int quantity) throws ExceedingAmountOfGems, InvalidQuantityOfGems {
+        long admittedAt = controller.acquireOperation();
+        try {
+            return delegate.spendGems(quantity);
+        } finally {
+            controller.releaseOperation(admittedAt);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package org.warehouse.admission;
+
+import org.warehouse.exceptions.RequestRejected;
+import org.warehouse.model.user.User;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs the inventory and wallet work of many users on a shared executor so that no user can starve the others.
+ * Work is submitted per tenant, usually the username, and at most a fixed number of tasks run at once.
+ * Waiting tasks are ordered by weighted fair queuing: each task is stamped with a virtual finish time that
+ * advances by 1 / weight for every task of its tenant, starting no earlier than the virtual time of the
+ * scheduler, and the task with the earliest finish time runs next. A tenant with a thousand queued tasks
+ * therefore only delays a light tenant's next task by about one task per unit of weight, while an idle
+ * scheduler still runs whatever is queued at full speed.
+ * A tenant can additionally be limited to a rate of tasks by a token bucket; tasks beyond the rate, or beyond
+ * the per-tenant queue bound, are rejected with {@link RequestRejected} before they are queued.
+ * Per-tenant statistics report the submitted, completed and rejected tasks and the latency from submission
+ * to completion.
+ */
+public class FairScheduler {
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Executor executor;           // Runs the dispatched tasks.
+    private final int concurrency;             // Tasks allowed to run at once.
+    private final int maximumQueuedPerTenant;  // Tasks a tenant may have waiting.
+    private final LongSupplier clock;          // The source of the current time in nanoseconds.
+
+    private final Map<String, Tenant> tenants = new TreeMap<>();  // The tenants seen so far, by name.
+    private final PriorityQueue<Task<?>> waiting = new PriorityQueue<>(
+            Comparator.<Task<?>>comparingDouble(task -> task.virtualFinish).thenComparingLong(task -> task.sequence));
+
+    private double virtualTime;  // The virtual start time of the task dispatched last.
+    private long sequence;       // Breaks ties between equal finish times in submission order.
+    private int running;         // Tasks dispatched and not yet completed.
+
+    /**
+     * Constructs a new FairScheduler.
+     *
+     * @param executor Runs the dispatched tasks; it should have at least as many threads as the concurrency.
+     * @param concurrency The number of tasks allowed to run at once.
+     * @param maximumQueuedPerTenant The number of tasks a tenant may have waiting before further tasks are rejected.
+     */
+    public FairScheduler(Executor executor, int concurrency, int maximumQueuedPerTenant) {
+        this(executor, concurrency, maximumQueuedPerTenant, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new FairScheduler using a custom clock for quotas and latencies.
+     *
+     * @param executor Runs the dispatched tasks; it should have at least as many threads as the concurrency.
+     * @param concurrency The number of tasks allowed to run at once.
+     * @param maximumQueuedPerTenant The number of tasks a tenant may have waiting before further tasks are rejected.
+     * @param clock The source of the current time in nanoseconds.
+     */
+    public FairScheduler(Executor executor, int concurrency, int maximumQueuedPerTenant, LongSupplier clock) {
+        if (concurrency <= 0 || maximumQueuedPerTenant <= 0) {
+            throw new IllegalArgumentException("The concurrency and the queue bound should be greater than 0");
+        }
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.maximumQueuedPerTenant = maximumQueuedPerTenant;
+        this.clock = clock;
+    }
+
+    /**
+     * Sets the share of a tenant; a tenant of weight 2 runs twice as many tasks as one of weight 1 while both are busy.
+     *
+     * @param tenant The name of the tenant.
+     * @param weight The weight of the tenant; new tenants have a weight of 1.
+     */
+    public void setWeight(String tenant, int weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("The weight should be greater than 0");
+        }
+        lock.lock();
+        try {
+            tenant(tenant).weight = weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Limits the rate at which a tenant may submit tasks.
+     *
+     * @param tenant The name of the tenant.
+     * @param tasksPerSecond The sustained rate of tasks.
+     * @param burst The number of tasks that may be submitted at once after an idle period.
+     */
+    public void setQuota(String tenant, double tasksPerSecond, int burst) {
+        if (tasksPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("The rate and the burst should be greater than 0");
+        }
+        lock.lock();
+        try {
+            Tenant state = tenant(tenant);
+            state.tokensPerNano = tasksPerSecond / 1_000_000_000.0;
+            state.burst = burst;
+            state.tokens = burst;
+            state.refilledAt = clock.getAsLong();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the rate limit of a tenant.
+     *
+     * @param tenant The name of the tenant.
+     */
+    public void removeQuota(String tenant) {
+        lock.lock();
+        try {
+            tenant(tenant).tokensPerNano = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Submits work on behalf of a user, who is scheduled as the tenant named after their username.
+     *
+     * @param user The user on whose behalf the work runs.
+     * @param task The work.
+     * @return A future completing with the result of the task, or exceptionally with the exception it threw.
+     * @throws RequestRejected If the user exceeded their quota or has too many tasks waiting.
+     */
+    public <T> CompletableFuture<T> submit(User user, Callable<T> task) {
+        return submit(user.getUsername(), task);
+    }
+
+    /**
+     * Submits work on behalf of a tenant.
+     *
+     * @param tenant The name of the tenant.
+     * @param task The work.
+     * @return A future completing with the result of the task, or exceptionally with the exception it threw.
+     * @throws RequestRejected If the tenant exceeded their quota or has too many tasks waiting.
+     */
+    public <T> CompletableFuture<T> submit(String tenant, Callable<T> task) {
+        List<Task<?>> dispatched;
+        Task<T> queued;
+        lock.lock();
+        try {
+            Tenant state = tenant(tenant);
+            long now = clock.getAsLong();
+            if (state.queued >= maximumQueuedPerTenant) {
+                state.rejected++;
+                throw new RequestRejected("The task of " + tenant + " was rejected because " + state.queued + " of their tasks are waiting");
+            }
+            if (!state.takeToken(now)) {
+                state.rejected++;
+                throw new RequestRejected("The task of " + tenant + " was rejected because they exceeded their quota");
+            }
+
+            double virtualStart = Math.max(virtualTime, state.lastVirtualFinish);
+            state.lastVirtualFinish = virtualStart + 1.0 / state.weight;
+            queued = new Task<>(state, task, virtualStart, state.lastVirtualFinish, sequence++, now);
+            waiting.add(queued);
+            state.queued++;
+            state.submitted++;
+            dispatched = dispatchLocked();
+        } finally {
+            lock.unlock();
+        }
+        execute(dispatched);
+        return queued.result;
+    }
+
+    /**
+     * Gets the statistics of a tenant.
+     *
+     * @param tenant The name of the tenant.
+     * @return The statistics, all zero for a tenant that never submitted work.
+     */
+    public TenantStats getStats(String tenant) {
+        lock.lock();
+        try {
+            Tenant state = tenants.get(tenant);
+            return state == null ? new TenantStats(tenant, 0, 0, 0, 0, 0, 0) : state.stats();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the statistics of every tenant.
+     *
+     * @return The statistics of the tenants in order of their names.
+     */
+    public List<TenantStats> getAllStats() {
+        lock.lock();
+        try {
+            List<TenantStats> stats = new ArrayList<>();
+            for (Tenant state : tenants.values()) {
+                stats.add(state.stats());
+            }
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of tasks currently running.
+     *
+     * @return The number of dispatched tasks not yet completed.
+     */
+    public int getRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Helper method getting the state of a tenant, creating it on first use.
+     */
+    private Tenant tenant(String name) {
+        return tenants.computeIfAbsent(name, Tenant::new);
+    }
+
+    /**
+     * Helper method taking the tasks with the earliest virtual finish times off the queue while slots are free.
+     * Must be called while holding the lock.
+     */
+    private List<Task<?>> dispatchLocked() {
+        List<Task<?>> dispatched = new ArrayList<>();
+        while (running < concurrency && !waiting.isEmpty()) {
+            Task<?> next = waiting.poll();
+            virtualTime = Math.max(virtualTime, next.virtualStart);
+            next.tenant.queued--;
+            running++;
+            dispatched.add(next);
+        }
+        return dispatched;
+    }
+
+    /**
+     * Helper method handing dispatched tasks to the executor, outside the lock.
+     */
+    private void execute(List<Task<?>> dispatched) {
+        for (Task<?> task : dispatched) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.result.completeExceptionally(e);
+                completed(task);
+            }
+        }
+    }
+
+    /**
+     * Helper method recording a finished task and dispatching the next ones into its slot.
+     */
+    private void completed(Task<?> task) {
+        List<Task<?>> dispatched;
+        lock.lock();
+        try {
+            running--;
+            long latency = clock.getAsLong() - task.submittedAt;
+            Tenant state = task.tenant;
+            state.completed++;
+            state.latencyNanos += latency;
+            state.maximumLatencyNanos = Math.max(state.maximumLatencyNanos, latency);
+            dispatched = dispatchLocked();
+        } finally {
+            lock.unlock();
+        }
+        execute(dispatched);
+    }
+
+    /**
+     * The scheduling state, quota and statistics of one tenant, guarded by the scheduler lock.
+     */
+    private static class Tenant {
+        private final String name;
+        private int weight = 1;
+        private double lastVirtualFinish;  // The virtual finish time of the tenant's latest task.
+
+        private double tokensPerNano;      // The refill rate of the bucket; 0 means no quota.
+        private int burst;                 // The capacity of the bucket.
+        private double tokens;             // The tokens left in the bucket.
+        private long refilledAt;           // When the bucket was last refilled.
+
+        private int queued;
+        private long submitted;
+        private long completed;
+        private long rejected;
+        private long latencyNanos;
+        private long maximumLatencyNanos;
+
+        private Tenant(String name) {
+            this.name = name;
+        }
+
+        private boolean takeToken(long now) {
+            if (tokensPerNano == 0) {
+                return true;
+            }
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+
+        private TenantStats stats() {
+            return new TenantStats(name, submitted, completed, rejected, queued,
+                    completed == 0 ? 0 : latencyNanos / completed, maximumLatencyNanos);
+        }
+    }
+
+    /**
+     * A submitted task with its virtual start and finish times.
+     */
+    private class Task<T> implements Runnable {
+        private final Tenant tenant;
+        private final Callable<T> work;
+        private final double virtualStart;
+        private final double virtualFinish;
+        private final long sequence;
+        private final long submittedAt;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(Tenant tenant, Callable<T> work, double virtualStart, double virtualFinish, long sequence, long submittedAt) {
+            this.tenant = tenant;
+            this.work = work;
+            this.virtualStart = virtualStart;
+            this.virtualFinish = virtualFinish;
+            this.sequence = sequence;
+            this.submittedAt = submittedAt;
+        }
+
+        @Override
+        public void run() {
+            T value = null;
+            Throwable failure = null;
+            try {
+                value = work.call();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            // Record the completion first, so the statistics include the task once its future completes.
+            completed(this);
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.warehouse.admission;
+
+/**
+ * The statistics of one tenant of a {@link FairScheduler} at the time they were taken.
+ */
+public class TenantStats {
+
+    private final String tenant;               // The name of the tenant.
+    private final long submitted;              // Tasks accepted so far.
+    private final long completed;              // Tasks finished so far, successfully or not.
+    private final long rejected;               // Tasks rejected by the quota or the queue bound.
+    private final int queued;                  // Tasks waiting to run.
+    private final long averageLatencyNanos;    // The average time from submission to completion.
+    private final long maximumLatencyNanos;    // The longest time from submission to completion.
+
+    /**
+     * Constructs a new TenantStats.
+     *
+     * @param tenant The name of the tenant.
+     * @param submitted The tasks accepted so far.
+     * @param completed The tasks finished so far.
+     * @param rejected The tasks rejected so far.
+     * @param queued The tasks waiting to run.
+     * @param averageLatencyNanos The average time from submission to completion in nanoseconds.
+     * @param maximumLatencyNanos The longest time from submission to completion in nanoseconds.
+     */
+    public TenantStats(String tenant, long submitted, long completed, long rejected, int queued,
+                       long averageLatencyNanos, long maximumLatencyNanos) {
+        this.tenant = tenant;
+        this.submitted = submitted;
+        this.completed = completed;
+        this.rejected = rejected;
+        this.queued = queued;
+        this.averageLatencyNanos = averageLatencyNanos;
+        this.maximumLatencyNanos = maximumLatencyNanos;
+    }
+
+    /**
+     * Gets the name of the tenant.
+     *
+     * @return The tenant.
+     */
+    public String getTenant() {
+        return tenant;
+    }
+
+    /**
+     * Gets the number of tasks accepted so far.
+     *
+     * @return The submitted count.
+     */
+    public long getSubmitted() {
+        return submitted;
+    }
+
+    /**
+     * Gets the number of tasks finished so far, successfully or not.
+     *
+     * @return The completed count.
+     */
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Gets the number of tasks rejected by the quota or the queue bound.
+     *
+     * @return The rejected count.
+     */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets the number of tasks waiting to run.
+     *
+     * @return The queue length of the tenant.
+     */
+    public int getQueued() {
+        return queued;
+    }
+
+    /**
+     * Gets the average time from submission to completion.
+     *
+     * @return The average latency in nanoseconds, or 0 if no task completed.
+     */
+    public long getAverageLatencyNanos() {
+        return averageLatencyNanos;
+    }
+
+    /**
+     * Gets the longest time from submission to completion.
+     *
+     * @return The maximum latency in nanoseconds.
+     */
+    public long getMaximumLatencyNanos() {
+        return maximumLatencyNanos;
+    }
+}
@@ -0,0 +1,16 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that the icon of a material type is not packed in the icon atlas.
+ */
+public class IconNotFound extends Exception {
+
+    /**
+     * Constructs a new IconNotFound with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public IconNotFound(String message) {
+        super(message);
+    }
+}
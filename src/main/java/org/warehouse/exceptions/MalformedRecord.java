@@ -0,0 +1,16 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that a line of a stock file cannot be parsed into a stock record.
+ */
+public class MalformedRecord extends Exception {
+
+    /**
+     * Constructs a new MalformedRecord with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public MalformedRecord(String message) {
+        super(message);
+    }
+}
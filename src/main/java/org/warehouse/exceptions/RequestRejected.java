@@ -0,0 +1,18 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that a request was rejected by admission control because the system is overloaded.
+ * Unlike the other exceptions of this package it is unchecked, because it is thrown by wrappers of existing
+ * interfaces whose method signatures cannot declare it. Callers should treat it as "retry later".
+ */
+public class RequestRejected extends RuntimeException {
+
+    /**
+     * Constructs a new RequestRejected with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public RequestRejected(String message) {
+        super(message);
+    }
+}
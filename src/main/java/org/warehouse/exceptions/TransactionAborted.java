@@ -0,0 +1,19 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that a transaction was aborted because one of its operations is invalid,
+ * for example because a wallet does not hold enough money or a warehouse does not hold enough stock.
+ * No operation of an aborted transaction is applied.
+ */
+public class TransactionAborted extends Exception {
+
+    /**
+     * Constructs a new TransactionAborted with the specified detail message and cause.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     * @param cause the exception raised by the invalid operation (which is saved for later retrieval by the getCause() method)
+     */
+    public TransactionAborted(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
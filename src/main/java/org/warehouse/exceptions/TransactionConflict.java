@@ -0,0 +1,17 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that a transaction could not commit because concurrent changes
+ * kept invalidating what it had read, even after retrying.
+ */
+public class TransactionConflict extends Exception {
+
+    /**
+     * Constructs a new TransactionConflict with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public TransactionConflict(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that a user with the same username already exists.
+ */
+public class UserAlreadyExists extends Exception {
+
+    /**
+     * Constructs a new UserAlreadyExists with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public UserAlreadyExists(String message) {
+        super(message);
+    }
+}
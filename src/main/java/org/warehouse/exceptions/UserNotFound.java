@@ -0,0 +1,16 @@
+package org.warehouse.exceptions;
+
+/**
+ * An exception indicating that a user was not found.
+ */
+public class UserNotFound extends Exception {
+
+    /**
+     * Constructs a new UserNotFound with the specified detail message.
+     *
+     * @param message the detail message (which is saved for later retrieval by the getMessage() method)
+     */
+    public UserNotFound(String message) {
+        super(message);
+    }
+}
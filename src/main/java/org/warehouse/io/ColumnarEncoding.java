@@ -0,0 +1,157 @@
+package org.warehouse.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The integer encodings shared by {@link ColumnarInventoryWriter} and {@link ColumnarInventoryReader}:
+ * variable-length integers, zigzag encoding of signed values and fixed-width bit packing.
+ */
+final class ColumnarEncoding {
+
+    static final byte[] MAGIC = {'W', 'H', 'C', 'F'}; // Identifies a columnar inventory file.
+    static final int VERSION = 1;                      // The version of the file layout.
+
+    private ColumnarEncoding() {
+    }
+
+    /**
+     * Writes an unsigned variable-length integer, seven bits per byte.
+     */
+    static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Writes a signed integer as a zigzag-encoded variable-length integer, so small magnitudes stay short.
+     */
+    static void writeSignedVarLong(OutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads an unsigned variable-length integer.
+     */
+    static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated variable-length integer");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Variable-length integer is too long");
+    }
+
+    /**
+     * Reads a zigzag-encoded signed variable-length integer.
+     */
+    static long readSignedVarLong(InputStream in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads exactly length bytes.
+     */
+    static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new EOFException("Truncated column data");
+        }
+        return bytes;
+    }
+
+    /**
+     * Skips exactly length bytes without decoding them.
+     */
+    static void skipFully(InputStream in, long length) throws IOException {
+        while (length > 0) {
+            long skipped = in.skip(length);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new EOFException("Truncated column data");
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+    }
+
+    /**
+     * Gets the number of bits needed to store every value from 0 to max.
+     */
+    static int bitWidth(long max) {
+        return 64 - Long.numberOfLeadingZeros(max);
+    }
+
+    /**
+     * Packs the first count values, each non-negative and fitting in width bits, into a byte array.
+     */
+    static byte[] pack(long[] values, int count, int width) {
+        byte[] packed = new byte[(int) (((long) count * width + 7) / 8)];
+        int position = 0;
+        int bitInByte = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i];
+            int remaining = width;
+            while (remaining > 0) {
+                int take = Math.min(remaining, 8 - bitInByte);
+                packed[position] |= (byte) ((value & ((1L << take) - 1)) << bitInByte);
+                value >>>= take;
+                remaining -= take;
+                bitInByte += take;
+                if (bitInByte == 8) {
+                    bitInByte = 0;
+                    position++;
+                }
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * Unpacks count values of width bits each.
+     */
+    static long[] unpack(byte[] packed, int count, int width) {
+        long[] values = new long[count];
+        int position = 0;
+        int bitInByte = 0;
+        for (int i = 0; i < count; i++) {
+            long value = 0;
+            int filled = 0;
+            while (filled < width) {
+                int take = Math.min(width - filled, 8 - bitInByte);
+                long bits = ((packed[position] & 0xFF) >>> bitInByte) & ((1L << take) - 1);
+                value |= bits << filled;
+                filled += take;
+                bitInByte += take;
+                if (bitInByte == 8) {
+                    bitInByte = 0;
+                    position++;
+                }
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Writes a byte array prefixed by its length.
+     */
+    static void writeChunk(OutputStream out, ByteArrayOutputStream chunk) throws IOException {
+        writeVarLong(out, chunk.size());
+        chunk.writeTo(out);
+    }
+}
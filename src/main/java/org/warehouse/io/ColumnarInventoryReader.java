@@ -0,0 +1,253 @@
+package org.warehouse.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scans files written by {@link ColumnarInventoryWriter}.
+ * A scan decodes only the projected columns, plus the columns its filter still needs, and skips the rest of every
+ * block by its length prefix. With a {@link QuantityFilter}, the statistics at the start of each block are checked
+ * first: blocks whose warehouse range or whose quantity range of the filtered material lies outside the filter are
+ * skipped without decoding. In the blocks that remain, a column whose statistics show that every row already
+ * passes its part of the filter is neither checked nor, unless projected, decoded; the material column is not
+ * needed either when the filtered material is the only one of the block.
+ */
+public class ColumnarInventoryReader {
+
+    private final Path file; // The columnar file to scan.
+
+    /**
+     * Constructs a new ColumnarInventoryReader.
+     *
+     * @param file The columnar file to scan.
+     */
+    public ColumnarInventoryReader(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Scans every row of the file.
+     *
+     * @param projection The columns to decode.
+     * @param visitor Receives every row.
+     * @return The statistics of the scan.
+     * @throws IOException If the file cannot be read or is not a columnar inventory file.
+     */
+    public ScanResult scan(Set<InventoryColumn> projection, RowVisitor visitor) throws IOException {
+        return scan(projection, null, visitor);
+    }
+
+    /**
+     * Scans the rows of the file selected by a filter.
+     *
+     * @param projection The columns to decode; columns not projected are passed to the visitor as 0 or null.
+     * @param filter The filter selecting rows, or null to select every row.
+     * @param visitor Receives every selected row.
+     * @return The statistics of the scan.
+     * @throws IOException If the file cannot be read or is not a columnar inventory file.
+     */
+    public ScanResult scan(Set<InventoryColumn> projection, QuantityFilter filter, RowVisitor visitor) throws IOException {
+        boolean projectWarehouses = projection.contains(InventoryColumn.WAREHOUSE);
+        boolean projectMaterials = projection.contains(InventoryColumn.MATERIAL);
+        boolean projectQuantities = projection.contains(InventoryColumn.QUANTITY);
+
+        ScanResult result = new ScanResult();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            byte[] magic = in.readNBytes(ColumnarEncoding.MAGIC.length);
+            if (!Arrays.equals(magic, ColumnarEncoding.MAGIC) || in.read() != ColumnarEncoding.VERSION) {
+                throw new IOException(file + " is not a columnar inventory file");
+            }
+
+            List<String> dictionary = new ArrayList<>();
+            int filterId = -1;
+            int rows;
+            while ((rows = (int) ColumnarEncoding.readVarLong(in)) != 0) {
+                int newNames = (int) ColumnarEncoding.readVarLong(in);
+                for (int i = 0; i < newNames; i++) {
+                    String name = new String(ColumnarEncoding.readFully(in, (int) ColumnarEncoding.readVarLong(in)), StandardCharsets.UTF_8);
+                    if (filter != null && name.equals(filter.getMaterialName())) {
+                        filterId = dictionary.size();
+                    }
+                    dictionary.add(name);
+                }
+
+                BlockPlan plan = readStatistics(in, filter, filterId);
+                if (!plan.mayMatch) {
+                    for (int column = 0; column < InventoryColumn.values().length; column++) {
+                        ColumnarEncoding.skipFully(in, ColumnarEncoding.readVarLong(in));
+                    }
+                    result.blocksSkipped++;
+                    continue;
+                }
+                result.blocksScanned++;
+
+                int[] warehouses = projectWarehouses || plan.checkWarehouses ? readWarehouses(in, rows) : skipColumn(in);
+                long[] materials = projectMaterials || plan.checkMaterials ? readPacked(in, rows, false) : skipPacked(in);
+                long[] quantities = projectQuantities || plan.checkQuantities ? readPacked(in, rows, true) : skipPacked(in);
+                result.columnsDecoded += (warehouses == null ? 0 : 1) + (materials == null ? 0 : 1) + (quantities == null ? 0 : 1);
+
+                for (int i = 0; i < rows; i++) {
+                    if (plan.checkMaterials && materials[i] != filterId
+                            || plan.checkQuantities && !filter.matches(quantities[i])
+                            || plan.checkWarehouses && !filter.matchesWarehouse(warehouses[i])) {
+                        continue;
+                    }
+                    result.rowsMatched++;
+                    visitor.visit(
+                            projectWarehouses ? warehouses[i] : 0,
+                            projectMaterials ? dictionary.get((int) materials[i]) : null,
+                            projectQuantities ? (int) quantities[i] : 0);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Helper method reading the statistics of a block and deciding whether the filter may select any of its rows,
+     * and which of its columns the filter still has to check row by row.
+     */
+    private static BlockPlan readStatistics(InputStream in, QuantityFilter filter, int filterId) throws IOException {
+        long firstWarehouse = ColumnarEncoding.readSignedVarLong(in);
+        long lastWarehouse = ColumnarEncoding.readSignedVarLong(in);
+        BlockPlan plan = new BlockPlan();
+        plan.mayMatch = filter == null;
+        int materials = (int) ColumnarEncoding.readVarLong(in);
+        for (int i = 0; i < materials; i++) {
+            long id = ColumnarEncoding.readVarLong(in);
+            long min = ColumnarEncoding.readSignedVarLong(in);
+            long max = ColumnarEncoding.readSignedVarLong(in);
+            if (id == filterId && filter.overlaps(min, max)) {
+                plan.mayMatch = true;
+                plan.checkQuantities = !filter.covers(min, max);
+            }
+        }
+        if (filter != null && plan.mayMatch) {
+            plan.mayMatch = filter.overlapsWarehouses(firstWarehouse, lastWarehouse);
+            plan.checkWarehouses = !filter.coversWarehouses(firstWarehouse, lastWarehouse);
+            plan.checkMaterials = materials > 1;
+        }
+        return plan;
+    }
+
+    /**
+     * Helper method decoding the delta-encoded warehouse column.
+     */
+    private static int[] readWarehouses(InputStream in, int rows) throws IOException {
+        InputStream column = new ByteArrayInputStream(ColumnarEncoding.readFully(in, (int) ColumnarEncoding.readVarLong(in)));
+        int[] warehouses = new int[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += ColumnarEncoding.readSignedVarLong(column);
+            warehouses[i] = (int) previous;
+        }
+        return warehouses;
+    }
+
+    /**
+     * Helper method decoding a bit-packed column, optionally preceded by its frame of reference.
+     */
+    private static long[] readPacked(InputStream in, int rows, boolean withBase) throws IOException {
+        InputStream column = new ByteArrayInputStream(ColumnarEncoding.readFully(in, (int) ColumnarEncoding.readVarLong(in)));
+        long base = withBase ? ColumnarEncoding.readSignedVarLong(column) : 0;
+        int width = column.read();
+        long[] values = ColumnarEncoding.unpack(column.readAllBytes(), rows, width);
+        if (base != 0) {
+            for (int i = 0; i < rows; i++) {
+                values[i] += base;
+            }
+        }
+        return values;
+    }
+
+    private static int[] skipColumn(InputStream in) throws IOException {
+        ColumnarEncoding.skipFully(in, ColumnarEncoding.readVarLong(in));
+        return null;
+    }
+
+    private static long[] skipPacked(InputStream in) throws IOException {
+        ColumnarEncoding.skipFully(in, ColumnarEncoding.readVarLong(in));
+        return null;
+    }
+
+    /**
+     * What the statistics of a block tell a scan: whether to decode the block at all, and which parts of the
+     * filter its rows still have to be checked against.
+     */
+    private static class BlockPlan {
+        private boolean mayMatch;         // Whether the filter may select any row of the block.
+        private boolean checkWarehouses;  // Whether some warehouse of the block lies outside the filter.
+        private boolean checkMaterials;   // Whether the block holds materials other than the filtered one.
+        private boolean checkQuantities;  // Whether some quantity of the filtered material lies outside the filter.
+    }
+
+    /**
+     * Receives the rows selected by a scan.
+     */
+    public interface RowVisitor {
+
+        /**
+         * Called for every selected row.
+         *
+         * @param warehouse The warehouse number, or 0 if the column is not projected.
+         * @param materialName The material type name, or null if the column is not projected.
+         * @param quantity The quantity, or 0 if the column is not projected.
+         */
+        void visit(int warehouse, String materialName, int quantity);
+    }
+
+    /**
+     * The statistics of a scan.
+     */
+    public static class ScanResult {
+        private long blocksScanned;  // Blocks whose columns were decoded.
+        private long blocksSkipped;  // Blocks skipped because of their statistics.
+        private long columnsDecoded; // Columns decoded over all scanned blocks.
+        private long rowsMatched;    // Rows passed to the visitor.
+
+        /**
+         * Gets the number of blocks whose columns were decoded.
+         *
+         * @return The number of scanned blocks.
+         */
+        public long getBlocksScanned() {
+            return blocksScanned;
+        }
+
+        /**
+         * Gets the number of blocks skipped because their statistics ruled out the filter.
+         *
+         * @return The number of skipped blocks.
+         */
+        public long getBlocksSkipped() {
+            return blocksSkipped;
+        }
+
+        /**
+         * Gets the number of columns decoded over all scanned blocks; the other columns were skipped.
+         *
+         * @return The number of decoded columns.
+         */
+        public long getColumnsDecoded() {
+            return columnsDecoded;
+        }
+
+        /**
+         * Gets the number of rows passed to the visitor.
+         *
+         * @return The number of matched rows.
+         */
+        public long getRowsMatched() {
+            return rowsMatched;
+        }
+    }
+}
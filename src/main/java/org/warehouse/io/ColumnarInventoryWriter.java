@@ -0,0 +1,234 @@
+package org.warehouse.io;
+
+import org.warehouse.management.Inventory;
+import org.warehouse.model.material.Material;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes inventory rows of (warehouse, material, quantity) in a compressed columnar file for analytics scans.
+ * Rows are buffered into blocks, and every block stores its three columns separately:
+ * warehouse numbers as zigzag-encoded deltas, materials as bit-packed ids into a dictionary of material type
+ * names, and quantities bit-packed relative to the smallest quantity of the block. Each block starts with the
+ * range of its warehouse numbers and the minimum and maximum quantity of every material it contains, which lets
+ * {@link ColumnarInventoryReader} skip blocks that cannot match a filter, and every column is prefixed with its
+ * length, which lets the reader skip columns that are not projected.
+ * New dictionary entries are written with the first block that uses them, so the file is written in one pass.
+ */
+public class ColumnarInventoryWriter implements Closeable {
+
+    private static final int DEFAULT_BLOCK_SIZE = 65536;
+
+    private final OutputStream out;                                 // The file being written.
+    private final int blockSize;                                    // The number of rows per block.
+    private final Map<String, Integer> dictionary = new HashMap<>(); // Material type names by dictionary id.
+    private final List<String> newNames = new ArrayList<>();        // Names added since the last block was written.
+    private final int[] warehouses;                                 // The warehouse column of the current block.
+    private final int[] materialIds;                                // The material column of the current block.
+    private final int[] quantities;                                 // The quantity column of the current block.
+    private int rows;                                               // The number of rows in the current block.
+    private long rowsWritten;                                       // The number of rows written so far.
+
+    /**
+     * Constructs a new ColumnarInventoryWriter with the default block size.
+     *
+     * @param out The stream to write the file to.
+     * @throws IOException If the file header cannot be written.
+     */
+    public ColumnarInventoryWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a new ColumnarInventoryWriter.
+     *
+     * @param out The stream to write the file to.
+     * @param blockSize The number of rows per block; smaller blocks allow finer skipping but compress less.
+     * @throws IOException If the file header cannot be written.
+     */
+    public ColumnarInventoryWriter(OutputStream out, int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("The block size should be greater than 0");
+        }
+        this.out = new BufferedOutputStream(out);
+        this.blockSize = blockSize;
+        this.warehouses = new int[blockSize];
+        this.materialIds = new int[blockSize];
+        this.quantities = new int[blockSize];
+        this.out.write(ColumnarEncoding.MAGIC);
+        this.out.write(ColumnarEncoding.VERSION);
+    }
+
+    /**
+     * Writes one row.
+     *
+     * @param warehouse The number of the warehouse.
+     * @param material The material held.
+     * @param quantity The quantity held.
+     * @throws IOException If a completed block cannot be written.
+     */
+    public void write(int warehouse, Material material, int quantity) throws IOException {
+        write(warehouse, material.getMaterialType().getName(), quantity);
+    }
+
+    /**
+     * Writes one row.
+     *
+     * @param warehouse The number of the warehouse.
+     * @param materialName The name of the material type held.
+     * @param quantity The quantity held.
+     * @throws IOException If a completed block cannot be written.
+     */
+    public void write(int warehouse, String materialName, int quantity) throws IOException {
+        Integer id = dictionary.get(materialName);
+        if (id == null) {
+            id = dictionary.size();
+            dictionary.put(materialName, id);
+            newNames.add(materialName);
+        }
+        warehouses[rows] = warehouse;
+        materialIds[rows] = id;
+        quantities[rows] = quantity;
+        rows++;
+        if (rows == blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes one row for every material of every warehouse, reading each warehouse from a snapshot.
+     *
+     * @param inventories The warehouses to write by warehouse number.
+     * @throws IOException If a block cannot be written.
+     */
+    public void writeAll(Map<Integer, ? extends Inventory> inventories) throws IOException {
+        for (Map.Entry<Integer, ? extends Inventory> warehouse : inventories.entrySet()) {
+            for (Map.Entry<Material, Integer> entry : warehouse.getValue().snapshot().getMaterials().entrySet()) {
+                write(warehouse.getKey(), entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Gets the number of rows written so far, including rows still buffered in the current block.
+     *
+     * @return The number of rows.
+     */
+    public long getRowsWritten() {
+        return rowsWritten + rows;
+    }
+
+    /**
+     * Writes the last block and the end marker and closes the underlying stream.
+     *
+     * @throws IOException If the file cannot be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (rows > 0) {
+            writeBlock();
+        }
+        ColumnarEncoding.writeVarLong(out, 0);
+        out.close();
+    }
+
+    /**
+     * Helper method encoding the buffered rows as one block.
+     */
+    private void writeBlock() throws IOException {
+        ColumnarEncoding.writeVarLong(out, rows);
+
+        ColumnarEncoding.writeVarLong(out, newNames.size());
+        for (String name : newNames) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            ColumnarEncoding.writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+        newNames.clear();
+
+        writeStatistics();
+
+        ByteArrayOutputStream column = new ByteArrayOutputStream();
+        int previous = 0;
+        for (int i = 0; i < rows; i++) {
+            ColumnarEncoding.writeSignedVarLong(column, (long) warehouses[i] - previous);
+            previous = warehouses[i];
+        }
+        ColumnarEncoding.writeChunk(out, column);
+
+        column.reset();
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = materialIds[i];
+        }
+        int width = ColumnarEncoding.bitWidth(dictionary.size() - 1);
+        column.write(width);
+        column.write(ColumnarEncoding.pack(values, rows, width));
+        ColumnarEncoding.writeChunk(out, column);
+
+        column.reset();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < rows; i++) {
+            min = Math.min(min, quantities[i]);
+            max = Math.max(max, quantities[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            values[i] = quantities[i] - min;
+        }
+        width = ColumnarEncoding.bitWidth(max - min);
+        ColumnarEncoding.writeSignedVarLong(column, min);
+        column.write(width);
+        column.write(ColumnarEncoding.pack(values, rows, width));
+        ColumnarEncoding.writeChunk(out, column);
+
+        rowsWritten += rows;
+        rows = 0;
+    }
+
+    /**
+     * Helper method writing the warehouse range and the per-material quantity range of the buffered rows.
+     */
+    private void writeStatistics() throws IOException {
+        int minWarehouse = Integer.MAX_VALUE;
+        int maxWarehouse = Integer.MIN_VALUE;
+        int[] minQuantity = new int[dictionary.size()];
+        int[] maxQuantity = new int[dictionary.size()];
+        boolean[] present = new boolean[dictionary.size()];
+        int materials = 0;
+        for (int i = 0; i < rows; i++) {
+            minWarehouse = Math.min(minWarehouse, warehouses[i]);
+            maxWarehouse = Math.max(maxWarehouse, warehouses[i]);
+            int id = materialIds[i];
+            if (!present[id]) {
+                present[id] = true;
+                minQuantity[id] = quantities[i];
+                maxQuantity[id] = quantities[i];
+                materials++;
+            } else {
+                minQuantity[id] = Math.min(minQuantity[id], quantities[i]);
+                maxQuantity[id] = Math.max(maxQuantity[id], quantities[i]);
+            }
+        }
+
+        ColumnarEncoding.writeSignedVarLong(out, minWarehouse);
+        ColumnarEncoding.writeSignedVarLong(out, maxWarehouse);
+        ColumnarEncoding.writeVarLong(out, materials);
+        for (int id = 0; id < present.length; id++) {
+            if (present[id]) {
+                ColumnarEncoding.writeVarLong(out, id);
+                ColumnarEncoding.writeSignedVarLong(out, minQuantity[id]);
+                ColumnarEncoding.writeSignedVarLong(out, maxQuantity[id]);
+            }
+        }
+    }
+}
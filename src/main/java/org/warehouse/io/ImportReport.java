@@ -0,0 +1,147 @@
+package org.warehouse.io;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the outcome of a bulk import: how many rows were read and applied, the rows that failed,
+ * and the throughput of the run. Only the first errors up to a fixed limit are kept, so a file full of
+ * bad rows cannot exhaust memory; {@link #getErrorCount()} still counts all of them.
+ */
+public class ImportReport {
+
+    private final int maximumStoredErrors;                 // The number of row errors kept in detail.
+    private final List<RowError> errors = new ArrayList<>(); // The first row errors, in no particular order.
+    private long rowsRead;                                  // Data rows read from the input.
+    private long rowsImported;                              // Rows applied to a warehouse.
+    private long errorCount;                                // Rows that could not be parsed or applied.
+    private long elapsedNanos;                              // The wall-clock duration of the import.
+
+    /**
+     * Constructs a new, empty ImportReport.
+     *
+     * @param maximumStoredErrors The number of row errors kept in detail.
+     */
+    ImportReport(int maximumStoredErrors) {
+        this.maximumStoredErrors = maximumStoredErrors;
+    }
+
+    /**
+     * Counts data rows read from the input.
+     */
+    synchronized void addRowsRead(long rows) {
+        rowsRead += rows;
+    }
+
+    /**
+     * Counts rows applied to a warehouse.
+     */
+    synchronized void addRowsImported(long rows) {
+        rowsImported += rows;
+    }
+
+    /**
+     * Records a row that could not be imported.
+     */
+    synchronized void addError(long line, String message) {
+        errorCount++;
+        if (errors.size() < maximumStoredErrors) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    /**
+     * Records the wall-clock duration of the import.
+     */
+    synchronized void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of data rows read from the input.
+     *
+     * @return The number of rows read.
+     */
+    public synchronized long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Gets the number of rows applied to a warehouse.
+     *
+     * @return The number of rows imported.
+     */
+    public synchronized long getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * Gets the number of rows that could not be parsed or applied.
+     *
+     * @return The number of failed rows.
+     */
+    public synchronized long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Gets the first row errors, sorted by line number.
+     *
+     * @return An unmodifiable list of at most the configured number of row errors.
+     */
+    public synchronized List<RowError> getErrors() {
+        List<RowError> sorted = new ArrayList<>(errors);
+        sorted.sort((a, b) -> Long.compare(a.getLine(), b.getLine()));
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Gets the wall-clock duration of the import.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public synchronized long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of the import.
+     *
+     * @return The number of rows read per second.
+     */
+    public synchronized double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * A row that could not be imported and the reason why.
+     */
+    public static class RowError {
+        private final long line;       // The 1-based line number in the input.
+        private final String message;  // Why the row was not imported.
+
+        private RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Gets the line number of the row.
+         *
+         * @return The 1-based line number in the input.
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Gets the reason the row was not imported.
+         *
+         * @return The error message.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.warehouse.io;
+
+/**
+ * The columns of a columnar inventory file, used to choose which columns a scan decodes.
+ */
+public enum InventoryColumn {
+    WAREHOUSE,
+    MATERIAL,
+    QUANTITY
+}
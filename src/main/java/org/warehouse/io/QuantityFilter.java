@@ -0,0 +1,140 @@
+package org.warehouse.io;
+
+/**
+ * A filter selecting the rows of one material whose quantity lies in a range, such as "coal below 100",
+ * optionally restricted to a range of warehouse numbers.
+ * {@link ColumnarInventoryReader} checks it against the statistics of every block first and skips
+ * blocks that hold no row of the material within the ranges.
+ */
+public class QuantityFilter {
+    private final String materialName;  // The name of the material type to select.
+    private final long minimum;         // The smallest selected quantity, inclusive.
+    private final long maximum;         // The largest selected quantity, inclusive.
+    private final long firstWarehouse;  // The smallest selected warehouse number, inclusive.
+    private final long lastWarehouse;   // The largest selected warehouse number, inclusive.
+
+    /**
+     * Constructs a new QuantityFilter over all warehouses.
+     *
+     * @param materialName The name of the material type to select.
+     * @param minimum The smallest selected quantity, inclusive.
+     * @param maximum The largest selected quantity, inclusive.
+     */
+    public QuantityFilter(String materialName, long minimum, long maximum) {
+        this(materialName, minimum, maximum, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private QuantityFilter(String materialName, long minimum, long maximum, long firstWarehouse, long lastWarehouse) {
+        this.materialName = materialName;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.firstWarehouse = firstWarehouse;
+        this.lastWarehouse = lastWarehouse;
+    }
+
+    /**
+     * Selects the rows of a material whose quantity is below a bound.
+     *
+     * @param materialName The name of the material type.
+     * @param bound The exclusive upper bound.
+     * @return The filter.
+     */
+    public static QuantityFilter lessThan(String materialName, int bound) {
+        return new QuantityFilter(materialName, Long.MIN_VALUE, (long) bound - 1);
+    }
+
+    /**
+     * Selects the rows of a material whose quantity is above a bound.
+     *
+     * @param materialName The name of the material type.
+     * @param bound The exclusive lower bound.
+     * @return The filter.
+     */
+    public static QuantityFilter greaterThan(String materialName, int bound) {
+        return new QuantityFilter(materialName, (long) bound + 1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Restricts the filter to a range of warehouse numbers.
+     *
+     * @param first The smallest selected warehouse number, inclusive.
+     * @param last The largest selected warehouse number, inclusive.
+     * @return A filter selecting the same rows, but only in those warehouses.
+     */
+    public QuantityFilter inWarehouses(int first, int last) {
+        return new QuantityFilter(materialName, minimum, maximum, first, last);
+    }
+
+    /**
+     * Gets the name of the material type to select.
+     *
+     * @return The material type name.
+     */
+    public String getMaterialName() {
+        return materialName;
+    }
+
+    /**
+     * Checks whether a quantity lies in the selected range.
+     *
+     * @param quantity The quantity to check.
+     * @return true if the quantity is selected.
+     */
+    public boolean matches(long quantity) {
+        return quantity >= minimum && quantity <= maximum;
+    }
+
+    /**
+     * Checks whether a range of quantities overlaps the selected range.
+     *
+     * @param min The smallest quantity of the range.
+     * @param max The largest quantity of the range.
+     * @return true if some quantity of the range may be selected.
+     */
+    public boolean overlaps(long min, long max) {
+        return min <= maximum && max >= minimum;
+    }
+
+    /**
+     * Checks whether every quantity of a range lies in the selected range, so its rows need no check.
+     *
+     * @param min The smallest quantity of the range.
+     * @param max The largest quantity of the range.
+     * @return true if every quantity of the range is selected.
+     */
+    public boolean covers(long min, long max) {
+        return min >= minimum && max <= maximum;
+    }
+
+    /**
+     * Checks whether a warehouse number lies in the selected range.
+     *
+     * @param warehouse The warehouse number to check.
+     * @return true if the warehouse is selected.
+     */
+    public boolean matchesWarehouse(long warehouse) {
+        return warehouse >= firstWarehouse && warehouse <= lastWarehouse;
+    }
+
+    /**
+     * Checks whether a range of warehouse numbers overlaps the selected range.
+     *
+     * @param first The smallest warehouse number of the range.
+     * @param last The largest warehouse number of the range.
+     * @return true if some warehouse of the range may be selected.
+     */
+    public boolean overlapsWarehouses(long first, long last) {
+        return first <= lastWarehouse && last >= firstWarehouse;
+    }
+
+    /**
+     * Checks whether every warehouse number of a range lies in the selected range, so its rows need no check.
+     *
+     * @param first The smallest warehouse number of the range.
+     * @param last The largest warehouse number of the range.
+     * @return true if every warehouse of the range is selected.
+     */
+    public boolean coversWarehouses(long first, long last) {
+        return first >= firstWarehouse && last <= lastWarehouse;
+    }
+}
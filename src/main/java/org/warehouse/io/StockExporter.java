@@ -0,0 +1,64 @@
+package org.warehouse.io;
+
+import org.warehouse.management.Inventory;
+import org.warehouse.model.material.Material;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Writes the stock of warehouses as CSV or NDJSON, one record per material and warehouse.
+ * Each warehouse is written from a snapshot, so the export never blocks writers and holds
+ * only one warehouse's materials in memory at a time.
+ */
+public class StockExporter {
+
+    /**
+     * Exports the stock of warehouses to a UTF-8 file, replacing its contents.
+     *
+     * @param file The file to write.
+     * @param format The format to write.
+     * @param warehouses The warehouses to export by warehouse number.
+     * @return The number of records written.
+     * @throws IOException If the file cannot be written.
+     */
+    public long exportTo(Path file, StockFormat format, Map<Integer, ? extends Inventory> warehouses) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportTo(writer, format, warehouses);
+        }
+    }
+
+    /**
+     * Exports the stock of warehouses to a character stream. The stream is flushed but not closed.
+     *
+     * @param writer The stream to write to.
+     * @param format The format to write.
+     * @param warehouses The warehouses to export by warehouse number.
+     * @return The number of records written.
+     * @throws IOException If the stream cannot be written.
+     */
+    public long exportTo(Writer writer, StockFormat format, Map<Integer, ? extends Inventory> warehouses) throws IOException {
+        BufferedWriter out = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+        if (format.header() != null) {
+            out.write(format.header());
+            out.newLine();
+        }
+
+        long records = 0;
+        for (Map.Entry<Integer, ? extends Inventory> warehouse : warehouses.entrySet()) {
+            for (Map.Entry<Material, Integer> entry : warehouse.getValue().snapshot().getMaterials().entrySet()) {
+                StockRecord record = new StockRecord(warehouse.getKey(), entry.getKey().getMaterialType().getName(), entry.getValue());
+                out.write(format.format(record));
+                out.newLine();
+                records++;
+            }
+        }
+        out.flush();
+        return records;
+    }
+}
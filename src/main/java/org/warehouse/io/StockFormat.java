@@ -0,0 +1,276 @@
+package org.warehouse.io;
+
+import org.warehouse.exceptions.MalformedRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The line-oriented file formats understood by {@link StockImporter} and {@link StockExporter}.
+ * Every line holds exactly one {@link StockRecord}, so files can be split into chunks at any line break.
+ */
+public enum StockFormat {
+
+    /**
+     * Comma-separated values with the header {@code warehouse,material,quantity}.
+     * Material names containing commas or quotes are quoted, with quotes doubled.
+     */
+    CSV {
+        @Override
+        public String header() {
+            return "warehouse,material,quantity";
+        }
+
+        @Override
+        public StockRecord parse(String line) throws MalformedRecord {
+            List<String> fields = splitCsv(line);
+            if (fields.size() != 3) {
+                throw new MalformedRecord("Expected 3 fields but found " + fields.size());
+            }
+            return new StockRecord(parseInt(fields.get(0), "warehouse"), fields.get(1), parseInt(fields.get(2), "quantity"));
+        }
+
+        @Override
+        public String format(StockRecord record) {
+            String name = record.getMaterialName();
+            if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0) {
+                name = '"' + name.replace("\"", "\"\"") + '"';
+            }
+            return record.getWarehouse() + "," + name + "," + record.getQuantity();
+        }
+    },
+
+    /**
+     * Newline-delimited JSON with one object per line, for example
+     * {@code {"warehouse":1,"material":"Iron","quantity":100}}.
+     */
+    NDJSON {
+        @Override
+        public String header() {
+            return null;
+        }
+
+        @Override
+        public StockRecord parse(String line) throws MalformedRecord {
+            return new JsonLine(line).parse();
+        }
+
+        @Override
+        public String format(StockRecord record) {
+            StringBuilder json = new StringBuilder("{\"warehouse\":").append(record.getWarehouse()).append(",\"material\":\"");
+            for (char c : record.getMaterialName().toCharArray()) {
+                if (c == '"' || c == '\\') {
+                    json.append('\\').append(c);
+                } else if (c < 0x20) {
+                    json.append(String.format("\\u%04x", (int) c));
+                } else {
+                    json.append(c);
+                }
+            }
+            return json.append("\",\"quantity\":").append(record.getQuantity()).append('}').toString();
+        }
+    };
+
+    /**
+     * Gets the header line written before the first record.
+     *
+     * @return The header line, or null if the format has none.
+     */
+    public abstract String header();
+
+    /**
+     * Parses one line into a stock record.
+     *
+     * @param line The line without its line terminator.
+     * @return The parsed record.
+     * @throws MalformedRecord If the line is not a valid record of this format.
+     */
+    public abstract StockRecord parse(String line) throws MalformedRecord;
+
+    /**
+     * Formats a stock record as one line.
+     *
+     * @param record The record to format.
+     * @return The line without a line terminator.
+     */
+    public abstract String format(StockRecord record);
+
+    /**
+     * Helper method parsing an integer field.
+     */
+    private static int parseInt(String value, String field) throws MalformedRecord {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new MalformedRecord("The " + field + " " + value + " is not a number");
+        }
+    }
+
+    /**
+     * Helper method splitting a CSV line into fields, honouring quoted fields.
+     */
+    private static List<String> splitCsv(String line) throws MalformedRecord {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new MalformedRecord("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * A parser for a flat JSON object with the fields of a stock record.
+     */
+    private static class JsonLine {
+        private final String line;
+        private int position;
+
+        private JsonLine(String line) {
+            this.line = line;
+        }
+
+        private StockRecord parse() throws MalformedRecord {
+            Integer warehouse = null;
+            String material = null;
+            Integer quantity = null;
+
+            expect('{');
+            if (peek() != '}') {
+                do {
+                    String key = readString();
+                    expect(':');
+                    switch (key) {
+                        case "warehouse":
+                            warehouse = readInt(key);
+                            break;
+                        case "material":
+                            material = readString();
+                            break;
+                        case "quantity":
+                            quantity = readInt(key);
+                            break;
+                        default:
+                            throw new MalformedRecord("Unknown field " + key);
+                    }
+                } while (accept(','));
+            }
+            expect('}');
+            if (peek() != 0) {
+                throw new MalformedRecord("Unexpected content after the object");
+            }
+            if (warehouse == null || material == null || quantity == null) {
+                throw new MalformedRecord("The fields warehouse, material and quantity are required");
+            }
+            return new StockRecord(warehouse, material, quantity);
+        }
+
+        private String readString() throws MalformedRecord {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < line.length()) {
+                char c = line.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= line.length()) {
+                    break;
+                }
+                char escaped = line.charAt(position++);
+                switch (escaped) {
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'u':
+                        if (position + 4 > line.length()) {
+                            throw new MalformedRecord("Truncated unicode escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new MalformedRecord("Invalid unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+            throw new MalformedRecord("Unterminated string");
+        }
+
+        private int readInt(String field) throws MalformedRecord {
+            skipWhitespace();
+            int start = position;
+            if (position < line.length() && line.charAt(position) == '-') {
+                position++;
+            }
+            while (position < line.length() && Character.isDigit(line.charAt(position))) {
+                position++;
+            }
+            return parseInt(line.substring(start, position), field);
+        }
+
+        private void expect(char expected) throws MalformedRecord {
+            if (!accept(expected)) {
+                throw new MalformedRecord("Expected '" + expected + "' at position " + position);
+            }
+        }
+
+        private boolean accept(char expected) {
+            if (peek() == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private char peek() {
+            skipWhitespace();
+            return position < line.length() ? line.charAt(position) : 0;
+        }
+
+        private void skipWhitespace() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+        }
+    }
+}
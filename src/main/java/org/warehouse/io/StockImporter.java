@@ -0,0 +1,268 @@
+package org.warehouse.io;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.management.Inventory;
+import org.warehouse.model.material.Material;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Loads stock records from a CSV or NDJSON stream into warehouses.
+ * The input is read line by line and cut into chunks, which are parsed and applied in parallel on an executor.
+ * At most a fixed number of chunks are in flight at once, so memory use does not depend on the size of the input.
+ * Within a chunk, rows are grouped per warehouse and each group is applied while holding the lock of the warehouse,
+ * taken through its lock owner so that a decorated warehouse locks the warehouse behind it. The rows of a group are
+ * added in bulk, adding materials the warehouse does not hold yet and increasing the quantity of those it does,
+ * so the warehouse publishes one snapshot per group rather than one per row.
+ * Rows that cannot be parsed, refer to an unknown warehouse or material type, or are rejected by the warehouse
+ * are recorded in the {@link ImportReport} and do not stop the import.
+ */
+public class StockImporter {
+
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+    private static final int DEFAULT_MAXIMUM_STORED_ERRORS = 1000;
+
+    private final IntFunction<? extends Inventory> warehouses;   // Resolves a warehouse number to its inventory.
+    private final Function<String, Material> materialResolver;   // Resolves a material type name to its material.
+    private final Executor executor;                             // Parses and applies chunks.
+    private final int chunkSize;                                 // The number of lines per chunk.
+    private final int maximumChunksInFlight;                     // Bounds the chunks held in memory at once.
+    private final int maximumStoredErrors;                       // The number of row errors kept in detail.
+
+    /**
+     * Constructs a new StockImporter running on the common fork-join pool with default chunking.
+     *
+     * @param warehouses Resolves a warehouse number to its inventory, or to null if there is no such warehouse.
+     * @param materialResolver Resolves the name of a material type to its material, or to null if it is unknown.
+     */
+    public StockImporter(IntFunction<? extends Inventory> warehouses, Function<String, Material> materialResolver) {
+        this(warehouses, materialResolver, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE,
+                ForkJoinPool.getCommonPoolParallelism() * 2, DEFAULT_MAXIMUM_STORED_ERRORS);
+    }
+
+    /**
+     * Constructs a new StockImporter.
+     *
+     * @param warehouses Resolves a warehouse number to its inventory, or to null if there is no such warehouse.
+     * @param materialResolver Resolves the name of a material type to its material, or to null if it is unknown.
+     * @param executor Parses and applies chunks.
+     * @param chunkSize The number of lines per chunk.
+     * @param maximumChunksInFlight The maximum number of chunks read but not yet applied.
+     * @param maximumStoredErrors The number of row errors kept in detail in the report.
+     */
+    public StockImporter(IntFunction<? extends Inventory> warehouses, Function<String, Material> materialResolver,
+                         Executor executor, int chunkSize, int maximumChunksInFlight, int maximumStoredErrors) {
+        if (chunkSize <= 0 || maximumChunksInFlight <= 0) {
+            throw new IllegalArgumentException("The chunk size and the number of chunks in flight should be greater than 0");
+        }
+        this.warehouses = warehouses;
+        this.materialResolver = materialResolver;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maximumChunksInFlight = maximumChunksInFlight;
+        this.maximumStoredErrors = maximumStoredErrors;
+    }
+
+    /**
+     * Imports the stock records of a UTF-8 file.
+     *
+     * @param file The file to import.
+     * @param format The format of the file.
+     * @return A report of the import.
+     * @throws IOException If the file cannot be read.
+     */
+    public ImportReport importFrom(Path file, StockFormat format) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader, format);
+        }
+    }
+
+    /**
+     * Imports the stock records of a character stream. The stream is not closed.
+     *
+     * @param reader The stream to import.
+     * @param format The format of the stream.
+     * @return A report of the import, returned once every row has been applied.
+     * @throws IOException If the stream cannot be read.
+     */
+    public ImportReport importFrom(Reader reader, StockFormat format) throws IOException {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport(maximumStoredErrors);
+        Semaphore inFlight = new Semaphore(maximumChunksInFlight);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        try {
+            long lineNumber = 0;
+            long firstLine = 1;
+            List<String> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = lines.readLine()) != null && failure.get() == null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.equals(format.header())) {
+                    firstLine = 2;
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    submit(chunk, firstLine, format, report, inFlight, failure);
+                    chunk = new ArrayList<>(chunkSize);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, firstLine, format, report, inFlight, failure);
+            }
+        } finally {
+            // Wait for every submitted chunk to be applied.
+            inFlight.acquireUninterruptibly(maximumChunksInFlight);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        report.setElapsedNanos(System.nanoTime() - start);
+        return report;
+    }
+
+    /**
+     * Helper method handing a chunk to the executor once a slot for it is free.
+     */
+    private void submit(List<String> chunk, long firstLine, StockFormat format, ImportReport report,
+                        Semaphore inFlight, AtomicReference<RuntimeException> failure) {
+        inFlight.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    importChunk(chunk, firstLine, format, report);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Helper method parsing a chunk, grouping its rows per warehouse and applying each group under one lock.
+     */
+    private void importChunk(List<String> chunk, long firstLine, StockFormat format, ImportReport report) {
+        Map<Inventory, List<Row>> rowsByWarehouse = new IdentityHashMap<>();
+        long rows = 0;
+        for (int i = 0; i < chunk.size(); i++) {
+            String line = chunk.get(i);
+            long lineNumber = firstLine + i;
+            if (line.isBlank()) {
+                continue;
+            }
+            rows++;
+            try {
+                StockRecord record = format.parse(line);
+                Inventory warehouse = warehouses.apply(record.getWarehouse());
+                if (warehouse == null) {
+                    report.addError(lineNumber, "The warehouse " + record.getWarehouse() + " does not exist");
+                    continue;
+                }
+                Material material = materialResolver.apply(record.getMaterialName());
+                if (material == null) {
+                    report.addError(lineNumber, "The material type " + record.getMaterialName() + " does not exist");
+                    continue;
+                }
+                rowsByWarehouse.computeIfAbsent(warehouse, key -> new ArrayList<>())
+                        .add(new Row(lineNumber, material, record.getQuantity()));
+            } catch (MalformedRecord e) {
+                report.addError(lineNumber, e.getMessage());
+            }
+        }
+        report.addRowsRead(rows);
+
+        for (Map.Entry<Inventory, List<Row>> group : rowsByWarehouse.entrySet()) {
+            report.addRowsImported(importGroup(group.getKey(), group.getValue(), report));
+        }
+    }
+
+    /**
+     * Helper method applying the rows of one warehouse while holding the lock of the warehouse behind any decorator.
+     * Every row is checked on its own; the valid rows are added in batches through {@link Inventory#addQuantities(Map)},
+     * each publishing one snapshot. A batch is only split when the rows of one material add up to more than a single
+     * operation accepts.
+     * @return The number of rows imported.
+     */
+    private long importGroup(Inventory warehouse, List<Row> rows, ImportReport report) {
+        long imported = 0;
+        Object owner = warehouse.acquireLockOwner();
+        try {
+            synchronized (owner) {
+                Map<Material, Integer> batch = new LinkedHashMap<>();
+                for (Row row : rows) {
+                    int maximumCapacity = row.material.getMaterialType().getMaximumCapacity();
+                    if (row.quantity <= 0) {
+                        report.addError(row.line, "The quantity must be greater than 0");
+                        continue;
+                    }
+                    if (row.quantity > maximumCapacity) {
+                        report.addError(row.line, "Adding " + row.quantity + " units of " + row.material.getMaterialType().getName() + " would exceed the max capacity of " + maximumCapacity);
+                        continue;
+                    }
+                    if (batch.getOrDefault(row.material, 0) + row.quantity > maximumCapacity) {
+                        addBatch(warehouse, batch);
+                    }
+                    batch.merge(row.material, row.quantity, Integer::sum);
+                    imported++;
+                }
+                addBatch(warehouse, batch);
+            }
+        } finally {
+            warehouse.releaseLockOwner();
+        }
+        return imported;
+    }
+
+    /**
+     * Helper method adding a batch of checked quantities to a warehouse and emptying the batch.
+     */
+    private static void addBatch(Inventory warehouse, Map<Material, Integer> batch) {
+        try {
+            warehouse.addQuantities(batch);
+        } catch (ExceedingCapacity | InvalidQuantity e) {
+            // Every quantity of the batch is positive and within the maximum capacity of its material.
+            throw new IllegalStateException(e);
+        }
+        batch.clear();
+    }
+
+    /**
+     * A parsed row waiting to be applied to its warehouse.
+     */
+    private static class Row {
+        private final long line;
+        private final Material material;
+        private final int quantity;
+
+        private Row(long line, Material material, int quantity) {
+            this.line = line;
+            this.material = material;
+            this.quantity = quantity;
+        }
+    }
+}
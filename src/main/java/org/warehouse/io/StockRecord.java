@@ -0,0 +1,50 @@
+package org.warehouse.io;
+
+/**
+ * One row of a stock file: the quantity of a material held by a warehouse.
+ */
+public class StockRecord {
+    private final int warehouse;        // The number of the warehouse holding the material.
+    private final String materialName;  // The name of the material type.
+    private final int quantity;         // The quantity held.
+
+    /**
+     * Constructs a new StockRecord.
+     *
+     * @param warehouse The number of the warehouse holding the material.
+     * @param materialName The name of the material type.
+     * @param quantity The quantity held.
+     */
+    public StockRecord(int warehouse, String materialName, int quantity) {
+        this.warehouse = warehouse;
+        this.materialName = materialName;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the number of the warehouse holding the material.
+     *
+     * @return The warehouse number.
+     */
+    public int getWarehouse() {
+        return warehouse;
+    }
+
+    /**
+     * Gets the name of the material type.
+     *
+     * @return The material type name.
+     */
+    public String getMaterialName() {
+        return materialName;
+    }
+
+    /**
+     * Gets the quantity held.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,91 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The asynchronous counterpart of {@link Inventory}.
+ * Every operation is submitted for later execution and returns a future that completes with the result,
+ * or exceptionally with the same exception {@link Inventory} would throw, such as
+ * {@link org.warehouse.exceptions.MaterialNotFound} or {@link org.warehouse.exceptions.ExceedingCapacity}.
+ */
+public interface AsyncInventory {
+
+    /**
+     * Adds a new material to the inventory if it doesn't already exist.
+     * @param material The material to add.
+     * @param quantity The quantity of the material to add.
+     * @return A future completing with the material added.
+     */
+    CompletableFuture<Material> addMaterial(Material material, int quantity);
+
+    /**
+     * Updates the quantity of an existing material in the inventory.
+     * @param material The material to update.
+     * @param quantity The quantity to add to the existing material quantity.
+     * @return A future completing once the quantity has been updated.
+     */
+    CompletableFuture<Void> updateMaterialQuantity(Material material, int quantity);
+
+    /**
+     * Adds a quantity of a material, adding the material first if the inventory does not hold it yet.
+     * This is the receiving side of a transfer.
+     * @param material The material to deposit.
+     * @param quantity The quantity to deposit.
+     * @return A future completing once the quantity has been deposited.
+     */
+    CompletableFuture<Void> deposit(Material material, int quantity);
+
+    /**
+     * Removes a material completely from the inventory.
+     * @param material The material to remove.
+     * @return A future completing with the material removed.
+     */
+    CompletableFuture<Material> removeMaterial(Material material);
+
+    /**
+     * Reduces the quantity of a specified material in the inventory by a given amount.
+     * @param material The material whose quantity is to be reduced.
+     * @param quantity The amount by which the material's quantity is to be reduced.
+     * @return A future completing with the amount by which the quantity was reduced.
+     */
+    CompletableFuture<Integer> dropSomeQuantity(Material material, int quantity);
+
+    /**
+     * Transfers all quantity of a specified material to another inventory.
+     * @param toWarehouse The destination inventory.
+     * @param material The material to be transferred.
+     * @return A future completing once the destination holds the material.
+     */
+    CompletableFuture<Void> transferFullMaterial(AsyncInventory toWarehouse, Material material);
+
+    /**
+     * Transfers a specified quantity of a material to another inventory.
+     * @param toWarehouse The destination inventory.
+     * @param material The material to be transferred.
+     * @param quantity The quantity of the material to be transferred.
+     * @return A future completing with the quantity that was transferred once the destination holds it.
+     */
+    CompletableFuture<Integer> transferSomeQuantityOfMaterial(AsyncInventory toWarehouse, Material material, int quantity);
+
+    /**
+     * Lists all materials and their quantities in the inventory.
+     * @return A future completing with a map of all materials and their respective quantities.
+     */
+    CompletableFuture<Map<Material, Integer>> listAllMaterials();
+
+    /**
+     * Retrieves the current quantity of a specified material in the inventory.
+     * @param material The material whose quantity is to be retrieved.
+     * @return A future completing with the current quantity of the material.
+     */
+    CompletableFuture<Integer> getMaterialQuantity(Material material);
+
+    /**
+     * Returns the latest published point-in-time view of the inventory without waiting for queued operations.
+     * @return An immutable snapshot of the inventory.
+     */
+    InventorySnapshot snapshot();
+}
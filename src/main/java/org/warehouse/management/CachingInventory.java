@@ -0,0 +1,407 @@
+package org.warehouse.management;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.model.material.Material;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * An inventory decorator that keeps recently read material quantities of a slower inventory in memory.
+ * Quantity lookups are answered from a bounded, least-recently-used cache whose entries expire after
+ * a configurable time to live. Writes made through this decorator invalidate the affected entries, and
+ * registering the decorator as an {@link InventoryChangeListener} on the backing warehouse also
+ * invalidates entries on writes made by others.
+ * Invalidation never takes the lock of the cache: it is recorded in a concurrent set that lookups apply before
+ * reading the cache, so a warehouse notifying the cache while holding its own lock cannot deadlock with a thread
+ * that holds the cache.
+ * The decorator reports hit, miss, eviction and expiration counts together with the age of cached entries.
+ */
+public class CachingInventory implements Inventory, InventoryChangeListener {
+
+    private final Inventory delegate;    // The backing inventory whose quantities are cached.
+    private final int maximumSize;       // The maximum number of materials kept in the cache.
+    private final long timeToLiveNanos;  // How long a cached quantity may be served after it was loaded.
+    private final LongSupplier clock;    // The source of the current time in nanoseconds.
+
+    // Cache of material quantities in access order, so the least recently used entry is evicted first.
+    private final Map<Material, CachedQuantity> cachedQuantities;
+
+    private long hitCount;         // Lookups answered from the cache.
+    private long missCount;        // Lookups that had to go to the backing inventory.
+    private long evictionCount;    // Entries dropped because the cache was full.
+    private long expirationCount;  // Entries dropped because they outlived the time to live.
+
+    // Materials invalidated since the cache was last read, and whether the whole cache was invalidated.
+    private final Map<Material, Boolean> pendingInvalidations = new ConcurrentHashMap<>();
+    private final AtomicBoolean pendingClear = new AtomicBoolean();
+
+    // Incremented on every invalidation, so a load that raced with a write is not put into the cache.
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Constructs a new CachingInventory in front of the given inventory.
+     *
+     * @param delegate The backing inventory whose quantities are cached.
+     * @param maximumSize The maximum number of materials kept in the cache.
+     * @param timeToLive How long a cached quantity may be served after it was loaded.
+     * @param unit The time unit of the time to live.
+     */
+    public CachingInventory(Inventory delegate, int maximumSize, long timeToLive, TimeUnit unit) {
+        this(delegate, maximumSize, timeToLive, unit, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new CachingInventory in front of the given inventory using a custom clock.
+     *
+     * @param delegate The backing inventory whose quantities are cached.
+     * @param maximumSize The maximum number of materials kept in the cache.
+     * @param timeToLive How long a cached quantity may be served after it was loaded.
+     * @param unit The time unit of the time to live.
+     * @param clock The source of the current time in nanoseconds.
+     */
+    public CachingInventory(Inventory delegate, int maximumSize, long timeToLive, TimeUnit unit, LongSupplier clock) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size of the cache must be greater than 0");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.clock = clock;
+        this.cachedQuantities = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Material, CachedQuantity> eldest) {
+                if (size() > CachingInventory.this.maximumSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Adds a new material to the backing inventory and invalidates its cached quantity.
+     */
+    @Override
+    public Material addMaterial(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists {
+        try {
+            return delegate.addMaterial(material, quantity);
+        } finally {
+            invalidate(material);
+        }
+    }
+
+    /**
+     * Updates the quantity of a material in the backing inventory and invalidates its cached quantity.
+     */
+    @Override
+    public void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        try {
+            delegate.updateMaterialQuantity(material, quantity);
+        } finally {
+            invalidate(material);
+        }
+    }
+
+    /**
+     * Removes a material from the backing inventory and invalidates its cached quantity.
+     */
+    @Override
+    public Material removeMaterial(Material material) throws MaterialNotFound {
+        try {
+            return delegate.removeMaterial(material);
+        } finally {
+            invalidate(material);
+        }
+    }
+
+    /**
+     * Reduces the quantity of a material in the backing inventory and invalidates its cached quantity.
+     */
+    @Override
+    public int dropSomeQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        try {
+            return delegate.dropSomeQuantity(material, quantity);
+        } finally {
+            invalidate(material);
+        }
+    }
+
+    /**
+     * Adds quantities of several materials to the backing inventory and invalidates their cached quantities.
+     */
+    @Override
+    public void addQuantities(Map<Material, Integer> quantities) throws ExceedingCapacity, InvalidQuantity {
+        try {
+            delegate.addQuantities(quantities);
+        } finally {
+            for (Material material : quantities.keySet()) {
+                invalidate(material);
+            }
+        }
+    }
+
+    /**
+     * Transfers all quantity of a material from the backing inventory and invalidates its cached quantity.
+     */
+    @Override
+    public void transferFullMaterial(Inventory toWarehouse, Material material) throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        try {
+            delegate.transferFullMaterial(toWarehouse, material);
+        } finally {
+            invalidate(material);
+        }
+    }
+
+    /**
+     * Transfers some quantity of a material from the backing inventory and invalidates its cached quantity.
+     */
+    @Override
+    public int transferSomeQuantityOfMaterial(Inventory toWarehouse, Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        try {
+            return delegate.transferSomeQuantityOfMaterial(toWarehouse, material, quantity);
+        } finally {
+            invalidate(material);
+        }
+    }
+
+    /**
+     * Transfers several materials from the backing inventory in a single pass and invalidates their cached quantities.
+     */
+    @Override
+    public TransferReport transferMaterials(Inventory toWarehouse, Collection<Material> materials) {
+        try {
+            return delegate.transferMaterials(toWarehouse, materials);
+        } finally {
+            for (Material material : materials) {
+                invalidate(material);
+            }
+        }
+    }
+
+    /**
+     * Transfers every material from the backing inventory in a single pass and invalidates the whole cache.
+     */
+    @Override
+    public TransferReport transferAllMaterials(Inventory toWarehouse) {
+        try {
+            return delegate.transferAllMaterials(toWarehouse);
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    /**
+     * Lists all materials of the backing inventory and refreshes the cache with the returned quantities.
+     * @return A map of all materials and their respective quantities.
+     */
+    @Override
+    public Map<Material, Integer> listAllMaterials() {
+        long loadGeneration = generation.get();
+        Map<Material, Integer> materials = delegate.listAllMaterials();
+        synchronized (this) {
+            applyInvalidations();
+            if (loadGeneration != generation.get()) {
+                return materials;
+            }
+            long now = clock.getAsLong();
+            for (Map.Entry<Material, Integer> entry : materials.entrySet()) {
+                cachedQuantities.put(entry.getKey(), new CachedQuantity(entry.getValue(), now));
+            }
+        }
+        return materials;
+    }
+
+    /**
+     * Returns a snapshot of the backing inventory; snapshots are already immutable and are never cached.
+     */
+    @Override
+    public InventorySnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    /**
+     * Retrieves the quantity of a material, answering from the cache when this inventory or its backing
+     * inventory is queried and a fresh entry is available.
+     * Queries about any other inventory are passed through uncached.
+     * @param warehouse The inventory from which to retrieve the material quantity.
+     * @param material The material whose quantity is to be retrieved.
+     * @return The current quantity of the material.
+     * @throws MaterialNotFound If the material is not found in the warehouse's inventory.
+     */
+    @Override
+    public int getMaterialQuantity(Inventory warehouse, Material material) throws MaterialNotFound {
+        if (warehouse != this && warehouse != delegate) {
+            return delegate.getMaterialQuantity(warehouse, material);
+        }
+
+        long loadGeneration;
+        synchronized (this) {
+            applyInvalidations();
+            CachedQuantity cached = cachedQuantities.get(material);
+            if (cached != null) {
+                if (clock.getAsLong() - cached.loadedAt < timeToLiveNanos) {
+                    hitCount++;
+                    return cached.quantity;
+                }
+                cachedQuantities.remove(material);
+                expirationCount++;
+            }
+            missCount++;
+            loadGeneration = generation.get();
+        }
+
+        int quantity = delegate.getMaterialQuantity(delegate, material);
+        synchronized (this) {
+            applyInvalidations();
+            if (loadGeneration == generation.get()) {
+                cachedQuantities.put(material, new CachedQuantity(quantity, clock.getAsLong()));
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Returns the lock owner of the backing inventory, so transfers into this decorator lock the warehouse behind it.
+     */
+    @Override
+    public Object acquireLockOwner() {
+        return delegate.acquireLockOwner();
+    }
+
+    @Override
+    public void releaseLockOwner() {
+        delegate.releaseLockOwner();
+    }
+
+    /**
+     * Invalidates the cached quantity of a material whenever the backing warehouse reports a change.
+     * @param inventory The inventory in which the change happened.
+     * @param material The material whose quantity changed.
+     * @param previousQuantity The quantity of the material before the change.
+     * @param newQuantity The quantity of the material after the change.
+     */
+    @Override
+    public void quantityChanged(Inventory inventory, Material material, int previousQuantity, int newQuantity) {
+        invalidate(material);
+    }
+
+    /**
+     * Drops the cached quantity of a material so the next lookup reads it from the backing inventory.
+     * Does not lock the cache.
+     * @param material The material to invalidate.
+     */
+    public void invalidate(Material material) {
+        generation.incrementAndGet();
+        pendingInvalidations.put(material, Boolean.TRUE);
+    }
+
+    /**
+     * Drops every cached quantity. Does not lock the cache.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        pendingClear.set(true);
+    }
+
+    /**
+     * Gets the age of the cached quantity of a material, i.e. how stale the served value may be.
+     * @param material The material whose cache entry is inspected.
+     * @param unit The time unit of the returned age.
+     * @return The time since the quantity was loaded, or -1 if the material is not cached.
+     */
+    public synchronized long getStaleness(Material material, TimeUnit unit) {
+        applyInvalidations();
+        CachedQuantity cached = cachedQuantities.get(material);
+        if (cached == null) {
+            return -1;
+        }
+        return unit.convert(clock.getAsLong() - cached.loadedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the share of quantity lookups that were answered from the cache.
+     * @return The hit rate between 0 and 1, or 0 if no lookup was made yet.
+     */
+    public synchronized double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Gets the number of quantity lookups answered from the cache.
+     * @return The hit count.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of quantity lookups that went to the backing inventory.
+     * @return The miss count.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of entries dropped because the cache reached its maximum size.
+     * @return The eviction count.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of entries dropped because they outlived the time to live.
+     * @return The expiration count.
+     */
+    public synchronized long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Gets the number of materials currently cached.
+     * @return The cache size.
+     */
+    public synchronized int size() {
+        applyInvalidations();
+        return cachedQuantities.size();
+    }
+
+    /**
+     * Helper method removing the entries invalidated since the cache was last read.
+     * Must be called while holding the lock of the cache.
+     */
+    private void applyInvalidations() {
+        if (pendingClear.getAndSet(false)) {
+            cachedQuantities.clear();
+        }
+        if (!pendingInvalidations.isEmpty()) {
+            for (Material material : pendingInvalidations.keySet()) {
+                pendingInvalidations.remove(material);
+                cachedQuantities.remove(material);
+            }
+        }
+    }
+
+    /**
+     * A quantity read from the backing inventory together with the time it was loaded.
+     */
+    private static class CachedQuantity {
+        private final int quantity;
+        private final long loadedAt;
+
+        private CachedQuantity(int quantity, long loadedAt) {
+            this.quantity = quantity;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
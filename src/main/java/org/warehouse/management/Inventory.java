@@ -3,6 +3,7 @@ package org.warehouse.management;
 import org.warehouse.exceptions.*;
 import org.warehouse.model.material.Material;
 
+import java.util.Collection;
 import java.util.Map;
 
 /**
@@ -33,6 +34,15 @@ public interface Inventory {
      */
     void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound;
 
+    /**
+     * Adds quantities of several materials in a single operation, adding the materials the warehouse does not
+     * hold yet. Every quantity is checked before any is changed, so either all quantities are added or none is.
+     * @param quantities The quantity to add to each material.
+     * @throws ExceedingCapacity If a quantity exceeds the maximum capacity of its material.
+     * @throws InvalidQuantity If a quantity is less than or equal to zero.
+     */
+    void addQuantities(Map<Material, Integer> quantities) throws ExceedingCapacity, InvalidQuantity;
+
     /**
      * Removes a material completely from the warehouse.
      * @param material The material to remove.
@@ -78,12 +88,38 @@ public interface Inventory {
      */
     int transferSomeQuantityOfMaterial(Inventory toWarehouse, Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound;
 
+    /**
+     * Transfers the full quantity of several materials to another warehouse in a single pass.
+     * Both warehouses, and the warehouse behind a decorated destination, stay locked for the whole operation. Capacity conflicts are handled per material:
+     * a material whose combined quantity would exceed its maximum capacity stays in this warehouse
+     * and is reported as rejected, while the remaining materials are still transferred.
+     * @param toWarehouse The destination warehouse to which the materials are to be transferred.
+     * @param materials The materials to be transferred.
+     * @return A report of the transferred and rejected materials.
+     */
+    TransferReport transferMaterials(Inventory toWarehouse, Collection<Material> materials);
+
+    /**
+     * Transfers the full quantity of every material to another warehouse in a single pass,
+     * emptying this warehouse except for materials rejected because of capacity conflicts.
+     * @param toWarehouse The destination warehouse into which this warehouse is consolidated.
+     * @return A report of the transferred and rejected materials.
+     */
+    TransferReport transferAllMaterials(Inventory toWarehouse);
+
     /**
      * Lists all materials and their quantities in the warehouse.
      * @return A map of all materials and their respective quantities.
      */
     Map<Material, Integer> listAllMaterials();
 
+    /**
+     * Returns a consistent, point-in-time view of all materials and their quantities.
+     * Taking a snapshot never blocks writers, and later writes are not visible through it.
+     * @return An immutable snapshot of the inventory.
+     */
+    InventorySnapshot snapshot();
+
     /**
      * Retrieves the current quantity of a specified material in the warehouse.
      * @param warehouse The inventory from which to retrieve the material quantity.
@@ -92,4 +128,21 @@ public interface Inventory {
      * @throws MaterialNotFound If the material is not found in the warehouse's inventory.
      */
     int getMaterialQuantity(Inventory warehouse, Material material) throws MaterialNotFound;
+
+    /**
+     * Gets the object whose lock guards the contents of this inventory, for operations that lock two inventories
+     * at once, such as transfers. A decorator returns the lock owner of the inventory it wraps, so that locking it
+     * excludes every other writer of the same contents. The owner stays the same until {@link #releaseLockOwner()}
+     * is called.
+     * @return The object to synchronize on; the inventory itself unless it wraps another one.
+     */
+    default Object acquireLockOwner() {
+        return this;
+    }
+
+    /**
+     * Releases the lock owner returned by the matching call to {@link #acquireLockOwner()}.
+     */
+    default void releaseLockOwner() {
+    }
 }
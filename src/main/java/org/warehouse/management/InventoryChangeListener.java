@@ -0,0 +1,38 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+/**
+ * A listener notified whenever the stored quantity of a material changes in an inventory.
+ * Listeners are registered on a {@link WareHouse} and form its change stream, which caches,
+ * histories and other derived views use to stay consistent with the warehouse contents.
+ */
+public interface InventoryChangeListener {
+
+    /**
+     * Called after the quantity of a material has changed.
+     * A material that is added reports a previous quantity of 0 and a material that is removed
+     * reports a new quantity of 0.
+     *
+     * @param inventory The inventory in which the change happened.
+     * @param material The material whose quantity changed.
+     * @param previousQuantity The quantity of the material before the change.
+     * @param newQuantity The quantity of the material after the change.
+     */
+    void quantityChanged(Inventory inventory, Material material, int previousQuantity, int newQuantity);
+
+    /**
+     * Called instead of {@link #quantityChanged} when the quantity of a material drops because a transfer moved it
+     * to another inventory. The destination has already been credited and both inventories are still locked.
+     * By default the transfer is reported as a plain change of the source.
+     *
+     * @param source The inventory the material was moved out of.
+     * @param destination The inventory the material was moved to; the warehouse behind it if it is decorated.
+     * @param material The material whose quantity changed.
+     * @param previousQuantity The quantity of the material in the source before the change.
+     * @param newQuantity The quantity of the material in the source after the change.
+     */
+    default void quantityTransferred(Inventory source, Inventory destination, Material material, int previousQuantity, int newQuantity) {
+        quantityChanged(source, material, previousQuantity, newQuantity);
+    }
+}
@@ -0,0 +1,74 @@
+package org.warehouse.management;
+
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.model.material.Material;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, point-in-time view of the materials of an inventory.
+ * A warehouse publishes a new snapshot after every change, so a reader holding a snapshot sees one
+ * consistent version of all quantities no matter how many writes happen afterwards. Versions that no
+ * reader references any more are reclaimed by the garbage collector.
+ */
+public class InventorySnapshot {
+
+    private final long version;                 // The number of changes applied to the inventory when the snapshot was taken.
+    private final Map<Material, Integer> materials; // The materials and their quantities at that version.
+
+    /**
+     * Constructs a new InventorySnapshot holding a private copy of the given materials.
+     *
+     * @param version The number of changes applied to the inventory when the snapshot was taken.
+     * @param materials The materials and their quantities at that version.
+     */
+    public InventorySnapshot(long version, Map<Material, Integer> materials) {
+        this.version = version;
+        this.materials = Collections.unmodifiableMap(new HashMap<>(materials));
+    }
+
+    /**
+     * Gets the version of the inventory captured by this snapshot.
+     *
+     * @return The version; a higher version is a later state of the same inventory.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets all materials and their quantities at this version.
+     *
+     * @return An unmodifiable map of materials to quantities.
+     */
+    public Map<Material, Integer> getMaterials() {
+        return materials;
+    }
+
+    /**
+     * Checks whether a material was present at this version.
+     *
+     * @param material The material to look for.
+     * @return true if the material was present.
+     */
+    public boolean contains(Material material) {
+        return materials.containsKey(material);
+    }
+
+    /**
+     * Gets the quantity of a material at this version.
+     *
+     * @param material The material whose quantity is to be retrieved.
+     * @return The quantity of the material.
+     * @throws MaterialNotFound If the material was not present at this version.
+     */
+    public int getQuantity(Material material) throws MaterialNotFound {
+        Integer quantity = materials.get(material);
+        if (quantity == null) {
+            throw new MaterialNotFound("The material's quantity you want to see is not found");
+        }
+        return quantity;
+    }
+}
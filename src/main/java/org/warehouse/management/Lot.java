@@ -0,0 +1,50 @@
+package org.warehouse.management;
+
+/**
+ * A quantity of a material that arrived in a warehouse at one time, as tracked by a {@link LotTracker}.
+ */
+public class Lot {
+    private final long arrival;  // When the lot arrived, in milliseconds of the tracker's clock.
+    private final long expiry;   // When the lot expires, or Long.MAX_VALUE if it never does.
+    private final int quantity;  // The quantity of the lot that is still in stock.
+
+    /**
+     * Constructs a new Lot.
+     *
+     * @param arrival When the lot arrived, in milliseconds of the tracker's clock.
+     * @param expiry When the lot expires, or Long.MAX_VALUE if it never does.
+     * @param quantity The quantity of the lot that is still in stock.
+     */
+    public Lot(long arrival, long expiry, int quantity) {
+        this.arrival = arrival;
+        this.expiry = expiry;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets when the lot arrived.
+     *
+     * @return The arrival time in milliseconds.
+     */
+    public long getArrival() {
+        return arrival;
+    }
+
+    /**
+     * Gets when the lot expires.
+     *
+     * @return The expiry time in milliseconds, or Long.MAX_VALUE if the lot never expires.
+     */
+    public long getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * Gets the quantity of the lot that is still in stock.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
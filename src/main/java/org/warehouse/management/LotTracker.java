@@ -0,0 +1,323 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks the lots making up the stock of every material in every observed warehouse.
+ * Registered as an {@link InventoryChangeListener} on a {@link WareHouse}, it turns every increase of a quantity
+ * into a lot with its arrival time and an expiry derived from the shelf life of the material type, and consumes
+ * the oldest lots first on every decrease, so drops and transfers out of a warehouse are first in, first out.
+ * When the source of a transfer reports it through
+ * {@link InventoryChangeListener#quantityTransferred}, the lots taken from the source replace the lot just credited
+ * to an observed destination, keeping their original arrival and expiry; they join the back of the destination
+ * queue.
+ * The lots of a warehouse and material form a ring-buffer deque over three primitive arrays, so a lot costs 20
+ * bytes and adding or consuming lots is amortized O(1) per lot. Stock found when a material is first observed,
+ * or stock that changed while the tracker was not registered, is recorded as a lot arriving at that moment.
+ */
+public class LotTracker implements InventoryChangeListener {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final LongSupplier clock;  // The source of arrival times in milliseconds.
+
+    // The shelf life of every material type with one, in milliseconds.
+    private final Map<MaterialType, Long> shelfLives = new ConcurrentHashMap<>();
+
+    // The lots of every observed warehouse and material.
+    private final Map<Inventory, Map<Material, Lots>> lots = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new LotTracker using the system clock.
+     */
+    public LotTracker() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new LotTracker.
+     *
+     * @param clock The source of arrival times in milliseconds; it should not go backwards.
+     */
+    public LotTracker(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Sets how long lots of a material type keep after they arrive. Lots of types without a shelf life never expire.
+     * Only lots arriving after the call are affected.
+     *
+     * @param type The material type.
+     * @param millis The shelf life in milliseconds.
+     */
+    public void setShelfLife(MaterialType type, long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("The shelf life should not be negative");
+        }
+        shelfLives.put(type, millis);
+    }
+
+    @Override
+    public void quantityChanged(Inventory inventory, Material material, int previousQuantity, int newQuantity) {
+        Lots queue = queueOf(inventory, material);
+        long now = clock.getAsLong();
+        int previous = Math.max(0, previousQuantity);
+        int delta = Math.max(0, newQuantity) - previous;
+        synchronized (queue) {
+            queue.reconcile(previous, now);
+            if (delta > 0) {
+                Long shelfLife = shelfLives.get(material.getMaterialType());
+                long expiry = shelfLife == null || now > Long.MAX_VALUE - shelfLife ? Long.MAX_VALUE : now + shelfLife;
+                queue.addLast(now, expiry, delta);
+            } else if (delta < 0) {
+                queue.consume(-delta, null);
+            }
+        }
+    }
+
+    @Override
+    public void quantityTransferred(Inventory source, Inventory destination, Material material, int previousQuantity, int newQuantity) {
+        Lots credited = lotsOf(destination, material);
+        int previous = Math.max(0, previousQuantity);
+        int moved = previous - Math.max(0, newQuantity);
+        if (credited == null || moved <= 0) {
+            quantityChanged(source, material, previousQuantity, newQuantity);
+            return;
+        }
+        Lots queue = queueOf(source, material);
+        Lots taken = new Lots();
+        synchronized (queue) {
+            queue.reconcile(previous, clock.getAsLong());
+            queue.consume(moved, taken);
+        }
+        // The destination was credited just before and is still locked, so its newest lot is the moved quantity.
+        synchronized (credited) {
+            credited.replaceLast(moved, taken);
+        }
+    }
+
+    /**
+     * Gets the lots of a material in a warehouse, in the order they will be consumed.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @return The lots, oldest first.
+     */
+    public List<Lot> getLots(Inventory inventory, Material material) {
+        return lotsExpiringBefore(inventory, material, Long.MAX_VALUE, true);
+    }
+
+    /**
+     * Gets the lots of a material in a warehouse that expire before a given time.
+     * While the lots were added in order of expiry, as they are when every lot of a material type has the same
+     * shelf life, only the expiring lots at the front of the queue are visited.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @param time The time in milliseconds.
+     * @return The lots expiring strictly before the time, in the order they will be consumed.
+     */
+    public List<Lot> lotsExpiringBefore(Inventory inventory, Material material, long time) {
+        return lotsExpiringBefore(inventory, material, time, false);
+    }
+
+    /**
+     * Gets the quantity of a material in a warehouse that expires before a given time.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @param time The time in milliseconds.
+     * @return The total quantity of the lots expiring strictly before the time.
+     */
+    public long quantityExpiringBefore(Inventory inventory, Material material, long time) {
+        long quantity = 0;
+        for (Lot lot : lotsExpiringBefore(inventory, material, time)) {
+            quantity += lot.getQuantity();
+        }
+        return quantity;
+    }
+
+    /**
+     * Gets the number of lots of a material in a warehouse.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @return The number of lots.
+     */
+    public int getLotCount(Inventory inventory, Material material) {
+        Lots queue = lotsOf(inventory, material);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.size;
+        }
+    }
+
+    private List<Lot> lotsExpiringBefore(Inventory inventory, Material material, long time, boolean all) {
+        List<Lot> expiring = new ArrayList<>();
+        Lots queue = lotsOf(inventory, material);
+        if (queue != null) {
+            synchronized (queue) {
+                queue.collect(time, all, expiring);
+            }
+        }
+        return expiring;
+    }
+
+    private Lots queueOf(Inventory inventory, Material material) {
+        return lots.computeIfAbsent(inventory, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(material, key -> new Lots());
+    }
+
+    private Lots lotsOf(Inventory inventory, Material material) {
+        Map<Material, Lots> materials = lots.get(inventory);
+        return materials == null ? null : materials.get(material);
+    }
+
+    /**
+     * The lots of one warehouse and material as a ring buffer, oldest at the head, guarded by the queue itself.
+     */
+    private static class Lots {
+        private long[] arrivals = new long[INITIAL_CAPACITY];
+        private long[] expiries = new long[INITIAL_CAPACITY];
+        private int[] quantities = new int[INITIAL_CAPACITY];
+        private int head;              // The index of the oldest lot.
+        private int size;              // The number of lots.
+        private long total;            // The quantity of all lots.
+        private boolean expiryOrdered = true; // Whether no lot expires before the lots ahead of it.
+
+        /**
+         * Brings the lots in line with the quantity the warehouse reports before a change: missing stock becomes
+         * a lot at the front and stock the warehouse no longer has is consumed.
+         */
+        private void reconcile(int quantity, long now) {
+            if (total < quantity) {
+                addFirst(now, Long.MAX_VALUE, (int) (quantity - total));
+            } else if (total > quantity) {
+                consume((int) (total - quantity), null);
+            }
+        }
+
+        private void addLast(long arrival, long expiry, int quantity) {
+            grow();
+            int tail = (head + size) & (arrivals.length - 1);
+            if (size > 0 && expiry < expiries[(tail - 1) & (arrivals.length - 1)]) {
+                expiryOrdered = false;
+            }
+            arrivals[tail] = arrival;
+            expiries[tail] = expiry;
+            quantities[tail] = quantity;
+            size++;
+            total += quantity;
+        }
+
+        private void addFirst(long arrival, long expiry, int quantity) {
+            grow();
+            if (size > 0 && expiry > expiries[head]) {
+                expiryOrdered = false;
+            }
+            head = (head - 1) & (arrivals.length - 1);
+            arrivals[head] = arrival;
+            expiries[head] = expiry;
+            quantities[head] = quantity;
+            size++;
+            total += quantity;
+        }
+
+        /**
+         * Takes a quantity from the oldest lots, moving what was taken into another queue if one is given.
+         */
+        private void consume(int quantity, Lots taken) {
+            int remaining = quantity;
+            while (remaining > 0 && size > 0) {
+                int amount = Math.min(remaining, quantities[head]);
+                if (taken != null) {
+                    taken.addLast(arrivals[head], expiries[head], amount);
+                }
+                quantities[head] -= amount;
+                total -= amount;
+                remaining -= amount;
+                if (quantities[head] == 0) {
+                    head = (head + 1) & (arrivals.length - 1);
+                    size--;
+                }
+            }
+            if (size == 0) {
+                head = 0;
+                expiryOrdered = true;
+            }
+            shrink();
+        }
+
+        /**
+         * Replaces the newest lot, which must hold the given quantity, by the lots of another queue.
+         */
+        private void replaceLast(int quantity, Lots replacement) {
+            int tail = (head + size - 1) & (arrivals.length - 1);
+            if (size == 0 || quantities[tail] != quantity || replacement.total != quantity) {
+                return;
+            }
+            size--;
+            total -= quantity;
+            for (int i = 0; i < replacement.size; i++) {
+                int index = (replacement.head + i) & (replacement.arrivals.length - 1);
+                addLast(replacement.arrivals[index], replacement.expiries[index], replacement.quantities[index]);
+            }
+        }
+
+        /**
+         * Collects the lots expiring before a time, or all lots, oldest first.
+         */
+        private void collect(long time, boolean all, List<Lot> lots) {
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) & (arrivals.length - 1);
+                if (all || expiries[index] < time) {
+                    lots.add(new Lot(arrivals[index], expiries[index], quantities[index]));
+                } else if (expiryOrdered) {
+                    return;
+                }
+            }
+        }
+
+        private void grow() {
+            if (size < arrivals.length) {
+                return;
+            }
+            resize(arrivals.length * 2);
+        }
+
+        private void shrink() {
+            if (arrivals.length > INITIAL_CAPACITY && size < arrivals.length / 4) {
+                resize(arrivals.length / 2);
+            }
+        }
+
+        /**
+         * Helper method copying the lots into arrays of a new power-of-two length, oldest first.
+         */
+        private void resize(int capacity) {
+            long[] newArrivals = new long[capacity];
+            long[] newExpiries = new long[capacity];
+            int[] newQuantities = new int[capacity];
+            int first = Math.min(size, arrivals.length - head);
+            System.arraycopy(arrivals, head, newArrivals, 0, first);
+            System.arraycopy(expiries, head, newExpiries, 0, first);
+            System.arraycopy(quantities, head, newQuantities, 0, first);
+            System.arraycopy(arrivals, 0, newArrivals, first, size - first);
+            System.arraycopy(expiries, 0, newExpiries, first, size - first);
+            System.arraycopy(quantities, 0, newQuantities, first, size - first);
+            arrivals = newArrivals;
+            expiries = newExpiries;
+            quantities = newQuantities;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.warehouse.management;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.model.material.Material;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An inventory proxy for a warehouse managed by a {@link WarehousePager}.
+ * Every operation loads the warehouse from disk if it was paged out and keeps it in memory
+ * until the operation has finished, so a warehouse is never paged out while it is being changed.
+ */
+public class PagedInventory implements Inventory {
+
+    private final WarehousePager pager; // The pager holding the warehouse.
+    private final long id;              // The id of the warehouse in the pager.
+
+    /**
+     * Constructs a new PagedInventory for a warehouse of the given pager.
+     *
+     * @param pager The pager holding the warehouse.
+     * @param id The id of the warehouse.
+     */
+    PagedInventory(WarehousePager pager, long id) {
+        this.pager = pager;
+        this.id = id;
+    }
+
+    /**
+     * Gets the id of the warehouse in its pager.
+     *
+     * @return The id of the warehouse.
+     */
+    public long getId() {
+        return id;
+    }
+
+    @Override
+    public Material addMaterial(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.addMaterial(material, quantity);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            warehouse.updateMaterialQuantity(material, quantity);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public Material removeMaterial(Material material) throws MaterialNotFound {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.removeMaterial(material);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public int dropSomeQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.dropSomeQuantity(material, quantity);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public void transferFullMaterial(Inventory toWarehouse, Material material) throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            warehouse.transferFullMaterial(target(toWarehouse, warehouse), material);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public int transferSomeQuantityOfMaterial(Inventory toWarehouse, Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.transferSomeQuantityOfMaterial(target(toWarehouse, warehouse), material, quantity);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public void addQuantities(Map<Material, Integer> quantities) throws ExceedingCapacity, InvalidQuantity {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            warehouse.addQuantities(quantities);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public TransferReport transferMaterials(Inventory toWarehouse, Collection<Material> materials) {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.transferMaterials(target(toWarehouse, warehouse), materials);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public TransferReport transferAllMaterials(Inventory toWarehouse) {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.transferAllMaterials(target(toWarehouse, warehouse));
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public Map<Material, Integer> listAllMaterials() {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.listAllMaterials();
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public InventorySnapshot snapshot() {
+        WareHouse warehouse = pager.pin(id);
+        try {
+            return warehouse.snapshot();
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    @Override
+    public int getMaterialQuantity(Inventory warehouse, Material material) throws MaterialNotFound {
+        WareHouse resident = pager.pin(id);
+        try {
+            return resident.getMaterialQuantity(target(warehouse, resident), material);
+        } finally {
+            pager.unpin(id);
+        }
+    }
+
+    /**
+     * Pins the warehouse, so it cannot be paged out and replaced while a transfer holds its lock.
+     *
+     * @return The warehouse behind this proxy.
+     */
+    @Override
+    public Object acquireLockOwner() {
+        return pager.pin(id);
+    }
+
+    /**
+     * Unpins the warehouse pinned by {@link #acquireLockOwner()}.
+     */
+    @Override
+    public void releaseLockOwner() {
+        pager.unpin(id);
+    }
+
+    /**
+     * Helper method replacing this proxy by the warehouse behind it, so a transfer to itself is recognised as such.
+     */
+    private Inventory target(Inventory toWarehouse, WareHouse warehouse) {
+        return toWarehouse == this ? warehouse : toWarehouse;
+    }
+}
@@ -0,0 +1,64 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+/**
+ * A single transfer of a material between two warehouses proposed by the {@link RebalancingPlanner}.
+ */
+public class RebalancingMove {
+    private final Inventory fromWarehouse; // The warehouse giving away stock.
+    private final Inventory toWarehouse;   // The warehouse receiving stock.
+    private final Material material;       // The material to move.
+    private final int quantity;            // The quantity to move.
+
+    /**
+     * Constructs a new RebalancingMove.
+     *
+     * @param fromWarehouse The warehouse giving away stock.
+     * @param toWarehouse The warehouse receiving stock.
+     * @param material The material to move.
+     * @param quantity The quantity to move.
+     */
+    public RebalancingMove(Inventory fromWarehouse, Inventory toWarehouse, Material material, int quantity) {
+        this.fromWarehouse = fromWarehouse;
+        this.toWarehouse = toWarehouse;
+        this.material = material;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the warehouse giving away stock.
+     *
+     * @return The source warehouse.
+     */
+    public Inventory getFromWarehouse() {
+        return fromWarehouse;
+    }
+
+    /**
+     * Gets the warehouse receiving stock.
+     *
+     * @return The destination warehouse.
+     */
+    public Inventory getToWarehouse() {
+        return toWarehouse;
+    }
+
+    /**
+     * Gets the material to move.
+     *
+     * @return The material.
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Gets the quantity to move.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
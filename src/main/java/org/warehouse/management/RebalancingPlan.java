@@ -0,0 +1,65 @@
+package org.warehouse.management;
+
+import org.warehouse.exceptions.*;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of transfers computed by the {@link RebalancingPlanner} that levels stock across warehouses.
+ * The plan is executed as one batch of {@link Inventory#transferSomeQuantityOfMaterial} calls.
+ */
+public class RebalancingPlan {
+
+    private final List<RebalancingMove> moves; // The transfers making up the plan.
+
+    /**
+     * Constructs a new RebalancingPlan made of the given moves.
+     *
+     * @param moves The transfers making up the plan.
+     */
+    public RebalancingPlan(List<RebalancingMove> moves) {
+        this.moves = moves;
+    }
+
+    /**
+     * Gets the transfers making up the plan.
+     *
+     * @return An unmodifiable list of moves.
+     */
+    public List<RebalancingMove> getMoves() {
+        return Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Gets the total quantity moved by the plan.
+     *
+     * @return The sum of the quantities of all moves.
+     */
+    public long getTotalQuantity() {
+        long total = 0;
+        for (RebalancingMove move : moves) {
+            total += move.getQuantity();
+        }
+        return total;
+    }
+
+    /**
+     * Executes every move of the plan. A move that fails does not stop the remaining moves.
+     *
+     * @return The moves that failed and the exception each of them raised; empty if the whole plan succeeded.
+     */
+    public Map<RebalancingMove, Exception> execute() {
+        Map<RebalancingMove, Exception> failures = new LinkedHashMap<>();
+        for (RebalancingMove move : moves) {
+            try {
+                move.getFromWarehouse().transferSomeQuantityOfMaterial(move.getToWarehouse(), move.getMaterial(), move.getQuantity());
+            } catch (ExceedingCapacity | InvalidQuantity | MaterialAlreadyExists | MaterialNotFound e) {
+                failures.put(move, e);
+            }
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,173 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes transfers that balance the stock of each material across a set of warehouses.
+ * Every warehouse is brought as close as possible to the same level of each material, while no warehouse
+ * is filled above the target utilization of the material's maximum capacity. Warehouses above the level
+ * give away their surplus and warehouses below it receive stock, matched greedily so that the number of
+ * moves per material is at most the number of givers plus the number of receivers minus one.
+ * Materials are solved independently and in parallel on a fork-join pool.
+ */
+public class RebalancingPlanner {
+
+    private final ForkJoinPool pool; // The pool on which materials are solved in parallel.
+
+    /**
+     * Constructs a new RebalancingPlanner using the common fork-join pool.
+     */
+    public RebalancingPlanner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new RebalancingPlanner using the given fork-join pool.
+     *
+     * @param pool The pool on which materials are solved in parallel.
+     */
+    public RebalancingPlanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Computes a plan balancing the stock of every material held by the given warehouses.
+     *
+     * @param warehouses The warehouses to balance.
+     * @param targetUtilization The highest share of a material's maximum capacity a warehouse may be filled to,
+     *                          between 0 (exclusive) and 1 (inclusive).
+     * @return The plan of transfers to execute.
+     */
+    public RebalancingPlan plan(List<? extends Inventory> warehouses, double targetUtilization) {
+        if (targetUtilization <= 0 || targetUtilization > 1) {
+            throw new IllegalArgumentException("The target utilization must be greater than 0 and at most 1");
+        }
+
+        // Read a snapshot of every warehouse once and lay the quantities of each material out as one array per material.
+        Map<Material, int[]> quantitiesByMaterial = new HashMap<>();
+        for (int i = 0; i < warehouses.size(); i++) {
+            for (Map.Entry<Material, Integer> entry : warehouses.get(i).snapshot().getMaterials().entrySet()) {
+                quantitiesByMaterial.computeIfAbsent(entry.getKey(), material -> new int[warehouses.size()])[i] = entry.getValue();
+            }
+        }
+
+        List<Material> materials = new ArrayList<>(quantitiesByMaterial.keySet());
+        List<RebalancingMove> moves = pool.invoke(new PlanTask(warehouses, materials, quantitiesByMaterial, targetUtilization, 0, materials.size()));
+        return new RebalancingPlan(moves);
+    }
+
+    /**
+     * Computes the moves balancing a single material.
+     *
+     * @param warehouses The warehouses to balance.
+     * @param material The material to balance.
+     * @param quantities The quantity of the material in each warehouse, indexed like the warehouses.
+     * @param targetUtilization The highest share of the maximum capacity a warehouse may be filled to.
+     * @return The moves for the material.
+     */
+    static List<RebalancingMove> planMaterial(List<? extends Inventory> warehouses, Material material, int[] quantities, double targetUtilization) {
+        int maximumCapacity = material.getMaterialType().getMaximumCapacity();
+        long ceiling = (long) Math.floor(maximumCapacity * targetUtilization);
+        long total = 0;
+        for (int quantity : quantities) {
+            total += Math.max(quantity, 0);
+        }
+
+        // Givers keep at most the rounded-up level, receivers are filled up to the rounded-down level,
+        // so balanced warehouses are never touched because of rounding.
+        long upperLevel = Math.min(ceiling, (total + quantities.length - 1) / quantities.length);
+        long lowerLevel = Math.min(ceiling, total / quantities.length);
+
+        List<RebalancingMove> moves = new ArrayList<>();
+        int giver = nextGiver(quantities, upperLevel, 0);
+        int receiver = nextReceiver(quantities, lowerLevel, 0);
+        long surplus = giver < quantities.length ? quantities[giver] - upperLevel : 0;
+        long need = receiver < quantities.length ? lowerLevel - quantities[receiver] : 0;
+        while (giver < quantities.length && receiver < quantities.length) {
+            // A single transfer may not move more than the maximum capacity of the material.
+            int quantity = (int) Math.min(Math.min(surplus, need), maximumCapacity);
+            moves.add(new RebalancingMove(warehouses.get(giver), warehouses.get(receiver), material, quantity));
+            surplus -= quantity;
+            need -= quantity;
+            if (surplus == 0) {
+                giver = nextGiver(quantities, upperLevel, giver + 1);
+                surplus = giver < quantities.length ? quantities[giver] - upperLevel : 0;
+            }
+            if (need == 0) {
+                receiver = nextReceiver(quantities, lowerLevel, receiver + 1);
+                need = receiver < quantities.length ? lowerLevel - quantities[receiver] : 0;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Helper method finding the next warehouse holding more than the given level.
+     */
+    private static int nextGiver(int[] quantities, long level, int from) {
+        int i = from;
+        while (i < quantities.length && quantities[i] <= level) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Helper method finding the next warehouse holding less than the given level.
+     */
+    private static int nextReceiver(int[] quantities, long level, int from) {
+        int i = from;
+        while (i < quantities.length && quantities[i] >= level) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Fork-join task planning a range of materials, split in halves until a single material remains.
+     */
+    private static class PlanTask extends RecursiveTask<List<RebalancingMove>> {
+        private final List<? extends Inventory> warehouses;
+        private final List<Material> materials;
+        private final Map<Material, int[]> quantitiesByMaterial;
+        private final double targetUtilization;
+        private final int from;
+        private final int to;
+
+        private PlanTask(List<? extends Inventory> warehouses, List<Material> materials, Map<Material, int[]> quantitiesByMaterial,
+                         double targetUtilization, int from, int to) {
+            this.warehouses = warehouses;
+            this.materials = materials;
+            this.quantitiesByMaterial = quantitiesByMaterial;
+            this.targetUtilization = targetUtilization;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<RebalancingMove> compute() {
+            if (to - from <= 1) {
+                if (from == to) {
+                    return new ArrayList<>();
+                }
+                Material material = materials.get(from);
+                return planMaterial(warehouses, material, quantitiesByMaterial.get(material), targetUtilization);
+            }
+
+            int middle = (from + to) >>> 1;
+            PlanTask left = new PlanTask(warehouses, materials, quantitiesByMaterial, targetUtilization, from, middle);
+            PlanTask right = new PlanTask(warehouses, materials, quantitiesByMaterial, targetUtilization, middle, to);
+            left.fork();
+            List<RebalancingMove> moves = new ArrayList<>(right.compute());
+            moves.addAll(0, left.join());
+            return moves;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.warehouse.management;
+
+/**
+ * Summarises the quantities recorded by a {@link StockHistory} over a time range.
+ */
+public class StockAggregate {
+    private final int count;     // The number of recorded points.
+    private final int minimum;   // The smallest recorded quantity.
+    private final int maximum;   // The largest recorded quantity.
+    private final int first;     // The earliest recorded quantity.
+    private final int last;      // The latest recorded quantity.
+
+    /**
+     * Constructs a new StockAggregate.
+     *
+     * @param count The number of recorded points.
+     * @param minimum The smallest recorded quantity.
+     * @param maximum The largest recorded quantity.
+     * @param first The earliest recorded quantity.
+     * @param last The latest recorded quantity.
+     */
+    public StockAggregate(int count, int minimum, int maximum, int first, int last) {
+        this.count = count;
+        this.minimum = minimum;
+        this.maximum = maximum;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Combines this aggregate with the aggregate of a later time range.
+     *
+     * @param later The aggregate of a range starting after this one ends.
+     * @return The aggregate of both ranges.
+     */
+    public StockAggregate followedBy(StockAggregate later) {
+        if (count == 0) {
+            return later;
+        }
+        if (later.count == 0) {
+            return this;
+        }
+        return new StockAggregate(count + later.count, Math.min(minimum, later.minimum),
+                Math.max(maximum, later.maximum), first, later.last);
+    }
+
+    /**
+     * Gets the number of recorded points.
+     *
+     * @return The count, 0 if nothing was recorded in the range.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the smallest recorded quantity.
+     *
+     * @return The minimum, meaningless if the count is 0.
+     */
+    public int getMinimum() {
+        return minimum;
+    }
+
+    /**
+     * Gets the largest recorded quantity.
+     *
+     * @return The maximum, meaningless if the count is 0.
+     */
+    public int getMaximum() {
+        return maximum;
+    }
+
+    /**
+     * Gets the earliest recorded quantity.
+     *
+     * @return The first quantity, meaningless if the count is 0.
+     */
+    public int getFirst() {
+        return first;
+    }
+
+    /**
+     * Gets the latest recorded quantity.
+     *
+     * @return The last quantity, meaningless if the count is 0.
+     */
+    public int getLast() {
+        return last;
+    }
+}
@@ -0,0 +1,336 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how the quantity of every material in every observed warehouse evolves over time.
+ * Registered as an {@link InventoryChangeListener} on a {@link WareHouse}, it appends the new quantity of each
+ * change to the time series of that warehouse and material. A series is a list of chunks; within a chunk
+ * timestamps are stored as zigzag-encoded delta-of-deltas and quantities as zigzag-encoded deltas, both as
+ * variable-length integers, so regular updates of similar size cost one or two bytes each.
+ * Every chunk keeps a rollup of its count, minimum, maximum, first and last quantity, so aggregate queries
+ * decode only the chunks at the edges of the requested range. The number of chunks per series is bounded,
+ * and the oldest chunk is dropped when the bound is reached.
+ */
+public class StockHistory implements InventoryChangeListener {
+
+    private static final int DEFAULT_POINTS_PER_CHUNK = 256;
+    private static final int DEFAULT_MAXIMUM_CHUNKS = 1024;
+    private static final StockAggregate EMPTY = new StockAggregate(0, 0, 0, 0, 0);
+
+    private final LongSupplier clock;          // The source of timestamps in milliseconds.
+    private final int pointsPerChunk;          // The number of points after which a new chunk is started.
+    private final int maximumChunks;           // The number of chunks kept per series.
+
+    // The series of every observed warehouse and material.
+    private final Map<Inventory, Map<Material, Series>> series = new ConcurrentHashMap<>();
+
+    private final LongAdder recordedPoints = new LongAdder(); // Changes recorded so far.
+    private final LongAdder observedChanges = new LongAdder(); // Changes received from observed warehouses.
+    private final LongAdder recordingNanos = new LongAdder(); // Time spent recording observed changes.
+
+    /**
+     * Constructs a new StockHistory using the system clock and default chunking.
+     */
+    public StockHistory() {
+        this(System::currentTimeMillis, DEFAULT_POINTS_PER_CHUNK, DEFAULT_MAXIMUM_CHUNKS);
+    }
+
+    /**
+     * Constructs a new StockHistory.
+     *
+     * @param clock The source of timestamps in milliseconds; it should not go backwards.
+     * @param pointsPerChunk The number of points stored per chunk.
+     * @param maximumChunks The number of chunks kept per series before the oldest is dropped.
+     */
+    public StockHistory(LongSupplier clock, int pointsPerChunk, int maximumChunks) {
+        if (pointsPerChunk <= 0 || maximumChunks <= 0) {
+            throw new IllegalArgumentException("The chunk size and the number of chunks should be greater than 0");
+        }
+        this.clock = clock;
+        this.pointsPerChunk = pointsPerChunk;
+        this.maximumChunks = maximumChunks;
+    }
+
+    @Override
+    public void quantityChanged(Inventory inventory, Material material, int previousQuantity, int newQuantity) {
+        long start = System.nanoTime();
+        record(inventory, material, clock.getAsLong(), newQuantity);
+        recordingNanos.add(System.nanoTime() - start);
+        observedChanges.increment();
+    }
+
+    /**
+     * Records a quantity at a given time, for example when backfilling history from another source.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @param timestamp The time of the quantity in milliseconds; it should not precede earlier records of the series.
+     * @param quantity The quantity.
+     */
+    public void record(Inventory inventory, Material material, long timestamp, int quantity) {
+        series.computeIfAbsent(inventory, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(material, key -> new Series())
+                .append(timestamp, quantity);
+        recordedPoints.increment();
+    }
+
+    /**
+     * Gets the recorded quantities of a material in a time range.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @param from The start of the range in milliseconds, inclusive.
+     * @param to The end of the range in milliseconds, exclusive.
+     * @return The recorded points in time order.
+     */
+    public List<StockPoint> range(Inventory inventory, Material material, long from, long to) {
+        List<StockPoint> points = new ArrayList<>();
+        Series recorded = seriesOf(inventory, material);
+        if (recorded != null) {
+            recorded.range(from, to, points);
+        }
+        return points;
+    }
+
+    /**
+     * Summarises the recorded quantities of a material in a time range.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @param from The start of the range in milliseconds, inclusive.
+     * @param to The end of the range in milliseconds, exclusive.
+     * @return The aggregate of the range, with a count of 0 if nothing was recorded in it.
+     */
+    public StockAggregate aggregate(Inventory inventory, Material material, long from, long to) {
+        Series recorded = seriesOf(inventory, material);
+        return recorded == null ? EMPTY : recorded.aggregate(from, to);
+    }
+
+    /**
+     * Summarises the recorded quantities of a material in consecutive buckets of equal length.
+     *
+     * @param inventory The inventory holding the material.
+     * @param material The material.
+     * @param from The start of the first bucket in milliseconds, inclusive.
+     * @param to The end of the last bucket in milliseconds, exclusive.
+     * @param bucketMillis The length of each bucket in milliseconds.
+     * @return One aggregate per bucket, in time order.
+     */
+    public List<StockAggregate> downsample(Inventory inventory, Material material, long from, long to, long bucketMillis) {
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("The bucket length should be greater than 0");
+        }
+        List<StockAggregate> buckets = new ArrayList<>();
+        for (long start = from; start < to; start += bucketMillis) {
+            buckets.add(aggregate(inventory, material, start, Math.min(to, start + bucketMillis)));
+        }
+        return buckets;
+    }
+
+    /**
+     * Gets the number of changes recorded so far.
+     *
+     * @return The number of recorded points.
+     */
+    public long getRecordedCount() {
+        return recordedPoints.sum();
+    }
+
+    /**
+     * Gets the average time spent recording a change on the mutation path.
+     *
+     * @return The average recording time in nanoseconds.
+     */
+    public double getAverageRecordingNanos() {
+        long count = observedChanges.sum();
+        return count == 0 ? 0 : (double) recordingNanos.sum() / count;
+    }
+
+    /**
+     * Gets the number of bytes used by the encoded points of all series.
+     *
+     * @return The encoded size in bytes.
+     */
+    public long getEncodedBytes() {
+        long bytes = 0;
+        for (Map<Material, Series> materials : series.values()) {
+            for (Series recorded : materials.values()) {
+                bytes += recorded.encodedBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private Series seriesOf(Inventory inventory, Material material) {
+        Map<Material, Series> materials = series.get(inventory);
+        return materials == null ? null : materials.get(material);
+    }
+
+    /**
+     * The chunks recorded for one warehouse and material, guarded by the series itself.
+     */
+    private class Series {
+        private final List<Chunk> chunks = new ArrayList<>();
+
+        private synchronized void append(long timestamp, int quantity) {
+            Chunk current = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (current == null || current.count == pointsPerChunk) {
+                if (chunks.size() == maximumChunks) {
+                    chunks.remove(0);
+                }
+                current = new Chunk();
+                chunks.add(current);
+            }
+            current.append(timestamp, quantity);
+        }
+
+        private synchronized void range(long from, long to, List<StockPoint> points) {
+            for (int i = firstChunkEndingAtOrAfter(from); i < chunks.size() && chunks.get(i).firstTimestamp < to; i++) {
+                chunks.get(i).decode(from, to, points);
+            }
+        }
+
+        private synchronized StockAggregate aggregate(long from, long to) {
+            StockAggregate aggregate = EMPTY;
+            List<StockPoint> edge = new ArrayList<>();
+            for (int i = firstChunkEndingAtOrAfter(from); i < chunks.size() && chunks.get(i).firstTimestamp < to; i++) {
+                Chunk chunk = chunks.get(i);
+                if (chunk.firstTimestamp >= from && chunk.lastTimestamp < to) {
+                    aggregate = aggregate.followedBy(chunk.rollup());
+                } else {
+                    edge.clear();
+                    chunk.decode(from, to, edge);
+                    for (StockPoint point : edge) {
+                        int q = point.getQuantity();
+                        aggregate = aggregate.followedBy(new StockAggregate(1, q, q, q, q));
+                    }
+                }
+            }
+            return aggregate;
+        }
+
+        private synchronized long encodedBytes() {
+            long bytes = 0;
+            for (Chunk chunk : chunks) {
+                bytes += chunk.length;
+            }
+            return bytes;
+        }
+
+        /**
+         * Binary search for the first chunk whose last timestamp is at or after the given time.
+         */
+        private int firstChunkEndingAtOrAfter(long time) {
+            int low = 0;
+            int high = chunks.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (chunks.get(middle).lastTimestamp < time) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * A run of points encoded after the first one, together with its rollup.
+     */
+    private static class Chunk {
+        private byte[] data = new byte[32]; // Delta-of-delta timestamps and quantity deltas, as zigzag varints.
+        private int length;                 // The number of used bytes of data.
+        private int count;                  // The number of points.
+        private long firstTimestamp;
+        private long lastTimestamp;
+        private long lastTimestampDelta;
+        private int firstQuantity;
+        private int lastQuantity;
+        private int minimum;
+        private int maximum;
+
+        private void append(long timestamp, int quantity) {
+            if (count == 0) {
+                firstTimestamp = timestamp;
+                firstQuantity = quantity;
+                minimum = quantity;
+                maximum = quantity;
+            } else {
+                long delta = timestamp - lastTimestamp;
+                writeSigned(delta - lastTimestampDelta);
+                writeSigned((long) quantity - lastQuantity);
+                lastTimestampDelta = delta;
+                minimum = Math.min(minimum, quantity);
+                maximum = Math.max(maximum, quantity);
+            }
+            lastTimestamp = timestamp;
+            lastQuantity = quantity;
+            count++;
+        }
+
+        private StockAggregate rollup() {
+            return new StockAggregate(count, minimum, maximum, firstQuantity, lastQuantity);
+        }
+
+        /**
+         * Decodes the points of the chunk that lie in the given range.
+         */
+        private void decode(long from, long to, List<StockPoint> points) {
+            long timestamp = firstTimestamp;
+            long delta = 0;
+            long quantity = firstQuantity;
+            ByteBuffer in = ByteBuffer.wrap(data, 0, length);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    delta += readSigned(in);
+                    timestamp += delta;
+                    quantity += readSigned(in);
+                }
+                if (timestamp >= to) {
+                    return;
+                }
+                if (timestamp >= from) {
+                    points.add(new StockPoint(timestamp, (int) quantity));
+                }
+            }
+        }
+
+        /**
+         * Helper method reading a zigzag varint written by {@link #writeSigned(long)}.
+         */
+        private static long readSigned(ByteBuffer in) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = in.get();
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private void writeSigned(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((zigzag & ~0x7FL) != 0) {
+                data[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            data[length++] = (byte) zigzag;
+        }
+    }
+}
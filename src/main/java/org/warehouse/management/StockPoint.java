@@ -0,0 +1,38 @@
+package org.warehouse.management;
+
+/**
+ * The quantity of a material recorded by a {@link StockHistory} at one point in time.
+ */
+public class StockPoint {
+    private final long timestamp; // When the quantity was recorded, in milliseconds of the history's clock.
+    private final int quantity;   // The quantity after the change.
+
+    /**
+     * Constructs a new StockPoint.
+     *
+     * @param timestamp When the quantity was recorded, in milliseconds of the history's clock.
+     * @param quantity The quantity after the change.
+     */
+    public StockPoint(long timestamp, int quantity) {
+        this.timestamp = timestamp;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets when the quantity was recorded.
+     *
+     * @return The timestamp in milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets the recorded quantity.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
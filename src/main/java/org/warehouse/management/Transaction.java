@@ -0,0 +1,420 @@
+package org.warehouse.management;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserFunctionalities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups wallet and inventory operations across several users and warehouses into one atomic unit.
+ * Either every operation of the transaction is applied, or none is.
+ *
+ * A transaction reads and validates optimistically, but commits under locks. The operations are first
+ * validated against lock-free snapshots of the warehouses and the current balances of the users, and the
+ * versions and balances read are checked again without locking, so a transaction that already lost a race
+ * retries without blocking anyone. Only then are all participants locked, in a global order, for as long as
+ * it takes to confirm that nothing they read has changed and to apply the operations: applying changes to
+ * several warehouses and users at once needs every one of them held, since each guards its own state with
+ * its own lock. If a concurrent change is detected, the transaction validates again from fresh reads, up to
+ * a maximum number of retries. Warehouses must be passed directly, not through a decorator, since the
+ * transaction locks the objects it is given.
+ */
+public class Transaction {
+
+    private static final int DEFAULT_MAXIMUM_RETRIES = 16;
+
+    private final List<Operation> operations = new ArrayList<>(); // The operations in the order they are applied.
+    private final int maximumRetries;                              // How often a conflicting commit is retried.
+    private int retryCount;                                        // How often the last commit had to retry.
+
+    /**
+     * Constructs a new, empty Transaction with the default number of retries.
+     */
+    public Transaction() {
+        this(DEFAULT_MAXIMUM_RETRIES);
+    }
+
+    /**
+     * Constructs a new, empty Transaction.
+     *
+     * @param maximumRetries How often a commit is retried after detecting a concurrent change.
+     */
+    public Transaction(int maximumRetries) {
+        this.maximumRetries = maximumRetries;
+    }
+
+    /**
+     * Adds the spending of money from a user's wallet to the transaction.
+     *
+     * @param user The user spending the money.
+     * @param quantity The amount of money to spend.
+     * @return This transaction.
+     */
+    public Transaction spendMoney(User user, int quantity) {
+        operations.add(new Operation(OperationType.SPEND_MONEY, user, null, null, quantity));
+        return this;
+    }
+
+    /**
+     * Adds the crediting of money to a user's wallet to the transaction.
+     *
+     * @param user The user receiving the money.
+     * @param quantity The amount of money to add.
+     * @return This transaction.
+     */
+    public Transaction updateMoney(User user, int quantity) {
+        operations.add(new Operation(OperationType.UPDATE_MONEY, user, null, null, quantity));
+        return this;
+    }
+
+    /**
+     * Adds the spending of gems from a user's wallet to the transaction.
+     *
+     * @param user The user spending the gems.
+     * @param quantity The amount of gems to spend.
+     * @return This transaction.
+     */
+    public Transaction spendGems(User user, int quantity) {
+        operations.add(new Operation(OperationType.SPEND_GEMS, user, null, null, quantity));
+        return this;
+    }
+
+    /**
+     * Adds the crediting of gems to a user's wallet to the transaction.
+     *
+     * @param user The user receiving the gems.
+     * @param quantity The amount of gems to add.
+     * @return This transaction.
+     */
+    public Transaction updateGems(User user, int quantity) {
+        operations.add(new Operation(OperationType.UPDATE_GEMS, user, null, null, quantity));
+        return this;
+    }
+
+    /**
+     * Adds stock of a material to a warehouse, adding the material if the warehouse does not hold it yet.
+     *
+     * @param warehouse The warehouse receiving the stock.
+     * @param material The material to add.
+     * @param quantity The quantity to add.
+     * @return This transaction.
+     */
+    public Transaction addStock(Inventory warehouse, Material material, int quantity) {
+        operations.add(new Operation(OperationType.ADD_STOCK, null, warehouse, material, quantity));
+        return this;
+    }
+
+    /**
+     * Removes stock of a material from a warehouse. The warehouse must hold at least the given quantity.
+     *
+     * @param warehouse The warehouse giving away the stock.
+     * @param material The material to remove.
+     * @param quantity The quantity to remove.
+     * @return This transaction.
+     */
+    public Transaction dropStock(Inventory warehouse, Material material, int quantity) {
+        operations.add(new Operation(OperationType.DROP_STOCK, null, warehouse, material, quantity));
+        return this;
+    }
+
+    /**
+     * Atomically applies every operation of the transaction.
+     *
+     * @throws TransactionAborted If an operation is invalid; the cause is the exception the operation raised.
+     * @throws TransactionConflict If concurrent changes invalidated every attempt to commit.
+     */
+    public void commit() throws TransactionAborted, TransactionConflict {
+        List<Object> participants = lockOrder();
+        for (retryCount = 0; retryCount <= maximumRetries; retryCount++) {
+            ReadSet readSet = read();
+            validate(readSet);
+            if (readSet.isCurrent() && commitLocked(participants, 0, readSet)) {
+                return;
+            }
+        }
+        retryCount--;
+        throw new TransactionConflict("The transaction kept conflicting with concurrent changes after " + maximumRetries + " retries");
+    }
+
+    /**
+     * Gets how often the last commit had to retry because of concurrent changes.
+     *
+     * @return The number of retries.
+     */
+    public int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Helper method reading the current state of every participant without taking any lock.
+     * @return The balances and snapshots the transaction is validated against.
+     */
+    private ReadSet read() {
+        ReadSet readSet = new ReadSet();
+        for (Operation operation : operations) {
+            if (operation.user != null) {
+                readSet.wallets.computeIfAbsent(operation.user, user -> new int[]{user.getMoney(), user.getGems()});
+            } else {
+                readSet.snapshots.computeIfAbsent(operation.warehouse, Inventory::snapshot);
+            }
+        }
+        return readSet;
+    }
+
+    /**
+     * Helper method checking every operation against the read state, applying them to private copies.
+     * @param readSet The state read at the start of the attempt.
+     * @throws TransactionAborted If an operation is invalid against that state.
+     */
+    private void validate(ReadSet readSet) throws TransactionAborted {
+        Map<User, int[]> wallets = new IdentityHashMap<>();
+        Map<Inventory, Map<Material, Integer>> stock = new IdentityHashMap<>();
+
+        for (Operation operation : operations) {
+            int quantity = operation.quantity;
+            if (operation.user != null) {
+                int[] wallet = wallets.computeIfAbsent(operation.user, user -> readSet.wallets.get(user).clone());
+                switch (operation.type) {
+                    case SPEND_MONEY:
+                        checkPositiveMoney(quantity, "spend");
+                        if (quantity > wallet[0]) {
+                            abort(new ExceedingAmountOfMoney("The amount of money you want to spend should not be larger than the money user have"));
+                        }
+                        wallet[0] -= quantity;
+                        break;
+                    case UPDATE_MONEY:
+                        checkPositiveMoney(quantity, "get");
+                        wallet[0] += quantity;
+                        break;
+                    case SPEND_GEMS:
+                        checkPositiveGems(quantity, "spend");
+                        if (quantity > wallet[1]) {
+                            abort(new ExceedingAmountOfGems("The amount of gems you want to spend should not be larger than the gems user have"));
+                        }
+                        wallet[1] -= quantity;
+                        break;
+                    default:
+                        checkPositiveGems(quantity, "get");
+                        wallet[1] += quantity;
+                        break;
+                }
+            } else {
+                Map<Material, Integer> materials = stock.computeIfAbsent(operation.warehouse,
+                        warehouse -> new HashMap<>(readSet.snapshots.get(warehouse).getMaterials()));
+                Material material = operation.material;
+                if (quantity <= 0) {
+                    abort(new InvalidQuantity("The quantity must be greater than 0"));
+                }
+                if (quantity > material.getMaterialType().getMaximumCapacity()) {
+                    abort(new ExceedingCapacity("Moving " + quantity + " units of " + material.getMaterialType().getName() + " would exceed the max capacity of " + material.getMaterialType().getMaximumCapacity()));
+                }
+
+                Integer current = materials.get(material);
+                if (operation.type == OperationType.ADD_STOCK) {
+                    materials.put(material, current == null ? quantity : current + quantity);
+                } else {
+                    if (current == null) {
+                        abort(new MaterialNotFound("The material you want to drop is not found"));
+                    } else if (quantity > current) {
+                        abort(new InvalidQuantity("The quantity to drop exceeds the stock of " + material.getMaterialType().getName()));
+                    } else {
+                        materials.put(material, current - quantity);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper method locking the participants one after the other, then validating and applying the transaction.
+     * @param participants The users and warehouses to lock, in lock order.
+     * @param index The index of the next participant to lock.
+     * @param readSet The state the transaction was validated against.
+     * @return true if the transaction was applied, false if a participant changed since it was read.
+     * @throws TransactionAborted If applying an operation failed; every operation applied before was undone.
+     */
+    private boolean commitLocked(List<Object> participants, int index, ReadSet readSet) throws TransactionAborted {
+        if (index == participants.size()) {
+            return readSet.isCurrent() && apply();
+        }
+        synchronized (participants.get(index)) {
+            return commitLocked(participants, index + 1, readSet);
+        }
+    }
+
+    /**
+     * Helper method applying the operations while every participant is locked, undoing them on failure.
+     * @return Always true; a failure is reported by exception.
+     * @throws TransactionAborted If an operation failed.
+     */
+    private boolean apply() throws TransactionAborted {
+        Map<User, int[]> walletsBefore = new IdentityHashMap<>();
+        List<Operation> appliedStock = new ArrayList<>();
+        List<Boolean> addedMaterials = new ArrayList<>();
+        try {
+            for (Operation operation : operations) {
+                if (operation.user != null) {
+                    walletsBefore.computeIfAbsent(operation.user, user -> new int[]{user.getMoney(), user.getGems()});
+                    UserFunctionalities functionalities = new UserFunctionalities(operation.user);
+                    switch (operation.type) {
+                        case SPEND_MONEY:
+                            functionalities.spendMoney(operation.quantity);
+                            break;
+                        case UPDATE_MONEY:
+                            functionalities.updateMoney(operation.quantity);
+                            break;
+                        case SPEND_GEMS:
+                            functionalities.spendGems(operation.quantity);
+                            break;
+                        default:
+                            functionalities.updateGems(operation.quantity);
+                            break;
+                    }
+                } else if (operation.type == OperationType.ADD_STOCK) {
+                    boolean added = !operation.warehouse.snapshot().contains(operation.material);
+                    if (added) {
+                        operation.warehouse.addMaterial(operation.material, operation.quantity);
+                    } else {
+                        operation.warehouse.updateMaterialQuantity(operation.material, operation.quantity);
+                    }
+                    appliedStock.add(operation);
+                    addedMaterials.add(added);
+                } else {
+                    operation.warehouse.dropSomeQuantity(operation.material, operation.quantity);
+                    appliedStock.add(operation);
+                    addedMaterials.add(false);
+                }
+            }
+            return true;
+        } catch (InvalidQuantityOfMoney | ExceedingAmountOfMoney | InvalidQuantityOfGems | ExceedingAmountOfGems |
+                 ExceedingCapacity | InvalidQuantity | MaterialAlreadyExists | MaterialNotFound e) {
+            undo(walletsBefore, appliedStock, addedMaterials);
+            throw new TransactionAborted("The transaction was rolled back: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Helper method restoring the wallets and reverting the stock operations applied so far, newest first.
+     */
+    private void undo(Map<User, int[]> walletsBefore, List<Operation> appliedStock, List<Boolean> addedMaterials) {
+        for (Map.Entry<User, int[]> entry : walletsBefore.entrySet()) {
+            entry.getKey().setMoney(entry.getValue()[0]);
+            entry.getKey().setGems(entry.getValue()[1]);
+        }
+        for (int i = appliedStock.size() - 1; i >= 0; i--) {
+            Operation operation = appliedStock.get(i);
+            try {
+                if (addedMaterials.get(i)) {
+                    operation.warehouse.removeMaterial(operation.material);
+                } else if (operation.type == OperationType.ADD_STOCK) {
+                    operation.warehouse.dropSomeQuantity(operation.material, operation.quantity);
+                } else {
+                    operation.warehouse.updateMaterialQuantity(operation.material, operation.quantity);
+                }
+            } catch (ExceedingCapacity | InvalidQuantity | MaterialNotFound e) {
+                // The inverse of an operation that was just applied under the same locks cannot fail.
+                throw new IllegalStateException("Could not undo a transaction operation", e);
+            }
+        }
+    }
+
+    /**
+     * Helper method ordering the distinct participants by identity hash code, the same order used by warehouse
+     * transfers. When two participants share a hash code, the shared tie lock is taken first.
+     * @return The objects to lock, in lock order.
+     */
+    private List<Object> lockOrder() {
+        Map<Object, Boolean> distinct = new IdentityHashMap<>();
+        for (Operation operation : operations) {
+            distinct.put(operation.user != null ? operation.user : operation.warehouse, Boolean.TRUE);
+        }
+
+        List<Object> participants = new ArrayList<>(distinct.keySet());
+        participants.sort(Comparator.comparingInt(System::identityHashCode));
+        for (int i = 1; i < participants.size(); i++) {
+            if (System.identityHashCode(participants.get(i)) == System.identityHashCode(participants.get(i - 1))) {
+                participants.add(0, WareHouse.TIE_LOCK);
+                break;
+            }
+        }
+        return Collections.unmodifiableList(participants);
+    }
+
+    private static void checkPositiveMoney(int quantity, String action) throws TransactionAborted {
+        if (quantity <= 0) {
+            abort(new InvalidQuantityOfMoney("The amount of money you want to " + action + " should be greater than 0"));
+        }
+    }
+
+    private static void checkPositiveGems(int quantity, String action) throws TransactionAborted {
+        if (quantity <= 0) {
+            abort(new InvalidQuantityOfGems("The amount of gems you want to " + action + " should be greater than 0"));
+        }
+    }
+
+    private static void abort(Exception cause) throws TransactionAborted {
+        throw new TransactionAborted("The transaction was aborted: " + cause.getMessage(), cause);
+    }
+
+    /**
+     * The kinds of operations a transaction can group.
+     */
+    private enum OperationType {
+        SPEND_MONEY, UPDATE_MONEY, SPEND_GEMS, UPDATE_GEMS, ADD_STOCK, DROP_STOCK
+    }
+
+    /**
+     * A single wallet or stock operation; wallet operations have a user, stock operations a warehouse and material.
+     */
+    private static class Operation {
+        private final OperationType type;
+        private final User user;
+        private final Inventory warehouse;
+        private final Material material;
+        private final int quantity;
+
+        private Operation(OperationType type, User user, Inventory warehouse, Material material, int quantity) {
+            this.type = type;
+            this.user = user;
+            this.warehouse = warehouse;
+            this.material = material;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * The balances and snapshots read at the start of a commit attempt.
+     */
+    private static class ReadSet {
+        private final Map<User, int[]> wallets = new IdentityHashMap<>();
+        private final Map<Inventory, InventorySnapshot> snapshots = new IdentityHashMap<>();
+
+        /**
+         * Checks that no participant changed since it was read. The answer is only final while every participant
+         * is locked; without the locks it is a cheap check that lets a stale attempt retry before locking anything.
+         * @return true if every balance and warehouse version is unchanged.
+         */
+        private boolean isCurrent() {
+            for (Map.Entry<User, int[]> entry : wallets.entrySet()) {
+                User user = entry.getKey();
+                if (user.getMoney() != entry.getValue()[0] || user.getGems() != entry.getValue()[1]) {
+                    return false;
+                }
+            }
+            for (Map.Entry<Inventory, InventorySnapshot> entry : snapshots.entrySet()) {
+                if (entry.getKey().snapshot().getVersion() != entry.getValue().getVersion()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Describes the outcome of a bulk transfer of materials between two inventories.
+ * Each requested material is either transferred, together with the moved quantity, or rejected,
+ * together with the exception explaining why it stayed in the source inventory.
+ */
+public class TransferReport {
+
+    // Materials that were moved to the destination and the quantity moved for each of them.
+    private final Map<Material, Integer> transferred = new LinkedHashMap<>();
+
+    // Materials that stayed in the source and the reason they could not be moved.
+    private final Map<Material, Exception> rejected = new LinkedHashMap<>();
+
+    /**
+     * Records a material that was moved to the destination.
+     *
+     * @param material The material moved.
+     * @param quantity The quantity moved.
+     */
+    public void addTransferred(Material material, int quantity) {
+        transferred.put(material, quantity);
+    }
+
+    /**
+     * Records a material that could not be moved to the destination.
+     *
+     * @param material The material that stayed in the source.
+     * @param reason The exception explaining why the material was not moved.
+     */
+    public void addRejected(Material material, Exception reason) {
+        rejected.put(material, reason);
+    }
+
+    /**
+     * Gets the materials that were moved and their quantities.
+     *
+     * @return An unmodifiable map of moved materials to moved quantities.
+     */
+    public Map<Material, Integer> getTransferred() {
+        return Collections.unmodifiableMap(transferred);
+    }
+
+    /**
+     * Gets the materials that were not moved and the reasons why.
+     *
+     * @return An unmodifiable map of rejected materials to the exception describing the conflict.
+     */
+    public Map<Material, Exception> getRejected() {
+        return Collections.unmodifiableMap(rejected);
+    }
+
+    /**
+     * Checks whether every requested material was moved.
+     *
+     * @return true if no material was rejected.
+     */
+    public boolean isComplete() {
+        return rejected.isEmpty();
+    }
+}
@@ -3,21 +3,40 @@ package org.warehouse.management;
 import org.warehouse.exceptions.*;
 import org.warehouse.model.material.Material;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a warehouse for managing inventory.
  * This class handles operations on the inventory of materials, providing functionalities
  * such as adding, updating, and querying the stock of various materials.
  * The inventory is managed using a map where each material is associated with its quantity.
+ * Mutations are synchronized on the warehouse; transfers lock both warehouses in a fixed order.
+ * After every mutation the warehouse publishes an immutable {@link InventorySnapshot}, so readers get a
+ * consistent view of all materials without locking and without blocking writers.
  */
 
 public class WareHouse implements Inventory {
 
+    // Lock taken before locking participants whose identity hash codes collide, so that the lock order stays total.
+    // Shared with transactions, which lock users and warehouses in the same identity hash code order.
+    static final Object TIE_LOCK = new Object();
+
     // Map to hold the association between materials and their respective quantities.
     // The Material object acts as a key, and the associated Integer value represents the stock quantity of that material.
     private final Map<Material, Integer> warehouseMaterials;
 
+    // Listeners notified after every change of a material quantity, forming the change stream of this warehouse.
+    private final List<InventoryChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // The latest published version of the materials, replaced as a whole after every mutation.
+    // The warehouse keeps few distinct materials, so copying them on write keeps every read O(1) and lock-free.
+    private volatile InventorySnapshot currentSnapshot;
+
     /**
      * Constructs a new WareHouse object with the provided inventory mapping.
      * This constructor initializes the warehouse with a pre-defined set of materials and their quantities.
@@ -29,6 +48,7 @@ public class WareHouse implements Inventory {
      */
     public WareHouse(Map<Material, Integer> warehouseMaterials) {
         this.warehouseMaterials = warehouseMaterials;
+        this.currentSnapshot = new InventorySnapshot(0, warehouseMaterials);
     }
 
     /**
@@ -41,12 +61,13 @@ public class WareHouse implements Inventory {
      * @throws MaterialAlreadyExists If the material already exists in the inventory.
      */
     @Override
-    public Material addMaterial(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists {
+    public synchronized Material addMaterial(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists {
         checkInvalidQuantity(material, quantity);
         if (warehouseMaterials.containsKey(material)) {
             throw new MaterialAlreadyExists("The material you want to add already exists");
         } else {
             warehouseMaterials.put(material, quantity);
+            publishChange(material, 0, quantity);
         }
 
         return material;
@@ -61,16 +82,45 @@ public class WareHouse implements Inventory {
      * @throws MaterialNotFound If the material is not found in the inventory.
      */
     @Override
-    public void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+    public synchronized void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
         checkInvalidQuantity(material, quantity);
 
         if (!warehouseMaterials.containsKey(material)) {
             throw new MaterialNotFound("The material you want to update is not found");
         } else {
-            warehouseMaterials.put(material, warehouseMaterials.get(material) + quantity);
+            int previousQuantity = warehouseMaterials.get(material);
+            warehouseMaterials.put(material, previousQuantity + quantity);
+            publishChange(material, previousQuantity, previousQuantity + quantity);
         }
     }
 
+    /**
+     * Adds quantities of several materials in a single operation, such as the rows of an import or the materials
+     * of a bulk transfer, adding the materials the warehouse does not hold yet.
+     * Every quantity is checked before any is changed, so either all quantities are added or none is.
+     * The change is published as one new snapshot, followed by one notification per material.
+     * @param quantities The quantity to add to each material.
+     * @throws ExceedingCapacity If a quantity exceeds the maximum capacity of its material.
+     * @throws InvalidQuantity If a quantity is less than or equal to zero.
+     */
+    @Override
+    public synchronized void addQuantities(Map<Material, Integer> quantities) throws ExceedingCapacity, InvalidQuantity {
+        for (Map.Entry<Material, Integer> entry : quantities.entrySet()) {
+            checkInvalidQuantity(entry.getKey(), entry.getValue());
+        }
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        Map<Material, Integer> previousQuantities = new LinkedHashMap<>();
+        for (Map.Entry<Material, Integer> entry : quantities.entrySet()) {
+            Integer previousQuantity = warehouseMaterials.get(entry.getKey());
+            previousQuantities.put(entry.getKey(), previousQuantity == null ? 0 : previousQuantity);
+            warehouseMaterials.put(entry.getKey(), (previousQuantity == null ? 0 : previousQuantity) + entry.getValue());
+        }
+        publishChanges(previousQuantities, null);
+    }
+
     /**
      * Helper method to check if the quantity is valid.
      * @param material The material to check.
@@ -88,6 +138,19 @@ public class WareHouse implements Inventory {
         }
     }
 
+    /**
+     * Helper method checking that a warehouse holds enough of a material to give away a quantity.
+     * @param material The material to be reduced.
+     * @param available The quantity of the material in the warehouse.
+     * @param quantity The quantity to be taken away.
+     * @throws InvalidQuantity If taking the quantity away would leave a negative stock.
+     */
+    private static void checkAvailableQuantity(Material material, int available, int quantity) throws InvalidQuantity {
+        if (quantity > available) {
+            throw new InvalidQuantity("Only " + available + " units of " + material.getMaterialType().getName() + " are available, " + quantity + " were requested");
+        }
+    }
+
     /**
      * Removes a material completely from the warehouse.
      * @param material The material to remove.
@@ -95,13 +158,22 @@ public class WareHouse implements Inventory {
      * @throws MaterialNotFound If the material is not found in the inventory.
      */
     @Override
-    public Material removeMaterial(Material material) throws MaterialNotFound {
+    public synchronized Material removeMaterial(Material material) throws MaterialNotFound {
+        return removeMaterial(material, null);
+    }
+
+    /**
+     * Helper method removing a material completely, reporting it as moved to another inventory if a destination
+     * is given. Must be called while holding the lock of the warehouse.
+     */
+    private Material removeMaterial(Material material, Inventory destination) throws MaterialNotFound {
         Material materialToBeRemoved;
         if (!warehouseMaterials.containsKey(material)) {
             throw new MaterialNotFound("The material you want to delete is not found");
         } else {
             materialToBeRemoved = material;
-            warehouseMaterials.remove(materialToBeRemoved);
+            int previousQuantity = warehouseMaterials.remove(materialToBeRemoved);
+            publishChange(materialToBeRemoved, previousQuantity, 0, destination);
         }
         return materialToBeRemoved;
     }
@@ -116,16 +188,61 @@ public class WareHouse implements Inventory {
      * @throws MaterialNotFound If the material is not found in the warehouse's inventory.
      */
     @Override
-    public int dropSomeQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+    public synchronized int dropSomeQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        return dropSomeQuantity(material, quantity, null);
+    }
+
+    /**
+     * Helper method reducing the quantity of a material, reporting the quantity as moved to another inventory if
+     * a destination is given. Must be called while holding the lock of the warehouse.
+     */
+    private int dropSomeQuantity(Material material, int quantity, Inventory destination) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
         checkInvalidQuantity(material, quantity);
         if (!warehouseMaterials.containsKey(material)) {
             throw new MaterialNotFound("The material you want to transfer is not found");
         } else {
-            warehouseMaterials.put(material, warehouseMaterials.get(material) - quantity);
+            int previousQuantity = warehouseMaterials.get(material);
+            checkAvailableQuantity(material, previousQuantity, quantity);
+            warehouseMaterials.put(material, previousQuantity - quantity);
+            publishChange(material, previousQuantity, previousQuantity - quantity, destination);
         }
         return quantity;
     }
 
+    /**
+     * Reduces the quantities of several materials in a single operation, such as the picks of a whole wave.
+     * Every quantity is checked before any is changed, so either all materials are reduced or none is.
+     * The change is published as one new snapshot, followed by one notification per material.
+     * Unlike {@link #dropSomeQuantity(Material, int)}, a quantity is not limited to the maximum capacity of its
+     * material, since it may add up the contents of many storage locations.
+     * @param quantities The quantity to take away from each material.
+     * @throws InvalidQuantity If a quantity is less than or equal to zero or exceeds the stock of its material.
+     * @throws MaterialNotFound If a material is not found in the warehouse's inventory.
+     */
+    public synchronized void dropQuantities(Map<Material, Integer> quantities) throws InvalidQuantity, MaterialNotFound {
+        for (Map.Entry<Material, Integer> entry : quantities.entrySet()) {
+            if (entry.getValue() <= 0) {
+                throw new InvalidQuantity("The quantity must be greater than 0");
+            }
+            Integer available = warehouseMaterials.get(entry.getKey());
+            if (available == null) {
+                throw new MaterialNotFound("The material you want to drop is not found");
+            }
+            checkAvailableQuantity(entry.getKey(), available, entry.getValue());
+        }
+        if (quantities.isEmpty()) {
+            return;
+        }
+
+        Map<Material, Integer> previousQuantities = new LinkedHashMap<>();
+        for (Map.Entry<Material, Integer> entry : quantities.entrySet()) {
+            int previousQuantity = warehouseMaterials.get(entry.getKey());
+            previousQuantities.put(entry.getKey(), previousQuantity);
+            warehouseMaterials.put(entry.getKey(), previousQuantity - entry.getValue());
+        }
+        publishChanges(previousQuantities, null);
+    }
+
     /**
      * Transfers all quantity of a specified material to another warehouse.
      * The entire quantity of the material is removed from this warehouse and added to the destination warehouse.
@@ -135,15 +252,22 @@ public class WareHouse implements Inventory {
      * @throws MaterialAlreadyExists If the material already exists in the destination warehouse.
      * @throws InvalidQuantity If the quantity of the material is invalid.
      * @throws MaterialNotFound If the material is not found in this warehouse.
+     * @throws IllegalArgumentException If the destination is this warehouse.
      */
     @Override
     public void transferFullMaterial(Inventory toWarehouse, Material material) throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
-        if (!toWarehouse.listAllMaterials().containsKey(material)) {
-            toWarehouse.addMaterial(material, warehouseMaterials.get(material));
-        } else {
-            toWarehouse.updateMaterialQuantity(material, warehouseMaterials.get(material));
-        }
-        this.removeMaterial(material);
+        withBothLocked(toWarehouse, false, destination -> {
+            // Check the source before crediting the destination, so a failed transfer leaves both unchanged.
+            if (!warehouseMaterials.containsKey(material)) {
+                throw new MaterialNotFound("The material you want to transfer is not found");
+            }
+            if (!toWarehouse.snapshot().contains(material)) {
+                toWarehouse.addMaterial(material, warehouseMaterials.get(material));
+            } else {
+                toWarehouse.updateMaterialQuantity(material, warehouseMaterials.get(material));
+            }
+            return this.removeMaterial(material, destination);
+        });
     }
 
     /**
@@ -161,13 +285,164 @@ public class WareHouse implements Inventory {
     @Override
     public int transferSomeQuantityOfMaterial(Inventory toWarehouse, Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
         checkInvalidQuantity(material, quantity);
-        if (!toWarehouse.listAllMaterials().containsKey(material)) {
-            toWarehouse.addMaterial(material, quantity);
-        } else {
-            toWarehouse.updateMaterialQuantity(material, quantity);
+        return withBothLocked(toWarehouse, true, destination -> {
+            // Check the source before crediting the destination, so a failed transfer leaves both unchanged.
+            if (!warehouseMaterials.containsKey(material)) {
+                throw new MaterialNotFound("The material you want to transfer is not found");
+            }
+            checkAvailableQuantity(material, warehouseMaterials.get(material), quantity);
+            if (!toWarehouse.snapshot().contains(material)) {
+                toWarehouse.addMaterial(material, quantity);
+            } else {
+                toWarehouse.updateMaterialQuantity(material, quantity);
+            }
+            return this.dropSomeQuantity(material, quantity, destination);
+        });
+    }
+
+    /**
+     * Transfers the full quantity of several materials to another warehouse in a single pass.
+     * Both warehouses stay locked for the whole operation and the destination is read only once; a decorated
+     * destination is locked through the warehouse behind it, so no other writer can change it in between.
+     * Capacity conflicts are handled per material: a material whose combined quantity would exceed its
+     * maximum capacity stays in this warehouse and is reported as rejected, while the remaining
+     * materials are still transferred.
+     * @param toWarehouse The destination warehouse to which the materials are to be transferred.
+     * @param materials The materials to be transferred.
+     * @return A report of the transferred and rejected materials.
+     */
+    @Override
+    public TransferReport transferMaterials(Inventory toWarehouse, Collection<Material> materials) {
+        try {
+            return withBothLocked(toWarehouse, false, destination -> transferLocked(toWarehouse, destination, materials));
+        } catch (ExceedingCapacity | InvalidQuantity | MaterialAlreadyExists | MaterialNotFound e) {
+            // Conflicts are recorded per material in the report and never escape the transfer.
+            throw new IllegalStateException(e);
         }
-        this.dropSomeQuantity(material, quantity);
-        return quantity;
+    }
+
+    /**
+     * Transfers the full quantity of every material to another warehouse in a single pass,
+     * emptying this warehouse except for materials rejected because of capacity conflicts.
+     * @param toWarehouse The destination warehouse into which this warehouse is consolidated.
+     * @return A report of the transferred and rejected materials.
+     */
+    @Override
+    public TransferReport transferAllMaterials(Inventory toWarehouse) {
+        try {
+            // The materials are read once both warehouses are locked, so none added in between is left behind.
+            return withBothLocked(toWarehouse, false,
+                    destination -> transferLocked(toWarehouse, destination, new ArrayList<>(warehouseMaterials.keySet())));
+        } catch (ExceedingCapacity | InvalidQuantity | MaterialAlreadyExists | MaterialNotFound e) {
+            // Conflicts are recorded per material in the report and never escape the transfer.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Helper method moving several materials while both warehouses are locked. Every material is checked first;
+     * the accepted ones are credited to the destination in one operation and then taken out of this warehouse in
+     * one operation, so each warehouse publishes a single snapshot however many materials move.
+     * @param toWarehouse The destination warehouse.
+     * @param destination The destination behind any decorator, reported to the listeners as the receiver.
+     * @param materials The materials to move.
+     * @return A report of the transferred and rejected materials.
+     */
+    private TransferReport transferLocked(Inventory toWarehouse, Inventory destination, Collection<Material> materials) throws ExceedingCapacity, InvalidQuantity {
+        TransferReport report = new TransferReport();
+        Map<Material, Integer> destinationMaterials = toWarehouse.snapshot().getMaterials();
+        Map<Material, Integer> accepted = new LinkedHashMap<>();
+        Map<Material, Integer> credited = new LinkedHashMap<>();
+        for (Material material : materials) {
+            Integer quantity = warehouseMaterials.get(material);
+            if (quantity == null || accepted.containsKey(material)) {
+                report.addRejected(material, new MaterialNotFound("The material you want to transfer is not found"));
+                continue;
+            }
+            if (quantity < 0) {
+                report.addRejected(material, new InvalidQuantity("The quantity must not be negative"));
+                continue;
+            }
+            int maximumCapacity = material.getMaterialType().getMaximumCapacity();
+            Integer destinationQuantity = destinationMaterials.get(material);
+            int combinedQuantity = (destinationQuantity == null ? 0 : destinationQuantity) + quantity;
+            if (combinedQuantity > maximumCapacity) {
+                report.addRejected(material, new ExceedingCapacity("Transferring " + quantity + " units of " + material.getMaterialType().getName() + " would exceed the max capacity of " + maximumCapacity));
+                continue;
+            }
+            accepted.put(material, quantity);
+            if (quantity > 0) {
+                credited.put(material, quantity);
+            }
+        }
+
+        // Every credited quantity is positive and within the maximum capacity, so crediting cannot fail.
+        toWarehouse.addQuantities(credited);
+        for (Map.Entry<Material, Integer> entry : accepted.entrySet()) {
+            warehouseMaterials.remove(entry.getKey());
+            report.addTransferred(entry.getKey(), entry.getValue());
+        }
+        publishChanges(accepted, destination);
+        return report;
+    }
+
+    /**
+     * Helper method running a transfer while holding the locks of this warehouse and the destination.
+     * The destination is locked through its lock owner, so a decorated destination locks the warehouse behind the
+     * decorator and other writers of that warehouse are excluded for the whole transfer.
+     * The locks are always taken in the order of the identity hash codes of the two warehouses so that
+     * concurrent transfers in opposite directions cannot deadlock.
+     * @param toWarehouse The other warehouse taking part in the transfer.
+     * @param allowSelf Whether the destination may be this warehouse, possibly behind a decorator.
+     * @param transfer The transfer to run.
+     * @return The result of the transfer.
+     * @throws IllegalArgumentException If the destination is this warehouse and that is not allowed.
+     */
+    private <T> T withBothLocked(Inventory toWarehouse, boolean allowSelf, LockedTransfer<T> transfer) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        Object other = toWarehouse.acquireLockOwner();
+        Inventory destination = other instanceof Inventory ? (Inventory) other : toWarehouse;
+        try {
+            if (other == this) {
+                if (!allowSelf) {
+                    throw new IllegalArgumentException("A warehouse cannot transfer materials to itself");
+                }
+                synchronized (this) {
+                    return transfer.run(destination);
+                }
+            }
+            int thisHash = System.identityHashCode(this);
+            int otherHash = System.identityHashCode(other);
+            if (thisHash < otherHash) {
+                synchronized (this) {
+                    synchronized (other) {
+                        return transfer.run(destination);
+                    }
+                }
+            } else if (thisHash > otherHash) {
+                synchronized (other) {
+                    synchronized (this) {
+                        return transfer.run(destination);
+                    }
+                }
+            } else {
+                synchronized (TIE_LOCK) {
+                    synchronized (this) {
+                        synchronized (other) {
+                            return transfer.run(destination);
+                        }
+                    }
+                }
+            }
+        } finally {
+            toWarehouse.releaseLockOwner();
+        }
+    }
+
+    /**
+     * A transfer body executed while both warehouses are locked, given the destination behind any decorator.
+     */
+    private interface LockedTransfer<T> {
+        T run(Inventory destination) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound;
     }
 
     /**
@@ -176,14 +451,24 @@ public class WareHouse implements Inventory {
      */
     @Override
     public Map<Material, Integer> listAllMaterials() {
-        if (warehouseMaterials.isEmpty()) {
+        Map<Material, Integer> materials = currentSnapshot.getMaterials();
+        if (materials.isEmpty()) {
             System.out.println();
         }
 
-        for (Material material : warehouseMaterials.keySet()) {
+        for (Material material : materials.keySet()) {
             System.out.println(material);
         }
-        return warehouseMaterials;
+        return materials;
+    }
+
+    /**
+     * Returns the latest published point-in-time view of the warehouse without taking any lock.
+     * @return An immutable snapshot of all materials and their quantities.
+     */
+    @Override
+    public InventorySnapshot snapshot() {
+        return currentSnapshot;
     }
 
     /**
@@ -195,9 +480,85 @@ public class WareHouse implements Inventory {
      */
     @Override
     public int getMaterialQuantity(Inventory warehouse, Material material) throws MaterialNotFound {
-        if (!warehouseMaterials.containsKey(material)) {
+        // Check and read the same snapshot, so a concurrent removal cannot slip in between.
+        InventorySnapshot snapshot = currentSnapshot;
+        if (!snapshot.contains(material)) {
             throw new MaterialNotFound("The material's quantity you want to see is not found");
         }
+        if (warehouse == this) {
+            return snapshot.getQuantity(material);
+        }
         return warehouse.listAllMaterials().get(material);
     }
+
+    /**
+     * Registers a listener that is notified after every change of a material quantity in this warehouse.
+     * @param listener The listener to register.
+     */
+    public void addChangeListener(InventoryChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addChangeListener(InventoryChangeListener)}.
+     * @param listener The listener to unregister.
+     */
+    public void removeChangeListener(InventoryChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Helper method to publish a new snapshot and notify all registered listeners about a quantity change.
+     * Must be called while holding the lock of the warehouse.
+     * @param material The material whose quantity changed.
+     * @param previousQuantity The quantity before the change.
+     * @param newQuantity The quantity after the change.
+     */
+    private void publishChange(Material material, int previousQuantity, int newQuantity) {
+        publishChange(material, previousQuantity, newQuantity, null);
+    }
+
+    /**
+     * Helper method to publish a new snapshot and notify all registered listeners about a quantity change,
+     * reported as a transfer if the quantity was moved to a destination inventory.
+     * Must be called while holding the lock of the warehouse.
+     * @param material The material whose quantity changed.
+     * @param previousQuantity The quantity before the change.
+     * @param newQuantity The quantity after the change.
+     * @param destination The inventory the quantity was moved to, or null if it was not transferred.
+     */
+    private void publishChange(Material material, int previousQuantity, int newQuantity, Inventory destination) {
+        currentSnapshot = new InventorySnapshot(currentSnapshot.getVersion() + 1, warehouseMaterials);
+        notifyChange(material, previousQuantity, newQuantity, destination);
+    }
+
+    /**
+     * Helper method to publish one new snapshot for a change of several materials, then notify all registered
+     * listeners about each of them in turn. A material no longer in the warehouse is reported with a new quantity of 0.
+     * Must be called while holding the lock of the warehouse, after every material has been changed.
+     * @param previousQuantities The quantity of every changed material before the change.
+     * @param destination The inventory the quantities were moved to, or null if they were not transferred.
+     */
+    private void publishChanges(Map<Material, Integer> previousQuantities, Inventory destination) {
+        if (previousQuantities.isEmpty()) {
+            return;
+        }
+        currentSnapshot = new InventorySnapshot(currentSnapshot.getVersion() + 1, warehouseMaterials);
+        for (Map.Entry<Material, Integer> entry : previousQuantities.entrySet()) {
+            notifyChange(entry.getKey(), entry.getValue(), warehouseMaterials.getOrDefault(entry.getKey(), 0), destination);
+        }
+    }
+
+    /**
+     * Helper method notifying all registered listeners about a quantity change that has already been published.
+     */
+    private void notifyChange(Material material, int previousQuantity, int newQuantity, Inventory destination) {
+        for (InventoryChangeListener listener : changeListeners) {
+            if (destination == null) {
+                listener.quantityChanged(this, material, previousQuantity, newQuantity);
+            } else {
+                listener.quantityTransferred(this, destination, material, previousQuantity, newQuantity);
+            }
+        }
+    }
 }
@@ -0,0 +1,317 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs a warehouse as an actor: a single logical executor owns the warehouse, and callers submit operations
+ * to its mailbox instead of locking it. The mailbox is a bounded, lock-free multi-producer queue; an operation
+ * submitted while it is full fails fast with a {@link RejectedExecutionException}. Whenever the mailbox holds
+ * messages the actor schedules itself on the shared executor and runs up to a batch of them before yielding
+ * the thread, so many actors share a pool of threads and no two threads ever touch the same warehouse.
+ * A transfer is an exchange of messages: the source withdraws the stock and asks the destination to
+ * {@link AsyncInventory#deposit deposit} it. If the deposit fails, the stock is refunded to the source through
+ * a separate unbounded queue, so a refund can never be rejected and no stock is lost.
+ * The owned warehouse must not be changed directly while it is run by an actor.
+ */
+public class WarehouseActor implements AsyncInventory {
+
+    private static final int DEFAULT_MAILBOX_CAPACITY = 1024;
+    private static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final WareHouse warehouse;                           // The warehouse owned by this actor.
+    private final Executor executor;                             // Runs the actor's batches.
+    private final Mailbox mailbox;                               // Operations submitted by callers.
+    private final Queue<Runnable> refunds = new ConcurrentLinkedQueue<>(); // Refunds of failed transfers, run first.
+    private final int batchSize;                                 // Messages run per scheduling of the actor.
+    private final AtomicBoolean scheduled = new AtomicBoolean(); // Whether a batch is queued on or running on the executor.
+    private final AtomicLong processedCount = new AtomicLong();  // Messages run so far.
+    private final AtomicLong rejectedCount = new AtomicLong();   // Operations rejected because the mailbox was full.
+
+    /**
+     * Constructs a new WarehouseActor with the default mailbox capacity and batch size.
+     *
+     * @param warehouse The warehouse owned by the actor.
+     * @param executor Runs the actor's batches; usually shared by many actors.
+     */
+    public WarehouseActor(WareHouse warehouse, Executor executor) {
+        this(warehouse, executor, DEFAULT_MAILBOX_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a new WarehouseActor.
+     *
+     * @param warehouse The warehouse owned by the actor.
+     * @param executor Runs the actor's batches; usually shared by many actors.
+     * @param mailboxCapacity The maximum number of pending operations, rounded up to a power of two.
+     * @param batchSize The maximum number of messages run before the actor yields its thread.
+     */
+    public WarehouseActor(WareHouse warehouse, Executor executor, int mailboxCapacity, int batchSize) {
+        if (mailboxCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("The mailbox capacity and the batch size should be greater than 0");
+        }
+        this.warehouse = warehouse;
+        this.executor = executor;
+        this.mailbox = new Mailbox(mailboxCapacity);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public CompletableFuture<Material> addMaterial(Material material, int quantity) {
+        return submit(() -> warehouse.addMaterial(material, quantity));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateMaterialQuantity(Material material, int quantity) {
+        return submit(() -> {
+            warehouse.updateMaterialQuantity(material, quantity);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deposit(Material material, int quantity) {
+        return submit(() -> {
+            depositLocally(material, quantity);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Material> removeMaterial(Material material) {
+        return submit(() -> warehouse.removeMaterial(material));
+    }
+
+    @Override
+    public CompletableFuture<Integer> dropSomeQuantity(Material material, int quantity) {
+        return submit(() -> warehouse.dropSomeQuantity(material, quantity));
+    }
+
+    @Override
+    public CompletableFuture<Void> transferFullMaterial(AsyncInventory toWarehouse, Material material) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        enqueue(result, () -> {
+            int quantity;
+            try {
+                quantity = warehouse.snapshot().getQuantity(material);
+                warehouse.checkInvalidQuantity(material, quantity);
+                warehouse.removeMaterial(material);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            sendDeposit(toWarehouse, material, quantity, result, null);
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Integer> transferSomeQuantityOfMaterial(AsyncInventory toWarehouse, Material material, int quantity) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        enqueue(result, () -> {
+            try {
+                warehouse.dropSomeQuantity(material, quantity);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            sendDeposit(toWarehouse, material, quantity, result, quantity);
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Map<Material, Integer>> listAllMaterials() {
+        return submit(warehouse::listAllMaterials);
+    }
+
+    @Override
+    public CompletableFuture<Integer> getMaterialQuantity(Material material) {
+        return submit(() -> warehouse.snapshot().getQuantity(material));
+    }
+
+    @Override
+    public InventorySnapshot snapshot() {
+        return warehouse.snapshot();
+    }
+
+    /**
+     * Gets the number of messages the actor has run.
+     *
+     * @return The number of processed messages.
+     */
+    public long getProcessedCount() {
+        return processedCount.get();
+    }
+
+    /**
+     * Gets the number of operations rejected because the mailbox was full.
+     *
+     * @return The number of rejected operations.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Gets the number of operations waiting in the mailbox.
+     *
+     * @return The number of pending operations.
+     */
+    public int getPendingCount() {
+        return mailbox.size();
+    }
+
+    /**
+     * Helper method submitting an operation whose result completes the returned future.
+     */
+    private <T> CompletableFuture<T> submit(Operation<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(result, () -> {
+            try {
+                result.complete(operation.run());
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Helper method putting a message into the mailbox, failing the future if the mailbox is full.
+     */
+    private void enqueue(CompletableFuture<?> result, Runnable message) {
+        if (!mailbox.offer(message)) {
+            rejectedCount.incrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("The mailbox of the warehouse is full"));
+            return;
+        }
+        schedule();
+    }
+
+    /**
+     * Helper method asking the destination to deposit withdrawn stock and refunding it if the deposit fails.
+     */
+    private <T> void sendDeposit(AsyncInventory toWarehouse, Material material, int quantity, CompletableFuture<T> result, T value) {
+        toWarehouse.deposit(material, quantity).whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+            refunds.add(() -> {
+                try {
+                    depositLocally(material, quantity);
+                } catch (Exception e) {
+                    cause.addSuppressed(e);
+                }
+                result.completeExceptionally(cause);
+            });
+            schedule();
+        });
+    }
+
+    /**
+     * Helper method adding stock to the owned warehouse, adding the material first if needed.
+     */
+    private void depositLocally(Material material, int quantity) throws Exception {
+        if (warehouse.snapshot().contains(material)) {
+            warehouse.updateMaterialQuantity(material, quantity);
+        } else {
+            warehouse.addMaterial(material, quantity);
+        }
+    }
+
+    /**
+     * Helper method scheduling a batch on the executor unless one is already queued or running.
+     */
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Helper method running up to one batch of messages, refunds first, and rescheduling if more are waiting.
+     */
+    private void drain() {
+        int processed = 0;
+        Runnable message;
+        while (processed < batchSize && ((message = refunds.poll()) != null || (message = mailbox.poll()) != null)) {
+            message.run();
+            processed++;
+        }
+        processedCount.addAndGet(processed);
+        scheduled.set(false);
+        if ((!refunds.isEmpty() || mailbox.size() > 0) && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * An operation on the owned warehouse that may throw one of the inventory exceptions.
+     */
+    private interface Operation<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * A bounded multi-producer, single-consumer ring buffer. Producers claim a slot by advancing the producer
+     * index with a compare-and-set and then publish the message into the slot; the single consumer takes
+     * messages in index order, so no locks are needed on either side.
+     */
+    private static class Mailbox {
+        private final AtomicReferenceArray<Runnable> slots;
+        private final int mask;
+        private final AtomicLong producerIndex = new AtomicLong();
+        private final AtomicLong consumerIndex = new AtomicLong();
+
+        private Mailbox(int capacity) {
+            int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            slots = new AtomicReferenceArray<>(size);
+            mask = size - 1;
+        }
+
+        private boolean offer(Runnable message) {
+            while (true) {
+                long index = producerIndex.get();
+                if (index - consumerIndex.get() > mask) {
+                    return false;
+                }
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    slots.lazySet((int) (index & mask), message);
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Takes the next message, or returns null if there is none or its producer has not published it yet.
+         */
+        private Runnable poll() {
+            long index = consumerIndex.get();
+            int slot = (int) (index & mask);
+            Runnable message = slots.get(slot);
+            if (message == null) {
+                return null;
+            }
+            slots.lazySet(slot, null);
+            consumerIndex.lazySet(index + 1);
+            return message;
+        }
+
+        private int size() {
+            return (int) (producerIndex.get() - consumerIndex.get());
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package org.warehouse.management;
+
+import org.warehouse.model.material.Material;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Keeps only recently used warehouses in memory and pages cold ones out to a local file store.
+ * Warehouses are accessed through {@link PagedInventory} proxies, which load a paged-out warehouse
+ * transparently on first access. Whenever the estimated size of the resident warehouses exceeds the
+ * memory budget, the least recently used warehouses that are not in use are written to disk and dropped.
+ * Victims are chosen under the pager's lock but written outside it, so a page-out never blocks operations on
+ * other warehouses; a warehouse accessed while it is being written is taken back from memory, not from disk.
+ * Materials are stored by the name of their type and resolved back to the application's shared
+ * {@link Material} instances when a warehouse is loaded, so a warehouse holding two materials of the same type
+ * cannot be paged out: it is rejected when registered, and stays resident while it holds them.
+ * Change listeners of a warehouse are not persisted.
+ */
+public class WarehousePager {
+
+    // Rough heap cost of an empty warehouse with its map, snapshot and listener list, and of one material entry.
+    private static final long WAREHOUSE_BYTES = 256;
+    private static final long MATERIAL_ENTRY_BYTES = 96;
+
+    private final Path directory;                              // Where paged-out warehouses are stored.
+    private final long memoryBudget;                           // The estimated bytes resident warehouses may use.
+    private final Function<String, Material> materialResolver; // Resolves a material type name to its material.
+    private final Executor prefetchExecutor;                   // Runs prefetches, or null to prefetch on the caller.
+
+    private final Map<Long, Resident> residents = new LinkedHashMap<>(16, 0.75f, true); // Resident warehouses in access order.
+    private final Map<Long, PagedInventory> proxies = new HashMap<>(); // The proxy of every managed warehouse.
+    private final Map<Long, Resident> writing = new HashMap<>();   // Warehouses whose file is being written outside the lock.
+    private long residentBytes;                                // The estimated size of the resident warehouses.
+    private long loadCount;                                    // Warehouses read back from disk.
+    private long evictionCount;                                // Warehouses written to disk and dropped.
+
+    /**
+     * Constructs a new WarehousePager that prefetches on the calling thread.
+     *
+     * @param directory The directory in which paged-out warehouses are stored.
+     * @param memoryBudget The estimated number of bytes resident warehouses may use.
+     * @param materialResolver Resolves the name of a material type to the material used as warehouse key.
+     */
+    public WarehousePager(Path directory, long memoryBudget, Function<String, Material> materialResolver) {
+        this(directory, memoryBudget, materialResolver, null);
+    }
+
+    /**
+     * Constructs a new WarehousePager.
+     *
+     * @param directory The directory in which paged-out warehouses are stored.
+     * @param memoryBudget The estimated number of bytes resident warehouses may use.
+     * @param materialResolver Resolves the name of a material type to the material used as warehouse key.
+     * @param prefetchExecutor Runs prefetches in the background, or null to prefetch on the calling thread.
+     */
+    public WarehousePager(Path directory, long memoryBudget, Function<String, Material> materialResolver, Executor prefetchExecutor) {
+        this.directory = directory;
+        this.memoryBudget = memoryBudget;
+        this.materialResolver = materialResolver;
+        this.prefetchExecutor = prefetchExecutor;
+    }
+
+    /**
+     * Hands a warehouse over to the pager. From now on it must only be accessed through the returned proxy.
+     *
+     * @param id The id of the warehouse.
+     * @param warehouse The warehouse to manage.
+     * @return The proxy through which the warehouse is accessed.
+     * @throws IllegalArgumentException If the id is taken, or the warehouse holds two materials of the same type.
+     */
+    public PagedInventory register(long id, WareHouse warehouse) {
+        PagedInventory proxy;
+        List<PageOut> pageOuts;
+        synchronized (this) {
+            if (proxies.containsKey(id)) {
+                throw new IllegalArgumentException("A warehouse with the id " + id + " is already registered");
+            }
+            String duplicate = findDuplicateType(warehouse.snapshot().getMaterials());
+            if (duplicate != null) {
+                throw new IllegalArgumentException("The warehouse " + id + " holds two materials of type " + duplicate);
+            }
+            proxy = new PagedInventory(this, id);
+            proxies.put(id, proxy);
+            makeResident(id, warehouse);
+            pageOuts = selectPageOuts();
+        }
+        pageOut(pageOuts);
+        return proxy;
+    }
+
+    /**
+     * Gets the proxy of a warehouse that is already managed by the pager.
+     *
+     * @param id The id of the warehouse.
+     * @return The proxy through which the warehouse is accessed.
+     */
+    public synchronized PagedInventory getInventory(long id) {
+        PagedInventory proxy = proxies.get(id);
+        if (proxy == null) {
+            throw new IllegalArgumentException("No warehouse with the id " + id + " is registered");
+        }
+        return proxy;
+    }
+
+    /**
+     * Loads the given warehouses ahead of their first access, on the prefetch executor if one is configured.
+     *
+     * @param ids The ids of the warehouses to load.
+     */
+    public void prefetch(Collection<Long> ids) {
+        List<Long> toLoad = new ArrayList<>(ids);
+        Runnable load = () -> {
+            for (long id : toLoad) {
+                List<PageOut> pageOuts;
+                synchronized (this) {
+                    if (!proxies.containsKey(id) || residents.containsKey(id)) {
+                        continue;
+                    }
+                    load(id);
+                    pageOuts = selectPageOuts();
+                }
+                pageOut(pageOuts);
+            }
+        };
+        if (prefetchExecutor == null) {
+            load.run();
+        } else {
+            prefetchExecutor.execute(load);
+        }
+    }
+
+    /**
+     * Writes every resident warehouse to disk, keeping it in memory.
+     * Waits for page-outs in progress first, so no older snapshot can overwrite a newer one.
+     *
+     * @throws IllegalStateException If a resident warehouse holds two materials of the same type.
+     */
+    public void flush() {
+        Map<Long, Map<Material, Integer>> snapshots = new LinkedHashMap<>();
+        synchronized (this) {
+            while (!writing.isEmpty()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for page-outs to finish", e);
+                }
+            }
+            for (Map.Entry<Long, Resident> entry : residents.entrySet()) {
+                snapshots.put(entry.getKey(), entry.getValue().warehouse.snapshot().getMaterials());
+                writing.put(entry.getKey(), entry.getValue());
+            }
+        }
+        try {
+            for (Map.Entry<Long, Map<Material, Integer>> entry : snapshots.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            synchronized (this) {
+                writing.keySet().removeAll(snapshots.keySet());
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of warehouses currently in memory.
+     *
+     * @return The number of resident warehouses.
+     */
+    public synchronized int getResidentCount() {
+        return residents.size();
+    }
+
+    /**
+     * Gets the estimated heap size of the resident warehouses.
+     *
+     * @return The estimated number of bytes.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * Gets the number of warehouses read back from disk.
+     *
+     * @return The load count.
+     */
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Gets the number of warehouses written to disk and dropped from memory.
+     *
+     * @return The eviction count.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the warehouse with the given id, loading it if needed, and protects it from eviction until
+     * {@link #unpin(long)} is called.
+     *
+     * @param id The id of the warehouse.
+     * @return The resident warehouse.
+     */
+    WareHouse pin(long id) {
+        Resident resident;
+        List<PageOut> pageOuts;
+        synchronized (this) {
+            resident = residents.get(id);
+            if (resident == null) {
+                resident = load(id);
+            }
+            resident.pins++;
+            pageOuts = selectPageOuts();
+        }
+        try {
+            pageOut(pageOuts);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                resident.pins--;
+            }
+            throw e;
+        }
+        return resident.warehouse;
+    }
+
+    /**
+     * Releases a warehouse pinned with {@link #pin(long)} and re-estimates its size.
+     *
+     * @param id The id of the warehouse.
+     */
+    void unpin(long id) {
+        List<PageOut> pageOuts;
+        synchronized (this) {
+            Resident resident = residents.get(id);
+            resident.pins--;
+            long bytes = estimate(resident.warehouse);
+            residentBytes += bytes - resident.bytes;
+            resident.bytes = bytes;
+            pageOuts = selectPageOuts();
+        }
+        pageOut(pageOuts);
+    }
+
+    /**
+     * Helper method adding a warehouse to the resident set.
+     */
+    private Resident makeResident(long id, WareHouse warehouse) {
+        Resident resident = new Resident(warehouse, estimate(warehouse));
+        residents.put(id, resident);
+        residentBytes += resident.bytes;
+        return resident;
+    }
+
+    /**
+     * Helper method making a registered warehouse resident again, taking it back from an unfinished
+     * page-out if there is one and reading it from disk otherwise. Must be called under the pager's lock.
+     */
+    private Resident load(long id) {
+        Resident resident = writing.get(id);
+        if (resident == null) {
+            return makeResident(id, read(id));
+        }
+        residents.put(id, resident);
+        residentBytes += resident.bytes;
+        return resident;
+    }
+
+    /**
+     * Helper method choosing the least recently used unpinned warehouses to page out until the budget is met.
+     * The victims leave the resident set at once, but are only written by {@link #pageOut(List)} once the
+     * caller has released the pager's lock. Must be called under the pager's lock.
+     */
+    private List<PageOut> selectPageOuts() {
+        List<PageOut> pageOuts = new ArrayList<>();
+        Iterator<Map.Entry<Long, Resident>> iterator = residents.entrySet().iterator();
+        while (residentBytes > memoryBudget && iterator.hasNext()) {
+            Map.Entry<Long, Resident> entry = iterator.next();
+            Resident resident = entry.getValue();
+            // A warehouse whose previous file is still being written waits, so writes of one file never overlap.
+            if (resident.pins > 0 || writing.containsKey(entry.getKey())) {
+                continue;
+            }
+            Map<Material, Integer> materials = resident.warehouse.snapshot().getMaterials();
+            if (findDuplicateType(materials) != null) {
+                continue;
+            }
+            iterator.remove();
+            residentBytes -= resident.bytes;
+            writing.put(entry.getKey(), resident);
+            pageOuts.add(new PageOut(entry.getKey(), resident, materials));
+        }
+        return pageOuts;
+    }
+
+    /**
+     * Helper method writing the chosen victims outside the pager's lock. A victim that could not be written
+     * is made resident again, and the first failure is rethrown once every victim has been handled.
+     */
+    private void pageOut(List<PageOut> pageOuts) {
+        RuntimeException failure = null;
+        for (PageOut pageOut : pageOuts) {
+            boolean written = false;
+            try {
+                write(pageOut.id, pageOut.materials);
+                written = true;
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+            synchronized (this) {
+                writing.remove(pageOut.id);
+                if (!residents.containsKey(pageOut.id)) {
+                    if (written) {
+                        evictionCount++;
+                    } else {
+                        residents.put(pageOut.id, pageOut.resident);
+                        residentBytes += pageOut.resident.bytes;
+                    }
+                }
+                notifyAll();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Helper method writing a warehouse snapshot to its file, replacing the previous file atomically.
+     * Rejects a snapshot holding two materials of the same type, since they could not be told apart when read back.
+     */
+    private void write(long id, Map<Material, Integer> materials) {
+        String duplicate = findDuplicateType(materials);
+        if (duplicate != null) {
+            throw new IllegalStateException("The warehouse " + id + " holds two materials of type " + duplicate
+                    + " and cannot be paged out");
+        }
+        Path file = fileOf(id);
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(materials.size());
+                for (Map.Entry<Material, Integer> entry : materials.entrySet()) {
+                    out.writeUTF(entry.getKey().getMaterialType().getName());
+                    out.writeInt(entry.getValue());
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not page out warehouse " + id, e);
+        }
+    }
+
+    /**
+     * Helper method reading a paged-out warehouse from its file.
+     */
+    private WareHouse read(long id) {
+        Map<Material, Integer> materials = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(fileOf(id))))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                Material material = materialResolver.apply(name);
+                if (material == null) {
+                    throw new IOException("The material type " + name + " cannot be resolved");
+                }
+                materials.put(material, in.readInt());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load warehouse " + id, e);
+        }
+        loadCount++;
+        return new WareHouse(materials);
+    }
+
+    private Path fileOf(long id) {
+        return directory.resolve("warehouse-" + id + ".bin");
+    }
+
+    /**
+     * Helper method finding a material type held by more than one material.
+     *
+     * @return The name of the type, or null if every material has a type of its own.
+     */
+    private static String findDuplicateType(Map<Material, Integer> materials) {
+        Set<String> names = new HashSet<>();
+        for (Material material : materials.keySet()) {
+            String name = material.getMaterialType().getName();
+            if (!names.add(name)) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    private static long estimate(WareHouse warehouse) {
+        return WAREHOUSE_BYTES + MATERIAL_ENTRY_BYTES * warehouse.snapshot().getMaterials().size();
+    }
+
+    /**
+     * A warehouse held in memory, with its estimated size and the number of operations using it.
+     */
+    private static class Resident {
+        private final WareHouse warehouse;
+        private long bytes;
+        private int pins;
+
+        private Resident(WareHouse warehouse, long bytes) {
+            this.warehouse = warehouse;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * A warehouse chosen for page-out, with the snapshot of its stock taken when it was chosen.
+     */
+    private static class PageOut {
+        private final long id;
+        private final Resident resident;
+        private final Map<Material, Integer> materials;
+
+        private PageOut(long id, Resident resident, Map<Material, Integer> materials) {
+            this.id = id;
+            this.resident = resident;
+            this.materials = materials;
+        }
+    }
+}
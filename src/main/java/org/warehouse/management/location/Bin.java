@@ -0,0 +1,124 @@
+package org.warehouse.management.location;
+
+import org.warehouse.model.material.Material;
+
+/**
+ * A storage location of a warehouse, such as one pallet position in a rack.
+ * A bin lies in a zone and an aisle at a point of the warehouse floor, and holds at most one material at a
+ * time, up to the maximum capacity of that material's type. Bins are created by a {@link BinLayout}, which
+ * changes their contents while holding the lock of its warehouse.
+ */
+public class Bin {
+
+    private final int id;        // The index of the bin in its layout.
+    private final String zone;   // The zone of the warehouse the bin lies in.
+    private final int aisle;     // The aisle of the zone the bin lies in.
+    private final double x;      // The position of the bin along the x axis of the floor.
+    private final double y;      // The position of the bin along the y axis of the floor.
+
+    private Material material;   // The material held by the bin, or null if the bin is empty.
+    private int quantity;        // The quantity of the material held by the bin.
+
+    Bin(int id, String zone, int aisle, double x, double y) {
+        this.id = id;
+        this.zone = zone;
+        this.aisle = aisle;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * Gets the index of the bin in its layout.
+     *
+     * @return The id, from 0 to the number of bins of the layout - 1.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Gets the zone of the warehouse the bin lies in.
+     *
+     * @return The zone.
+     */
+    public String getZone() {
+        return zone;
+    }
+
+    /**
+     * Gets the aisle of the zone the bin lies in.
+     *
+     * @return The aisle.
+     */
+    public int getAisle() {
+        return aisle;
+    }
+
+    /**
+     * Gets the position of the bin along the x axis of the floor.
+     *
+     * @return The x coordinate.
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * Gets the position of the bin along the y axis of the floor.
+     *
+     * @return The y coordinate.
+     */
+    public double getY() {
+        return y;
+    }
+
+    /**
+     * Gets the material held by the bin.
+     *
+     * @return The material, or null if the bin is empty.
+     */
+    public synchronized Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Gets the quantity held by the bin.
+     *
+     * @return The quantity, 0 if the bin is empty.
+     */
+    public synchronized int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Gets how many more units of a material the bin can take.
+     *
+     * @param material The material to store.
+     * @return The free room for the material, 0 if the bin holds another material.
+     */
+    public synchronized int getFreeCapacity(Material material) {
+        if (this.material == null) {
+            return material.getMaterialType().getMaximumCapacity();
+        }
+        return this.material == material ? material.getMaterialType().getMaximumCapacity() - quantity : 0;
+    }
+
+    /**
+     * Gets the straight-line distance from the bin to a point of the floor.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The distance.
+     */
+    public double distanceTo(double x, double y) {
+        return Math.hypot(this.x - x, this.y - y);
+    }
+
+    /**
+     * Helper method changing the contents of the bin; an empty bin forgets its material.
+     */
+    synchronized void setContents(Material material, int quantity) {
+        this.material = quantity == 0 ? null : material;
+        this.quantity = quantity;
+    }
+}
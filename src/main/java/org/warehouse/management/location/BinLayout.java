@@ -0,0 +1,314 @@
+package org.warehouse.management.location;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The bins of a warehouse and the stock they hold, beneath the material totals of the {@link WareHouse}.
+ * Every bin holds one material up to the maximum capacity of its type. Bins are indexed by spatial grids:
+ * one of empty bins, and per material one of the bins holding it and one of those with room left, so
+ * finding the nearest bin with room for a material, or the nearest bins holding it, only visits the grid
+ * cells around the answer. The room left for a material is kept as a running total over the bins holding it,
+ * so checking whether the bins can take a quantity does not visit every bin.
+ * Stock put away or picked through the layout changes the bins and the warehouse totals together, while
+ * holding the lock of the warehouse, so the binned quantity of a material never drifts from the quantity the
+ * warehouse reports. Stock changed directly on the warehouse is not binned and is reported by
+ * {@link #getUnbinnedQuantity(Material)}.
+ */
+public class BinLayout {
+
+    private final WareHouse warehouse;  // The warehouse whose stock is stored in the bins.
+    private final double cellSize;      // The side length of the cells of the spatial grids.
+
+    private final List<Bin> bins = new ArrayList<>();                   // All bins, by id.
+    private final SpatialGrid emptyBins;                                // Bins holding nothing.
+    private final Map<Material, SpatialGrid> holdingBins = new HashMap<>(); // Bins holding each material.
+    private final Map<Material, SpatialGrid> openBins = new HashMap<>();    // Bins holding each material with room left.
+    private final Map<Material, Integer> binnedQuantities = new HashMap<>(); // The quantity of each material in bins.
+    private final Map<Material, Long> openRoom = new HashMap<>();           // The room left in the bins holding each material.
+
+    /**
+     * Constructs a new BinLayout without bins.
+     *
+     * @param warehouse The warehouse whose stock is stored in the bins.
+     * @param cellSize The side length of the cells of the spatial index; about the distance between neighbouring bins.
+     */
+    public BinLayout(WareHouse warehouse, double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("The cell size should be greater than 0");
+        }
+        this.warehouse = warehouse;
+        this.cellSize = cellSize;
+        this.emptyBins = new SpatialGrid(cellSize);
+    }
+
+    /**
+     * Adds an empty bin to the layout.
+     *
+     * @param zone The zone of the warehouse the bin lies in.
+     * @param aisle The aisle of the zone the bin lies in.
+     * @param x The position of the bin along the x axis of the floor.
+     * @param y The position of the bin along the y axis of the floor.
+     * @return The new bin.
+     */
+    public Bin addBin(String zone, int aisle, double x, double y) {
+        synchronized (warehouse) {
+            Bin bin = new Bin(bins.size(), zone, aisle, x, y);
+            bins.add(bin);
+            emptyBins.add(bin);
+            return bin;
+        }
+    }
+
+    /**
+     * Gets the warehouse whose stock is stored in the bins.
+     *
+     * @return The warehouse.
+     */
+    public WareHouse getWarehouse() {
+        return warehouse;
+    }
+
+    /**
+     * Gets all bins of the layout.
+     *
+     * @return An unmodifiable list of the bins, by id.
+     */
+    public List<Bin> getBins() {
+        synchronized (warehouse) {
+            return Collections.unmodifiableList(new ArrayList<>(bins));
+        }
+    }
+
+    /**
+     * Finds the bin with room for a material closest to a point, either an empty bin or one already holding
+     * the material with room left.
+     *
+     * @param material The material to store.
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @return The closest bin with room, or null if every bin is full or holds another material.
+     */
+    public Bin nearestFreeBin(Material material, double x, double y) {
+        synchronized (warehouse) {
+            return nearestFreeBinLocked(material, x, y);
+        }
+    }
+
+    /**
+     * Finds the bins holding a material closest to a point.
+     *
+     * @param material The material.
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @param limit The maximum number of bins to return.
+     * @return Up to limit bins holding the material, closest first.
+     */
+    public List<Bin> nearestBinsHolding(Material material, double x, double y, int limit) {
+        synchronized (warehouse) {
+            SpatialGrid holding = holdingBins.get(material);
+            return holding == null ? Collections.emptyList() : holding.nearest(x, y, limit);
+        }
+    }
+
+    /**
+     * Stores a quantity of a material in the bins closest to a point, filling bins that already hold the
+     * material or empty ones, and adds it to the warehouse.
+     *
+     * @param material The material to store.
+     * @param quantity The quantity to store.
+     * @param x The x coordinate of the point, for example the receiving dock.
+     * @param y The y coordinate of the point.
+     * @return The quantity stored into every bin, in the order the bins were filled.
+     * @throws InvalidQuantity If the quantity is less than or equal to zero.
+     * @throws ExceedingCapacity If the bins do not have room for the whole quantity; nothing is stored then.
+     */
+    public List<BinQuantity> putAway(Material material, int quantity, double x, double y) throws InvalidQuantity, ExceedingCapacity {
+        if (quantity <= 0) {
+            throw new InvalidQuantity("The quantity must be greater than 0");
+        }
+        synchronized (warehouse) {
+            long room = (long) emptyBins.size() * material.getMaterialType().getMaximumCapacity() + openRoom.getOrDefault(material, 0L);
+            if (room < quantity) {
+                throw new ExceedingCapacity("Storing " + quantity + " units of " + material.getMaterialType().getName() + " would exceed the " + room + " units of free room in the bins");
+            }
+
+            List<BinQuantity> stored = new ArrayList<>();
+            int remaining = quantity;
+            while (remaining > 0) {
+                Bin bin = nearestFreeBinLocked(material, x, y);
+                int amount = Math.min(remaining, bin.getFreeCapacity(material));
+                addToWarehouse(material, amount);
+                setContents(bin, material, bin.getQuantity() + amount);
+                stored.add(new BinQuantity(bin, amount));
+                remaining -= amount;
+            }
+            return stored;
+        }
+    }
+
+    /**
+     * Takes a quantity of a material out of the bins closest to a point and drops it from the warehouse.
+     *
+     * @param material The material to take.
+     * @param quantity The quantity to take.
+     * @param x The x coordinate of the point, for example the position of the picker.
+     * @param y The y coordinate of the point.
+     * @return The quantity taken out of every bin, in the order the bins were emptied.
+     * @throws InvalidQuantity If the quantity is less than or equal to zero or more than the bins hold; nothing is taken then.
+     * @throws MaterialNotFound If no bin holds the material.
+     */
+    public List<BinQuantity> pick(Material material, int quantity, double x, double y) throws InvalidQuantity, MaterialNotFound {
+        if (quantity <= 0) {
+            throw new InvalidQuantity("The quantity must be greater than 0");
+        }
+        synchronized (warehouse) {
+            int binned = binnedQuantities.getOrDefault(material, 0);
+            if (binned == 0 || !warehouse.snapshot().contains(material)) {
+                throw new MaterialNotFound("The material you want to pick is not stored in any bin");
+            }
+            if (binned < quantity) {
+                throw new InvalidQuantity("Only " + binned + " units of " + material.getMaterialType().getName() + " are stored in bins");
+            }
+
+            warehouse.dropQuantities(Collections.singletonMap(material, quantity));
+            List<BinQuantity> picked = new ArrayList<>();
+            int remaining = quantity;
+            while (remaining > 0) {
+                Bin bin = holdingBins.get(material).nearest(x, y, 1).get(0);
+                int amount = Math.min(remaining, bin.getQuantity());
+                setContents(bin, material, bin.getQuantity() - amount);
+                picked.add(new BinQuantity(bin, amount));
+                remaining -= amount;
+            }
+            return picked;
+        }
+    }
+
+    /**
+     * Gets the quantity of a material stored in the bins.
+     *
+     * @param material The material.
+     * @return The binned quantity.
+     */
+    public int getBinnedQuantity(Material material) {
+        synchronized (warehouse) {
+            return binnedQuantities.getOrDefault(material, 0);
+        }
+    }
+
+    /**
+     * Gets the quantity of a material the warehouse holds outside of any bin, such as stock added to the
+     * warehouse directly.
+     *
+     * @param material The material.
+     * @return The warehouse quantity minus the binned quantity.
+     */
+    public int getUnbinnedQuantity(Material material) {
+        synchronized (warehouse) {
+            Integer total = warehouse.snapshot().getMaterials().get(material);
+            return (total == null ? 0 : total) - binnedQuantities.getOrDefault(material, 0);
+        }
+    }
+
+    /**
+     * Helper method taking quantities out of several bins and dropping their totals from the warehouse in a single
+     * operation. Must be called while holding the lock of the warehouse, with no more than each bin holds.
+     */
+    void takeLocked(Map<Bin, Integer> quantities) throws InvalidQuantity, MaterialNotFound {
+        Map<Material, Integer> totals = new HashMap<>();
+        for (Map.Entry<Bin, Integer> entry : quantities.entrySet()) {
+            totals.merge(entry.getKey().getMaterial(), entry.getValue(), Integer::sum);
+        }
+        warehouse.dropQuantities(totals);
+        for (Map.Entry<Bin, Integer> entry : quantities.entrySet()) {
+            Bin bin = entry.getKey();
+            setContents(bin, bin.getMaterial(), bin.getQuantity() - entry.getValue());
+        }
+    }
+
+    /**
+     * Helper method finding the closest bin with room for a material while holding the warehouse lock.
+     */
+    private Bin nearestFreeBinLocked(Material material, double x, double y) {
+        SpatialGrid open = openBins.get(material);
+        List<Bin> partial = open == null ? Collections.emptyList() : open.nearest(x, y, 1);
+        List<Bin> empty = emptyBins.nearest(x, y, 1);
+        if (partial.isEmpty()) {
+            return empty.isEmpty() ? null : empty.get(0);
+        }
+        if (empty.isEmpty() || partial.get(0).distanceTo(x, y) <= empty.get(0).distanceTo(x, y)) {
+            return partial.get(0);
+        }
+        return empty.get(0);
+    }
+
+    /**
+     * Helper method changing the contents of a bin and moving it between the indexes it belongs to.
+     */
+    private void setContents(Bin bin, Material material, int quantity) {
+        Material previousMaterial = bin.getMaterial();
+        int previousQuantity = bin.getQuantity();
+        unindex(bin);
+        bin.setContents(material, quantity);
+        index(bin);
+
+        if (previousMaterial != null) {
+            binnedQuantities.merge(previousMaterial, -previousQuantity, Integer::sum);
+            openRoom.merge(previousMaterial, (long) previousQuantity - previousMaterial.getMaterialType().getMaximumCapacity(), Long::sum);
+        }
+        if (quantity > 0) {
+            binnedQuantities.merge(material, quantity, Integer::sum);
+            openRoom.merge(material, (long) material.getMaterialType().getMaximumCapacity() - quantity, Long::sum);
+        }
+    }
+
+    private void index(Bin bin) {
+        Material material = bin.getMaterial();
+        if (material == null) {
+            emptyBins.add(bin);
+            return;
+        }
+        holdingBins.computeIfAbsent(material, key -> new SpatialGrid(cellSize)).add(bin);
+        if (bin.getFreeCapacity(material) > 0) {
+            openBins.computeIfAbsent(material, key -> new SpatialGrid(cellSize)).add(bin);
+        }
+    }
+
+    private void unindex(Bin bin) {
+        Material material = bin.getMaterial();
+        if (material == null) {
+            emptyBins.remove(bin);
+            return;
+        }
+        holdingBins.get(material).remove(bin);
+        SpatialGrid open = openBins.get(material);
+        if (open != null) {
+            open.remove(bin);
+        }
+    }
+
+    /**
+     * Helper method adding stock to the warehouse, adding the material first if needed.
+     * A single call never exceeds the capacity of one bin, which is the maximum capacity of the material.
+     */
+    private void addToWarehouse(Material material, int amount) throws InvalidQuantity, ExceedingCapacity {
+        try {
+            if (warehouse.snapshot().contains(material)) {
+                warehouse.updateMaterialQuantity(material, amount);
+            } else {
+                warehouse.addMaterial(material, amount);
+            }
+        } catch (MaterialNotFound | MaterialAlreadyExists e) {
+            // The warehouse is locked, so the material cannot appear or disappear between the check and the change.
+            throw new IllegalStateException(e);
+        }
+    }
+}
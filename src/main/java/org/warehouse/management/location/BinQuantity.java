@@ -0,0 +1,39 @@
+package org.warehouse.management.location;
+
+/**
+ * A quantity stored into or taken out of one bin.
+ */
+public class BinQuantity {
+
+    private final Bin bin;        // The bin.
+    private final int quantity;   // The quantity moved into or out of the bin.
+
+    /**
+     * Constructs a new BinQuantity.
+     *
+     * @param bin The bin.
+     * @param quantity The quantity moved into or out of the bin.
+     */
+    public BinQuantity(Bin bin, int quantity) {
+        this.bin = bin;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the bin.
+     *
+     * @return The bin.
+     */
+    public Bin getBin() {
+        return bin;
+    }
+
+    /**
+     * Gets the quantity moved into or out of the bin.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
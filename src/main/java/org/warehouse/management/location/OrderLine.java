@@ -0,0 +1,53 @@
+package org.warehouse.management.location;
+
+import org.warehouse.model.material.Material;
+
+/**
+ * One line of a customer order: a quantity of a material to be picked from the bins of a warehouse.
+ */
+public class OrderLine {
+
+    private final String orderId;      // The order the line belongs to.
+    private final Material material;   // The material to pick.
+    private final int quantity;        // The quantity to pick.
+
+    /**
+     * Constructs a new OrderLine.
+     *
+     * @param orderId The order the line belongs to.
+     * @param material The material to pick.
+     * @param quantity The quantity to pick.
+     */
+    public OrderLine(String orderId, Material material, int quantity) {
+        this.orderId = orderId;
+        this.material = material;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the order the line belongs to.
+     *
+     * @return The order id.
+     */
+    public String getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Gets the material to pick.
+     *
+     * @return The material.
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Gets the quantity to pick.
+     *
+     * @return The quantity.
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+}
@@ -0,0 +1,56 @@
+package org.warehouse.management.location;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A group of order lines picked together on one trip from the depot, with the bins every line is picked
+ * from and the order in which the picker visits them.
+ */
+public class PickBatch {
+
+    private final Map<OrderLine, List<BinQuantity>> picks;  // The bins and quantities of every line.
+    private final List<Bin> route;                          // The bins in visiting order, starting and ending at the depot.
+    private final double routeLength;                       // The length of the round trip from the depot.
+
+    /**
+     * Constructs a new PickBatch.
+     *
+     * @param picks The bins and quantities of every line of the batch.
+     * @param route The bins in visiting order.
+     * @param routeLength The length of the round trip from the depot through the route.
+     */
+    public PickBatch(Map<OrderLine, List<BinQuantity>> picks, List<Bin> route, double routeLength) {
+        this.picks = Collections.unmodifiableMap(picks);
+        this.route = Collections.unmodifiableList(route);
+        this.routeLength = routeLength;
+    }
+
+    /**
+     * Gets the bins and quantities every line of the batch is picked from.
+     *
+     * @return The picks by order line, in the order the lines were batched.
+     */
+    public Map<OrderLine, List<BinQuantity>> getPicks() {
+        return picks;
+    }
+
+    /**
+     * Gets the bins of the batch in the order the picker visits them.
+     *
+     * @return The route, without the depot at its ends.
+     */
+    public List<Bin> getRoute() {
+        return route;
+    }
+
+    /**
+     * Gets the length of the round trip from the depot through the route.
+     *
+     * @return The route length.
+     */
+    public double getRouteLength() {
+        return routeLength;
+    }
+}
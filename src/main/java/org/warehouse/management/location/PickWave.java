@@ -0,0 +1,68 @@
+package org.warehouse.management.location;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The plan for picking a wave of order lines: the batches with their routes, and the lines that could not be
+ * planned because the bins do not hold enough stock.
+ */
+public class PickWave {
+
+    private final List<PickBatch> batches;    // The planned batches.
+    private final List<OrderLine> shortLines; // Lines left out because the bins do not hold enough stock.
+    private final long planningNanos;         // The time spent allocating, batching and routing.
+
+    /**
+     * Constructs a new PickWave.
+     *
+     * @param batches The planned batches.
+     * @param shortLines The lines left out because the bins do not hold enough stock.
+     * @param planningNanos The time spent planning the wave in nanoseconds.
+     */
+    public PickWave(List<PickBatch> batches, List<OrderLine> shortLines, long planningNanos) {
+        this.batches = Collections.unmodifiableList(batches);
+        this.shortLines = Collections.unmodifiableList(shortLines);
+        this.planningNanos = planningNanos;
+    }
+
+    /**
+     * Gets the planned batches.
+     *
+     * @return The batches.
+     */
+    public List<PickBatch> getBatches() {
+        return batches;
+    }
+
+    /**
+     * Gets the lines left out of the plan because the bins do not hold enough stock.
+     *
+     * @return The short lines.
+     */
+    public List<OrderLine> getShortLines() {
+        return shortLines;
+    }
+
+    /**
+     * Gets the time spent allocating, batching and routing.
+     *
+     * @return The planning time in nanoseconds.
+     */
+    public long getPlanningNanos() {
+        return planningNanos;
+    }
+
+    /**
+     * Gets the length of all routes of the wave.
+     *
+     * @return The summed route length.
+     */
+    public double getTotalRouteLength() {
+        double length = 0;
+        for (PickBatch batch : batches) {
+            length += batch.getRouteLength();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,271 @@
+package org.warehouse.management.location;
+
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Plans and applies the picking of waves of order lines from the bins of a {@link BinLayout}.
+ * Planning happens in three steps:
+ * <ol>
+ *     <li>every line is allocated to the bins holding its material closest to the depot, taking earlier lines
+ *     of the wave into account, and lines the bins cannot fill are set aside as short;</li>
+ *     <li>the lines are sorted by the location of their first bin, zone by zone and aisle by aisle, and cut
+ *     into batches of neighbouring lines;</li>
+ *     <li>every batch gets a round trip from the depot through its bins, built by the nearest-neighbour
+ *     heuristic and shortened by 2-opt moves until none helps. Batches are routed in parallel on the executor.</li>
+ * </ol>
+ * Applying a wave takes all its quantities out of the bins and the warehouse while holding the warehouse lock
+ * once, after checking that every bin still holds what the plan expects.
+ */
+public class PickingEngine {
+
+    private static final double IMPROVEMENT_THRESHOLD = 1e-9;  // The smallest route shortening that counts.
+
+    // Orders bins zone by zone, aisle by aisle and then along the floor, so neighbouring bins sort together.
+    private static final Comparator<Bin> LOCATION_ORDER = Comparator.comparing(Bin::getZone)
+            .thenComparingInt(Bin::getAisle)
+            .thenComparingDouble(Bin::getY)
+            .thenComparingDouble(Bin::getX);
+
+    private final BinLayout layout;    // The bins to pick from.
+    private final Executor executor;   // Routes the batches in parallel.
+    private final int linesPerBatch;   // The maximum number of lines picked on one trip.
+    private final double depotX;       // The x coordinate where every trip starts and ends.
+    private final double depotY;       // The y coordinate where every trip starts and ends.
+
+    /**
+     * Constructs a new PickingEngine.
+     *
+     * @param layout The bins to pick from.
+     * @param executor Routes the batches in parallel.
+     * @param linesPerBatch The maximum number of lines picked on one trip.
+     * @param depotX The x coordinate where every trip starts and ends.
+     * @param depotY The y coordinate where every trip starts and ends.
+     */
+    public PickingEngine(BinLayout layout, Executor executor, int linesPerBatch, double depotX, double depotY) {
+        if (linesPerBatch <= 0) {
+            throw new IllegalArgumentException("The number of lines per batch should be greater than 0");
+        }
+        this.layout = layout;
+        this.executor = executor;
+        this.linesPerBatch = linesPerBatch;
+        this.depotX = depotX;
+        this.depotY = depotY;
+    }
+
+    /**
+     * Plans the picking of a wave of order lines without changing any stock.
+     *
+     * @param lines The order lines of the wave.
+     * @return The batches with their routes and the lines that cannot be filled.
+     */
+    public PickWave plan(List<OrderLine> lines) {
+        long start = System.nanoTime();
+        Map<OrderLine, List<BinQuantity>> allocations = new LinkedHashMap<>();
+        List<OrderLine> shortLines = new ArrayList<>();
+        allocate(lines, allocations, shortLines);
+
+        List<OrderLine> sorted = new ArrayList<>(allocations.keySet());
+        sorted.sort(Comparator.comparing((OrderLine line) -> allocations.get(line).get(0).getBin(), LOCATION_ORDER));
+        List<CompletableFuture<PickBatch>> batches = new ArrayList<>();
+        for (int from = 0; from < sorted.size(); from += linesPerBatch) {
+            Map<OrderLine, List<BinQuantity>> picks = new LinkedHashMap<>();
+            for (OrderLine line : sorted.subList(from, Math.min(sorted.size(), from + linesPerBatch))) {
+                picks.put(line, allocations.get(line));
+            }
+            batches.add(CompletableFuture.supplyAsync(() -> route(picks), executor));
+        }
+
+        List<PickBatch> planned = new ArrayList<>();
+        for (CompletableFuture<PickBatch> batch : batches) {
+            planned.add(batch.join());
+        }
+        return new PickWave(planned, shortLines, System.nanoTime() - start);
+    }
+
+    /**
+     * Takes every planned quantity of a wave out of its bins and drops it from the warehouse, all at once.
+     *
+     * @param wave The planned wave.
+     * @return The total quantity picked.
+     * @throws InvalidQuantity If a bin no longer holds what the plan expects, because the stock changed after
+     *                         planning; nothing is picked then.
+     */
+    public int apply(PickWave wave) throws InvalidQuantity {
+        Map<Bin, Integer> required = new LinkedHashMap<>();
+        Map<Bin, Material> materials = new HashMap<>();
+        for (PickBatch batch : wave.getBatches()) {
+            for (Map.Entry<OrderLine, List<BinQuantity>> line : batch.getPicks().entrySet()) {
+                for (BinQuantity pick : line.getValue()) {
+                    required.merge(pick.getBin(), pick.getQuantity(), Integer::sum);
+                    materials.put(pick.getBin(), line.getKey().getMaterial());
+                }
+            }
+        }
+
+        WareHouse warehouse = layout.getWarehouse();
+        synchronized (warehouse) {
+            for (Map.Entry<Bin, Integer> entry : required.entrySet()) {
+                Bin bin = entry.getKey();
+                Material material = materials.get(bin);
+                if (bin.getMaterial() != material || bin.getQuantity() < entry.getValue() || !warehouse.snapshot().contains(material)) {
+                    throw new InvalidQuantity("Bin " + bin.getId() + " no longer holds the " + entry.getValue() + " units of "
+                            + material.getMaterialType().getName() + " planned to be picked");
+                }
+            }
+            int picked = 0;
+            for (int quantity : required.values()) {
+                picked += quantity;
+            }
+            try {
+                layout.takeLocked(required);
+            } catch (MaterialNotFound e) {
+                // The warehouse is locked and was checked to hold every material.
+                throw new IllegalStateException(e);
+            }
+            return picked;
+        }
+    }
+
+    /**
+     * Computes the length of a round trip from the depot through bins in the given order.
+     *
+     * @param route The bins in visiting order.
+     * @return The length of the round trip.
+     */
+    public double routeLength(List<Bin> route) {
+        double length = 0;
+        double x = depotX;
+        double y = depotY;
+        for (Bin bin : route) {
+            length += bin.distanceTo(x, y);
+            x = bin.getX();
+            y = bin.getY();
+        }
+        return length + Math.hypot(x - depotX, y - depotY);
+    }
+
+    /**
+     * Helper method allocating every line to the bins holding its material closest to the depot, while
+     * holding the warehouse lock so the bins do not change in between.
+     */
+    private void allocate(List<OrderLine> lines, Map<OrderLine, List<BinQuantity>> allocations, List<OrderLine> shortLines) {
+        synchronized (layout.getWarehouse()) {
+            Map<Material, List<Bin>> candidates = new HashMap<>();
+            Map<Bin, Integer> remaining = new HashMap<>();
+            for (OrderLine line : lines) {
+                List<Bin> bins = candidates.computeIfAbsent(line.getMaterial(),
+                        material -> layout.nearestBinsHolding(material, depotX, depotY, Integer.MAX_VALUE));
+                long available = 0;
+                for (Bin bin : bins) {
+                    available += remaining.getOrDefault(bin, bin.getQuantity());
+                }
+                if (line.getQuantity() <= 0 || available < line.getQuantity()) {
+                    shortLines.add(line);
+                    continue;
+                }
+
+                List<BinQuantity> picks = new ArrayList<>();
+                int needed = line.getQuantity();
+                for (Bin bin : bins) {
+                    int left = remaining.getOrDefault(bin, bin.getQuantity());
+                    if (left == 0) {
+                        continue;
+                    }
+                    int amount = Math.min(needed, left);
+                    picks.add(new BinQuantity(bin, amount));
+                    remaining.put(bin, left - amount);
+                    needed -= amount;
+                    if (needed == 0) {
+                        break;
+                    }
+                }
+                allocations.put(line, picks);
+            }
+        }
+    }
+
+    /**
+     * Helper method building the route of a batch: nearest neighbour from the depot, then 2-opt until no
+     * reversal of a segment shortens the round trip.
+     */
+    private PickBatch route(Map<OrderLine, List<BinQuantity>> picks) {
+        LinkedHashSet<Bin> distinct = new LinkedHashSet<>();
+        for (List<BinQuantity> linePicks : picks.values()) {
+            for (BinQuantity pick : linePicks) {
+                distinct.add(pick.getBin());
+            }
+        }
+        List<Bin> stops = new ArrayList<>(distinct);
+        int count = stops.size();
+
+        // Point 0 is the depot; points 1..count are the stops.
+        double[] xs = new double[count + 1];
+        double[] ys = new double[count + 1];
+        xs[0] = depotX;
+        ys[0] = depotY;
+        for (int i = 0; i < count; i++) {
+            xs[i + 1] = stops.get(i).getX();
+            ys[i + 1] = stops.get(i).getY();
+        }
+
+        int[] tour = new int[count + 1];
+        boolean[] visited = new boolean[count + 1];
+        visited[0] = true;
+        for (int position = 1; position <= count; position++) {
+            int from = tour[position - 1];
+            int next = -1;
+            double nextDistance = Double.MAX_VALUE;
+            for (int candidate = 1; candidate <= count; candidate++) {
+                double distance = Math.hypot(xs[from] - xs[candidate], ys[from] - ys[candidate]);
+                if (!visited[candidate] && distance < nextDistance) {
+                    next = candidate;
+                    nextDistance = distance;
+                }
+            }
+            tour[position] = next;
+            visited[next] = true;
+        }
+
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 1; i < count; i++) {
+                for (int k = i + 1; k <= count; k++) {
+                    int a = tour[i - 1];
+                    int b = tour[i];
+                    int c = tour[k];
+                    int d = k == count ? 0 : tour[k + 1];
+                    double delta = Math.hypot(xs[a] - xs[c], ys[a] - ys[c]) + Math.hypot(xs[b] - xs[d], ys[b] - ys[d])
+                            - Math.hypot(xs[a] - xs[b], ys[a] - ys[b]) - Math.hypot(xs[c] - xs[d], ys[c] - ys[d]);
+                    if (delta < -IMPROVEMENT_THRESHOLD) {
+                        for (int left = i, right = k; left < right; left++, right--) {
+                            int swapped = tour[left];
+                            tour[left] = tour[right];
+                            tour[right] = swapped;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+
+        List<Bin> route = new ArrayList<>(count);
+        for (int position = 1; position <= count; position++) {
+            route.add(stops.get(tour[position] - 1));
+        }
+        return new PickBatch(picks, route, routeLength(route));
+    }
+}
@@ -0,0 +1,154 @@
+package org.warehouse.management.location;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A hierarchical grid over the warehouse floor indexing a set of bins by the cell they lie in.
+ * Cells of the finest level hold the bins; every coarser level halves the number of cells along each axis and
+ * only records how many bins lie in each of its cells. Nearest-neighbour queries start from the few cells of the
+ * coarsest level and always expand the closest pending cell next, descending only into children that hold a bin,
+ * so a query visits the occupied cells along the way to the answer rather than every cell of the floor between
+ * the query point and the bins. Only occupied cells are stored, so removing bins frees their cells and leaves no
+ * bounds behind. Not thread-safe; {@link BinLayout} guards it.
+ */
+class SpatialGrid {
+
+    // The number of levels; the coarsest one splits the range of int cell coordinates into two cells per axis.
+    private static final int LEVELS = 32;
+
+    private final double cellSize;                                   // The side length of a cell of the finest level.
+    private final Map<Long, List<Bin>> cells = new HashMap<>();      // The bins of every non-empty cell of the finest level.
+    private final List<Map<Long, Integer>> occupied = new ArrayList<>(); // The number of bins in every non-empty cell of levels 1 and up.
+    private int size;                                                // The number of indexed bins.
+
+    SpatialGrid(double cellSize) {
+        this.cellSize = cellSize;
+        for (int level = 1; level < LEVELS; level++) {
+            occupied.add(new HashMap<>());
+        }
+    }
+
+    void add(Bin bin) {
+        int cellX = cell(bin.getX());
+        int cellY = cell(bin.getY());
+        cells.computeIfAbsent(key(cellX, cellY), key -> new ArrayList<>(4)).add(bin);
+        for (int level = 1; level < LEVELS; level++) {
+            occupied.get(level - 1).merge(key(cellX >> level, cellY >> level), 1, Integer::sum);
+        }
+        size++;
+    }
+
+    void remove(Bin bin) {
+        int cellX = cell(bin.getX());
+        int cellY = cell(bin.getY());
+        long key = key(cellX, cellY);
+        List<Bin> bins = cells.get(key);
+        if (bins != null && bins.remove(bin)) {
+            size--;
+            if (bins.isEmpty()) {
+                cells.remove(key);
+            }
+            for (int level = 1; level < LEVELS; level++) {
+                occupied.get(level - 1).computeIfPresent(key(cellX >> level, cellY >> level), (cell, count) -> count == 1 ? null : count - 1);
+            }
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the bins closest to a point.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @param limit The maximum number of bins to return.
+     * @return Up to limit bins, closest first.
+     */
+    List<Bin> nearest(double x, double y, int limit) {
+        if (size == 0 || limit <= 0) {
+            return Collections.emptyList();
+        }
+        // Cells are keyed by their distance to the nearest point they cover, bins by their own distance, so a
+        // bin leaves the queue only once nothing still pending can be closer.
+        PriorityQueue<Candidate> pending = new PriorityQueue<>(Comparator.comparingDouble((Candidate candidate) -> candidate.distance));
+        for (int cellX = -1; cellX <= 0; cellX++) {
+            for (int cellY = -1; cellY <= 0; cellY++) {
+                enqueueCell(pending, LEVELS - 1, cellX, cellY, x, y);
+            }
+        }
+
+        List<Bin> nearest = new ArrayList<>();
+        while (!pending.isEmpty() && nearest.size() < limit) {
+            Candidate candidate = pending.poll();
+            if (candidate.bin != null) {
+                nearest.add(candidate.bin);
+            } else if (candidate.level == 0) {
+                for (Bin bin : cells.get(key(candidate.cellX, candidate.cellY))) {
+                    pending.add(new Candidate(bin.distanceTo(x, y), bin, 0, 0, 0));
+                }
+            } else {
+                for (int childX = 2 * candidate.cellX; childX <= 2 * candidate.cellX + 1; childX++) {
+                    for (int childY = 2 * candidate.cellY; childY <= 2 * candidate.cellY + 1; childY++) {
+                        enqueueCell(pending, candidate.level - 1, childX, childY, x, y);
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Helper method queueing a cell of a level if it holds any bin, keyed by its distance to the query point.
+     */
+    private void enqueueCell(PriorityQueue<Candidate> pending, int level, int cellX, int cellY, double x, double y) {
+        long key = key(cellX, cellY);
+        if (level == 0 ? !cells.containsKey(key) : !occupied.get(level - 1).containsKey(key)) {
+            return;
+        }
+        double span = cellSize * (1L << level);
+        double minimumX = cellX * span;
+        double minimumY = cellY * span;
+        double dx = Math.max(0, Math.max(minimumX - x, x - (minimumX + span)));
+        double dy = Math.max(0, Math.max(minimumY - y, y - (minimumY + span)));
+        pending.add(new Candidate(Math.hypot(dx, dy), null, level, cellX, cellY));
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A bin, or a cell of some level, waiting to be visited by a nearest-neighbour query.
+     */
+    private static class Candidate {
+        private final double distance;  // The distance to the bin, or to the closest point of the cell.
+        private final Bin bin;          // The bin, or null for a cell.
+        private final int level;        // The level of the cell.
+        private final int cellX;        // The x coordinate of the cell within its level.
+        private final int cellY;        // The y coordinate of the cell within its level.
+
+        private Candidate(double distance, Bin bin, int level, int cellX, int cellY) {
+            this.distance = distance;
+            this.bin = bin;
+            this.level = level;
+            this.cellX = cellX;
+            this.cellY = cellY;
+        }
+    }
+}
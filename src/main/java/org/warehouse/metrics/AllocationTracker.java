@@ -0,0 +1,186 @@
+package org.warehouse.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the bytes allocated by named operations, read from the allocation counter the JVM keeps for every thread.
+ * An operation is measured by calling {@link #begin()} before it and {@link #end(String, long)} after it on the
+ * same thread; everything the thread allocates in between is attributed to the operation. Reading the counter
+ * is cheap but not free, so only one call in every sample interval is measured, chosen at random.
+ * On JVMs without thread allocation counters the tracker records nothing and {@link #isSupported()} is false.
+ */
+public class AllocationTracker {
+
+    private static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+    private final com.sun.management.ThreadMXBean threads;  // The allocation counters, or null if unsupported.
+    private final int sampleInterval;                      // One call in this many is measured.
+
+    // The allocations measured so far, by operation name.
+    private final Map<String, OperationAllocations> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new AllocationTracker measuring one call in {@value #DEFAULT_SAMPLE_INTERVAL}.
+     */
+    public AllocationTracker() {
+        this(DEFAULT_SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Constructs a new AllocationTracker.
+     *
+     * @param sampleInterval One call in this many is measured; 1 measures every call.
+     */
+    public AllocationTracker(int sampleInterval) {
+        if (sampleInterval <= 0) {
+            throw new IllegalArgumentException("The sample interval should be greater than 0");
+        }
+        this.sampleInterval = sampleInterval;
+        this.threads = allocationCounters();
+    }
+
+    /**
+     * Gets whether the JVM provides thread allocation counters.
+     *
+     * @return True if allocations are measured.
+     */
+    public boolean isSupported() {
+        return threads != null;
+    }
+
+    /**
+     * Starts measuring an operation on the current thread, unless the call is not sampled.
+     *
+     * @return The bytes allocated by the current thread so far, to be passed to {@link #end(String, long)},
+     *         or -1 if the call is not measured.
+     */
+    public long begin() {
+        if (threads == null || (sampleInterval > 1 && ThreadLocalRandom.current().nextInt(sampleInterval) != 0)) {
+            return -1;
+        }
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Finishes measuring an operation on the current thread and attributes the allocated bytes to it.
+     *
+     * @param operation The name of the operation.
+     * @param allocatedBefore The value returned by {@link #begin()}; -1 records nothing.
+     */
+    public void end(String operation, long allocatedBefore) {
+        if (allocatedBefore < 0) {
+            return;
+        }
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        operations.computeIfAbsent(operation, name -> new OperationAllocations()).record(Math.max(0, allocated));
+    }
+
+    /**
+     * Gets the names of the operations measured so far.
+     *
+     * @return The operation names in alphabetical order.
+     */
+    public Set<String> getOperations() {
+        return Collections.unmodifiableSet(new TreeSet<>(operations.keySet()));
+    }
+
+    /**
+     * Gets the number of measured calls of an operation.
+     *
+     * @param operation The name of the operation.
+     * @return The number of sampled calls.
+     */
+    public long getSampleCount(String operation) {
+        OperationAllocations allocations = operations.get(operation);
+        return allocations == null ? 0 : allocations.samples.sum();
+    }
+
+    /**
+     * Gets the bytes allocated by the measured calls of an operation.
+     *
+     * @param operation The name of the operation.
+     * @return The allocated bytes summed over the sampled calls.
+     */
+    public long getAllocatedBytes(String operation) {
+        OperationAllocations allocations = operations.get(operation);
+        return allocations == null ? 0 : allocations.bytes.sum();
+    }
+
+    /**
+     * Gets the average bytes allocated by a call of an operation.
+     *
+     * @param operation The name of the operation.
+     * @return The average over the sampled calls, or 0 if no call was measured.
+     */
+    public double getAverageAllocatedBytes(String operation) {
+        OperationAllocations allocations = operations.get(operation);
+        if (allocations == null) {
+            return 0;
+        }
+        long samples = allocations.samples.sum();
+        return samples == 0 ? 0 : (double) allocations.bytes.sum() / samples;
+    }
+
+    /**
+     * Gets the most bytes allocated by a single measured call of an operation.
+     *
+     * @param operation The name of the operation.
+     * @return The largest allocation of a sampled call, or 0 if no call was measured.
+     */
+    public long getMaximumAllocatedBytes(String operation) {
+        OperationAllocations allocations = operations.get(operation);
+        return allocations == null ? 0 : allocations.maximum.get();
+    }
+
+    /**
+     * Forgets every measurement, for example at the start of a new release or test run.
+     */
+    public void reset() {
+        operations.clear();
+    }
+
+    /**
+     * Helper method getting the allocation counters of the JVM and enabling them, or null if they are not available.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounters() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+                return null;
+            }
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (!threads.isThreadAllocatedMemorySupported()) {
+                return null;
+            }
+            if (!threads.isThreadAllocatedMemoryEnabled()) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+            return threads;
+        } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The measurements of one operation.
+     */
+    private static class OperationAllocations {
+        private final LongAdder samples = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAccumulator maximum = new LongAccumulator(Math::max, 0);
+
+        private void record(long allocated) {
+            samples.increment();
+            bytes.add(allocated);
+            maximum.accumulate(allocated);
+        }
+    }
+}
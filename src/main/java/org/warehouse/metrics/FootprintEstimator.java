@@ -0,0 +1,212 @@
+package org.warehouse.metrics;
+
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialCatalog;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.WarehouseAssignments;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates how many bytes of heap warehouses, users and material types retain.
+ * The estimate is computed from the object layout of HotSpot, with 8-byte alignment and with the header and
+ * reference sizes of the running JVM, rather than by walking the heap, so it is cheap enough to report
+ * for every tenant. It counts the objects a value owns:
+ * <ul>
+ *     <li>a warehouse owns its material map, its latest snapshot with its copy of the map, its listener list
+ *     and its {@link Material} keys, but not their material types, which are shared;</li>
+ *     <li>a user owns their name, their change listener list, their warehouse assignments and the assigned warehouses;</li>
+ *     <li>a material type owns its name, description and icon path.</li>
+ * </ul>
+ * Listeners registered on a warehouse and objects shared between several owners are not counted.
+ */
+public class FootprintEstimator {
+
+    private static final int ALIGNMENT = 8;        // Objects start at multiples of this many bytes.
+    private static final int MINIMUM_TABLE = 16;   // The smallest table of a non-empty HashMap.
+
+    private final int objectHeader;  // Bytes of an object header.
+    private final int arrayHeader;   // Bytes of an array header, including its length.
+    private final int reference;     // Bytes of a reference.
+
+    /**
+     * Constructs a new FootprintEstimator for the layout of the running JVM.
+     */
+    public FootprintEstimator() {
+        this(compressedReferences());
+    }
+
+    /**
+     * Constructs a new FootprintEstimator for a given layout.
+     *
+     * @param compressedReferences Whether references and class pointers take 4 bytes instead of 8,
+     *                             as they do on heaps below 32 GB.
+     */
+    public FootprintEstimator(boolean compressedReferences) {
+        this.objectHeader = compressedReferences ? 12 : 16;
+        this.arrayHeader = compressedReferences ? 16 : 24;
+        this.reference = compressedReferences ? 4 : 8;
+    }
+
+    /**
+     * Estimates the bytes retained by a warehouse.
+     *
+     * @param warehouse The warehouse.
+     * @return The estimated retained size in bytes.
+     */
+    public long estimateWarehouse(WareHouse warehouse) {
+        Map<Material, Integer> materials = warehouse.snapshot().getMaterials();
+        long bytes = object(3 * reference);                              // The warehouse.
+        bytes += hashMap(materials);                                     // The live material map.
+        bytes += object(reference + 8) + object(4 * reference) + hashMap(materials); // The snapshot and its copy.
+        bytes += object(2 * reference) + array(0, reference);            // The listener list, assumed empty.
+        bytes += materials.size() * object(reference + 4);               // The material keys.
+        return bytes;
+    }
+
+    /**
+     * Estimates the bytes retained by a user, including the warehouses assigned to them.
+     *
+     * @param user The user.
+     * @return The estimated retained size in bytes.
+     */
+    public long estimateUser(User user) {
+        WarehouseAssignments assignments = user.getWarehouseAssignments();
+        long bytes = object(4 * reference + 3 * 4 + 8) + string(user.getUsername());
+        int listeners = user.getChangeListenerCount();
+        if (listeners > 0) {
+            bytes += object(2 * reference) + array(listeners, reference);  // The listener list, but not the listeners.
+        }
+        bytes += object(2 * reference + 4 + 1);
+        int capacity = assignmentCapacity(assignments.size());
+        bytes += array(capacity, 4) + array(capacity, reference);
+        List<WareHouse> warehouses = new ArrayList<>();
+        assignments.forEach((id, warehouse) -> warehouses.add(warehouse));
+        for (WareHouse warehouse : warehouses) {
+            bytes += estimateWarehouse(warehouse);
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the bytes retained by each of several users, to spot the largest tenants.
+     *
+     * @param users The users.
+     * @return The estimated retained size of every user by username, largest first.
+     */
+    public Map<String, Long> estimateUsers(Collection<User> users) {
+        List<Map.Entry<String, Long>> estimates = new ArrayList<>();
+        for (User user : users) {
+            estimates.add(Map.entry(user.getUsername(), estimateUser(user)));
+        }
+        estimates.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        Map<String, Long> largestFirst = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> estimate : estimates) {
+            largestFirst.put(estimate.getKey(), estimate.getValue());
+        }
+        return largestFirst;
+    }
+
+    /**
+     * Estimates the bytes retained by a material type.
+     *
+     * @param type The material type.
+     * @return The estimated retained size in bytes.
+     */
+    public long estimateMaterialType(MaterialType type) {
+        return object(3 * reference + 4) + string(type.getName()) + string(type.getDescription()) + string(type.getIcon());
+    }
+
+    /**
+     * Estimates the bytes retained by every entry of the {@link MaterialCatalog}.
+     *
+     * @return The estimated retained size of every material type by name, in catalog order.
+     */
+    public Map<String, Long> estimateCatalog() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (MaterialType type : MaterialCatalog.all()) {
+            estimates.put(type.getName(), estimateMaterialType(type));
+        }
+        return estimates;
+    }
+
+    /**
+     * Helper method estimating an object with the given bytes of fields.
+     */
+    private long object(int fieldBytes) {
+        return align(objectHeader + fieldBytes);
+    }
+
+    /**
+     * Helper method estimating an array of the given length and element size.
+     */
+    private long array(int length, int elementBytes) {
+        return align(arrayHeader + (long) length * elementBytes);
+    }
+
+    /**
+     * Helper method estimating a string together with its compact Latin-1 or UTF-16 byte array.
+     */
+    private long string(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+        return object(reference + 4 + 1 + 1) + array(value.length(), latin1 ? 1 : 2);
+    }
+
+    /**
+     * Helper method estimating a HashMap with its table, its nodes and the boxes of values outside the Integer cache.
+     */
+    private long hashMap(Map<Material, Integer> entries) {
+        long bytes = object(4 * reference + 4 * 4);
+        if (entries.isEmpty()) {
+            return bytes;
+        }
+        int table = Math.max(MINIMUM_TABLE, Integer.highestOneBit((int) (entries.size() / 0.75f) + 1) << 1);
+        bytes += array(table, reference) + entries.size() * object(4 + 3 * reference);
+        for (Integer quantity : entries.values()) {
+            if (quantity < -128 || quantity > 127) {
+                bytes += object(4);
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Helper method giving the length of the arrays of warehouse assignments holding the given number of warehouses.
+     */
+    private static int assignmentCapacity(int size) {
+        if (size <= 2) {
+            return 2;
+        }
+        if (size <= 8) {
+            return Integer.highestOneBit(size - 1) << 1;
+        }
+        return Math.max(32, Integer.highestOneBit(size * 2 - 1) << 1);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Helper method asking the JVM whether it compresses references, assuming it does if it cannot tell.
+     */
+    private static boolean compressedReferences() {
+        try {
+            com.sun.management.HotSpotDiagnosticMXBean diagnostics =
+                    ManagementFactory.getPlatformMXBean(com.sun.management.HotSpotDiagnosticMXBean.class);
+            return diagnostics == null || Boolean.parseBoolean(diagnostics.getVMOption("UseCompressedOops").getValue());
+        } catch (LinkageError | IllegalArgumentException | SecurityException e) {
+            return true;
+        }
+    }
+}
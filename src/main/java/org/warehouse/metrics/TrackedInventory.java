@@ -0,0 +1,157 @@
+package org.warehouse.metrics;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.management.Inventory;
+import org.warehouse.management.InventorySnapshot;
+import org.warehouse.management.TransferReport;
+import org.warehouse.model.material.Material;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * An inventory decorator that reports the memory allocated by every operation to an {@link AllocationTracker},
+ * under the name of the operation, such as "addMaterial" or "transferMaterials".
+ * Snapshots are passed through untracked, since reading one allocates nothing.
+ */
+public class TrackedInventory implements Inventory {
+
+    private final Inventory delegate;         // The inventory whose operations are tracked.
+    private final AllocationTracker tracker;  // Records the allocations of the operations.
+
+    /**
+     * Constructs a new TrackedInventory.
+     *
+     * @param delegate The inventory whose operations are tracked.
+     * @param tracker Records the allocations of the operations; may be shared with other decorators.
+     */
+    public TrackedInventory(Inventory delegate, AllocationTracker tracker) {
+        this.delegate = delegate;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Material addMaterial(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.addMaterial(material, quantity);
+        } finally {
+            tracker.end("addMaterial", allocatedBefore);
+        }
+    }
+
+    @Override
+    public void updateMaterialQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        long allocatedBefore = tracker.begin();
+        try {
+            delegate.updateMaterialQuantity(material, quantity);
+        } finally {
+            tracker.end("updateMaterialQuantity", allocatedBefore);
+        }
+    }
+
+    @Override
+    public Material removeMaterial(Material material) throws MaterialNotFound {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.removeMaterial(material);
+        } finally {
+            tracker.end("removeMaterial", allocatedBefore);
+        }
+    }
+
+    @Override
+    public int dropSomeQuantity(Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialNotFound {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.dropSomeQuantity(material, quantity);
+        } finally {
+            tracker.end("dropSomeQuantity", allocatedBefore);
+        }
+    }
+
+    @Override
+    public void transferFullMaterial(Inventory toWarehouse, Material material) throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        long allocatedBefore = tracker.begin();
+        try {
+            delegate.transferFullMaterial(toWarehouse, material);
+        } finally {
+            tracker.end("transferFullMaterial", allocatedBefore);
+        }
+    }
+
+    @Override
+    public int transferSomeQuantityOfMaterial(Inventory toWarehouse, Material material, int quantity) throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.transferSomeQuantityOfMaterial(toWarehouse, material, quantity);
+        } finally {
+            tracker.end("transferSomeQuantityOfMaterial", allocatedBefore);
+        }
+    }
+
+    @Override
+    public void addQuantities(Map<Material, Integer> quantities) throws ExceedingCapacity, InvalidQuantity {
+        long allocatedBefore = tracker.begin();
+        try {
+            delegate.addQuantities(quantities);
+        } finally {
+            tracker.end("addQuantities", allocatedBefore);
+        }
+    }
+
+    @Override
+    public TransferReport transferMaterials(Inventory toWarehouse, Collection<Material> materials) {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.transferMaterials(toWarehouse, materials);
+        } finally {
+            tracker.end("transferMaterials", allocatedBefore);
+        }
+    }
+
+    @Override
+    public TransferReport transferAllMaterials(Inventory toWarehouse) {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.transferAllMaterials(toWarehouse);
+        } finally {
+            tracker.end("transferAllMaterials", allocatedBefore);
+        }
+    }
+
+    @Override
+    public Map<Material, Integer> listAllMaterials() {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.listAllMaterials();
+        } finally {
+            tracker.end("listAllMaterials", allocatedBefore);
+        }
+    }
+
+    @Override
+    public InventorySnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public int getMaterialQuantity(Inventory warehouse, Material material) throws MaterialNotFound {
+        long allocatedBefore = tracker.begin();
+        try {
+            return delegate.getMaterialQuantity(warehouse == this ? delegate : warehouse, material);
+        } finally {
+            tracker.end("getMaterialQuantity", allocatedBefore);
+        }
+    }
+
+    @Override
+    public Object acquireLockOwner() {
+        return delegate.acquireLockOwner();
+    }
+
+    @Override
+    public void releaseLockOwner() {
+        delegate.releaseLockOwner();
+    }
+}
@@ -0,0 +1,45 @@
+package org.warehouse.model.material;
+
+/**
+ * Represents the location of a single material icon inside the icon atlas.
+ * A region is described by the byte offset of the icon inside the atlas and its length,
+ * so a client holding the atlas can slice out any icon without another request.
+ */
+public class IconRegion {
+    private final int offset; // The position of the first byte of the icon inside the atlas.
+    private final int length; // The number of bytes the icon occupies.
+
+    /**
+     * Constructs a new IconRegion with the given offset and length.
+     *
+     * @param offset The position of the first byte of the icon inside the atlas.
+     * @param length The number of bytes the icon occupies.
+     */
+    public IconRegion(int offset, int length) {
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Gets the offset of the icon inside the atlas.
+     *
+     * @return The byte offset.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the length of the icon inside the atlas.
+     *
+     * @return The number of bytes.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "IconRegion{offset=" + offset + ", length=" + length + "}";
+    }
+}
@@ -0,0 +1,75 @@
+package org.warehouse.model.material;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Generated by MaterialCatalogGenerator from src/main/resources/materials/catalog.csv. Do not edit.
+
+/**
+ * The material types declared in the material manifest, as preinitialized constants.
+ * Each type has a dense id from 0 to {@link #size()} - 1, given by a minimal perfect hash of its name,
+ * so looking a type up by name costs two string hashes, two array reads and one comparison.
+ */
+public final class MaterialCatalog {
+
+    public static final MaterialType IRON = new MaterialType("Iron", "Metal used in construction", "src/main/resources/materials/iron.png", 1000);
+    public static final MaterialType COAL = new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 1000);
+
+    private static final MaterialType[] TYPES = {IRON, COAL};  // The types by id.
+    private static final String[] NAMES = {"Iron", "Coal"};  // The names by id, to reject names outside the catalog.
+    private static final int[] SEEDS = {1, 1};  // The perfect hash seeds by bucket.
+
+    private MaterialCatalog() {
+    }
+
+    /**
+     * Gets the id of a material type.
+     *
+     * @param name The name of the material type.
+     * @return The id, or -1 if the catalog declares no type with the name.
+     */
+    public static int idOf(String name) {
+        int id = PerfectHash.slot(name, SEEDS);
+        return NAMES[id].equals(name) ? id : -1;
+    }
+
+    /**
+     * Gets a material type by name.
+     *
+     * @param name The name of the material type.
+     * @return The material type, or null if the catalog declares no type with the name.
+     */
+    public static MaterialType byName(String name) {
+        int id = idOf(name);
+        return id < 0 ? null : TYPES[id];
+    }
+
+    /**
+     * Gets a material type by id.
+     *
+     * @param id The id of the material type.
+     * @return The material type.
+     */
+    public static MaterialType byId(int id) {
+        return TYPES[id];
+    }
+
+    /**
+     * Gets the number of material types in the catalog.
+     *
+     * @return The number of material types.
+     */
+    public static int size() {
+        return TYPES.length;
+    }
+
+    /**
+     * Gets every material type of the catalog.
+     *
+     * @return An unmodifiable list of the material types ordered by id.
+     */
+    public static List<MaterialType> all() {
+        return Collections.unmodifiableList(Arrays.asList(TYPES));
+    }
+}
@@ -0,0 +1,246 @@
+package org.warehouse.model.material;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Compiles the material manifest {@code src/main/resources/materials/catalog.csv} into the Java source of
+ * {@link MaterialCatalog}, so that services get their material types as preinitialized constants and never
+ * parse the manifest at startup. The manifest has the header {@code name,description,icon,maximumCapacity};
+ * fields containing commas are quoted, with quotes doubled.
+ * Run it after changing the manifest and commit the regenerated class:
+ * {@code java org.warehouse.model.material.MaterialCatalogGenerator [manifest] [output]}.
+ * A test fails if the committed class no longer matches the manifest.
+ */
+public final class MaterialCatalogGenerator {
+
+    static final String DEFAULT_MANIFEST = "src/main/resources/materials/catalog.csv";
+    static final String DEFAULT_OUTPUT = "src/main/java/org/warehouse/model/material/MaterialCatalog.java";
+    private static final String HEADER = "name,description,icon,maximumCapacity";
+
+    private MaterialCatalogGenerator() {
+    }
+
+    /**
+     * Regenerates the catalog class from the manifest.
+     *
+     * @param args The manifest path and the output path, both optional.
+     * @throws IOException If the manifest cannot be read or is malformed, or the output cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        Path manifest = Paths.get(args.length > 0 ? args[0] : DEFAULT_MANIFEST);
+        Path output = Paths.get(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+        try (Reader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            Files.write(output, generate(readManifest(reader)).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Reads the material types declared in a manifest.
+     *
+     * @param reader The manifest.
+     * @return The material types in declaration order.
+     * @throws IOException If the manifest cannot be read or a line is malformed.
+     */
+    public static List<MaterialType> readManifest(Reader reader) throws IOException {
+        BufferedReader lines = new BufferedReader(reader);
+        if (!HEADER.equals(lines.readLine())) {
+            throw new IOException("The manifest must start with the header " + HEADER);
+        }
+        List<MaterialType> types = new ArrayList<>();
+        int lineNumber = 1;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = split(line);
+            if (fields.size() != 4) {
+                throw new IOException("Line " + lineNumber + " must have 4 fields but has " + fields.size());
+            }
+            try {
+                types.add(new MaterialType(fields.get(0), fields.get(1), fields.get(2), Integer.parseInt(fields.get(3).trim())));
+            } catch (NumberFormatException e) {
+                throw new IOException("Line " + lineNumber + " has an invalid maximum capacity " + fields.get(3));
+            }
+        }
+        if (types.isEmpty()) {
+            throw new IOException("The manifest declares no material types");
+        }
+        return types;
+    }
+
+    /**
+     * Generates the source of the catalog class for the given material types.
+     *
+     * @param types The material types in declaration order, with distinct names.
+     * @return The Java source of {@link MaterialCatalog}.
+     */
+    public static String generate(List<MaterialType> types) {
+        List<String> names = new ArrayList<>();
+        Set<String> constants = new HashSet<>();
+        for (MaterialType type : types) {
+            names.add(type.getName());
+            if (!constants.add(constantName(type.getName()))) {
+                throw new IllegalArgumentException("Two material types share the constant name " + constantName(type.getName()));
+            }
+        }
+        int[] seeds = PerfectHash.build(names);
+        MaterialType[] typeBySlot = new MaterialType[types.size()];
+        for (MaterialType type : types) {
+            typeBySlot[PerfectHash.slot(type.getName(), seeds)] = type;
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("package org.warehouse.model.material;\n\n");
+        source.append("import java.util.Arrays;\n");
+        source.append("import java.util.Collections;\n");
+        source.append("import java.util.List;\n\n");
+        source.append("// Generated by MaterialCatalogGenerator from src/main/resources/materials/catalog.csv. Do not edit.\n\n");
+        source.append("/**\n");
+        source.append(" * The material types declared in the material manifest, as preinitialized constants.\n");
+        source.append(" * Each type has a dense id from 0 to {@link #size()} - 1, given by a minimal perfect hash of its name,\n");
+        source.append(" * so looking a type up by name costs two string hashes, two array reads and one comparison.\n");
+        source.append(" */\n");
+        source.append("public final class MaterialCatalog {\n\n");
+        for (MaterialType type : types) {
+            source.append("    public static final MaterialType ").append(constantName(type.getName()))
+                    .append(" = new MaterialType(").append(literal(type.getName())).append(", ")
+                    .append(literal(type.getDescription())).append(", ").append(literal(type.getIcon())).append(", ")
+                    .append(type.getMaximumCapacity()).append(");\n");
+        }
+        source.append("\n    private static final MaterialType[] TYPES = {");
+        for (int slot = 0; slot < typeBySlot.length; slot++) {
+            source.append(slot == 0 ? "" : ", ").append(constantName(typeBySlot[slot].getName()));
+        }
+        source.append("};  // The types by id.\n");
+        source.append("    private static final String[] NAMES = {");
+        for (int slot = 0; slot < typeBySlot.length; slot++) {
+            source.append(slot == 0 ? "" : ", ").append(literal(typeBySlot[slot].getName()));
+        }
+        source.append("};  // The names by id, to reject names outside the catalog.\n");
+        source.append("    private static final int[] SEEDS = {");
+        for (int i = 0; i < seeds.length; i++) {
+            source.append(i == 0 ? "" : ", ").append(seeds[i]);
+        }
+        source.append("};  // The perfect hash seeds by bucket.\n\n");
+        source.append("    private MaterialCatalog() {\n    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Gets the id of a material type.\n");
+        source.append("     *\n");
+        source.append("     * @param name The name of the material type.\n");
+        source.append("     * @return The id, or -1 if the catalog declares no type with the name.\n");
+        source.append("     */\n");
+        source.append("    public static int idOf(String name) {\n");
+        source.append("        int id = PerfectHash.slot(name, SEEDS);\n");
+        source.append("        return NAMES[id].equals(name) ? id : -1;\n");
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Gets a material type by name.\n");
+        source.append("     *\n");
+        source.append("     * @param name The name of the material type.\n");
+        source.append("     * @return The material type, or null if the catalog declares no type with the name.\n");
+        source.append("     */\n");
+        source.append("    public static MaterialType byName(String name) {\n");
+        source.append("        int id = idOf(name);\n");
+        source.append("        return id < 0 ? null : TYPES[id];\n");
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Gets a material type by id.\n");
+        source.append("     *\n");
+        source.append("     * @param id The id of the material type.\n");
+        source.append("     * @return The material type.\n");
+        source.append("     */\n");
+        source.append("    public static MaterialType byId(int id) {\n");
+        source.append("        return TYPES[id];\n");
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Gets the number of material types in the catalog.\n");
+        source.append("     *\n");
+        source.append("     * @return The number of material types.\n");
+        source.append("     */\n");
+        source.append("    public static int size() {\n");
+        source.append("        return TYPES.length;\n");
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Gets every material type of the catalog.\n");
+        source.append("     *\n");
+        source.append("     * @return An unmodifiable list of the material types ordered by id.\n");
+        source.append("     */\n");
+        source.append("    public static List<MaterialType> all() {\n");
+        source.append("        return Collections.unmodifiableList(Arrays.asList(TYPES));\n");
+        source.append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Helper method turning a material type name into a constant name, such as "Iron ore" into IRON_ORE.
+     */
+    static String constantName(String name) {
+        String constant = name.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]+", "_").replaceAll("^_|_$", "");
+        return constant.isEmpty() || Character.isDigit(constant.charAt(0)) ? "_" + constant : constant;
+    }
+
+    /**
+     * Helper method writing a string as a Java string literal.
+     */
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7E) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * Helper method splitting a manifest line into fields, honouring quoted fields.
+     */
+    private static List<String> split(String line) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IOException("Unterminated quoted field in " + line);
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
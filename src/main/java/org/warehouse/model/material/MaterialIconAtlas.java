@@ -0,0 +1,139 @@
+package org.warehouse.model.material;
+
+import org.warehouse.exceptions.IconNotFound;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Packs the icons of all registered material types into a single atlas.
+ * The atlas is one contiguous resource made of every icon file placed back to back, together with
+ * an index from icon path to {@link IconRegion}. Clients fetch and cache the atlas once instead of
+ * requesting every icon separately.
+ * Registering a new material type only appends its icon, so the regions handed out earlier stay valid
+ * and the atlas version changes only when its content actually grows.
+ */
+public class MaterialIconAtlas {
+
+    // Map from the icon path of a material type to the region its bytes occupy in the atlas.
+    // Material types sharing the same icon share the same region.
+    private final Map<String, IconRegion> regions = new HashMap<>();
+    private byte[] atlas = new byte[4096]; // The packed icon bytes; only the first size bytes are used.
+    private int size;                      // The number of bytes currently used in the atlas.
+    private int version;                   // Incremented every time a new icon is appended.
+
+    /**
+     * Registers a material type and packs its icon into the atlas if it is not already there.
+     *
+     * @param materialType The material type whose icon should be available in the atlas.
+     * @return The region of the material type's icon inside the atlas.
+     * @throws IOException If the icon file of the material type cannot be read.
+     */
+    public synchronized IconRegion register(MaterialType materialType) throws IOException {
+        IconRegion region = regions.get(materialType.getIcon());
+        if (region != null) {
+            return region;
+        }
+
+        byte[] icon = Files.readAllBytes(Paths.get(materialType.getIcon()));
+        ensureCapacity(size + icon.length);
+        System.arraycopy(icon, 0, atlas, size, icon.length);
+        region = new IconRegion(size, icon.length);
+        regions.put(materialType.getIcon(), region);
+        size += icon.length;
+        version++;
+        return region;
+    }
+
+    /**
+     * Registers every given material type, packing only icons that are not yet in the atlas.
+     *
+     * @param materialTypes The material types to register.
+     * @throws IOException If one of the icon files cannot be read.
+     */
+    public void registerAll(Iterable<MaterialType> materialTypes) throws IOException {
+        for (MaterialType materialType : materialTypes) {
+            register(materialType);
+        }
+    }
+
+    /**
+     * Gets the atlas coordinates of the icon of a material type.
+     *
+     * @param materialType The material type whose icon region is requested.
+     * @return The region of the icon inside the atlas.
+     * @throws IconNotFound If the material type was never registered in the atlas.
+     */
+    public synchronized IconRegion getRegion(MaterialType materialType) throws IconNotFound {
+        IconRegion region = regions.get(materialType.getIcon());
+        if (region == null) {
+            throw new IconNotFound("The icon of " + materialType.getName() + " is not packed in the atlas");
+        }
+        return region;
+    }
+
+    /**
+     * Gets the version of the atlas, which clients can use as a cache key.
+     *
+     * @return The number of icons appended so far.
+     */
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the current size of the atlas.
+     *
+     * @return The number of bytes in the atlas.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of the packed atlas bytes.
+     *
+     * @return The atlas content.
+     */
+    public synchronized byte[] toByteArray() {
+        return Arrays.copyOf(atlas, size);
+    }
+
+    /**
+     * Writes the packed atlas to the given stream.
+     *
+     * @param out The stream to write the atlas to.
+     * @throws IOException If writing to the stream fails.
+     */
+    public synchronized void writeTo(OutputStream out) throws IOException {
+        out.write(atlas, 0, size);
+    }
+
+    /**
+     * Writes the packed atlas to a file, replacing any previous content.
+     *
+     * @param file The file to write the atlas to.
+     * @throws IOException If writing the file fails.
+     */
+    public void writeTo(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeTo(out);
+        }
+    }
+
+    /**
+     * Helper method to grow the atlas buffer so that it can hold the requested number of bytes.
+     * @param required The number of bytes the buffer must be able to hold.
+     */
+    private void ensureCapacity(int required) {
+        if (required > atlas.length) {
+            atlas = Arrays.copyOf(atlas, Math.max(required, atlas.length * 2));
+        }
+    }
+}
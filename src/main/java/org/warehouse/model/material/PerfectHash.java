@@ -0,0 +1,111 @@
+package org.warehouse.model.material;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A minimal perfect hash over a fixed set of names, built with the hash-and-displace method.
+ * Every name is first hashed into one of n buckets; each bucket has a seed, chosen at build time, that
+ * places all of its names into distinct free slots of a table of exactly n slots. A lookup therefore costs
+ * two string hashes and two array reads, without probing or comparisons beyond one final equality check
+ * that the caller makes to reject names outside the set.
+ */
+public final class PerfectHash {
+
+    private static final int MAXIMUM_SEED = 1 << 24;
+
+    private PerfectHash() {
+    }
+
+    /**
+     * Finds a seed per bucket so that the given distinct names map to the slots 0 to n - 1 without collisions.
+     *
+     * @param names The distinct names to hash.
+     * @return The seeds, one per bucket, to pass to {@link #slot(String, int[])}.
+     */
+    public static int[] build(List<String> names) {
+        int n = names.size();
+        if (new HashSet<>(names).size() != n) {
+            throw new IllegalArgumentException("The names to hash must be distinct");
+        }
+        int[] seeds = new int[Math.max(1, n)];
+        List<List<String>> buckets = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (String name : names) {
+            buckets.get(Math.floorMod(hash(name, 0), n)).add(name);
+        }
+
+        // Place the largest buckets first, while most slots are still free.
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            order.add(i);
+        }
+        order.sort((a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        boolean[] occupied = new boolean[n];
+        for (int bucket : order) {
+            List<String> members = buckets.get(bucket);
+            if (members.isEmpty()) {
+                break;
+            }
+            seeds[bucket] = findSeed(members, occupied);
+            for (String name : members) {
+                occupied[Math.floorMod(hash(name, seeds[bucket]), n)] = true;
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * Gets the slot of a name. Names outside the hashed set map to an arbitrary slot.
+     *
+     * @param name The name to look up.
+     * @param seeds The seeds returned by {@link #build(List)}.
+     * @return The slot between 0 and the number of hashed names - 1.
+     */
+    public static int slot(String name, int[] seeds) {
+        int bucket = Math.floorMod(hash(name, 0), seeds.length);
+        return Math.floorMod(hash(name, seeds[bucket]), seeds.length);
+    }
+
+    /**
+     * Helper method searching the first seed that places every name of a bucket into a distinct free slot.
+     */
+    private static int findSeed(List<String> members, boolean[] occupied) {
+        int n = occupied.length;
+        Set<Integer> slots = new HashSet<>();
+        for (int seed = 1; seed < MAXIMUM_SEED; seed++) {
+            slots.clear();
+            boolean placed = true;
+            for (String name : members) {
+                int slot = Math.floorMod(hash(name, seed), n);
+                if (occupied[slot] || !slots.add(slot)) {
+                    placed = false;
+                    break;
+                }
+            }
+            if (placed) {
+                return seed;
+            }
+        }
+        throw new IllegalStateException("No seed places the bucket " + members);
+    }
+
+    /**
+     * Helper method computing a seeded FNV-1a hash of a string with a final avalanche step.
+     */
+    private static int hash(String name, int seed) {
+        int h = 0x811C9DC5 ^ (seed * 0x9E3779B9);
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ name.charAt(i)) * 0x01000193;
+        }
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
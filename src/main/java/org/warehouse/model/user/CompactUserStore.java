@@ -0,0 +1,239 @@
+package org.warehouse.model.user;
+
+import org.warehouse.exceptions.*;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+
+import java.util.Arrays;
+
+/**
+ * Stores the wallets of many users column by column instead of as one {@link User} object each.
+ * Usernames, gems, money and levels live in parallel arrays indexed by a dense user index. Usernames are
+ * kept as given, since they rarely repeat. A user therefore costs a few array slots instead of an object
+ * with its own header, fields and map, and fleet-wide scans such as the total money supply read one
+ * contiguous primitive array.
+ * {@link #view(int)} returns a flyweight implementing {@link UserFunctionalitiesInterface} on top of the
+ * columns, with the same validation as {@link UserFunctionalities}. Warehouse assignments are not stored here.
+ */
+public class CompactUserStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] usernames = new String[INITIAL_CAPACITY];         // The username of each user.
+    private int[] gems = new int[INITIAL_CAPACITY];                    // The gems of each user.
+    private int[] money = new int[INITIAL_CAPACITY];                   // The money of each user.
+    private int[] levels = new int[INITIAL_CAPACITY];                  // The level of each user.
+    private int size;                                                  // The number of stored users.
+
+    /**
+     * Adds a user to the store.
+     *
+     * @param username The name of the user.
+     * @param gems The number of gems owned by the user.
+     * @param money The amount of money owned by the user.
+     * @param level The initial level of the user.
+     * @return The index of the user in the store.
+     */
+    public synchronized int add(String username, int gems, int money, int level) {
+        if (size == usernames.length) {
+            int capacity = size + (size >> 1);
+            usernames = Arrays.copyOf(usernames, capacity);
+            this.gems = Arrays.copyOf(this.gems, capacity);
+            this.money = Arrays.copyOf(this.money, capacity);
+            levels = Arrays.copyOf(levels, capacity);
+        }
+        usernames[size] = username;
+        this.gems[size] = gems;
+        this.money[size] = money;
+        levels[size] = level;
+        return size++;
+    }
+
+    /**
+     * Copies an existing user into the store.
+     *
+     * @param user The user to copy.
+     * @return The index of the user in the store.
+     */
+    public int add(User user) {
+        return add(user.getUsername(), user.getGems(), user.getMoney(), user.getLevel());
+    }
+
+    /**
+     * Returns a flyweight view of a stored user that supports the same operations as {@link UserFunctionalities}.
+     *
+     * @param index The index of the user.
+     * @return A view reading and writing the columns of the user.
+     */
+    public UserFunctionalitiesInterface view(int index) {
+        checkIndex(index);
+        return new UserView(index);
+    }
+
+    /**
+     * Gets the number of stored users.
+     *
+     * @return The number of users.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Gets the username of a stored user.
+     *
+     * @param index The index of the user.
+     * @return The username.
+     */
+    public synchronized String getUsername(int index) {
+        checkIndex(index);
+        return usernames[index];
+    }
+
+    /**
+     * Gets the number of gems of a stored user.
+     *
+     * @param index The index of the user.
+     * @return The number of gems.
+     */
+    public synchronized int getGems(int index) {
+        checkIndex(index);
+        return gems[index];
+    }
+
+    /**
+     * Gets the amount of money of a stored user.
+     *
+     * @param index The index of the user.
+     * @return The amount of money.
+     */
+    public synchronized int getMoney(int index) {
+        checkIndex(index);
+        return money[index];
+    }
+
+    /**
+     * Gets the level of a stored user.
+     *
+     * @param index The index of the user.
+     * @return The level.
+     */
+    public synchronized int getLevel(int index) {
+        checkIndex(index);
+        return levels[index];
+    }
+
+    /**
+     * Sums the money of every stored user in one pass over the money column.
+     *
+     * @return The total money supply.
+     */
+    public synchronized long totalMoney() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += money[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sums the gems of every stored user in one pass over the gems column.
+     *
+     * @return The total number of gems.
+     */
+    public synchronized long totalGems() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += gems[i];
+        }
+        return total;
+    }
+
+    /**
+     * Helper method to check that an index refers to a stored user.
+     * @param index The index to check.
+     */
+    private synchronized void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("No user is stored at index " + index);
+        }
+    }
+
+    /**
+     * A flyweight holding only the index of a user; every operation reads and writes the store's columns.
+     */
+    private class UserView implements UserFunctionalitiesInterface {
+        private final int index;
+
+        private UserView(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void upgradeLevel() {
+            synchronized (CompactUserStore.this) {
+                levels[index]++;
+            }
+        }
+
+        @Override
+        public void checkInventory(WareHouse assignedWarehouse, Material material) {
+            try {
+                int quantity = assignedWarehouse.getMaterialQuantity(assignedWarehouse, material);
+                System.out.println("Inventory for " + material.getMaterialType().getName() + ": " + quantity);
+            } catch (MaterialNotFound e) {
+                System.out.println(e.getMessage());
+            }
+        }
+
+        @Override
+        public int updateMoney(int quantity) throws InvalidQuantityOfMoney {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfMoney("The amount of money you want to get should be greater than 0");
+            }
+            synchronized (CompactUserStore.this) {
+                money[index] += quantity;
+                return money[index];
+            }
+        }
+
+        @Override
+        public int updateGems(int quantity) throws InvalidQuantityOfGems {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfGems("The amount of gems you want to get should be greater than 0");
+            }
+            synchronized (CompactUserStore.this) {
+                gems[index] += quantity;
+                return gems[index];
+            }
+        }
+
+        @Override
+        public int spendMoney(int quantity) throws InvalidQuantityOfMoney, ExceedingAmountOfMoney {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfMoney("The amount of money you want to spend should be greater than 0");
+            }
+            synchronized (CompactUserStore.this) {
+                if (quantity > money[index]) {
+                    throw new ExceedingAmountOfMoney("The amount of money you want to spend should not be larger than the money user have");
+                }
+                money[index] -= quantity;
+                return money[index];
+            }
+        }
+
+        @Override
+        public int spendGems(int quantity) throws ExceedingAmountOfGems, InvalidQuantityOfGems {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfGems("The amount of gems you want to spend should be greater than 0");
+            }
+            synchronized (CompactUserStore.this) {
+                if (quantity > gems[index]) {
+                    throw new ExceedingAmountOfGems("The amount of gems you want to spend should not be larger than the money user have");
+                }
+                gems[index] -= quantity;
+                return gems[index];
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package org.warehouse.model.user;
+
+/**
+ * The user attributes a {@link UserLeaderboard} ranks users by.
+ */
+public enum LeaderboardMetric {
+    /** Ranks users by {@link User#getLevel()}. */
+    LEVEL,
+    /** Ranks users by {@link User#getMoney()}. */
+    MONEY,
+    /** Ranks users by {@link User#getGems()}. */
+    GEMS;
+
+    /**
+     * Reads the value of this metric from a user.
+     *
+     * @param user The user to read from.
+     * @return The user's level, money or gems.
+     */
+    public int valueOf(User user) {
+        switch (this) {
+            case LEVEL:
+                return user.getLevel();
+            case MONEY:
+                return user.getMoney();
+            default:
+                return user.getGems();
+        }
+    }
+}
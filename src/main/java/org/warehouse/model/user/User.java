@@ -1,19 +1,28 @@
 package org.warehouse.model.user;
 
+import org.warehouse.exceptions.UserAlreadyExists;
+import org.warehouse.exceptions.UserNotFound;
 import org.warehouse.management.WareHouse;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a user in a warehouse management system.
  * A user has a username, gems, money, level, and a collection of assigned warehouses.
+ * Every change of the level, money or gems is made while holding the lock of the user and is reported
+ * to the registered {@link UserChangeListener}s, such as the leaderboards ranking the user.
  */
 public class User {
     private String userName;  // The name of the user.
-    private Map<Integer, WareHouse> assignedWarehouses;  // Warehouses assigned to this user.
+    private WarehouseAssignments assignedWarehouses;  // Warehouses assigned to this user, by warehouse number.
     private int gems;  // The number of gems owned by the user.
     private int money;  // The amount of money owned by the user.
     private int level;  // The level of the user.
+    private volatile List<UserChangeListener> changeListeners;  // Notified of every change; null until one is registered.
+    private UserDirectory directory;  // The directory the user is registered in, or null; guarded by the lock of the user.
+    private long directoryId;  // The id of the user in its directory; guarded by the lock of the user.
 
     /**
      * Constructs a User object with the specified attributes.
@@ -25,6 +34,19 @@ public class User {
      * @param level The initial level of the user.
      */
     public User(String userName, Map<Integer, WareHouse> warehouses, int gems, int money, int level) {
+        this(userName, WarehouseAssignments.copyOf(warehouses), gems, money, level);
+    }
+
+    /**
+     * Constructs a User object with the specified attributes and warehouse assignments.
+     *
+     * @param userName The name of the user.
+     * @param warehouses The warehouses assigned to the user, by warehouse number.
+     * @param gems The number of gems owned by the user.
+     * @param money The amount of money owned by the user.
+     * @param level The initial level of the user.
+     */
+    public User(String userName, WarehouseAssignments warehouses, int gems, int money, int level) {
         this.userName = userName;
         this.assignedWarehouses = warehouses;
         this.gems = gems;
@@ -43,13 +65,62 @@ public class User {
 
     /**
      * Sets a new username for the user.
+     * A user registered in a {@link UserDirectory} is renamed through the directory, which keeps usernames unique.
      *
      * @param username The new username.
+     * @throws IllegalArgumentException If the user is registered and another user of its directory has the username.
      */
-    public void setUsername(String username) {
+    public synchronized void setUsername(String username) {
+        UserDirectory registered = this.directory;
+        if (registered == null) {
+            this.userName = username;
+            return;
+        }
+        try {
+            registered.rename(this, username);
+        } catch (UserAlreadyExists e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        } catch (UserNotFound e) {
+            // The user is locked, so it cannot leave its directory in the meantime.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Helper method changing the username without going through the directory. Only called by the directory,
+     * while it holds the lock of the user.
+     */
+    void applyUsername(String username) {
         this.userName = username;
     }
 
+    /**
+     * Gets the directory the user is registered in. Only called while holding the lock of the user.
+     *
+     * @return The directory, or null if the user is not registered.
+     */
+    UserDirectory getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the id of the user in its directory. Only called while holding the lock of the user.
+     *
+     * @return The id.
+     */
+    long getDirectoryId() {
+        return directoryId;
+    }
+
+    /**
+     * Helper method recording the directory the user is registered in. Only called by the directory, while it
+     * holds the lock of the user.
+     */
+    void setDirectory(UserDirectory directory, long directoryId) {
+        this.directory = directory;
+        this.directoryId = directoryId;
+    }
+
     /**
      * Gets the number of gems owned by the user.
      *
@@ -64,8 +135,9 @@ public class User {
      *
      * @param gems The new number of gems.
      */
-    public void setGems(int gems) {
+    public synchronized void setGems(int gems) {
         this.gems = gems;
+        publishChange();
     }
 
     /**
@@ -82,8 +154,9 @@ public class User {
      *
      * @param money The new amount of money.
      */
-    public void setMoney(int money) {
+    public synchronized void setMoney(int money) {
         this.money = money;
+        publishChange();
     }
 
     /**
@@ -98,25 +171,94 @@ public class User {
     /**
      * Increments the user's level.
      */
-    public void setLevel() {
+    public synchronized void setLevel() {
         this.level += 1;
+        publishChange();
     }
 
     /**
      * Gets the map of warehouses assigned to the user.
+     * The map is a write-through view of {@link #getWarehouseAssignments()}.
      *
      * @return The map of assigned warehouses.
      */
     public Map<Integer, WareHouse> getAssignedWarehouses() {
-        return assignedWarehouses;
+        return assignedWarehouses.asMap();
     }
 
     /**
      * Sets the assigned warehouses for the user.
      *
-     * @param assignedWarehouses The new map of assigned warehouses.
+     * @param assignedWarehouses The new map of assigned warehouses, which is copied.
      */
     public void setAssignedWarehouses(Map<Integer, WareHouse> assignedWarehouses) {
+        this.assignedWarehouses = WarehouseAssignments.copyOf(assignedWarehouses);
+    }
+
+    /**
+     * Gets the warehouses assigned to the user, looked up by number without boxing.
+     *
+     * @return The warehouse assignments.
+     */
+    public WarehouseAssignments getWarehouseAssignments() {
+        return assignedWarehouses;
+    }
+
+    /**
+     * Sets the warehouse assignments of the user.
+     *
+     * @param assignedWarehouses The new warehouse assignments.
+     */
+    public void setWarehouseAssignments(WarehouseAssignments assignedWarehouses) {
         this.assignedWarehouses = assignedWarehouses;
     }
+
+    /**
+     * Registers a listener to be notified after every change of the level, money or gems of the user.
+     * Registering a listener that is already registered has no effect.
+     *
+     * @param listener The listener to register.
+     */
+    public synchronized void addChangeListener(UserChangeListener listener) {
+        if (changeListeners == null) {
+            changeListeners = new CopyOnWriteArrayList<>();
+        }
+        if (!changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addChangeListener(UserChangeListener)}.
+     *
+     * @param listener The listener to unregister.
+     */
+    public synchronized void removeChangeListener(UserChangeListener listener) {
+        if (changeListeners != null) {
+            changeListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Gets the number of registered change listeners.
+     *
+     * @return The number of listeners.
+     */
+    public int getChangeListenerCount() {
+        List<UserChangeListener> listeners = changeListeners;
+        return listeners == null ? 0 : listeners.size();
+    }
+
+    /**
+     * Helper method notifying all registered listeners about a change. Must be called while holding the lock
+     * of the user.
+     */
+    private void publishChange() {
+        List<UserChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            for (UserChangeListener listener : listeners) {
+                listener.userChanged(this);
+            }
+        }
+    }
 }
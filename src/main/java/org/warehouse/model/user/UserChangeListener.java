@@ -0,0 +1,16 @@
+package org.warehouse.model.user;
+
+/**
+ * A listener notified whenever the level, money or gems of a {@link User} change.
+ * Listeners are registered on the user and called while its lock is held, so the changes of one user
+ * reach them one at a time and in order, whichever code path made them.
+ */
+public interface UserChangeListener {
+
+    /**
+     * Called after the level, money or gems of a user have changed.
+     *
+     * @param user The user whose values changed.
+     */
+    void userChanged(User user);
+}
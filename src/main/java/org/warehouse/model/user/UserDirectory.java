@@ -0,0 +1,171 @@
+package org.warehouse.model.user;
+
+import org.warehouse.exceptions.UserAlreadyExists;
+import org.warehouse.exceptions.UserNotFound;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores users by id and by username.
+ * Exact lookups by id or username are O(1) through concurrent hash maps. Prefix searches for
+ * autocompletion walk a concurrent sorted index of usernames from the first match, so they cost
+ * O(log n) plus the number of results. Every index is safe for concurrent readers and writers, and
+ * writers only lock the user they change.
+ * The id of a user is kept on the user itself rather than in a reverse map, so a user costs one entry in
+ * each of the three indexes. Usernames are unique, and a user belongs to at most one directory; a rename,
+ * whether through {@link #rename(User, String)} or {@link User#setUsername(String)}, only moves that user's entries.
+ */
+public class UserDirectory {
+
+    private final AtomicLong nextId = new AtomicLong(1);                              // The id given to the next registered user.
+    private final Map<Long, User> usersById = new ConcurrentHashMap<>();              // Users by id.
+    private final Map<String, User> usersByName = new ConcurrentHashMap<>();          // Users by exact username.
+    private final NavigableMap<String, User> sortedNames = new ConcurrentSkipListMap<>(); // Users ordered by username for prefix search.
+
+    /**
+     * Registers a user under a new id.
+     *
+     * @param user The user to register.
+     * @return The id of the user.
+     * @throws UserAlreadyExists If another user already has the same username, or the user is already registered in a directory.
+     */
+    public long register(User user) throws UserAlreadyExists {
+        synchronized (user) {
+            if (user.getDirectory() != null) {
+                throw new UserAlreadyExists("The user " + user.getUsername() + " is already registered");
+            }
+            if (usersByName.putIfAbsent(user.getUsername(), user) != null) {
+                throw new UserAlreadyExists("The username " + user.getUsername() + " is already taken");
+            }
+            long id = nextId.getAndIncrement();
+            usersById.put(id, user);
+            sortedNames.put(user.getUsername(), user);
+            user.setDirectory(this, id);
+            return id;
+        }
+    }
+
+    /**
+     * Finds a user by id.
+     *
+     * @param id The id of the user.
+     * @return The user.
+     * @throws UserNotFound If no user has the id.
+     */
+    public User findById(long id) throws UserNotFound {
+        User user = usersById.get(id);
+        if (user == null) {
+            throw new UserNotFound("No user has the id " + id);
+        }
+        return user;
+    }
+
+    /**
+     * Finds a user by exact username.
+     *
+     * @param username The username of the user.
+     * @return The user.
+     * @throws UserNotFound If no user has the username.
+     */
+    public User findByUsername(String username) throws UserNotFound {
+        User user = usersByName.get(username);
+        if (user == null) {
+            throw new UserNotFound("No user has the username " + username);
+        }
+        return user;
+    }
+
+    /**
+     * Gets the id of a registered user.
+     *
+     * @param user The user.
+     * @return The id of the user.
+     * @throws UserNotFound If the user is not registered.
+     */
+    public long getId(User user) throws UserNotFound {
+        synchronized (user) {
+            if (user.getDirectory() != this) {
+                throw new UserNotFound("The user " + user.getUsername() + " is not registered");
+            }
+            return user.getDirectoryId();
+        }
+    }
+
+    /**
+     * Finds the users whose username starts with a prefix, in username order.
+     *
+     * @param prefix The prefix to complete.
+     * @param limit The maximum number of users to return.
+     * @return Up to limit users whose username starts with the prefix.
+     */
+    public List<User> searchByPrefix(String prefix, int limit) {
+        List<User> users = new ArrayList<>();
+        for (Map.Entry<String, User> entry : sortedNames.tailMap(prefix, true).entrySet()) {
+            if (users.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            users.add(entry.getValue());
+        }
+        return users;
+    }
+
+    /**
+     * Renames a registered user and moves only that user's index entries.
+     *
+     * @param user The user to rename.
+     * @param newUsername The new username.
+     * @throws UserNotFound If the user is not registered.
+     * @throws UserAlreadyExists If another user already has the new username.
+     */
+    public void rename(User user, String newUsername) throws UserNotFound, UserAlreadyExists {
+        synchronized (user) {
+            if (user.getDirectory() != this) {
+                throw new UserNotFound("The user " + user.getUsername() + " is not registered");
+            }
+            String oldUsername = user.getUsername();
+            if (oldUsername.equals(newUsername)) {
+                return;
+            }
+            if (usersByName.putIfAbsent(newUsername, user) != null) {
+                throw new UserAlreadyExists("The username " + newUsername + " is already taken");
+            }
+            sortedNames.put(newUsername, user);
+            user.applyUsername(newUsername);
+            usersByName.remove(oldUsername, user);
+            sortedNames.remove(oldUsername, user);
+        }
+    }
+
+    /**
+     * Removes a user from the directory.
+     *
+     * @param user The user to remove.
+     * @throws UserNotFound If the user is not registered.
+     */
+    public void remove(User user) throws UserNotFound {
+        synchronized (user) {
+            if (user.getDirectory() != this) {
+                throw new UserNotFound("The user " + user.getUsername() + " is not registered");
+            }
+            usersById.remove(user.getDirectoryId());
+            usersByName.remove(user.getUsername(), user);
+            sortedNames.remove(user.getUsername(), user);
+            user.setDirectory(null, 0);
+        }
+    }
+
+    /**
+     * Gets the number of registered users.
+     *
+     * @return The number of users.
+     */
+    public int size() {
+        return usersById.size();
+    }
+}
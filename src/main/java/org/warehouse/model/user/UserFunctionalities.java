@@ -9,6 +9,8 @@ import java.util.concurrent.TimeUnit;
 /**
  * Provides implementations for user functionalities such as
  * level upgrade, and currency management within an application context.
+ * Every change of the wallet is made while holding the lock of the user, so concurrent
+ * callers and transactions spanning several users see consistent balances.
  */
 public class UserFunctionalities implements UserFunctionalitiesInterface {
 
@@ -24,7 +26,9 @@ public class UserFunctionalities implements UserFunctionalitiesInterface {
      */
     @Override
     public void upgradeLevel() {
-        user.setLevel();
+        synchronized (user) {
+            user.setLevel();
+        }
     }
 
     /**
@@ -56,12 +60,14 @@ public class UserFunctionalities implements UserFunctionalitiesInterface {
      */
     @Override
     public int updateMoney(int quantity) throws InvalidQuantityOfMoney {
-        if (quantity <= 0) {
-            throw new InvalidQuantityOfMoney("The amount of money you want to get should be greater than 0");
+        synchronized (user) {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfMoney("The amount of money you want to get should be greater than 0");
+            }
+            int newQuantityOfMoney = user.getMoney() + quantity;
+            user.setMoney(newQuantityOfMoney);
+            return newQuantityOfMoney;
         }
-        int newQuantityOfMoney = user.getMoney() + quantity;
-        user.setMoney(newQuantityOfMoney);
-        return newQuantityOfMoney;
     }
 
     /**
@@ -75,12 +81,14 @@ public class UserFunctionalities implements UserFunctionalitiesInterface {
      */
     @Override
     public int updateGems(int quantity) throws InvalidQuantityOfGems {
-        if (quantity <= 0) {
-            throw new InvalidQuantityOfGems("The amount of gems you want to get should be greater than 0");
+        synchronized (user) {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfGems("The amount of gems you want to get should be greater than 0");
+            }
+            int newQuantityOfGems = user.getGems() + quantity;
+            user.setGems(newQuantityOfGems);
+            return newQuantityOfGems;
         }
-        int newQuantityOfGems = user.getGems() + quantity;
-        user.setGems(newQuantityOfGems);
-        return newQuantityOfGems;
     }
 
     /**
@@ -92,16 +100,18 @@ public class UserFunctionalities implements UserFunctionalitiesInterface {
      */
     @Override
     public int spendMoney(int quantity) throws InvalidQuantityOfMoney, ExceedingAmountOfMoney {
-        if (quantity <= 0) {
-            throw new InvalidQuantityOfMoney("The amount of money you want to spend should be greater than 0");
-        }
+        synchronized (user) {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfMoney("The amount of money you want to spend should be greater than 0");
+            }
 
-        if (quantity > user.getMoney()) {
-            throw new ExceedingAmountOfMoney("The amount of money you want to spend should not be larger than the money user have");
-        }
+            if (quantity > user.getMoney()) {
+                throw new ExceedingAmountOfMoney("The amount of money you want to spend should not be larger than the money user have");
+            }
 
-        user.setMoney(user.getMoney() - quantity);
-        return user.getMoney();
+            user.setMoney(user.getMoney() - quantity);
+            return user.getMoney();
+        }
     }
 
     /**
@@ -113,15 +123,17 @@ public class UserFunctionalities implements UserFunctionalitiesInterface {
      */
     @Override
     public int spendGems(int quantity) throws ExceedingAmountOfGems, InvalidQuantityOfGems {
-        if (quantity <= 0) {
-            throw new InvalidQuantityOfGems("The amount of gems you want to spend should be greater than 0");
-        }
+        synchronized (user) {
+            if (quantity <= 0) {
+                throw new InvalidQuantityOfGems("The amount of gems you want to spend should be greater than 0");
+            }
 
-        if (quantity > user.getGems()) {
-            throw new ExceedingAmountOfGems("The amount of gems you want to spend should not be larger than the money user have");
-        }
+            if (quantity > user.getGems()) {
+                throw new ExceedingAmountOfGems("The amount of gems you want to spend should not be larger than the money user have");
+            }
 
-        user.setGems(user.getGems() - quantity);
-        return user.getGems();
+            user.setGems(user.getGems() - quantity);
+            return user.getGems();
+        }
     }
 }
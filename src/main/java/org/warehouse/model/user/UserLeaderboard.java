@@ -0,0 +1,382 @@
+package org.warehouse.model.user;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ranks users by level, money and gems without sorting the whole population on every request.
+ * Every metric is indexed by its own order-statistic tree (a treap whose nodes know the size of their
+ * subtree), so inserting, moving and removing a user as well as rank, top-K and around-me queries all
+ * take O(log n). Users with the same value are ranked in the order they joined the leaderboard.
+ * Each metric has its own read-write lock, so queries run concurrently and updates of different metrics
+ * do not block each other. The leaderboard registers itself as a {@link UserChangeListener} of every ranked
+ * user, so each change of a user's level, money or gems moves them while the user is still locked, whether the
+ * change comes from {@link UserFunctionalities}, a transaction or anywhere else.
+ */
+public class UserLeaderboard implements UserChangeListener {
+
+    private final Map<User, Entry> entries = new ConcurrentHashMap<>();  // The indexed state of every ranked user.
+    private final AtomicLong joinSequence = new AtomicLong();            // Breaks ties between users with equal values.
+    private final RankTree[] trees = new RankTree[LeaderboardMetric.values().length];
+    private final ReadWriteLock[] locks = new ReadWriteLock[LeaderboardMetric.values().length];
+
+    /**
+     * Constructs a new, empty UserLeaderboard.
+     */
+    public UserLeaderboard() {
+        for (int i = 0; i < trees.length; i++) {
+            trees[i] = new RankTree();
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Adds a user to the leaderboard with their current level, money and gems.
+     * Adding a user that is already ranked only refreshes their values.
+     *
+     * @param user The user to rank.
+     */
+    public void add(User user) {
+        synchronized (user) {
+            Entry entry = entries.computeIfAbsent(user, key -> new Entry(joinSequence.getAndIncrement()));
+            index(user, entry);
+            user.addChangeListener(this);
+        }
+    }
+
+    /**
+     * Helper method indexing the current values of a user, replacing the values indexed before.
+     * Must be called while holding the lock of the user.
+     */
+    private void index(User user, Entry entry) {
+        for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+            int i = metric.ordinal();
+            locks[i].writeLock().lock();
+            try {
+                if (entry.indexed[i]) {
+                    trees[i].remove(entry.values[i], entry.sequence);
+                }
+                entry.values[i] = metric.valueOf(user);
+                trees[i].insert(entry.values[i], entry.sequence, user);
+                entry.indexed[i] = true;
+            } finally {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves a user to the position matching their current level, money and gems.
+     * Metrics whose value did not change are left untouched. Users that are not ranked are ignored.
+     * Ranked users call this themselves after every change, while they are locked.
+     *
+     * @param user The user whose values changed.
+     */
+    @Override
+    public void userChanged(User user) {
+        synchronized (user) {
+            update(user);
+        }
+    }
+
+    /**
+     * Helper method moving a user to the position matching their current values. Must be called while holding
+     * the lock of the user.
+     */
+    private void update(User user) {
+        Entry entry = entries.get(user);
+        if (entry == null) {
+            return;
+        }
+        for (LeaderboardMetric metric : LeaderboardMetric.values()) {
+            int i = metric.ordinal();
+            locks[i].writeLock().lock();
+            try {
+                int value = metric.valueOf(user);
+                if (entry.indexed[i] && entry.values[i] != value) {
+                    trees[i].remove(entry.values[i], entry.sequence);
+                    entry.values[i] = value;
+                    trees[i].insert(value, entry.sequence, user);
+                }
+            } finally {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Removes a user from the leaderboard.
+     *
+     * @param user The user to remove.
+     */
+    public void remove(User user) {
+        synchronized (user) {
+            user.removeChangeListener(this);
+            Entry entry = entries.remove(user);
+            if (entry == null) {
+                return;
+            }
+            for (int i = 0; i < trees.length; i++) {
+                locks[i].writeLock().lock();
+                try {
+                    if (entry.indexed[i]) {
+                        trees[i].remove(entry.values[i], entry.sequence);
+                        entry.indexed[i] = false;
+                    }
+                } finally {
+                    locks[i].writeLock().unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the rank of a user for a metric.
+     *
+     * @param user The user whose rank is requested.
+     * @param metric The metric to rank by.
+     * @return The 1-based rank, or 0 if the user is not ranked.
+     */
+    public int rankOf(User user, LeaderboardMetric metric) {
+        Entry entry = entries.get(user);
+        if (entry == null) {
+            return 0;
+        }
+        int i = metric.ordinal();
+        locks[i].readLock().lock();
+        try {
+            return entry.indexed[i] ? trees[i].countBefore(entry.values[i], entry.sequence) + 1 : 0;
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the best ranked users for a metric.
+     *
+     * @param metric The metric to rank by.
+     * @param count The maximum number of users to return.
+     * @return The users ranked 1 to count, best first.
+     */
+    public List<User> top(LeaderboardMetric metric, int count) {
+        return range(metric, 1, count);
+    }
+
+    /**
+     * Gets the users ranked around a user for a metric.
+     *
+     * @param user The user in the middle of the returned range.
+     * @param metric The metric to rank by.
+     * @param radius How many users to return above and below the user.
+     * @return The users from rank - radius to rank + radius, best first, or an empty list if the user is not ranked.
+     */
+    public List<User> around(User user, LeaderboardMetric metric, int radius) {
+        int i = metric.ordinal();
+        locks[i].readLock().lock();
+        try {
+            int rank = rankOf(user, metric);
+            if (rank == 0) {
+                return new ArrayList<>();
+            }
+            int first = Math.max(1, rank - radius);
+            return range(metric, first, rank + radius - first + 1);
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of ranked users.
+     *
+     * @return The number of users in the leaderboard.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Helper method collecting the users from a 1-based rank onwards.
+     */
+    private List<User> range(LeaderboardMetric metric, int firstRank, int count) {
+        int i = metric.ordinal();
+        locks[i].readLock().lock();
+        try {
+            List<User> users = new ArrayList<>();
+            trees[i].collect(firstRank - 1, count, users);
+            return users;
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    /**
+     * The indexed values of a user, guarded per metric by the lock of that metric.
+     */
+    private static class Entry {
+        private final long sequence;
+        private final int[] values = new int[LeaderboardMetric.values().length];
+        private final boolean[] indexed = new boolean[LeaderboardMetric.values().length];
+
+        private Entry(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * A treap ordered by descending value and ascending join sequence, with subtree sizes for rank queries.
+     */
+    private static class RankTree {
+        private Node root;
+
+        private void insert(int value, long sequence, User user) {
+            root = insert(root, new Node(value, sequence, user));
+        }
+
+        private void remove(int value, long sequence) {
+            root = remove(root, value, sequence);
+        }
+
+        /**
+         * Counts the nodes ordered before the given key.
+         */
+        private int countBefore(int value, long sequence) {
+            int count = 0;
+            Node node = root;
+            while (node != null) {
+                if (before(node.value, node.sequence, value, sequence)) {
+                    count += size(node.left) + 1;
+                    node = node.right;
+                } else {
+                    node = node.left;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Collects up to count users starting at the given 0-based position.
+         */
+        private void collect(int offset, int count, List<User> users) {
+            collect(root, offset, count, users);
+        }
+
+        private static void collect(Node node, int offset, int count, List<User> users) {
+            if (node == null || users.size() >= count) {
+                return;
+            }
+            int leftSize = size(node.left);
+            if (offset < leftSize) {
+                collect(node.left, offset, count, users);
+            }
+            if (offset <= leftSize && users.size() < count) {
+                users.add(node.user);
+            }
+            collect(node.right, Math.max(0, offset - leftSize - 1), count, users);
+        }
+
+        private static Node insert(Node node, Node inserted) {
+            if (node == null) {
+                return inserted;
+            }
+            if (before(inserted.value, inserted.sequence, node.value, node.sequence)) {
+                node.left = insert(node.left, inserted);
+                if (node.left.priority > node.priority) {
+                    node = rotateRight(node);
+                }
+            } else {
+                node.right = insert(node.right, inserted);
+                if (node.right.priority > node.priority) {
+                    node = rotateLeft(node);
+                }
+            }
+            node.update();
+            return node;
+        }
+
+        private static Node remove(Node node, int value, long sequence) {
+            if (node == null) {
+                return null;
+            }
+            if (node.value == value && node.sequence == sequence) {
+                return merge(node.left, node.right);
+            }
+            if (before(value, sequence, node.value, node.sequence)) {
+                node.left = remove(node.left, value, sequence);
+            } else {
+                node.right = remove(node.right, value, sequence);
+            }
+            node.update();
+            return node;
+        }
+
+        private static Node merge(Node left, Node right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                left.update();
+                return left;
+            }
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            node.update();
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            node.update();
+            return right;
+        }
+
+        private static boolean before(int value, long sequence, int otherValue, long otherSequence) {
+            return value > otherValue || (value == otherValue && sequence < otherSequence);
+        }
+
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+    }
+
+    /**
+     * A node of the rank tree.
+     */
+    private static class Node {
+        private final int value;
+        private final long sequence;
+        private final User user;
+        private final int priority = ThreadLocalRandom.current().nextInt();
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        private Node(int value, long sequence, User user) {
+            this.value = value;
+            this.sequence = sequence;
+            this.user = user;
+        }
+
+        private void update() {
+            size = 1 + RankTree.size(left) + RankTree.size(right);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.warehouse.model.user;
+
+import org.warehouse.management.WareHouse;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Maps warehouse numbers to the warehouses assigned to a user without boxing the numbers.
+ * Up to {@value #INLINE_LIMIT} warehouses are kept in two small parallel arrays and found by a linear scan,
+ * which is the common case and cheaper than hashing. Beyond that the same arrays become an
+ * open-addressing hash table with linear probing. Iterating with {@link #forEach(Visitor)} never allocates.
+ * {@link #asMap()} exposes the assignments as a write-through {@link Map} for callers that need one.
+ */
+public class WarehouseAssignments {
+
+    private static final int INLINE_LIMIT = 8;
+
+    private int[] ids = new int[2];                  // The warehouse numbers.
+    private WareHouse[] warehouses = new WareHouse[2]; // The warehouses; null marks an empty slot of the hash table.
+    private int size;                                // The number of assigned warehouses.
+    private boolean hashed;                          // Whether the arrays are laid out as a hash table.
+
+    /**
+     * Creates assignments holding a copy of the given map.
+     *
+     * @param warehouses The warehouses by number to copy.
+     * @return The new assignments.
+     */
+    public static WarehouseAssignments copyOf(Map<Integer, WareHouse> warehouses) {
+        WarehouseAssignments assignments = new WarehouseAssignments();
+        if (warehouses != null) {
+            for (Map.Entry<Integer, WareHouse> entry : warehouses.entrySet()) {
+                assignments.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return assignments;
+    }
+
+    /**
+     * Gets the warehouse assigned under a number.
+     *
+     * @param id The warehouse number.
+     * @return The warehouse, or null if no warehouse is assigned under the number.
+     */
+    public synchronized WareHouse get(int id) {
+        int slot = find(id);
+        return slot < 0 ? null : warehouses[slot];
+    }
+
+    /**
+     * Checks whether a warehouse is assigned under a number.
+     *
+     * @param id The warehouse number.
+     * @return true if a warehouse is assigned under the number.
+     */
+    public synchronized boolean containsKey(int id) {
+        return find(id) >= 0;
+    }
+
+    /**
+     * Assigns a warehouse under a number, replacing any warehouse assigned under it before.
+     *
+     * @param id The warehouse number.
+     * @param warehouse The warehouse to assign; must not be null.
+     * @return The warehouse previously assigned under the number, or null.
+     */
+    public synchronized WareHouse put(int id, WareHouse warehouse) {
+        if (warehouse == null) {
+            throw new IllegalArgumentException("The assigned warehouse must not be null");
+        }
+
+        int slot = find(id);
+        if (slot >= 0) {
+            WareHouse previous = warehouses[slot];
+            warehouses[slot] = warehouse;
+            return previous;
+        }
+
+        if (!hashed && size < INLINE_LIMIT) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                warehouses = Arrays.copyOf(warehouses, warehouses.length * 2);
+            }
+            ids[size] = id;
+            warehouses[size] = warehouse;
+        } else {
+            if (!hashed || (size + 1) * 2 > ids.length) {
+                rehash(Math.max(ids.length * 2, INLINE_LIMIT * 4));
+            }
+            insertHashed(id, warehouse);
+        }
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the warehouse assigned under a number.
+     *
+     * @param id The warehouse number.
+     * @return The removed warehouse, or null if no warehouse was assigned under the number.
+     */
+    public synchronized WareHouse remove(int id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return null;
+        }
+
+        WareHouse removed = warehouses[slot];
+        if (!hashed) {
+            // Keep the inline entries dense by moving the last entry into the freed slot.
+            ids[slot] = ids[size - 1];
+            warehouses[slot] = warehouses[size - 1];
+            warehouses[size - 1] = null;
+        } else {
+            deleteHashed(slot);
+        }
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets the number of assigned warehouses.
+     *
+     * @return The number of warehouses.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Visits every assigned warehouse without allocating.
+     *
+     * @param visitor The visitor called with every warehouse number and warehouse.
+     */
+    public synchronized void forEach(Visitor visitor) {
+        int slots = hashed ? ids.length : size;
+        for (int slot = 0; slot < slots; slot++) {
+            if (warehouses[slot] != null) {
+                visitor.visit(ids[slot], warehouses[slot]);
+            }
+        }
+    }
+
+    /**
+     * Returns a write-through map view of the assignments, for callers that need a {@link Map}.
+     *
+     * @return A map backed by these assignments.
+     */
+    public Map<Integer, WareHouse> asMap() {
+        return new MapView();
+    }
+
+    /**
+     * Helper method returning the slot holding a warehouse number, or -1 if it is not assigned.
+     */
+    private int find(int id) {
+        if (!hashed) {
+            for (int slot = 0; slot < size; slot++) {
+                if (ids[slot] == id) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        int mask = ids.length - 1;
+        for (int slot = hash(id) & mask; warehouses[slot] != null; slot = (slot + 1) & mask) {
+            if (ids[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Helper method moving every entry into a hash table of the given power-of-two capacity.
+     */
+    private void rehash(int capacity) {
+        int[] oldIds = ids;
+        WareHouse[] oldWarehouses = warehouses;
+        int oldSlots = hashed ? oldIds.length : size;
+
+        ids = new int[capacity];
+        warehouses = new WareHouse[capacity];
+        hashed = true;
+        for (int slot = 0; slot < oldSlots; slot++) {
+            if (oldWarehouses[slot] != null) {
+                insertHashed(oldIds[slot], oldWarehouses[slot]);
+            }
+        }
+    }
+
+    /**
+     * Helper method placing an entry in the first free slot of its probe sequence.
+     */
+    private void insertHashed(int id, WareHouse warehouse) {
+        int mask = ids.length - 1;
+        int slot = hash(id) & mask;
+        while (warehouses[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        warehouses[slot] = warehouse;
+    }
+
+    /**
+     * Helper method emptying a hash table slot and shifting back later entries of the same probe run,
+     * so that lookups never need tombstones.
+     */
+    private void deleteHashed(int slot) {
+        int mask = ids.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (warehouses[next] != null) {
+            int home = hash(ids[next]) & mask;
+            // Move the entry into the gap if its home slot does not lie cyclically between the gap and its position.
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                ids[gap] = ids[next];
+                warehouses[gap] = warehouses[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        warehouses[gap] = null;
+    }
+
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Receives the entries of the assignments during {@link #forEach(Visitor)}.
+     */
+    public interface Visitor {
+
+        /**
+         * Called for every assigned warehouse.
+         *
+         * @param id The warehouse number.
+         * @param warehouse The warehouse.
+         */
+        void visit(int id, WareHouse warehouse);
+    }
+
+    /**
+     * A write-through map view over the assignments.
+     */
+    private class MapView extends AbstractMap<Integer, WareHouse> {
+
+        @Override
+        public WareHouse get(Object key) {
+            return key instanceof Integer ? WarehouseAssignments.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && WarehouseAssignments.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public WareHouse put(Integer key, WareHouse value) {
+            return WarehouseAssignments.this.put(key, value);
+        }
+
+        @Override
+        public WareHouse remove(Object key) {
+            return key instanceof Integer ? WarehouseAssignments.this.remove((Integer) key) : null;
+        }
+
+        @Override
+        public int size() {
+            return WarehouseAssignments.this.size();
+        }
+
+        @Override
+        public Set<Entry<Integer, WareHouse>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, WareHouse>> iterator() {
+                    Map<Integer, WareHouse> copy = new LinkedHashMap<>();
+                    WarehouseAssignments.this.forEach(copy::put);
+                    Iterator<Entry<Integer, WareHouse>> entries = copy.entrySet().iterator();
+                    return new Iterator<>() {
+                        private Entry<Integer, WareHouse> current;
+
+                        @Override
+                        public boolean hasNext() {
+                            return entries.hasNext();
+                        }
+
+                        @Override
+                        public Entry<Integer, WareHouse> next() {
+                            if (!entries.hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            current = entries.next();
+                            return new SimpleImmutableEntry<>(current);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (current == null) {
+                                throw new IllegalStateException();
+                            }
+                            WarehouseAssignments.this.remove(current.getKey());
+                            current = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return WarehouseAssignments.this.size();
+                }
+            };
+        }
+    }
+}
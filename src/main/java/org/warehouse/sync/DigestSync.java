@@ -0,0 +1,238 @@
+package org.warehouse.sync;
+
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialAlreadyExists;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Brings a copy of a warehouse, or of all warehouses of a user, in line with a source by comparing their Merkle
+ * digests. The trees are walked from the root, descending only into nodes whose hashes differ, so only the
+ * differing subtrees are exchanged and the work grows with the number of differences rather than with the size
+ * of the copies. At a differing warehouse bucket the materials of both sides are grouped by type name, several
+ * materials of one type being matched by quantity, and the target is changed through its regular operations until
+ * it holds the quantities of the source. Materials missing from the target are added as new objects of the same
+ * type, so the target never shares a material with the source.
+ * Changes made to the source during a sync may or may not be carried over; the next sync picks them up.
+ */
+public final class DigestSync {
+
+    private DigestSync() {
+    }
+
+    /**
+     * Repairs a warehouse so it holds the same materials and quantities as another.
+     *
+     * @param source The digest of the warehouse to copy.
+     * @param target The digest of the warehouse to repair.
+     * @return The work done.
+     * @throws IllegalArgumentException If the digests have different numbers of buckets.
+     */
+    public static SyncReport sync(InventoryDigest source, InventoryDigest target) {
+        SyncReport report = new SyncReport();
+        syncWarehouse(source, target, report);
+        return report;
+    }
+
+    /**
+     * Repairs the warehouses of a user so they hold the same materials and quantities as those of another user
+     * under the same warehouse numbers. Warehouses missing from the target are created and assigned, and
+     * warehouses the source does not have are unassigned from the target.
+     *
+     * @param source The digest of the user to copy.
+     * @param target The digest of the user to repair.
+     * @return The work done.
+     * @throws IllegalArgumentException If the digests have different numbers of buckets.
+     */
+    public static SyncReport sync(UserDigest source, UserDigest target) {
+        if (source.getBuckets() != target.getBuckets() || source.getWarehouseBuckets() != target.getWarehouseBuckets()) {
+            throw new IllegalArgumentException("Only digests with the same numbers of buckets can be compared");
+        }
+        SyncReport report = new SyncReport();
+        int buckets = source.getBuckets();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(1);
+        while (!pending.isEmpty()) {
+            int node = pending.pop();
+            report.addNodeCompared();
+            if (source.getNode(node) == target.getNode(node)) {
+                continue;
+            }
+            if (node < buckets) {
+                pending.push(2 * node + 1);
+                pending.push(2 * node);
+            } else {
+                repairWarehouses(source.getBucket(node - buckets), target.getBucket(node - buckets), target, report);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Helper method repairing the warehouses of one differing bucket of a user digest.
+     */
+    private static void repairWarehouses(Map<Integer, InventoryDigest> sources, Map<Integer, InventoryDigest> targets,
+                                         UserDigest target, SyncReport report) {
+        for (Map.Entry<Integer, InventoryDigest> entry : sources.entrySet()) {
+            int number = entry.getKey();
+            InventoryDigest digest = targets.get(number);
+            if (digest == null) {
+                WareHouse warehouse = new WareHouse(new HashMap<>());
+                target.getUser().getWarehouseAssignments().put(number, warehouse);
+                target.track(number, warehouse);
+                digest = target.getDigest(number);
+            }
+            long before = digest.getRoot();
+            syncWarehouse(entry.getValue(), digest, report);
+            if (digest.getRoot() != before || !targets.containsKey(number)) {
+                report.addWarehouseRepaired();
+            }
+        }
+        for (int number : targets.keySet()) {
+            if (!sources.containsKey(number)) {
+                target.getUser().getWarehouseAssignments().remove(number);
+                target.untrack(number);
+                report.addWarehouseRepaired();
+            }
+        }
+    }
+
+    /**
+     * Helper method walking the trees of two warehouse digests and repairing every differing bucket of the target.
+     */
+    private static void syncWarehouse(InventoryDigest source, InventoryDigest target, SyncReport report) {
+        if (source.getBuckets() != target.getBuckets()) {
+            throw new IllegalArgumentException("Only digests with the same number of buckets can be compared");
+        }
+        int buckets = source.getBuckets();
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(1);
+        while (!pending.isEmpty()) {
+            int node = pending.pop();
+            report.addNodeCompared();
+            if (source.getNode(node) == target.getNode(node)) {
+                continue;
+            }
+            if (node < buckets) {
+                pending.push(2 * node + 1);
+                pending.push(2 * node);
+            } else {
+                repairBucket(source.getBucket(node - buckets), target, node - buckets, report);
+            }
+        }
+    }
+
+    /**
+     * Helper method setting the materials of one bucket of the target to those of the source, while holding the
+     * lock of the target warehouse.
+     */
+    private static void repairBucket(Map<Material, Integer> source, InventoryDigest target, int bucket, SyncReport report) {
+        WareHouse warehouse = target.getWarehouse();
+        synchronized (warehouse) {
+            Map<Material, Integer> current = target.getBucket(bucket);
+            Map<String, List<Material>> sourceMaterials = byName(source);
+            Map<String, List<Material>> targetMaterials = byName(current);
+            try {
+                for (Map.Entry<String, List<Material>> entry : sourceMaterials.entrySet()) {
+                    List<Material> held = targetMaterials.remove(entry.getKey());
+                    repairMaterials(warehouse, entry.getValue(), source, held == null ? new ArrayList<>() : held, current, report);
+                }
+                for (List<Material> held : targetMaterials.values()) {
+                    for (Material material : held) {
+                        warehouse.removeMaterial(material);
+                        report.addMaterialRepaired();
+                    }
+                }
+            } catch (ExceedingCapacity | InvalidQuantity | MaterialAlreadyExists | MaterialNotFound e) {
+                // The warehouse is locked and every change stays within the maximum capacity of the material.
+                throw new IllegalStateException(e);
+            }
+            report.addBucketRepaired();
+        }
+    }
+
+    /**
+     * Helper method repairing the materials of one type name, of which either side may hold several.
+     * Both sides are ordered by quantity; materials of the target already holding a quantity the source wants are
+     * kept, the others are changed to the remaining quantities of the source, and surplus materials are added or
+     * removed. Added materials are new objects owned by the target.
+     */
+    private static void repairMaterials(WareHouse warehouse, List<Material> wanted, Map<Material, Integer> source,
+                                        List<Material> held, Map<Material, Integer> current, SyncReport report)
+            throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        wanted.sort(Comparator.comparingInt(source::get));
+        held.sort(Comparator.comparingInt(current::get));
+        List<Material> unmatchedWanted = new ArrayList<>();
+        List<Material> unmatchedHeld = new ArrayList<>();
+        int w = 0;
+        int h = 0;
+        while (w < wanted.size() || h < held.size()) {
+            if (h == held.size() || w < wanted.size() && source.get(wanted.get(w)) < current.get(held.get(h))) {
+                unmatchedWanted.add(wanted.get(w++));
+            } else if (w == wanted.size() || source.get(wanted.get(w)) > current.get(held.get(h))) {
+                unmatchedHeld.add(held.get(h++));
+            } else {
+                w++;
+                h++;
+            }
+        }
+
+        for (int i = 0; i < Math.max(unmatchedWanted.size(), unmatchedHeld.size()); i++) {
+            if (i >= unmatchedWanted.size()) {
+                warehouse.removeMaterial(unmatchedHeld.get(i));
+            } else if (i >= unmatchedHeld.size()) {
+                Material original = unmatchedWanted.get(i);
+                Material material = new Material(original.getMaterialType(), original.getQuantity());
+                setQuantity(warehouse, material, false, 0, source.get(original));
+            } else {
+                Material material = unmatchedHeld.get(i);
+                setQuantity(warehouse, material, true, current.get(material), source.get(unmatchedWanted.get(i)));
+            }
+            report.addMaterialRepaired();
+        }
+    }
+
+    /**
+     * Helper method grouping the materials of a bucket by the name of their type.
+     */
+    private static Map<String, List<Material>> byName(Map<Material, Integer> materials) {
+        Map<String, List<Material>> byName = new HashMap<>();
+        for (Material material : materials.keySet()) {
+            byName.computeIfAbsent(material.getMaterialType().getName(), name -> new ArrayList<>(1)).add(material);
+        }
+        return byName;
+    }
+
+    /**
+     * Helper method changing the quantity of a material in steps no larger than its maximum capacity, which is
+     * the most a single warehouse operation accepts.
+     */
+    private static void setQuantity(WareHouse warehouse, Material material, boolean present, int current, int quantity)
+            throws ExceedingCapacity, InvalidQuantity, MaterialAlreadyExists, MaterialNotFound {
+        int step = material.getMaterialType().getMaximumCapacity();
+        if (!present) {
+            current = Math.max(1, Math.min(step, quantity));
+            warehouse.addMaterial(material, current);
+        }
+        while (current < quantity) {
+            int amount = Math.min(step, quantity - current);
+            warehouse.updateMaterialQuantity(material, amount);
+            current += amount;
+        }
+        while (current > quantity) {
+            int amount = Math.min(step, current - quantity);
+            warehouse.dropSomeQuantity(material, amount);
+            current -= amount;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.warehouse.sync;
+
+import org.warehouse.management.Inventory;
+import org.warehouse.management.InventoryChangeListener;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A Merkle digest of the contents of a {@link WareHouse}, kept up to date through its change stream.
+ * Materials are spread over a fixed, power-of-two number of buckets by the hash of their type name, so copies of a
+ * warehouse holding distinct but equivalent material objects digest alike. A bucket hashes to the sum of the
+ * hashes of its entries, which a change updates by taking out the old entry and adding the new one; the buckets
+ * are the leaves of a complete binary tree whose root summarises the whole warehouse. A change therefore costs
+ * one bucket update and a walk up the tree, and two digests that agree at the root hold the same contents.
+ * Several materials of the same type are separate entries of the same bucket. The tree is allocated with the
+ * first material and the map of a bucket only while the bucket holds materials, so the digest of a small
+ * warehouse stays small.
+ * {@link DigestSync} compares two digests top-down and repairs only the buckets that differ.
+ */
+public class InventoryDigest implements InventoryChangeListener {
+
+    static final int DEFAULT_BUCKETS = 64;
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final WareHouse warehouse;  // The digested warehouse.
+    private final int buckets;          // The number of leaves of the tree.
+
+    // The hash of an empty subtree of every height, which every node has until the tree is allocated.
+    private static final long[] EMPTY_SUBTREES = new long[32];
+
+    static {
+        for (int height = 1; height < EMPTY_SUBTREES.length; height++) {
+            EMPTY_SUBTREES[height] = combine(EMPTY_SUBTREES[height - 1], EMPTY_SUBTREES[height - 1]);
+        }
+    }
+
+    // The tree in heap order: node 1 is the root and the buckets are nodes buckets .. 2 * buckets - 1.
+    // Null until the warehouse first holds a material.
+    private long[] nodes;
+
+    // The materials of every bucket and their quantities, to list the contents of a differing bucket; null for an empty bucket.
+    private final List<Map<Material, Integer>> contents;
+
+    // Notified when the root changes, such as the digest of the user owning the warehouse.
+    private final List<RootListener> rootListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a new InventoryDigest of a warehouse with the default number of buckets and registers it as
+     * a listener of the warehouse.
+     *
+     * @param warehouse The warehouse to digest.
+     */
+    public InventoryDigest(WareHouse warehouse) {
+        this(warehouse, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Constructs a new InventoryDigest of a warehouse and registers it as a listener of the warehouse.
+     * Digests can only be compared with digests of the same number of buckets.
+     *
+     * @param warehouse The warehouse to digest.
+     * @param buckets The number of buckets, a power of two.
+     */
+    public InventoryDigest(WareHouse warehouse, int buckets) {
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException("The number of buckets should be a power of two");
+        }
+        this.warehouse = warehouse;
+        this.buckets = buckets;
+        this.contents = new ArrayList<>(Collections.nCopies(buckets, null));
+        synchronized (warehouse) {
+            Map<Material, Integer> materials = warehouse.snapshot().getMaterials();
+            if (!materials.isEmpty()) {
+                nodes = new long[2 * buckets];
+                for (Map.Entry<Material, Integer> entry : materials.entrySet()) {
+                    int bucket = bucketOf(entry.getKey());
+                    bucket(bucket).put(entry.getKey(), entry.getValue());
+                    nodes[buckets + bucket] += entryHash(entry.getKey(), entry.getValue());
+                }
+                for (int node = buckets - 1; node >= 1; node--) {
+                    nodes[node] = combine(nodes[2 * node], nodes[2 * node + 1]);
+                }
+            }
+            warehouse.addChangeListener(this);
+        }
+    }
+
+    @Override
+    public void quantityChanged(Inventory inventory, Material material, int previousQuantity, int newQuantity) {
+        long previousRoot;
+        long newRoot;
+        synchronized (this) {
+            previousRoot = getNode(1);
+            if (nodes == null) {
+                nodes = new long[2 * buckets];
+                for (int node = buckets - 1; node >= 1; node--) {
+                    nodes[node] = emptyNode(node);
+                }
+            }
+            int bucket = bucketOf(material);
+            Map<Material, Integer> bucketContents = contents.get(bucket);
+            Integer previous = bucketContents == null ? null : bucketContents.remove(material);
+            if (previous != null) {
+                nodes[buckets + bucket] -= entryHash(material, previous);
+            }
+            // A removed material reports a new quantity of 0 and no longer belongs to the warehouse.
+            if (warehouse.snapshot().contains(material)) {
+                bucket(bucket).put(material, newQuantity);
+                nodes[buckets + bucket] += entryHash(material, newQuantity);
+            } else if (bucketContents != null && bucketContents.isEmpty()) {
+                contents.set(bucket, null);
+            }
+            for (int node = (buckets + bucket) >>> 1; node >= 1; node >>>= 1) {
+                nodes[node] = combine(nodes[2 * node], nodes[2 * node + 1]);
+            }
+            newRoot = nodes[1];
+        }
+        if (previousRoot != newRoot) {
+            for (RootListener listener : rootListeners) {
+                listener.rootChanged(previousRoot, newRoot);
+            }
+        }
+    }
+
+    /**
+     * Stops following the changes of the warehouse.
+     */
+    public void detach() {
+        warehouse.removeChangeListener(this);
+    }
+
+    /**
+     * Gets the digested warehouse.
+     *
+     * @return The warehouse.
+     */
+    public WareHouse getWarehouse() {
+        return warehouse;
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return The number of leaves of the tree.
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Gets the hash summarising the whole warehouse.
+     *
+     * @return The root of the tree.
+     */
+    public synchronized long getRoot() {
+        return getNode(1);
+    }
+
+    /**
+     * Gets the hash of a node of the tree.
+     *
+     * @param node The node in heap order: 1 is the root and the children of node n are 2n and 2n + 1.
+     * @return The hash of the node.
+     */
+    public synchronized long getNode(int node) {
+        if (nodes == null) {
+            return emptyNode(node);
+        }
+        return nodes[node];
+    }
+
+    /**
+     * Gets the materials of a bucket and their quantities.
+     *
+     * @param bucket The bucket, from 0 to the number of buckets - 1.
+     * @return A copy of the contents of the bucket.
+     */
+    public synchronized Map<Material, Integer> getBucket(int bucket) {
+        Map<Material, Integer> bucketContents = contents.get(bucket);
+        return bucketContents == null ? new HashMap<>() : new HashMap<>(bucketContents);
+    }
+
+    void addRootListener(RootListener listener) {
+        rootListeners.add(listener);
+    }
+
+    void removeRootListener(RootListener listener) {
+        rootListeners.remove(listener);
+    }
+
+    /**
+     * Helper method getting the map of a bucket, creating it if the bucket is empty. Must be called while
+     * holding the lock of the digest.
+     */
+    private Map<Material, Integer> bucket(int bucket) {
+        Map<Material, Integer> bucketContents = contents.get(bucket);
+        if (bucketContents == null) {
+            bucketContents = new HashMap<>(4);
+            contents.set(bucket, bucketContents);
+        }
+        return bucketContents;
+    }
+
+    /**
+     * Helper method getting the hash a node has while the warehouse holds nothing, from the height of its subtree.
+     */
+    private long emptyNode(int node) {
+        return EMPTY_SUBTREES[Integer.numberOfLeadingZeros(node) - Integer.numberOfLeadingZeros(buckets)];
+    }
+
+    private int bucketOf(Material material) {
+        return (int) (keyHash(material) & (buckets - 1));
+    }
+
+    /**
+     * Helper method hashing the name of the type of a material, which identifies it across copies of a warehouse.
+     */
+    static long keyHash(Material material) {
+        String name = material.getMaterialType().getName();
+        long hash = 0xCBF29CE484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    private static long entryHash(Material material, int quantity) {
+        return mix(keyHash(material) ^ mix(quantity + GOLDEN_GAMMA));
+    }
+
+    /**
+     * Helper method hashing two children into their parent; the order of the children matters.
+     */
+    static long combine(long left, long right) {
+        return mix(left ^ mix(right + GOLDEN_GAMMA));
+    }
+
+    /**
+     * Helper method scrambling the bits of a value with the finaliser of SplitMix64.
+     */
+    static long mix(long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Notified after the root of a digest has changed.
+     */
+    interface RootListener {
+        void rootChanged(long previousRoot, long newRoot);
+    }
+}
@@ -0,0 +1,65 @@
+package org.warehouse.sync;
+
+/**
+ * Describes the work done by one {@link DigestSync} run: how many tree nodes were compared and what was repaired.
+ * Two copies that already agree cost a single comparison of their roots.
+ */
+public class SyncReport {
+
+    private long nodesCompared;       // Tree nodes whose hashes were compared, across all levels.
+    private long bucketsRepaired;     // Differing warehouse buckets whose materials were compared and repaired.
+    private long materialsRepaired;   // Materials added, changed or removed in the target.
+    private long warehousesRepaired;  // Warehouses created, removed or changed in the target user.
+
+    void addNodeCompared() {
+        nodesCompared++;
+    }
+
+    void addBucketRepaired() {
+        bucketsRepaired++;
+    }
+
+    void addMaterialRepaired() {
+        materialsRepaired++;
+    }
+
+    void addWarehouseRepaired() {
+        warehousesRepaired++;
+    }
+
+    /**
+     * Gets the number of tree nodes whose hashes were compared.
+     *
+     * @return The number of compared nodes.
+     */
+    public long getNodesCompared() {
+        return nodesCompared;
+    }
+
+    /**
+     * Gets the number of differing warehouse buckets that were repaired.
+     *
+     * @return The number of repaired buckets.
+     */
+    public long getBucketsRepaired() {
+        return bucketsRepaired;
+    }
+
+    /**
+     * Gets the number of materials added, changed or removed in the target.
+     *
+     * @return The number of repaired materials.
+     */
+    public long getMaterialsRepaired() {
+        return materialsRepaired;
+    }
+
+    /**
+     * Gets the number of warehouses created, removed or changed in the target user.
+     *
+     * @return The number of repaired warehouses.
+     */
+    public long getWarehousesRepaired() {
+        return warehousesRepaired;
+    }
+}
@@ -0,0 +1,254 @@
+package org.warehouse.sync;
+
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.user.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Merkle digest over the warehouses assigned to a {@link User}, built on the {@link InventoryDigest} of each
+ * warehouse. Warehouses are spread over a fixed, power-of-two number of buckets by their warehouse number; a bucket
+ * hashes to the sum of the hashes of its warehouse numbers and warehouse roots, and the buckets are the leaves of a
+ * complete binary tree. A change to any warehouse updates its bucket and the path to the root, so the root always
+ * summarises every warehouse of the user.
+ * The digest follows the warehouses assigned when it was built; warehouses assigned or unassigned later are made
+ * known through {@link #track(int, WareHouse)} and {@link #untrack(int)}.
+ */
+public class UserDigest {
+
+    private static final int DEFAULT_BUCKETS = 1024;
+
+    private final User user;              // The user whose warehouses are digested.
+    private final int buckets;            // The number of leaves of the tree.
+    private final int warehouseBuckets;   // The number of buckets of every warehouse digest.
+
+    // The tree in heap order: node 1 is the root and the buckets are nodes buckets .. 2 * buckets - 1.
+    private final long[] nodes;
+
+    // The warehouse digests of every bucket, by warehouse number; null for an empty bucket.
+    private final List<Map<Integer, Tracked>> contents;
+
+    /**
+     * Constructs a new UserDigest with the default numbers of buckets, digesting every warehouse assigned to
+     * the user.
+     *
+     * @param user The user whose warehouses are digested.
+     */
+    public UserDigest(User user) {
+        this(user, DEFAULT_BUCKETS, InventoryDigest.DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Constructs a new UserDigest, digesting every warehouse assigned to the user.
+     * Digests can only be compared with digests of the same numbers of buckets.
+     *
+     * @param user The user whose warehouses are digested.
+     * @param buckets The number of buckets of warehouses, a power of two.
+     * @param warehouseBuckets The number of buckets of every warehouse digest, a power of two.
+     */
+    public UserDigest(User user, int buckets, int warehouseBuckets) {
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1) {
+            throw new IllegalArgumentException("The number of buckets should be a power of two");
+        }
+        this.user = user;
+        this.buckets = buckets;
+        this.warehouseBuckets = warehouseBuckets;
+        this.nodes = new long[2 * buckets];
+        this.contents = new ArrayList<>(Collections.nCopies(buckets, null));
+        for (int node = buckets - 1; node >= 1; node--) {
+            nodes[node] = InventoryDigest.combine(nodes[2 * node], nodes[2 * node + 1]);
+        }
+        user.getWarehouseAssignments().forEach(this::track);
+    }
+
+    /**
+     * Starts digesting a warehouse assigned to the user, replacing the warehouse digested under the same number.
+     *
+     * @param number The warehouse number.
+     * @param warehouse The warehouse.
+     */
+    public void track(int number, WareHouse warehouse) {
+        untrack(number);
+        Tracked tracked = new Tracked(number, new InventoryDigest(warehouse, warehouseBuckets));
+        synchronized (warehouse) {
+            synchronized (this) {
+                Map<Integer, Tracked> bucket = contents.get(bucketOf(number));
+                if (bucket == null) {
+                    bucket = new HashMap<>(4);
+                    contents.set(bucketOf(number), bucket);
+                }
+                bucket.put(number, tracked);
+                tracked.accountedRoot = tracked.digest.getRoot();
+                adjust(number, tracked.accountedRoot, true);
+            }
+            tracked.digest.addRootListener(tracked);
+        }
+    }
+
+    /**
+     * Stops digesting the warehouse under a number.
+     *
+     * @param number The warehouse number.
+     */
+    public void untrack(int number) {
+        Tracked tracked;
+        synchronized (this) {
+            Map<Integer, Tracked> bucket = contents.get(bucketOf(number));
+            tracked = bucket == null ? null : bucket.remove(number);
+            if (tracked == null) {
+                return;
+            }
+            if (bucket.isEmpty()) {
+                contents.set(bucketOf(number), null);
+            }
+            adjust(number, tracked.accountedRoot, false);
+        }
+        tracked.digest.removeRootListener(tracked);
+        tracked.digest.detach();
+    }
+
+    /**
+     * Gets the user whose warehouses are digested.
+     *
+     * @return The user.
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Gets the number of buckets of warehouses.
+     *
+     * @return The number of leaves of the tree.
+     */
+    public int getBuckets() {
+        return buckets;
+    }
+
+    /**
+     * Gets the number of buckets of every warehouse digest.
+     *
+     * @return The number of buckets per warehouse.
+     */
+    public int getWarehouseBuckets() {
+        return warehouseBuckets;
+    }
+
+    /**
+     * Gets the hash summarising every warehouse of the user.
+     *
+     * @return The root of the tree.
+     */
+    public synchronized long getRoot() {
+        return nodes[1];
+    }
+
+    /**
+     * Gets the hash of a node of the tree.
+     *
+     * @param node The node in heap order: 1 is the root and the children of node n are 2n and 2n + 1.
+     * @return The hash of the node.
+     */
+    public synchronized long getNode(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Gets the digests of the warehouses of a bucket.
+     *
+     * @param bucket The bucket, from 0 to the number of buckets - 1.
+     * @return The warehouse digests of the bucket, by warehouse number.
+     */
+    public synchronized Map<Integer, InventoryDigest> getBucket(int bucket) {
+        Map<Integer, InventoryDigest> digests = new HashMap<>();
+        if (contents.get(bucket) != null) {
+            for (Tracked tracked : contents.get(bucket).values()) {
+                digests.put(tracked.number, tracked.digest);
+            }
+        }
+        return digests;
+    }
+
+    /**
+     * Gets the digest of the warehouse under a number.
+     *
+     * @param number The warehouse number.
+     * @return The warehouse digest, or null if no warehouse is digested under the number.
+     */
+    public synchronized InventoryDigest getDigest(int number) {
+        Tracked tracked = find(number);
+        return tracked == null ? null : tracked.digest;
+    }
+
+    /**
+     * Gets the numbers of all digested warehouses.
+     *
+     * @return The warehouse numbers.
+     */
+    public synchronized List<Integer> getNumbers() {
+        List<Integer> numbers = new ArrayList<>();
+        for (Map<Integer, Tracked> bucket : contents) {
+            if (bucket != null) {
+                numbers.addAll(bucket.keySet());
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Helper method adding or taking out the contribution of one warehouse to its bucket and updating the path
+     * to the root. Must be called while holding the lock of the digest.
+     */
+    private void adjust(int number, long root, boolean add) {
+        int leaf = buckets + bucketOf(number);
+        nodes[leaf] += add ? entryHash(number, root) : -entryHash(number, root);
+        for (int node = leaf >>> 1; node >= 1; node >>>= 1) {
+            nodes[node] = InventoryDigest.combine(nodes[2 * node], nodes[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Helper method finding the digested warehouse under a number. Must be called while holding the lock of the digest.
+     */
+    private Tracked find(int number) {
+        Map<Integer, Tracked> bucket = contents.get(bucketOf(number));
+        return bucket == null ? null : bucket.get(number);
+    }
+
+    private int bucketOf(int number) {
+        return (int) (InventoryDigest.mix(number) & (buckets - 1));
+    }
+
+    private static long entryHash(int number, long root) {
+        return InventoryDigest.mix(InventoryDigest.mix(number) ^ InventoryDigest.mix(root + InventoryDigest.GOLDEN_GAMMA));
+    }
+
+    /**
+     * A digested warehouse, which moves its contribution to the bucket whenever its root changes.
+     */
+    private class Tracked implements InventoryDigest.RootListener {
+        private final int number;
+        private final InventoryDigest digest;
+        private long accountedRoot;  // The root of the warehouse digest as counted in the bucket.
+
+        private Tracked(int number, InventoryDigest digest) {
+            this.number = number;
+            this.digest = digest;
+        }
+
+        @Override
+        public void rootChanged(long previousRoot, long newRoot) {
+            synchronized (UserDigest.this) {
+                if (find(number) == this) {
+                    adjust(number, accountedRoot, false);
+                    accountedRoot = newRoot;
+                    adjust(number, accountedRoot, true);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package org.warehouse.trading;
+
+import org.warehouse.model.material.Material;
+
+import java.util.Arrays;
+
+/**
+ * A limit order book for a single material, matching buy and sell orders by price-time priority.
+ * An incoming order trades against the best opposite price first and, within a price, against the
+ * oldest resting order first. Whatever cannot be filled immediately rests in the book.
+ *
+ * Prices are integer ticks between 1 and a fixed maximum price, and every price level is a slot in
+ * primitive arrays. Orders live in a pool of preallocated nodes linked into a FIFO queue per level,
+ * so submitting, matching and cancelling never allocate. The book is not thread-safe: it is meant to
+ * be driven by a single thread that sequences all orders of its material.
+ *
+ * A fill only changes the book once the {@link TradeListener} reports it as settled. An order is checked with
+ * the listener before it trades, and a resting order found unable to settle its trade is cancelled, so the
+ * book never reports a fill that did not settle.
+ */
+public class OrderBook {
+
+    /** Returned by {@link #submit} for an order rejected before it traded, because its trader cannot settle it. */
+    public static final long REJECTED = -1;
+
+    private static final int NONE = -1; // Marks an empty level or the end of a queue.
+
+    private final Material material;      // The material traded in this book.
+    private final int maximumPrice;       // The highest accepted price in ticks.
+    private final TradeListener listener; // Notified about every trade.
+
+    // Per price level: the first and last resting order and the total resting quantity, for each side.
+    private final int[] bidHead;
+    private final int[] bidTail;
+    private final long[] bidQuantity;
+    private final int[] askHead;
+    private final int[] askTail;
+    private final long[] askQuantity;
+
+    // Preallocated order nodes, indexed by node number.
+    private final int[] nodeTrader;      // The trader who placed the order.
+    private final int[] nodePrice;       // The limit price of the order.
+    private final int[] nodeQuantity;    // The remaining quantity; 0 for a free node.
+    private final int[] nodeNext;        // The next order at the same level, or the next free node.
+    private final int[] nodePrevious;    // The previous order at the same level.
+    private final int[] nodeGeneration;  // Incremented whenever the node is freed, so stale order ids are rejected.
+    private final boolean[] nodeBuy;     // Whether the order is a buy order.
+
+    private int freeNode;       // The first free node.
+    private int bestBid;        // The highest price with resting buy orders, or 0.
+    private int bestAsk;        // The lowest price with resting sell orders, or maximumPrice + 1.
+    private int restingOrders;  // The number of orders resting in the book.
+
+    /**
+     * Constructs a new, empty OrderBook.
+     *
+     * @param material The material traded in this book.
+     * @param maximumPrice The highest accepted price in ticks.
+     * @param capacity The maximum number of orders that can rest in the book at the same time.
+     * @param listener The listener notified about every trade.
+     */
+    public OrderBook(Material material, int maximumPrice, int capacity, TradeListener listener) {
+        this.material = material;
+        this.maximumPrice = maximumPrice;
+        this.listener = listener;
+
+        bidHead = new int[maximumPrice + 1];
+        bidTail = new int[maximumPrice + 1];
+        bidQuantity = new long[maximumPrice + 1];
+        askHead = new int[maximumPrice + 1];
+        askTail = new int[maximumPrice + 1];
+        askQuantity = new long[maximumPrice + 1];
+        Arrays.fill(bidHead, NONE);
+        Arrays.fill(bidTail, NONE);
+        Arrays.fill(askHead, NONE);
+        Arrays.fill(askTail, NONE);
+
+        nodeTrader = new int[capacity];
+        nodePrice = new int[capacity];
+        nodeQuantity = new int[capacity];
+        nodeNext = new int[capacity];
+        nodePrevious = new int[capacity];
+        nodeGeneration = new int[capacity];
+        nodeBuy = new boolean[capacity];
+        for (int node = 0; node < capacity; node++) {
+            nodeNext[node] = node + 1 < capacity ? node + 1 : NONE;
+            nodeGeneration[node] = 1;
+        }
+
+        freeNode = capacity > 0 ? 0 : NONE;
+        bestBid = 0;
+        bestAsk = maximumPrice + 1;
+    }
+
+    /**
+     * Submits a limit order, matching it against the book and resting what remains.
+     * The order is rejected without trading if the listener finds that its trader cannot settle it. If a trade
+     * of the order fails to settle although the resting side still can, the order stops matching and its
+     * remainder is dropped instead of resting across the book.
+     *
+     * @param side Whether the order buys or sells.
+     * @param trader The id of the trader placing the order.
+     * @param price The limit price in ticks, between 1 and the maximum price.
+     * @param quantity The quantity to trade.
+     * @return The id of the resting order, 0 if nothing of the order rests, or {@link #REJECTED}.
+     * @throws IllegalStateException If the book is full and the order would not be filled completely; this is
+     *                               checked before matching, so nothing trades then.
+     */
+    public long submit(OrderSide side, int trader, int price, int quantity) {
+        if (price < 1 || price > maximumPrice) {
+            throw new IllegalArgumentException("The price must be between 1 and " + maximumPrice);
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be greater than 0");
+        }
+        boolean buy = side == OrderSide.BUY;
+        // Make sure a remainder will find a node before anything trades, so a full book never strands fills.
+        // A resting order cancelled during matching frees its node, so the check covers that case as well.
+        if (freeNode == NONE && crossingQuantity(buy, price, quantity) < quantity) {
+            throw new IllegalStateException("The order book of " + material.getMaterialType().getName() + " is full");
+        }
+        if (!listener.canSettle(trader, side, price, quantity)) {
+            return REJECTED;
+        }
+
+        int remaining = buy ? matchBuy(trader, price, quantity) : matchSell(trader, price, quantity);
+        if (remaining <= 0) {
+            return 0;
+        }
+        return rest(buy, trader, price, remaining);
+    }
+
+    /**
+     * Cancels a resting order.
+     *
+     * @param orderId The id returned when the order was submitted.
+     * @return true if the order was resting and is now cancelled, false if it was already filled or cancelled.
+     */
+    public boolean cancel(long orderId) {
+        int node = (int) orderId;
+        int generation = (int) (orderId >>> 32);
+        if (node < 0 || node >= nodeQuantity.length || nodeGeneration[node] != generation || nodeQuantity[node] == 0) {
+            return false;
+        }
+        removeResting(node);
+        return true;
+    }
+
+    /**
+     * Helper method removing a resting order from its level and freeing its node.
+     */
+    private void removeResting(int node) {
+        int price = nodePrice[node];
+        if (nodeBuy[node]) {
+            bidQuantity[price] -= nodeQuantity[node];
+            unlink(node, bidHead, bidTail);
+            if (bidHead[price] == NONE && price == bestBid) {
+                bestBid = nextBid(price);
+            }
+        } else {
+            askQuantity[price] -= nodeQuantity[node];
+            unlink(node, askHead, askTail);
+            if (askHead[price] == NONE && price == bestAsk) {
+                bestAsk = nextAsk(price);
+            }
+        }
+        free(node);
+    }
+
+    /**
+     * Gets the material traded in this book.
+     *
+     * @return The material.
+     */
+    public Material getMaterial() {
+        return material;
+    }
+
+    /**
+     * Gets the highest price with resting buy orders.
+     *
+     * @return The best bid, or 0 if no buy order rests in the book.
+     */
+    public int getBestBid() {
+        return bestBid;
+    }
+
+    /**
+     * Gets the lowest price with resting sell orders.
+     *
+     * @return The best ask, or 0 if no sell order rests in the book.
+     */
+    public int getBestAsk() {
+        return bestAsk > maximumPrice ? 0 : bestAsk;
+    }
+
+    /**
+     * Gets the total quantity resting at a price level.
+     *
+     * @param side The side of the level.
+     * @param price The price of the level.
+     * @return The resting quantity.
+     */
+    public long getDepth(OrderSide side, int price) {
+        return side == OrderSide.BUY ? bidQuantity[price] : askQuantity[price];
+    }
+
+    /**
+     * Gets the number of orders resting in the book.
+     *
+     * @return The number of resting orders.
+     */
+    public int getRestingOrderCount() {
+        return restingOrders;
+    }
+
+    /**
+     * Helper method matching a buy order against the asks up to its limit price.
+     * @return The quantity left unfilled, or -1 if the order stopped because its own trade failed to settle.
+     */
+    private int matchBuy(int trader, int price, int quantity) {
+        while (quantity > 0 && bestAsk <= price) {
+            int level = bestAsk;
+            int node = askHead[level];
+            int fill = Math.min(quantity, nodeQuantity[node]);
+            if (!listener.tradeExecuted(trader, nodeTrader[node], level, fill)) {
+                if (listener.canSettle(nodeTrader[node], OrderSide.SELL, level, nodeQuantity[node])) {
+                    return -1;
+                }
+                removeResting(node);
+                continue;
+            }
+            quantity -= fill;
+            nodeQuantity[node] -= fill;
+            askQuantity[level] -= fill;
+            if (nodeQuantity[node] == 0) {
+                unlink(node, askHead, askTail);
+                free(node);
+                if (askHead[level] == NONE) {
+                    bestAsk = nextAsk(level);
+                }
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Helper method matching a sell order against the bids down to its limit price.
+     * @return The quantity left unfilled, or -1 if the order stopped because its own trade failed to settle.
+     */
+    private int matchSell(int trader, int price, int quantity) {
+        while (quantity > 0 && bestBid >= price) {
+            int level = bestBid;
+            int node = bidHead[level];
+            int fill = Math.min(quantity, nodeQuantity[node]);
+            if (!listener.tradeExecuted(nodeTrader[node], trader, level, fill)) {
+                if (listener.canSettle(nodeTrader[node], OrderSide.BUY, level, nodeQuantity[node])) {
+                    return -1;
+                }
+                removeResting(node);
+                continue;
+            }
+            quantity -= fill;
+            nodeQuantity[node] -= fill;
+            bidQuantity[level] -= fill;
+            if (nodeQuantity[node] == 0) {
+                unlink(node, bidHead, bidTail);
+                free(node);
+                if (bidHead[level] == NONE) {
+                    bestBid = nextBid(level);
+                }
+            }
+        }
+        return quantity;
+    }
+
+    /**
+     * Helper method adding up the opposite quantity an order could trade against, stopping once it covers the order.
+     */
+    private long crossingQuantity(boolean buy, int price, int quantity) {
+        long crossing = 0;
+        if (buy) {
+            for (int level = bestAsk; level <= price && crossing < quantity; level++) {
+                crossing += askQuantity[level];
+            }
+        } else {
+            for (int level = bestBid; level >= price && crossing < quantity; level--) {
+                crossing += bidQuantity[level];
+            }
+        }
+        return crossing;
+    }
+
+    /**
+     * Helper method appending the unfilled part of an order to the queue of its price level.
+     * @return The id of the resting order.
+     */
+    private long rest(boolean buy, int trader, int price, int quantity) {
+        int node = freeNode;
+        if (node == NONE) {
+            throw new IllegalStateException("The order book of " + material.getMaterialType().getName() + " is full");
+        }
+        freeNode = nodeNext[node];
+
+        nodeTrader[node] = trader;
+        nodePrice[node] = price;
+        nodeQuantity[node] = quantity;
+        nodeBuy[node] = buy;
+        nodeNext[node] = NONE;
+
+        int[] head = buy ? bidHead : askHead;
+        int[] tail = buy ? bidTail : askTail;
+        nodePrevious[node] = tail[price];
+        if (tail[price] == NONE) {
+            head[price] = node;
+        } else {
+            nodeNext[tail[price]] = node;
+        }
+        tail[price] = node;
+
+        if (buy) {
+            bidQuantity[price] += quantity;
+            bestBid = Math.max(bestBid, price);
+        } else {
+            askQuantity[price] += quantity;
+            bestAsk = Math.min(bestAsk, price);
+        }
+        restingOrders++;
+        return ((long) nodeGeneration[node] << 32) | node;
+    }
+
+    /**
+     * Helper method removing a node from the queue of its price level.
+     */
+    private void unlink(int node, int[] head, int[] tail) {
+        int price = nodePrice[node];
+        int previous = nodePrevious[node];
+        int next = nodeNext[node];
+        if (previous == NONE) {
+            head[price] = next;
+        } else {
+            nodeNext[previous] = next;
+        }
+        if (next == NONE) {
+            tail[price] = previous;
+        } else {
+            nodePrevious[next] = previous;
+        }
+    }
+
+    /**
+     * Helper method returning a node to the free list and invalidating its order id.
+     */
+    private void free(int node) {
+        nodeQuantity[node] = 0;
+        nodeGeneration[node]++;
+        nodeNext[node] = freeNode;
+        freeNode = node;
+        restingOrders--;
+    }
+
+    /**
+     * Helper method finding the highest non-empty bid level below the given price.
+     */
+    private int nextBid(int price) {
+        int level = price - 1;
+        while (level > 0 && bidHead[level] == NONE) {
+            level--;
+        }
+        return level;
+    }
+
+    /**
+     * Helper method finding the lowest non-empty ask level above the given price.
+     */
+    private int nextAsk(int price) {
+        int level = price + 1;
+        while (level <= maximumPrice && askHead[level] == NONE) {
+            level++;
+        }
+        return level;
+    }
+}
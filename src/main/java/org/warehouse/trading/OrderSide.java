@@ -0,0 +1,11 @@
+package org.warehouse.trading;
+
+/**
+ * The side of an order in an {@link OrderBook}.
+ */
+public enum OrderSide {
+    /** An order to buy material, paying at most the limit price per unit. */
+    BUY,
+    /** An order to sell material, receiving at least the limit price per unit. */
+    SELL
+}
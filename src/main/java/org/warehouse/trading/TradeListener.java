@@ -0,0 +1,35 @@
+package org.warehouse.trading;
+
+/**
+ * A listener notified by an {@link OrderBook} about every trade produced by matching.
+ * Trades are reported with primitive arguments only, so matching stays allocation-free.
+ */
+public interface TradeListener {
+
+    /**
+     * Called before an order trades or rests, and again for a resting order whose trade could not be settled,
+     * to check that its trader can settle the whole quantity at the limit price.
+     * By default every order passes.
+     *
+     * @param trader The id of the trader placing the order.
+     * @param side Whether the order buys or sells.
+     * @param price The limit price per unit.
+     * @param quantity The quantity of the order.
+     * @return true if the trader can currently settle the order.
+     */
+    default boolean canSettle(int trader, OrderSide side, int price, int quantity) {
+        return true;
+    }
+
+    /**
+     * Called for every fill between a buy order and a sell order, before the book records the fill.
+     *
+     * @param buyer The trader id of the buying side.
+     * @param seller The trader id of the selling side.
+     * @param price The price per unit at which the trade happened, which is the price of the resting order.
+     * @param quantity The quantity traded.
+     * @return true if the trade was settled; false if it could not be, in which case the book leaves both
+     *         orders as they were before the fill.
+     */
+    boolean tradeExecuted(int buyer, int seller, int price, int quantity);
+}
@@ -0,0 +1,120 @@
+package org.warehouse.trading;
+
+import org.warehouse.exceptions.TransactionAborted;
+import org.warehouse.exceptions.TransactionConflict;
+import org.warehouse.management.Transaction;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.user.User;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Settles the trades of an {@link OrderBook} between registered traders.
+ * Every trader is a user together with the warehouse holding their stock of the traded material.
+ * A trade moves the price times the quantity from the buyer's wallet to the seller's wallet and the
+ * quantity from the seller's warehouse to the buyer's warehouse, all in one {@link Transaction}.
+ * Orders are checked against the current money and stock of their traders before they trade. A trade that
+ * still cannot be settled, for example because the buyer spent the money in the meantime, changes nothing,
+ * is recorded as a failure and is reported to the book as not settled.
+ */
+public class TradeSettlement implements TradeListener {
+
+    private final Material material;                             // The material traded in the settled book.
+    private final List<User> users = new ArrayList<>();          // The user of each trader id.
+    private final List<WareHouse> warehouses = new ArrayList<>(); // The warehouse of each trader id.
+    private final List<Exception> failures = new ArrayList<>();   // Why each failed trade could not be settled.
+    private long settledTrades;                                  // The number of trades settled successfully.
+
+    /**
+     * Constructs a new TradeSettlement for the given material.
+     *
+     * @param material The material traded in the settled book.
+     */
+    public TradeSettlement(Material material) {
+        this.material = material;
+    }
+
+    /**
+     * Registers a trader so that their orders can be settled.
+     *
+     * @param user The user whose wallet pays for and is paid for trades.
+     * @param warehouse The warehouse holding the user's stock of the material.
+     * @return The trader id to use when submitting orders.
+     */
+    public synchronized int registerTrader(User user, WareHouse warehouse) {
+        users.add(user);
+        warehouses.add(warehouse);
+        return users.size() - 1;
+    }
+
+    /**
+     * Checks that a buyer has the money to pay the limit price for the whole order, or that a seller holds
+     * the whole quantity.
+     * @param trader The id of the trader placing the order.
+     * @param side Whether the order buys or sells.
+     * @param price The limit price per unit.
+     * @param quantity The quantity of the order.
+     * @return true if the trader can currently settle the order.
+     */
+    @Override
+    public synchronized boolean canSettle(int trader, OrderSide side, int price, int quantity) {
+        if (side == OrderSide.BUY) {
+            return (long) price * quantity <= users.get(trader).getMoney();
+        }
+        Integer stock = warehouses.get(trader).snapshot().getMaterials().get(material);
+        return stock != null && stock >= quantity;
+    }
+
+    /**
+     * Settles a trade by moving money and stock between the two traders.
+     * @param buyer The trader id of the buying side.
+     * @param seller The trader id of the selling side.
+     * @param price The price per unit of the trade.
+     * @param quantity The quantity traded.
+     * @return true if the trade was settled, false if it was recorded as a failure.
+     */
+    @Override
+    public synchronized boolean tradeExecuted(int buyer, int seller, int price, int quantity) {
+        int amount;
+        try {
+            amount = Math.multiplyExact(price, quantity);
+        } catch (ArithmeticException e) {
+            failures.add(e);
+            return false;
+        }
+        try {
+            new Transaction()
+                    .spendMoney(users.get(buyer), amount)
+                    .updateMoney(users.get(seller), amount)
+                    .dropStock(warehouses.get(seller), material, quantity)
+                    .addStock(warehouses.get(buyer), material, quantity)
+                    .commit();
+            settledTrades++;
+            return true;
+        } catch (TransactionAborted | TransactionConflict e) {
+            failures.add(e);
+            return false;
+        }
+    }
+
+    /**
+     * Gets the number of trades settled successfully.
+     *
+     * @return The number of settled trades.
+     */
+    public synchronized long getSettledTrades() {
+        return settledTrades;
+    }
+
+    /**
+     * Gets the reasons why trades could not be settled, in the order they happened.
+     *
+     * @return An unmodifiable copy of the settlement failures.
+     */
+    public synchronized List<Exception> getFailures() {
+        return Collections.unmodifiableList(new ArrayList<>(failures));
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Runs randomized concurrent histories of operations against a subject and checks them for linearizability.
+ * Every operation is recorded with the logical time of its invocation and of its response, taken from one
+ * shared counter, and with its actual outcome. The history is then searched, in the manner of Wing and Gong,
+ * for a total order that respects real time and in which every outcome matches the one a sequential model
+ * produces. Operations on different keys are independent, so the history is checked one key at a time, and
+ * visited combinations of linearized operations and model state are remembered to keep the search small.
+ *
+ * @param <T> The type of the subject.
+ * @param <S> The type of the model state of one key; it needs value semantics and may be null.
+ */
+class LinearizabilityChecker<T, S> {
+
+    private final Function<Random, Operation<T, S>> generator;  // Draws the next operation of a thread.
+    private final Function<Object, S> initialState;             // The model state of a key before the history.
+
+    /**
+     * Creates a checker.
+     *
+     * @param generator Draws the next operation of a thread.
+     * @param initialState The model state of a key before the history.
+     */
+    LinearizabilityChecker(Function<Random, Operation<T, S>> generator, Function<Object, S> initialState) {
+        this.generator = generator;
+        this.initialState = initialState;
+    }
+
+    /**
+     * Gets the duration of a stress test, configurable with the system property
+     * {@code linearizability.duration.ms}, for example {@code mvn test -Dlinearizability.duration.ms=60000}.
+     *
+     * @return The duration in milliseconds.
+     */
+    static long durationMillis() {
+        return Long.getLong("linearizability.duration.ms", 500);
+    }
+
+    /**
+     * Runs one concurrent history against a subject.
+     *
+     * @param subject The subject, in the state described by the initial model state.
+     * @param threads The number of threads running operations at the same time.
+     * @param operationsPerThread The number of operations each thread runs.
+     * @param seed The seed of the random operations.
+     * @return The recorded history.
+     */
+    List<Event<T, S>> run(T subject, int threads, int operationsPerThread, long seed) throws InterruptedException {
+        AtomicLong clock = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<List<Event<T, S>>> recorded = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Event<T, S>> events = new ArrayList<>();
+            recorded.add(events);
+            Random random = new Random(seed * 31 + t);
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < operationsPerThread; i++) {
+                    Operation<T, S> operation = generator.apply(random);
+                    long invokedAt = clock.incrementAndGet();
+                    String outcome;
+                    try {
+                        outcome = "ok:" + operation.run(subject);
+                    } catch (Exception e) {
+                        outcome = "ex:" + e.getClass().getSimpleName();
+                    }
+                    events.add(new Event<>(operation, invokedAt, clock.incrementAndGet(), outcome));
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<Event<T, S>> history = new ArrayList<>();
+        recorded.forEach(history::addAll);
+        return history;
+    }
+
+    /**
+     * Checks whether a history is linearizable with respect to the sequential model.
+     *
+     * @param history The recorded history.
+     * @return A description of the first key whose operations cannot be linearized, or null if the history is linearizable.
+     */
+    String check(List<Event<T, S>> history) {
+        Map<Object, List<Event<T, S>>> byKey = new LinkedHashMap<>();
+        for (Event<T, S> event : history) {
+            byKey.computeIfAbsent(event.operation.key(), key -> new ArrayList<>()).add(event);
+        }
+        for (Map.Entry<Object, List<Event<T, S>>> entry : byKey.entrySet()) {
+            List<Event<T, S>> events = entry.getValue();
+            events.sort(Comparator.comparingLong(event -> event.invokedAt));
+            if (!search(events, new BitSet(events.size()), initialState.apply(entry.getKey()), new HashSet<>())) {
+                return "The operations on " + entry.getKey() + " are not linearizable: " + events;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Helper method trying every operation that may take effect next and recursing on the rest of the history.
+     */
+    private boolean search(List<Event<T, S>> events, BitSet linearized, S state, Set<Map.Entry<BitSet, S>> visited) {
+        if (linearized.cardinality() == events.size()) {
+            return true;
+        }
+        if (!visited.add(new AbstractMap.SimpleImmutableEntry<>((BitSet) linearized.clone(), state))) {
+            return false;
+        }
+
+        // Only operations invoked before the earliest pending response may take effect next.
+        long earliestResponse = Long.MAX_VALUE;
+        for (int i = linearized.nextClearBit(0); i < events.size(); i = linearized.nextClearBit(i + 1)) {
+            earliestResponse = Math.min(earliestResponse, events.get(i).respondedAt);
+        }
+        for (int i = linearized.nextClearBit(0); i < events.size() && events.get(i).invokedAt < earliestResponse; i = linearized.nextClearBit(i + 1)) {
+            Event<T, S> event = events.get(i);
+            Step<S> step = event.operation.step(state);
+            if (step.outcome.equals(event.outcome)) {
+                linearized.set(i);
+                if (search(events, linearized, step.state, visited)) {
+                    return true;
+                }
+                linearized.clear(i);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates an operation from its action on the subject and its effect on the model.
+     *
+     * @param description The description of the operation, shown when a history is rejected.
+     * @param key The key the operation works on.
+     * @param action Runs the operation against the subject.
+     * @param model Applies the operation to the model state of its key.
+     * @return The operation.
+     */
+    static <T, S> Operation<T, S> operation(String description, Object key, Action<T> action, Function<S, Step<S>> model) {
+        return new Operation<T, S>() {
+            @Override
+            public Object key() {
+                return key;
+            }
+
+            @Override
+            public Object run(T subject) throws Exception {
+                return action.run(subject);
+            }
+
+            @Override
+            public Step<S> step(S state) {
+                return model.apply(state);
+            }
+
+            @Override
+            public String toString() {
+                return description;
+            }
+        };
+    }
+
+    /**
+     * The action of an operation on the subject.
+     */
+    interface Action<T> {
+        Object run(T subject) throws Exception;
+    }
+
+    /**
+     * An operation that can run against the subject and be replayed against the sequential model.
+     */
+    interface Operation<T, S> {
+
+        /**
+         * Gets the key the operation works on; operations on different keys never affect each other.
+         */
+        Object key();
+
+        /**
+         * Runs the operation against the subject.
+         *
+         * @return The result of the operation, compared by its string form.
+         */
+        Object run(T subject) throws Exception;
+
+        /**
+         * Applies the operation to the model state of its key.
+         *
+         * @return The next state and the outcome the subject should have reported.
+         */
+        Step<S> step(S state);
+    }
+
+    /**
+     * The next model state and the expected outcome, either "ok:" followed by the result or "ex:" followed
+     * by the simple name of the exception.
+     */
+    static final class Step<S> {
+        final S state;
+        final String outcome;
+
+        private Step(S state, String outcome) {
+            this.state = state;
+            this.outcome = outcome;
+        }
+
+        static <S> Step<S> ok(S state, Object result) {
+            return new Step<>(state, "ok:" + result);
+        }
+
+        static <S> Step<S> fail(S state, Class<? extends Exception> exception) {
+            return new Step<>(state, "ex:" + exception.getSimpleName());
+        }
+    }
+
+    /**
+     * One completed operation of a history.
+     */
+    static final class Event<T, S> {
+        final Operation<T, S> operation;
+        final long invokedAt;
+        final long respondedAt;
+        final String outcome;
+
+        private Event(Operation<T, S> operation, long invokedAt, long respondedAt, String outcome) {
+            this.operation = operation;
+            this.invokedAt = invokedAt;
+            this.respondedAt = respondedAt;
+            this.outcome = outcome;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + invokedAt + "," + respondedAt + "] " + operation + " -> " + outcome;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import org.junit.jupiter.api.Test;
+import org.warehouse.admission.AdmissionController;
+import org.warehouse.admission.AdmittedInventory;
+import org.warehouse.admission.AdmittedUserFunctionalities;
+import org.warehouse.exceptions.ExceedingAmountOfMoney;
+import org.warehouse.exceptions.InvalidQuantityOfMoney;
+import org.warehouse.exceptions.RequestRejected;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserFunctionalities;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestAdmissionController {
+
+    // Test that requests beyond the limit are rejected at once when the queue is full
+    @Test
+    void testRejectsWhenQueueIsFull() {
+        AdmissionController controller = new AdmissionController(1, 1, 1, 0, 1, TimeUnit.SECONDS);
+        long admittedAt = controller.acquire();
+
+        assertThrows(RequestRejected.class, controller::acquire);
+        assertEquals(1, controller.getRejectedCount());
+
+        controller.release(admittedAt);
+        controller.release(controller.acquire());
+        assertEquals(2, controller.getAdmittedCount());
+    }
+
+    // Test that a queued request is rejected when no slot becomes free in time
+    @Test
+    void testRejectsAfterWaiting() {
+        AdmissionController controller = new AdmissionController(1, 1, 1, 1, 20, TimeUnit.MILLISECONDS);
+        controller.acquire();
+
+        long start = System.nanoTime();
+        assertThrows(RequestRejected.class, controller::acquire);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(0, controller.getQueued());
+    }
+
+    // Test that the limit is cut when latency rises well above the baseline
+    @Test
+    void testLimitDecreasesOnRisingLatency() throws InterruptedException {
+        AdmissionController controller = new AdmissionController(4, 1, 8, 0, 1, TimeUnit.SECONDS);
+        for (int i = 0; i < 20; i++) {
+            controller.release(controller.acquire());
+        }
+        assertEquals(4, controller.getLimit());
+
+        for (int i = 0; i < 20; i++) {
+            long admittedAt = controller.acquire();
+            Thread.sleep(2);
+            controller.release(admittedAt);
+        }
+        assertEquals(3, controller.getLimit());
+    }
+
+    // Test that under overload every call is either applied or rejected, and the wallet stays consistent
+    @Test
+    void testOverloadedWallet() throws InterruptedException {
+        User user = new User("User1", new HashMap<>(), 5, 100000, 1);
+        AdmissionController controller = new AdmissionController(2, 1, 4, 2, 1, TimeUnit.MILLISECONDS);
+        AdmittedUserFunctionalities wallet = new AdmittedUserFunctionalities(new UserFunctionalities(user), controller);
+        AtomicLong rejected = new AtomicLong();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        wallet.spendMoney(1);
+                    } catch (RequestRejected e) {
+                        rejected.incrementAndGet();
+                    } catch (InvalidQuantityOfMoney | ExceedingAmountOfMoney e) {
+                        fail(e);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, controller.getAdmittedCount() + rejected.get());
+        assertEquals(rejected.get(), controller.getRejectedCount());
+        assertEquals(100000 - controller.getAdmittedCount(), user.getMoney());
+        assertEquals(0, controller.getInFlight());
+    }
+
+    // Test that a transfer between two admitted inventories is admitted once, even with a single slot and no queue
+    @Test
+    void testNestedOperationsAreNotAdmittedAgain() throws Exception {
+        AdmissionController controller = new AdmissionController(1, 1, 1, 0, 1, TimeUnit.SECONDS);
+        Material iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        WareHouse source = new WareHouse(new HashMap<>());
+        WareHouse destination = new WareHouse(new HashMap<>());
+        source.addMaterial(iron, 100);
+        AdmittedInventory admittedSource = new AdmittedInventory(source, controller);
+        AdmittedInventory admittedDestination = new AdmittedInventory(destination, controller);
+
+        assertEquals(10, admittedSource.transferSomeQuantityOfMaterial(admittedDestination, iron, 10));
+        assertEquals(90, source.snapshot().getQuantity(iron));
+        assertEquals(10, destination.snapshot().getQuantity(iron));
+        assertEquals(1, controller.getAdmittedCount());
+        assertEquals(0, controller.getRejectedCount());
+
+        // The slot was freed by the outer operation, so the next one is admitted
+        admittedDestination.transferSomeQuantityOfMaterial(admittedSource, iron, 10);
+        assertEquals(100, source.snapshot().getQuantity(iron));
+        assertEquals(2, controller.getAdmittedCount());
+    }
+
+    // Test that snapshots are read without admission, even while every slot is taken
+    @Test
+    void testSnapshotIsNotAdmitted() throws Exception {
+        AdmissionController controller = new AdmissionController(1, 1, 1, 0, 1, TimeUnit.SECONDS);
+        Material iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        WareHouse warehouse = new WareHouse(new HashMap<>());
+        warehouse.addMaterial(iron, 100);
+        AdmittedInventory admitted = new AdmittedInventory(warehouse, controller);
+
+        long admittedAt = controller.acquire();
+        assertEquals(100, admitted.snapshot().getQuantity(iron));
+        assertEquals(0, controller.getRejectedCount());
+        controller.release(admittedAt);
+        assertEquals(1, controller.getAdmittedCount());
+    }
+}
@@ -0,0 +1,130 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.WareHouse;
+import org.warehouse.management.location.Bin;
+import org.warehouse.management.location.BinLayout;
+import org.warehouse.management.location.BinQuantity;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestBinLayout {
+    private WareHouse warehouse;  // The warehouse whose stock is binned
+    private BinLayout layout;     // A row of bins at x = 0, 1, ..., 9
+    private Material iron;        // Test material of type iron
+    private Material coal;        // Test material of type coal
+
+    // Set up a warehouse with one row of ten bins
+    @BeforeEach
+    void setUp() {
+        warehouse = new WareHouse(new HashMap<>());
+        layout = new BinLayout(warehouse, 2);
+        for (int i = 0; i < 10; i++) {
+            layout.addBin("A", 1, i, 0);
+        }
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 100), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy", "src/main/resources/materials/coal.png", 50), 0);
+    }
+
+    // Test that stock is put away into the nearest bins and added to the warehouse totals
+    @Test
+    void testPutAway() throws Exception {
+        List<BinQuantity> stored = layout.putAway(iron, 250, 6.2, 0);
+        assertEquals(List.of(6, 7, 5), stored.stream().map(bin -> bin.getBin().getId()).collect(Collectors.toList()));
+        assertEquals(List.of(100, 100, 50), stored.stream().map(BinQuantity::getQuantity).collect(Collectors.toList()));
+        assertEquals(250, warehouse.snapshot().getQuantity(iron));
+
+        // The half-full bin is preferred for iron, while coal goes to the nearest empty bin
+        assertEquals(5, layout.nearestFreeBin(iron, 6, 0).getId());
+        assertNull(layout.nearestFreeBin(coal, 5, 0).getMaterial());
+        assertEquals(4, layout.nearestFreeBin(coal, 5.4, 0).getId());
+
+        assertThrows(ExceedingCapacity.class, () -> layout.putAway(iron, 10_000, 0, 0));
+        assertEquals(250, layout.getBinnedQuantity(iron));
+        assertEquals(250, warehouse.snapshot().getQuantity(iron));
+    }
+
+    // Test that picking empties the nearest bins first and keeps the warehouse totals in step
+    @Test
+    void testPick() throws Exception {
+        layout.putAway(iron, 300, 0, 0);  // Bins 0, 1 and 2 are full
+        List<BinQuantity> picked = layout.pick(iron, 150, 9, 0);
+        assertEquals(2, picked.get(0).getBin().getId());
+        assertEquals(100, picked.get(0).getQuantity());
+        assertEquals(1, picked.get(1).getBin().getId());
+        assertEquals(50, picked.get(1).getQuantity());
+
+        assertNull(layout.getBins().get(2).getMaterial());
+        assertEquals(150, layout.getBinnedQuantity(iron));
+        assertEquals(150, warehouse.snapshot().getQuantity(iron));
+        assertEquals(List.of(1, 0), layout.nearestBinsHolding(iron, 9, 0, 5).stream().map(Bin::getId).collect(Collectors.toList()));
+
+        assertThrows(InvalidQuantity.class, () -> layout.pick(iron, 151, 0, 0));
+        assertThrows(MaterialNotFound.class, () -> layout.pick(coal, 1, 0, 0));
+        warehouse.updateMaterialQuantity(iron, 7);
+        assertEquals(7, layout.getUnbinnedQuantity(iron));
+    }
+
+    // Test that the spatial index finds the same nearest bins as a scan of all bins
+    @Test
+    void testIndexMatchesScan() throws Exception {
+        BinLayout floor = new BinLayout(new WareHouse(new HashMap<>()), 5);
+        Random random = new Random(42);
+        for (int i = 0; i < 2_000; i++) {
+            floor.addBin("Z" + i % 4, i % 40, random.nextDouble() * 200, random.nextDouble() * 100);
+        }
+        for (int i = 0; i < 30; i++) {
+            floor.putAway(coal, 1 + random.nextInt(120), random.nextDouble() * 200, random.nextDouble() * 100);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            double x = random.nextDouble() * 260 - 30;
+            double y = random.nextDouble() * 160 - 30;
+            List<Bin> expected = floor.getBins().stream()
+                    .filter(bin -> bin.getMaterial() == coal)
+                    .sorted(Comparator.comparingDouble(bin -> bin.distanceTo(x, y)))
+                    .limit(3)
+                    .collect(Collectors.toList());
+            assertEquals(expected, floor.nearestBinsHolding(coal, x, y, 3));
+
+            Bin free = floor.nearestFreeBin(iron, x, y);
+            double closest = floor.getBins().stream()
+                    .filter(bin -> bin.getFreeCapacity(iron) > 0)
+                    .mapToDouble(bin -> bin.distanceTo(x, y))
+                    .min().getAsDouble();
+            assertEquals(closest, free.distanceTo(x, y), 1e-9);
+        }
+    }
+
+    // Test queries and free room on a sparse floor, far from the origin and after bins are emptied
+    @Test
+    void testSparseFloor() throws Exception {
+        BinLayout floor = new BinLayout(new WareHouse(new HashMap<>()), 1);
+        Bin east = floor.addBin("A", 1, 3000, 0);
+        Bin west = floor.addBin("A", 2, -3000, -4000);
+        Bin origin = floor.addBin("A", 3, 0, 0);
+
+        assertSame(east, floor.nearestFreeBin(coal, 2990, 5));
+        assertSame(west, floor.nearestFreeBin(coal, -1e6, -1e6));
+        floor.putAway(coal, 150, 0, 0);  // Exactly the room of the three bins
+        assertNull(floor.nearestFreeBin(coal, 0, 0));
+        assertThrows(ExceedingCapacity.class, () -> floor.putAway(coal, 1, 0, 0));
+        assertEquals(List.of(east, origin, west), floor.nearestBinsHolding(coal, 5000, 0, 5));
+
+        floor.pick(coal, 60, 0, 0);  // Empties the origin bin and takes 10 from the next closest
+        assertSame(origin, floor.nearestFreeBin(iron, 2000, 0));
+        assertThrows(ExceedingCapacity.class, () -> floor.putAway(iron, 101, 0, 0));
+        floor.putAway(coal, 60, 0, 0);
+        assertThrows(ExceedingCapacity.class, () -> floor.putAway(coal, 1, 0, 0));
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialAlreadyExists;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.CachingInventory;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCachingInventory {
+    private WareHouse warehouse;      // The backing warehouse
+    private CachingInventory cache;   // The cache in front of the backing warehouse
+    private Material iron;            // Test material of type iron
+    private Material coal;            // Test material of type coal
+    private long now;                 // The current time of the test clock in nanoseconds
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        warehouse = new WareHouse(new HashMap<>());
+        cache = new CachingInventory(warehouse, 1, 10, TimeUnit.SECONDS, () -> now);
+
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 200), 0);
+        warehouse.addMaterial(iron, 100);
+        warehouse.addMaterial(coal, 50);
+    }
+
+    // Test that repeated lookups are answered from the cache until the entry expires
+    @Test
+    void testHitsAndExpiration() throws MaterialNotFound {
+        assertEquals(100, cache.getMaterialQuantity(cache, iron));
+        assertEquals(100, cache.getMaterialQuantity(cache, iron));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0001);
+
+        now += TimeUnit.SECONDS.toNanos(4);
+        assertEquals(4, cache.getStaleness(iron, TimeUnit.SECONDS));
+
+        now += TimeUnit.SECONDS.toNanos(10);
+        cache.getMaterialQuantity(cache, iron);
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    // Test that writes through the cache and through the change stream invalidate entries
+    @Test
+    void testInvalidation() throws MaterialNotFound, ExceedingCapacity, InvalidQuantity {
+        cache.getMaterialQuantity(cache, iron);
+        cache.updateMaterialQuantity(iron, 20);
+        assertEquals(120, cache.getMaterialQuantity(cache, iron));
+
+        warehouse.addChangeListener(cache);
+        warehouse.dropSomeQuantity(iron, 20);
+        assertEquals(100, cache.getMaterialQuantity(cache, iron));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    // Test that the cache never holds more entries than its maximum size
+    @Test
+    void testEviction() throws MaterialNotFound {
+        cache.getMaterialQuantity(cache, iron);
+        cache.getMaterialQuantity(cache, coal);
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(-1, cache.getStaleness(iron, TimeUnit.SECONDS));
+    }
+
+    // Test that transfers into the cache lock the backing warehouse, so they cannot deadlock with its change stream
+    @Test
+    void testTransfersIntoCacheDoNotDeadlock() throws Exception {
+        warehouse.addChangeListener(cache);
+        WareHouse other = new WareHouse(new HashMap<>());
+        other.addMaterial(iron, 100);
+        assertThrows(IllegalArgumentException.class, () -> warehouse.transferFullMaterial(cache, coal));
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<?> transfers = executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    other.transferSomeQuantityOfMaterial(cache, iron, 1);
+                    cache.transferSomeQuantityOfMaterial(other, iron, 1);
+                }
+                return null;
+            });
+            Future<?> writes = executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    warehouse.updateMaterialQuantity(coal, 1);
+                    warehouse.dropSomeQuantity(coal, 1);
+                }
+                return null;
+            });
+            Future<?> reads = executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    cache.getMaterialQuantity(cache, iron);
+                }
+                return null;
+            });
+            transfers.get(30, TimeUnit.SECONDS);
+            writes.get(30, TimeUnit.SECONDS);
+            reads.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(100, cache.getMaterialQuantity(cache, iron));
+        assertEquals(100, other.snapshot().getQuantity(iron));
+    }
+}
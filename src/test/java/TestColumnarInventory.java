@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+import org.warehouse.io.ColumnarInventoryReader;
+import org.warehouse.io.ColumnarInventoryWriter;
+import org.warehouse.io.InventoryColumn;
+import org.warehouse.io.QuantityFilter;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestColumnarInventory {
+
+    // Test that every row written can be read back with all columns projected
+    @Test
+    void testRoundTrip() throws Exception {
+        Material iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        Material coal = new Material(new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 200), 0);
+        Map<Integer, WareHouse> warehouses = new HashMap<>();
+        warehouses.put(1, new WareHouse(new HashMap<>()));
+        warehouses.put(2, new WareHouse(new HashMap<>()));
+        warehouses.get(1).addMaterial(iron, 100);
+        warehouses.get(1).addMaterial(coal, 7);
+        warehouses.get(2).addMaterial(coal, 150);
+
+        Path file = Files.createTempFile("inventory", ".whc");
+        try (ColumnarInventoryWriter writer = new ColumnarInventoryWriter(Files.newOutputStream(file), 2)) {
+            writer.writeAll(warehouses);
+        }
+
+        List<String> rows = new ArrayList<>();
+        new ColumnarInventoryReader(file).scan(EnumSet.allOf(InventoryColumn.class),
+                (warehouse, material, quantity) -> rows.add(warehouse + ":" + material + ":" + quantity));
+        rows.sort(null);
+        assertEquals(List.of("1:Coal:7", "1:Iron:100", "2:Coal:150"), rows);
+    }
+
+    // Test that a quantity filter skips blocks by their statistics and decodes only the projected columns
+    @Test
+    void testPredicatePushdown() throws IOException {
+        Path file = Files.createTempFile("inventory", ".whc");
+        try (ColumnarInventoryWriter writer = new ColumnarInventoryWriter(Files.newOutputStream(file), 100)) {
+            for (int warehouse = 0; warehouse < 1000; warehouse++) {
+                writer.write(warehouse, "Iron", 400 + warehouse % 50);
+                writer.write(warehouse, "Coal", warehouse < 100 ? warehouse : 100 + warehouse % 100);
+            }
+        }
+
+        List<Integer> warehouses = new ArrayList<>();
+        ColumnarInventoryReader.ScanResult result = new ColumnarInventoryReader(file).scan(
+                EnumSet.of(InventoryColumn.WAREHOUSE), QuantityFilter.lessThan("Coal", 100),
+                (warehouse, material, quantity) -> {
+                    assertNull(material);
+                    warehouses.add(warehouse);
+                });
+
+        assertEquals(100, result.getRowsMatched());
+        assertEquals(100, warehouses.size());
+        assertEquals(99, warehouses.get(99));
+        assertEquals(2, result.getBlocksScanned());
+        assertEquals(18, result.getBlocksSkipped());
+    }
+
+    // Test that blocks are skipped by their warehouse range and that columns the statistics already cover are not decoded
+    @Test
+    void testWarehouseRangeAndCoveredColumns() throws IOException {
+        Path file = Files.createTempFile("inventory", ".whc");
+        try (ColumnarInventoryWriter writer = new ColumnarInventoryWriter(Files.newOutputStream(file), 100)) {
+            for (int warehouse = 0; warehouse < 1000; warehouse++) {
+                writer.write(warehouse, "Iron", 400 + warehouse % 50);
+                writer.write(warehouse, "Coal", warehouse < 100 ? warehouse : 100 + warehouse % 100);
+            }
+        }
+
+        List<Integer> warehouses = new ArrayList<>();
+        ColumnarInventoryReader.ScanResult result = new ColumnarInventoryReader(file).scan(
+                EnumSet.of(InventoryColumn.WAREHOUSE), QuantityFilter.lessThan("Coal", 100).inWarehouses(0, 49),
+                (warehouse, material, quantity) -> warehouses.add(warehouse));
+
+        assertEquals(50, result.getRowsMatched());
+        assertEquals(49, warehouses.get(49));
+        assertEquals(1, result.getBlocksScanned());
+        assertEquals(19, result.getBlocksSkipped());
+        assertEquals(2, result.getColumnsDecoded());  // Every quantity and warehouse of the block passes, so only the materials are checked
+
+        Path coalOnly = Files.createTempFile("inventory", ".whc");
+        try (ColumnarInventoryWriter writer = new ColumnarInventoryWriter(Files.newOutputStream(coalOnly), 100)) {
+            for (int warehouse = 0; warehouse < 1000; warehouse++) {
+                writer.write(warehouse, "Coal", warehouse % 300);
+            }
+        }
+        result = new ColumnarInventoryReader(coalOnly).scan(
+                EnumSet.of(InventoryColumn.WAREHOUSE), QuantityFilter.lessThan("Coal", 300).inWarehouses(150, 1000),
+                (warehouse, material, quantity) -> assertTrue(warehouse >= 150));
+
+        assertEquals(850, result.getRowsMatched());
+        assertEquals(9, result.getBlocksScanned());
+        assertEquals(1, result.getBlocksSkipped());
+        assertEquals(9, result.getColumnsDecoded());  // Only the projected warehouse column
+    }
+}
@@ -0,0 +1,47 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingAmountOfMoney;
+import org.warehouse.exceptions.InvalidQuantityOfGems;
+import org.warehouse.exceptions.InvalidQuantityOfMoney;
+import org.warehouse.model.user.CompactUserStore;
+import org.warehouse.model.user.UserFunctionalitiesInterface;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestCompactUserStore {
+    private CompactUserStore store;  // The store to be tested
+
+    // Set up a store with enough users to grow its columns
+    @BeforeEach
+    void setUp() {
+        store = new CompactUserStore();
+        for (int i = 0; i < 100; i++) {
+            store.add("User" + i, 5, 100, 1);
+        }
+    }
+
+    // Test that the flyweight view behaves like UserFunctionalities
+    @Test
+    void testView() throws InvalidQuantityOfMoney, ExceedingAmountOfMoney, InvalidQuantityOfGems {
+        UserFunctionalitiesInterface user = store.view(42);
+        assertEquals(1100, user.updateMoney(1000));
+        assertEquals(1090, user.spendMoney(10));
+        assertEquals(40, user.updateGems(35));
+        user.upgradeLevel();
+
+        assertEquals(1090, store.getMoney(42));
+        assertEquals(2, store.getLevel(42));
+        assertEquals("User42", store.getUsername(42));
+        assertThrows(ExceedingAmountOfMoney.class, () -> user.spendMoney(5000));
+        assertThrows(InvalidQuantityOfMoney.class, () -> user.updateMoney(0));
+    }
+
+    // Test fleet-wide scans over the columns
+    @Test
+    void testTotals() throws InvalidQuantityOfMoney {
+        store.view(0).updateMoney(50);
+        assertEquals(100 * 100 + 50, store.totalMoney());
+        assertEquals(100 * 5, store.totalGems());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view(100));
+    }
+}
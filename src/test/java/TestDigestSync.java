@@ -0,0 +1,160 @@
+import org.junit.jupiter.api.Test;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.User;
+import org.warehouse.sync.DigestSync;
+import org.warehouse.sync.InventoryDigest;
+import org.warehouse.sync.SyncReport;
+import org.warehouse.sync.UserDigest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestDigestSync {
+
+    // Test that the digest follows every change and matches a digest built from scratch
+    @Test
+    void testIncrementalDigest() throws Exception {
+        WareHouse warehouse = stocked(100);
+        WareHouse copy = stocked(100);
+        InventoryDigest digest = new InventoryDigest(warehouse);
+        InventoryDigest copyDigest = new InventoryDigest(copy);
+        assertEquals(digest.getRoot(), copyDigest.getRoot());  // Distinct but equivalent materials digest alike
+
+        Material first = warehouse.snapshot().getMaterials().keySet().iterator().next();
+        warehouse.updateMaterialQuantity(first, 5);
+        assertNotEquals(digest.getRoot(), copyDigest.getRoot());
+        assertEquals(new InventoryDigest(warehouse).getRoot(), digest.getRoot());
+
+        warehouse.dropSomeQuantity(first, 5);
+        assertEquals(digest.getRoot(), copyDigest.getRoot());
+
+        warehouse.removeMaterial(first);
+        assertEquals(new InventoryDigest(warehouse).getRoot(), digest.getRoot());
+
+        // An empty warehouse digests alike whether it was always empty or was emptied
+        WareHouse emptied = stocked(1);
+        InventoryDigest emptiedDigest = new InventoryDigest(emptied);
+        InventoryDigest emptyDigest = new InventoryDigest(new WareHouse(new HashMap<>()));
+        emptied.removeMaterial(byName(emptied).get("Material0"));
+        assertEquals(emptyDigest.getRoot(), emptiedDigest.getRoot());
+        assertEquals(emptyDigest.getNode(5), emptiedDigest.getNode(5));
+    }
+
+    // Test that a sync repairs only the differing buckets of a warehouse
+    @Test
+    void testWarehouseSync() throws Exception {
+        WareHouse source = stocked(200);
+        WareHouse target = stocked(200);
+        InventoryDigest sourceDigest = new InventoryDigest(source);
+        InventoryDigest targetDigest = new InventoryDigest(target);
+        assertEquals(1, DigestSync.sync(sourceDigest, targetDigest).getNodesCompared());
+
+        Map<String, Material> targetMaterials = byName(target);
+        for (int i = 0; i < 4; i++) {
+            target.updateMaterialQuantity(targetMaterials.get("Material3"), 100);  // Repaired in steps of 100 units
+        }
+        target.removeMaterial(targetMaterials.get("Material7"));
+        target.addMaterial(new Material(type("Extra"), 0), 10);
+
+        SyncReport report = DigestSync.sync(sourceDigest, targetDigest);
+        assertEquals(3, report.getMaterialsRepaired());
+        assertTrue(report.getNodesCompared() <= 3 * 13);  // Three paths of a tree of 64 buckets
+        assertEquals(sourceDigest.getRoot(), targetDigest.getRoot());
+
+        Map<String, Material> repaired = byName(target);
+        assertFalse(repaired.containsKey("Extra"));
+        assertEquals(source.snapshot().getQuantity(byName(source).get("Material3")), target.snapshot().getQuantity(repaired.get("Material3")));
+        assertEquals(200, target.snapshot().getMaterials().size());
+        assertNotSame(byName(source).get("Material7"), repaired.get("Material7"));  // The target owns the material it was given
+    }
+
+    // Test that several materials of the same type are repaired one by one instead of collapsing into one
+    @Test
+    void testSyncOfRepeatedType() throws Exception {
+        WareHouse source = stocked(10);
+        WareHouse target = stocked(10);
+        MaterialType repeated = type("Repeated");
+        source.addMaterial(new Material(repeated, 0), 10);
+        source.addMaterial(new Material(repeated, 0), 20);
+        source.addMaterial(new Material(repeated, 0), 30);
+        Material kept = new Material(repeated, 0);
+        target.addMaterial(kept, 20);
+        target.addMaterial(new Material(repeated, 0), 50);
+        InventoryDigest sourceDigest = new InventoryDigest(source);
+        InventoryDigest targetDigest = new InventoryDigest(target);
+
+        SyncReport report = DigestSync.sync(sourceDigest, targetDigest);
+        assertEquals(2, report.getMaterialsRepaired());  // 50 becomes 10, and 30 is added
+        assertEquals(sourceDigest.getRoot(), targetDigest.getRoot());
+        assertEquals(13, target.snapshot().getMaterials().size());
+        assertEquals(20, target.snapshot().getQuantity(kept));
+
+        source.dropSomeQuantity(byName(source).get("Material2"), 1);
+        target.removeMaterial(kept);
+        report = DigestSync.sync(sourceDigest, targetDigest);
+        assertEquals(sourceDigest.getRoot(), targetDigest.getRoot());
+        assertEquals(13, target.snapshot().getMaterials().size());
+    }
+
+    // Test that a sync of two users visits only the differing warehouses and repairs their assignments
+    @Test
+    void testUserSync() throws Exception {
+        Map<Integer, WareHouse> sourceWarehouses = new HashMap<>();
+        Map<Integer, WareHouse> targetWarehouses = new HashMap<>();
+        for (int i = 0; i < 2_000; i++) {
+            sourceWarehouses.put(i, stocked(5));
+            targetWarehouses.put(i, stocked(5));
+        }
+        User sourceUser = new User("Source", sourceWarehouses, 0, 0, 1);
+        User targetUser = new User("Target", targetWarehouses, 0, 0, 1);
+        UserDigest source = new UserDigest(sourceUser);
+        UserDigest target = new UserDigest(targetUser);
+        assertEquals(source.getRoot(), target.getRoot());
+
+        WareHouse changed = targetUser.getWarehouseAssignments().get(42);
+        changed.dropSomeQuantity(byName(changed).get("Material4"), 3);
+        assertNotEquals(source.getRoot(), target.getRoot());
+        sourceUser.getWarehouseAssignments().put(5_000, stocked(2));
+        source.track(5_000, sourceUser.getWarehouseAssignments().get(5_000));
+        targetUser.getWarehouseAssignments().remove(7);
+        target.untrack(7);
+
+        SyncReport report = DigestSync.sync(source, target);
+        assertEquals(3, report.getWarehousesRepaired());
+        assertTrue(report.getNodesCompared() < 200);
+        assertEquals(source.getRoot(), target.getRoot());
+        assertEquals(2_001, targetUser.getWarehouseAssignments().size());
+        assertEquals(2, targetUser.getWarehouseAssignments().get(5_000).snapshot().getMaterials().size());
+
+        // Changes after the sync keep updating the user digest
+        targetUser.getWarehouseAssignments().get(7).updateMaterialQuantity(byName(targetUser.getWarehouseAssignments().get(7)).get("Material0"), 1);
+        assertNotEquals(source.getRoot(), target.getRoot());
+    }
+
+    /**
+     * Helper method creating a warehouse holding the given number of materials, each of a new type object.
+     */
+    private static WareHouse stocked(int materials) throws Exception {
+        WareHouse warehouse = new WareHouse(new HashMap<>());
+        for (int i = 0; i < materials; i++) {
+            warehouse.addMaterial(new Material(type("Material" + i), 0), 1 + i % 90);
+        }
+        return warehouse;
+    }
+
+    private static MaterialType type(String name) {
+        return new MaterialType(name, "Test material", "src/main/resources/materials/iron.png", 100);
+    }
+
+    private static Map<String, Material> byName(WareHouse warehouse) {
+        Map<String, Material> materials = new HashMap<>();
+        for (Material material : warehouse.snapshot().getMaterials().keySet()) {
+            materials.put(material.getMaterialType().getName(), material);
+        }
+        return materials;
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.admission.FairScheduler;
+import org.warehouse.admission.TenantStats;
+import org.warehouse.exceptions.InvalidQuantityOfMoney;
+import org.warehouse.exceptions.RequestRejected;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserFunctionalities;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestFairScheduler {
+    private Queue<Runnable> executor;  // Tasks handed to the executor, run one by one by the tests
+    private long now;                  // The time of the test clock in nanoseconds
+    private List<String> order;        // The tenants in the order their tasks ran
+
+    // Set up a scheduler environment whose tasks and time are controlled by the tests
+    @BeforeEach
+    void setUp() {
+        executor = new ArrayDeque<>();
+        order = new ArrayList<>();
+    }
+
+    // Test that a light tenant is not starved by a tenant with a long backlog
+    @Test
+    void testLightTenantIsNotStarved() {
+        FairScheduler scheduler = new FairScheduler(executor::add, 1, 100, () -> now);
+        for (int i = 0; i < 10; i++) {
+            submit(scheduler, "Heavy");
+        }
+        submit(scheduler, "Light");
+        submit(scheduler, "Light");
+        runAll();
+
+        assertEquals(List.of("Heavy", "Light", "Heavy", "Light"), order.subList(0, 4));
+        assertEquals(12, order.size());
+    }
+
+    // Test that busy tenants share the slots in proportion to their weights
+    @Test
+    void testWeights() {
+        FairScheduler scheduler = new FairScheduler(executor::add, 1, 100, () -> now);
+        scheduler.setWeight("Gold", 3);
+        for (int i = 0; i < 8; i++) {
+            submit(scheduler, "Gold");
+            submit(scheduler, "Basic");
+        }
+        runAll();
+
+        long gold = order.subList(0, 8).stream().filter("Gold"::equals).count();
+        assertEquals(6, gold);
+    }
+
+    // Test that a tenant beyond their rate quota or queue bound is rejected while others are not
+    @Test
+    void testQuotas() {
+        FairScheduler scheduler = new FairScheduler(executor::add, 1, 3, () -> now);
+        scheduler.setQuota("Limited", 2, 2);
+        submit(scheduler, "Limited");
+        submit(scheduler, "Limited");
+        assertThrows(RequestRejected.class, () -> submit(scheduler, "Limited"));
+
+        now += 500_000_000L;  // Half a second refills one token
+        submit(scheduler, "Limited");
+        assertThrows(RequestRejected.class, () -> submit(scheduler, "Limited"));
+        assertEquals(2, scheduler.getStats("Limited").getRejected());
+
+        for (int i = 0; i < 3; i++) {
+            submit(scheduler, "Queued");  // All of them wait behind the running task of Limited
+        }
+        assertThrows(RequestRejected.class, () -> submit(scheduler, "Queued"));
+        assertEquals(3, scheduler.getStats("Queued").getQueued());
+    }
+
+    // Test that results, failures and latencies are reported per tenant
+    @Test
+    void testResultsAndStats() throws Exception {
+        FairScheduler scheduler = new FairScheduler(executor::add, 2, 100, () -> now);
+        User user = new User("Alice", new HashMap<>(), 5, 100, 1);
+        UserFunctionalities wallet = new UserFunctionalities(user);
+
+        CompletableFuture<Integer> earned = scheduler.submit(user, () -> wallet.updateMoney(50));
+        CompletableFuture<Integer> failed = scheduler.submit(user, () -> wallet.updateMoney(0));
+        now += 1_000;
+        runAll();
+
+        assertEquals(150, earned.get());
+        ExecutionException failure = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(failure.getCause() instanceof InvalidQuantityOfMoney);
+
+        TenantStats stats = scheduler.getStats("Alice");
+        assertEquals(2, stats.getSubmitted());
+        assertEquals(2, stats.getCompleted());
+        assertEquals(1_000, stats.getAverageLatencyNanos());
+        assertEquals(0, scheduler.getRunning());
+        assertEquals(1, scheduler.getAllStats().size());
+    }
+
+    /**
+     * Helper method submitting a task that records the tenant it ran for.
+     */
+    private void submit(FairScheduler scheduler, String tenant) {
+        scheduler.submit(tenant, () -> order.add(tenant));
+    }
+
+    /**
+     * Helper method running the executor's tasks, including those dispatched while running, until none is left.
+     */
+    private void runAll() {
+        Runnable task;
+        while ((task = executor.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.*;
+import org.warehouse.management.CachingInventory;
+import org.warehouse.management.Inventory;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.CompactUserStore;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserFunctionalities;
+import org.warehouse.model.user.UserFunctionalitiesInterface;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress tests checking that concurrent inventories and wallets behave like their sequential versions.
+ * Each test repeats short random histories for {@link LinearizabilityChecker#durationMillis()} milliseconds,
+ * so a longer run can be requested with {@code mvn test -Dlinearizability.duration.ms=60000}.
+ */
+class TestLinearizability {
+    private static final int THREADS = 4;                 // Threads running operations at the same time
+    private static final int OPERATIONS_PER_THREAD = 25;  // Operations per thread and history
+    private static final int CAPACITY = 100;              // Maximum capacity of the test materials
+
+    private Material iron;  // Test material of type iron
+    private Material coal;  // Test material of type coal
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() {
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", CAPACITY), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy", "src/main/resources/materials/coal.png", CAPACITY), 0);
+    }
+
+    // Test that concurrent operations on a warehouse are linearizable
+    @Test
+    void testWareHouse() throws InterruptedException {
+        checkInventory(() -> new WareHouse(new HashMap<>()));
+    }
+
+    // Test that a cache in front of a warehouse never serves a quantity that breaks linearizability
+    @Test
+    void testCachingInventory() throws InterruptedException {
+        checkInventory(() -> {
+            WareHouse warehouse = new WareHouse(new HashMap<>());
+            CachingInventory cache = new CachingInventory(warehouse, 16, 1, TimeUnit.HOURS);
+            warehouse.addChangeListener(cache);
+            return cache;
+        });
+    }
+
+    // Test that concurrent changes of a user's wallet are linearizable
+    @Test
+    void testUserFunctionalities() throws InterruptedException {
+        checkWallet(() -> new UserFunctionalities(new User("User", new HashMap<>(), 100, 100, 1)));
+    }
+
+    // Test that concurrent changes through a view of the compact user store are linearizable
+    @Test
+    void testCompactUserStore() throws InterruptedException {
+        checkWallet(() -> {
+            CompactUserStore store = new CompactUserStore();
+            store.add("Other", 100, 100, 1);
+            return store.view(store.add("User", 100, 100, 1));
+        });
+    }
+
+    // Test that concurrent transfers between warehouses neither create nor destroy stock
+    @Test
+    void testQuantityConservation() throws Exception {
+        List<WareHouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            warehouses.add(new WareHouse(new HashMap<>()));
+        }
+        warehouses.get(0).addMaterial(iron, 80);
+        warehouses.get(1).addMaterial(iron, 60);
+        warehouses.get(1).addMaterial(coal, 90);
+        warehouses.get(2).addMaterial(coal, 30);
+        List<Throwable> failures = new ArrayList<>();
+        // Changes are published on the thread making them, so each thread can tell which changes its own operations made.
+        ThreadLocal<int[]> changesMade = ThreadLocal.withInitial(() -> new int[1]);
+        for (WareHouse warehouse : warehouses) {
+            warehouse.addChangeListener((inventory, material, previousQuantity, newQuantity) -> {
+                changesMade.get()[0]++;
+                if (newQuantity < 0) {
+                    synchronized (failures) {
+                        failures.add(new AssertionError(material.getMaterialType().getName() + " went negative: " + newQuantity));
+                    }
+                }
+            });
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LinearizabilityChecker.durationMillis());
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    WareHouse from = warehouses.get(random.nextInt(warehouses.size()));
+                    WareHouse to = warehouses.get(random.nextInt(warehouses.size()));
+                    Material material = random.nextBoolean() ? iron : coal;
+                    if (from == to) {
+                        continue;
+                    }
+                    int changesBefore = changesMade.get()[0];
+                    try {
+                        switch (random.nextInt(3)) {
+                            case 0:
+                                from.transferSomeQuantityOfMaterial(to, material, 1 + random.nextInt(40));
+                                break;
+                            case 1:
+                                from.transferFullMaterial(to, material);
+                                break;
+                            default:
+                                from.transferMaterials(to, Arrays.asList(iron, coal));
+                        }
+                    } catch (ExceedingCapacity | InvalidQuantity | MaterialAlreadyExists | MaterialNotFound e) {
+                        // Rejected transfers are expected and must leave both warehouses unchanged.
+                        if (changesMade.get()[0] != changesBefore) {
+                            synchronized (failures) {
+                                failures.add(new AssertionError("A rejected transfer changed a warehouse", e));
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(List.of(), failures);
+        assertEquals(140, total(warehouses, iron));
+        assertEquals(120, total(warehouses, coal));
+    }
+
+    // Test that transfers of more than the source holds are rejected and leave both warehouses unchanged
+    @Test
+    void testRejectedTransfers() throws Exception {
+        WareHouse source = new WareHouse(new HashMap<>());
+        WareHouse destination = new WareHouse(new HashMap<>());
+        source.addMaterial(iron, 5);
+
+        assertThrows(InvalidQuantity.class, () -> source.transferSomeQuantityOfMaterial(destination, iron, 10));
+        assertThrows(InvalidQuantity.class, () -> source.dropSomeQuantity(iron, 6));
+        assertThrows(MaterialNotFound.class, () -> destination.transferSomeQuantityOfMaterial(source, iron, 1));
+        assertEquals(5, source.snapshot().getQuantity(iron));
+        assertTrue(destination.snapshot().getMaterials().isEmpty());
+    }
+
+    /**
+     * Helper method checking random histories of inventory operations on fresh subjects until the test duration is over.
+     */
+    private void checkInventory(Supplier<Inventory> subjects) throws InterruptedException {
+        LinearizabilityChecker<Inventory, Integer> checker = new LinearizabilityChecker<>(this::inventoryOperation, key -> null);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LinearizabilityChecker.durationMillis());
+        for (long seed = 0; seed == 0 || System.nanoTime() < deadline; seed++) {
+            String violation = checker.check(checker.run(subjects.get(), THREADS, OPERATIONS_PER_THREAD, seed));
+            assertNull(violation, "Seed " + seed);
+        }
+    }
+
+    /**
+     * Helper method checking random histories of wallet operations on fresh subjects until the test duration is over.
+     */
+    private void checkWallet(Supplier<UserFunctionalitiesInterface> subjects) throws InterruptedException {
+        LinearizabilityChecker<UserFunctionalitiesInterface, Integer> checker = new LinearizabilityChecker<>(this::walletOperation, key -> 100);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(LinearizabilityChecker.durationMillis());
+        for (long seed = 0; seed == 0 || System.nanoTime() < deadline; seed++) {
+            String violation = checker.check(checker.run(subjects.get(), THREADS, OPERATIONS_PER_THREAD, seed));
+            assertNull(violation, "Seed " + seed);
+        }
+    }
+
+    /**
+     * Helper method drawing a random inventory operation together with its sequential model,
+     * in which the state of a material is its quantity, or null while the inventory does not hold it.
+     */
+    private LinearizabilityChecker.Operation<Inventory, Integer> inventoryOperation(Random random) {
+        Material material = random.nextBoolean() ? iron : coal;
+        int quantity = randomQuantity(random);
+        String name = material.getMaterialType().getName();
+        switch (random.nextInt(5)) {
+            case 0:
+                return LinearizabilityChecker.operation("add " + quantity + " " + name, material,
+                        inventory -> inventory.addMaterial(material, quantity),
+                        state -> {
+                            if (!isValid(quantity)) {
+                                return invalid(state, quantity);
+                            }
+                            return state != null ? LinearizabilityChecker.Step.fail(state, MaterialAlreadyExists.class)
+                                    : LinearizabilityChecker.Step.ok(quantity, material);
+                        });
+            case 1:
+                return LinearizabilityChecker.operation("update " + quantity + " " + name, material,
+                        inventory -> {
+                            inventory.updateMaterialQuantity(material, quantity);
+                            return null;
+                        },
+                        state -> {
+                            if (!isValid(quantity)) {
+                                return invalid(state, quantity);
+                            }
+                            return state == null ? LinearizabilityChecker.Step.fail(null, MaterialNotFound.class)
+                                    : LinearizabilityChecker.Step.ok(state + quantity, null);
+                        });
+            case 2:
+                return LinearizabilityChecker.operation("drop " + quantity + " " + name, material,
+                        inventory -> inventory.dropSomeQuantity(material, quantity),
+                        state -> {
+                            if (!isValid(quantity)) {
+                                return invalid(state, quantity);
+                            }
+                            return state == null ? LinearizabilityChecker.Step.fail(null, MaterialNotFound.class)
+                                    : quantity > state ? LinearizabilityChecker.Step.fail(state, InvalidQuantity.class)
+                                    : LinearizabilityChecker.Step.ok(state - quantity, quantity);
+                        });
+            case 3:
+                return LinearizabilityChecker.operation("remove " + name, material,
+                        inventory -> inventory.removeMaterial(material),
+                        state -> state == null ? LinearizabilityChecker.Step.fail(null, MaterialNotFound.class)
+                                : LinearizabilityChecker.Step.ok(null, material));
+            default:
+                return LinearizabilityChecker.operation("read " + name, material,
+                        inventory -> inventory.getMaterialQuantity(inventory, material),
+                        state -> state == null ? LinearizabilityChecker.Step.fail(null, MaterialNotFound.class)
+                                : LinearizabilityChecker.Step.ok(state, state));
+        }
+    }
+
+    /**
+     * Helper method drawing a random wallet operation together with its sequential model,
+     * in which the state of a currency is the balance.
+     */
+    private LinearizabilityChecker.Operation<UserFunctionalitiesInterface, Integer> walletOperation(Random random) {
+        int quantity = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(80);
+        switch (random.nextInt(4)) {
+            case 0:
+                return LinearizabilityChecker.operation("earn " + quantity + " money", "money",
+                        user -> user.updateMoney(quantity),
+                        balance -> quantity <= 0 ? LinearizabilityChecker.Step.fail(balance, InvalidQuantityOfMoney.class)
+                                : LinearizabilityChecker.Step.ok(balance + quantity, balance + quantity));
+            case 1:
+                return LinearizabilityChecker.operation("spend " + quantity + " money", "money",
+                        user -> user.spendMoney(quantity),
+                        balance -> quantity <= 0 ? LinearizabilityChecker.Step.fail(balance, InvalidQuantityOfMoney.class)
+                                : quantity > balance ? LinearizabilityChecker.Step.fail(balance, ExceedingAmountOfMoney.class)
+                                : LinearizabilityChecker.Step.ok(balance - quantity, balance - quantity));
+            case 2:
+                return LinearizabilityChecker.operation("earn " + quantity + " gems", "gems",
+                        user -> user.updateGems(quantity),
+                        balance -> quantity <= 0 ? LinearizabilityChecker.Step.fail(balance, InvalidQuantityOfGems.class)
+                                : LinearizabilityChecker.Step.ok(balance + quantity, balance + quantity));
+            default:
+                return LinearizabilityChecker.operation("spend " + quantity + " gems", "gems",
+                        user -> user.spendGems(quantity),
+                        balance -> quantity <= 0 ? LinearizabilityChecker.Step.fail(balance, InvalidQuantityOfGems.class)
+                                : quantity > balance ? LinearizabilityChecker.Step.fail(balance, ExceedingAmountOfGems.class)
+                                : LinearizabilityChecker.Step.ok(balance - quantity, balance - quantity));
+        }
+    }
+
+    /**
+     * Helper method drawing a quantity that is occasionally zero or above the capacity.
+     */
+    private static int randomQuantity(Random random) {
+        int kind = random.nextInt(10);
+        return kind == 0 ? 0 : kind == 1 ? CAPACITY + 1 : 1 + random.nextInt(60);
+    }
+
+    private static boolean isValid(int quantity) {
+        return quantity > 0 && quantity <= CAPACITY;
+    }
+
+    /**
+     * Helper method giving the outcome of an operation rejected by the quantity check of the warehouse.
+     */
+    private static LinearizabilityChecker.Step<Integer> invalid(Integer state, int quantity) {
+        return LinearizabilityChecker.Step.fail(state, quantity <= 0 ? InvalidQuantity.class : ExceedingCapacity.class);
+    }
+
+    /**
+     * Helper method summing the quantity of a material over several warehouses.
+     */
+    private static int total(List<WareHouse> warehouses, Material material) {
+        int total = 0;
+        for (WareHouse warehouse : warehouses) {
+            Integer quantity = warehouse.snapshot().getMaterials().get(material);
+            total += quantity == null ? 0 : quantity;
+        }
+        return total;
+    }
+}
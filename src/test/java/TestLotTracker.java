@@ -0,0 +1,154 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.management.CachingInventory;
+import org.warehouse.management.Lot;
+import org.warehouse.management.LotTracker;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestLotTracker {
+    private WareHouse first;      // An observed warehouse
+    private WareHouse second;     // Another observed warehouse, the destination of transfers
+    private LotTracker tracker;   // The tracker under test, with a shelf life of 1000 ms for iron
+    private Material iron;        // Test material of type iron
+    private long now;             // The current time of the test clock in milliseconds
+
+    // Set up two observed warehouses
+    @BeforeEach
+    void setUp() {
+        first = new WareHouse(new HashMap<>());
+        second = new WareHouse(new HashMap<>());
+        tracker = new LotTracker(() -> now);
+        first.addChangeListener(tracker);
+        second.addChangeListener(tracker);
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        tracker.setShelfLife(iron.getMaterialType(), 1000);
+    }
+
+    // Test that every increase becomes a lot and drops consume the oldest lots first
+    @Test
+    void testFirstInFirstOut() throws Exception {
+        now = 100;
+        first.addMaterial(iron, 100);
+        now = 200;
+        first.updateMaterialQuantity(iron, 50);
+        now = 300;
+        first.updateMaterialQuantity(iron, 25);
+        first.dropSomeQuantity(iron, 120);
+
+        List<Lot> lots = tracker.getLots(first, iron);
+        assertEquals(2, lots.size());
+        assertEquals(200, lots.get(0).getArrival());
+        assertEquals(1200, lots.get(0).getExpiry());
+        assertEquals(30, lots.get(0).getQuantity());
+        assertEquals(25, lots.get(1).getQuantity());
+
+        assertEquals(1, tracker.lotsExpiringBefore(first, iron, 1250).size());
+        assertEquals(55, tracker.quantityExpiringBefore(first, iron, 1301));
+        assertTrue(tracker.lotsExpiringBefore(first, iron, 1200).isEmpty());
+
+        first.removeMaterial(iron);
+        assertEquals(0, tracker.getLotCount(first, iron));
+    }
+
+    // Test that transfers move the oldest lots with their arrival and expiry
+    @Test
+    void testTransfersKeepLots() throws Exception {
+        now = 100;
+        first.addMaterial(iron, 60);
+        now = 200;
+        first.updateMaterialQuantity(iron, 40);
+        now = 300;
+        first.transferSomeQuantityOfMaterial(second, iron, 70);
+
+        List<Lot> moved = tracker.getLots(second, iron);
+        assertEquals(2, moved.size());
+        assertEquals(100, moved.get(0).getArrival());
+        assertEquals(60, moved.get(0).getQuantity());
+        assertEquals(200, moved.get(1).getArrival());
+        assertEquals(10, moved.get(1).getQuantity());
+        assertEquals(30, tracker.getLots(first, iron).get(0).getQuantity());
+
+        now = 400;
+        first.transferFullMaterial(second, iron);
+        assertEquals(0, tracker.getLotCount(first, iron));
+        assertEquals(60, tracker.quantityExpiringBefore(second, iron, 1101));
+        assertEquals(3, tracker.getLotCount(second, iron));
+
+        // An unrelated add followed by a drop of the same quantity elsewhere is not a transfer
+        first.addMaterial(iron, 10);
+        now = 500;
+        second.updateMaterialQuantity(iron, 5);
+        first.dropSomeQuantity(iron, 5);
+        assertEquals(500, tracker.getLots(second, iron).get(3).getArrival());
+    }
+
+    // Test that transfers into a decorated warehouse keep their lots and that changes made under a held lock are not transfers
+    @Test
+    void testTransfersIntoDecoratedWarehouse() throws Exception {
+        now = 100;
+        first.addMaterial(iron, 50);
+        now = 200;
+        first.transferSomeQuantityOfMaterial(new CachingInventory(second, 10, 1, TimeUnit.MINUTES), iron, 20);
+        assertEquals(100, tracker.getLots(second, iron).get(0).getArrival());
+
+        now = 300;
+        synchronized (second) {
+            second.updateMaterialQuantity(iron, 5);
+            first.dropSomeQuantity(iron, 5);
+        }
+        List<Lot> lots = tracker.getLots(second, iron);
+        assertEquals(2, lots.size());
+        assertEquals(300, lots.get(1).getArrival());
+        assertEquals(25, tracker.getLots(first, iron).get(0).getQuantity());
+    }
+
+    // Test that stock present before the tracker was registered is recorded as the oldest lot
+    @Test
+    void testUntrackedStock() throws Exception {
+        Map<Material, Integer> stock = new HashMap<>();
+        stock.put(iron, 80);
+        WareHouse existing = new WareHouse(stock);
+        existing.addChangeListener(tracker);
+
+        now = 700;
+        existing.updateMaterialQuantity(iron, 20);
+        List<Lot> lots = tracker.getLots(existing, iron);
+        assertEquals(2, lots.size());
+        assertEquals(80, lots.get(0).getQuantity());
+        assertEquals(Long.MAX_VALUE, lots.get(0).getExpiry());
+
+        existing.dropSomeQuantity(iron, 90);
+        lots = tracker.getLots(existing, iron);
+        assertEquals(1, lots.size());
+        assertEquals(1700, lots.get(0).getExpiry());
+        assertEquals(10, lots.get(0).getQuantity());
+    }
+
+    // Test that many lots are added and consumed in order and expiring lots are found at the front
+    @Test
+    void testManyLots() throws Exception {
+        first.addMaterial(iron, 1);
+        for (int i = 1; i < 200_000; i++) {
+            now = i;
+            first.updateMaterialQuantity(iron, 1);
+        }
+        assertEquals(200_000, tracker.getLotCount(first, iron));
+        assertEquals(500, tracker.lotsExpiringBefore(first, iron, 1500).size());
+
+        for (int i = 0; i < 300; i++) {
+            first.dropSomeQuantity(iron, 500);
+        }
+        assertEquals(50_000, tracker.getLotCount(first, iron));
+        assertEquals(150_000, tracker.getLots(first, iron).get(0).getArrival());
+        assertEquals(50_000, tracker.quantityExpiringBefore(first, iron, Long.MAX_VALUE));
+    }
+}
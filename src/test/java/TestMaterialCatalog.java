@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+import org.warehouse.model.material.MaterialCatalog;
+import org.warehouse.model.material.MaterialCatalogGenerator;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.material.PerfectHash;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestMaterialCatalog {
+
+    // Test that the catalog finds every declared type by name and id and rejects unknown names
+    @Test
+    void testLookup() {
+        assertEquals(2, MaterialCatalog.size());
+        assertSame(MaterialCatalog.IRON, MaterialCatalog.byName("Iron"));
+        assertSame(MaterialCatalog.COAL, MaterialCatalog.byName("Coal"));
+        assertSame(MaterialCatalog.COAL, MaterialCatalog.byId(MaterialCatalog.idOf("Coal")));
+        assertEquals(1000, MaterialCatalog.IRON.getMaximumCapacity());
+        assertNull(MaterialCatalog.byName("Gold"));
+        assertEquals(-1, MaterialCatalog.idOf("iron"));
+    }
+
+    // Test that the committed catalog class matches the manifest it is generated from
+    @Test
+    void testCatalogIsUpToDate() throws IOException {
+        try (Reader manifest = Files.newBufferedReader(Paths.get("src/main/resources/materials/catalog.csv"), StandardCharsets.UTF_8)) {
+            String expected = MaterialCatalogGenerator.generate(MaterialCatalogGenerator.readManifest(manifest));
+            String actual = Files.readString(Paths.get("src/main/java/org/warehouse/model/material/MaterialCatalog.java"));
+            assertEquals(expected, actual, "MaterialCatalog is stale; run MaterialCatalogGenerator");
+        }
+    }
+
+    // Test that the perfect hash maps many names to distinct slots covering the whole table
+    @Test
+    void testPerfectHashIsMinimal() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            names.add("Material " + i);
+        }
+        int[] seeds = PerfectHash.build(names);
+
+        Set<Integer> slots = new HashSet<>();
+        for (String name : names) {
+            int slot = PerfectHash.slot(name, seeds);
+            assertTrue(slot >= 0 && slot < names.size());
+            slots.add(slot);
+        }
+        assertEquals(names.size(), slots.size());
+    }
+
+    // Test that malformed manifests are reported
+    @Test
+    void testMalformedManifest() throws IOException {
+        assertThrows(IOException.class, () -> MaterialCatalogGenerator.readManifest(new StringReader("name,icon\nIron,x\n")));
+        assertThrows(IOException.class, () -> MaterialCatalogGenerator.readManifest(
+                new StringReader("name,description,icon,maximumCapacity\nIron,Metal,iron.png,many\n")));
+
+        List<MaterialType> types = MaterialCatalogGenerator.readManifest(
+                new StringReader("name,description,icon,maximumCapacity\nIron ore,\"Raw, unsmelted\",ore.png,50\n"));
+        assertEquals("Raw, unsmelted", types.get(0).getDescription());
+        assertTrue(MaterialCatalogGenerator.generate(types).contains("public static final MaterialType IRON_ORE"));
+    }
+}
@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.IconNotFound;
+import org.warehouse.model.material.IconRegion;
+import org.warehouse.model.material.MaterialIconAtlas;
+import org.warehouse.model.material.MaterialType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestMaterialIconAtlas {
+    private MaterialIconAtlas atlas;  // The atlas instance to be tested
+    private MaterialType ironType;    // Material type using the iron icon
+    private MaterialType coalType;    // Material type using the coal icon
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() {
+        atlas = new MaterialIconAtlas();
+        ironType = new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500);
+        coalType = new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 200);
+    }
+
+    // Test that every packed icon can be sliced back out of the atlas unchanged
+    @Test
+    void testRegisterAndSlice() throws IOException, IconNotFound {
+        atlas.registerAll(List.of(ironType, coalType));
+
+        byte[] packed = atlas.toByteArray();
+        IconRegion coal = atlas.getRegion(coalType);
+        byte[] coalIcon = Arrays.copyOfRange(packed, coal.getOffset(), coal.getOffset() + coal.getLength());
+        assertArrayEquals(Files.readAllBytes(Paths.get(coalType.getIcon())), coalIcon);
+        assertEquals(2, atlas.getVersion());
+    }
+
+    // Test that registering again or sharing an icon does not grow the atlas
+    @Test
+    void testIncrementalRegistration() throws IOException, IconNotFound {
+        IconRegion iron = atlas.register(ironType);
+        int size = atlas.size();
+
+        MaterialType steelType = new MaterialType("Steel", "Refined iron", ironType.getIcon(), 300);
+        atlas.register(steelType);
+        atlas.register(ironType);
+        assertEquals(size, atlas.size());
+        assertEquals(1, atlas.getVersion());
+
+        atlas.register(coalType);
+        assertEquals(iron.getOffset(), atlas.getRegion(steelType).getOffset());  // Earlier regions stay valid
+    }
+
+    // Test looking up a material type that was never registered (should throw IconNotFound)
+    @Test
+    void testGetRegionFailed() {
+        assertThrows(IconNotFound.class, () -> atlas.getRegion(coalType));
+    }
+}
@@ -0,0 +1,95 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.management.WareHouse;
+import org.warehouse.metrics.AllocationTracker;
+import org.warehouse.metrics.FootprintEstimator;
+import org.warehouse.metrics.TrackedInventory;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialCatalog;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserLeaderboard;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestMemoryAccounting {
+    private FootprintEstimator estimator;  // Estimator for a JVM with compressed references
+    private Material iron;                 // Test material of type iron
+    private Material coal;                 // Test material of type coal
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() {
+        estimator = new FootprintEstimator(true);
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 1000), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy", "src/main/resources/materials/coal.png", 1000), 0);
+    }
+
+    // Test that a warehouse grows with its materials and counts quantities that need a box
+    @Test
+    void testWarehouseFootprint() throws Exception {
+        WareHouse warehouse = new WareHouse(new HashMap<>());
+        long empty = estimator.estimateWarehouse(warehouse);
+        assertTrue(empty > 0);
+
+        warehouse.addMaterial(iron, 100);
+        long small = estimator.estimateWarehouse(warehouse);
+        assertTrue(small > empty);
+
+        warehouse.updateMaterialQuantity(iron, 100);
+        assertEquals(small + 2 * 16, estimator.estimateWarehouse(warehouse));  // One Integer box in the map and one in the snapshot
+        assertTrue(new FootprintEstimator(false).estimateWarehouse(warehouse) > estimator.estimateWarehouse(warehouse));
+    }
+
+    // Test that a user includes their warehouses and that the largest users are listed first
+    @Test
+    void testUserFootprint() throws Exception {
+        WareHouse stocked = new WareHouse(new HashMap<>());
+        stocked.addMaterial(iron, 500);
+        stocked.addMaterial(coal, 500);
+        User small = new User("Small", Map.of(1, new WareHouse(new HashMap<>())), 5, 100, 1);
+        User large = new User("Large", Map.of(1, new WareHouse(new HashMap<>()), 2, stocked), 5, 100, 1);
+
+        assertTrue(estimator.estimateUser(large) > estimator.estimateUser(small) + estimator.estimateWarehouse(stocked) - 1);
+        assertEquals(List.of("Large", "Small"), List.copyOf(estimator.estimateUsers(List.of(small, large)).keySet()));
+
+        long unranked = estimator.estimateUser(small);
+        new UserLeaderboard().add(small);
+        assertTrue(estimator.estimateUser(small) > unranked);  // The listener list now belongs to the user
+    }
+
+    // Test that every catalog entry is estimated from its strings
+    @Test
+    void testMaterialTypeFootprint() {
+        Map<String, Long> catalog = estimator.estimateCatalog();
+        assertEquals(MaterialCatalog.size(), catalog.size());
+        MaterialType longer = new MaterialType("Iron", "Used for construction of large buildings", "src/main/resources/materials/iron.png", 1000);
+        assertTrue(estimator.estimateMaterialType(longer) > estimator.estimateMaterialType(iron.getMaterialType()));
+    }
+
+    // Test that allocations are attributed to the operations of a tracked inventory
+    @Test
+    void testAllocationTracking() throws Exception {
+        AllocationTracker tracker = new AllocationTracker(1);
+        if (!tracker.isSupported()) {
+            return;
+        }
+        TrackedInventory inventory = new TrackedInventory(new WareHouse(new HashMap<>()), tracker);
+        inventory.addMaterial(iron, 10);
+        for (int i = 0; i < 50; i++) {
+            inventory.updateMaterialQuantity(iron, 1);
+        }
+
+        assertEquals(50, tracker.getSampleCount("updateMaterialQuantity"));
+        assertTrue(tracker.getAverageAllocatedBytes("updateMaterialQuantity") > 0);  // Every update publishes a new snapshot
+        assertTrue(tracker.getMaximumAllocatedBytes("updateMaterialQuantity") >= tracker.getAverageAllocatedBytes("updateMaterialQuantity"));
+        assertTrue(tracker.getOperations().contains("addMaterial"));
+
+        tracker.reset();
+        assertEquals(0, tracker.getSampleCount("updateMaterialQuantity"));
+    }
+}
@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialAlreadyExists;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.User;
+import org.warehouse.trading.OrderBook;
+import org.warehouse.trading.OrderSide;
+import org.warehouse.trading.TradeSettlement;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestOrderBook {
+    private OrderBook book;              // The order book to be tested
+    private TradeSettlement settlement;  // Settles the trades of the book
+    private User buyer;                  // The user buying iron
+    private User seller;                 // The user selling iron
+    private WareHouse buyerWarehouse;    // The buyer's warehouse
+    private WareHouse sellerWarehouse;   // The seller's warehouse
+    private int buyerId;                 // The trader id of the buyer
+    private int sellerId;                // The trader id of the seller
+    private Material iron;               // The traded material
+
+    // Set up a book for iron with one buyer and one seller
+    @BeforeEach
+    void setUp() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        buyer = new User("Buyer", new HashMap<>(), 0, 1000, 1);
+        seller = new User("Seller", new HashMap<>(), 0, 0, 1);
+        buyerWarehouse = new WareHouse(new HashMap<>());
+        sellerWarehouse = new WareHouse(new HashMap<>());
+        sellerWarehouse.addMaterial(iron, 100);
+
+        settlement = new TradeSettlement(iron);
+        buyerId = settlement.registerTrader(buyer, buyerWarehouse);
+        sellerId = settlement.registerTrader(seller, sellerWarehouse);
+        book = new OrderBook(iron, 100, 16, settlement);
+    }
+
+    // Test that the best price trades first and the resting price is used
+    @Test
+    void testPricePriority() throws MaterialNotFound {
+        book.submit(OrderSide.SELL, sellerId, 12, 10);
+        book.submit(OrderSide.SELL, sellerId, 10, 10);
+        assertEquals(10, book.getBestAsk());
+
+        assertEquals(0, book.submit(OrderSide.BUY, buyerId, 11, 10));  // Fully filled at 10
+        assertEquals(12, book.getBestAsk());
+        assertEquals(900, buyer.getMoney());
+        assertEquals(100, seller.getMoney());
+        assertEquals(10, buyerWarehouse.snapshot().getQuantity(iron));
+        assertEquals(90, sellerWarehouse.snapshot().getQuantity(iron));
+    }
+
+    // Test that orders at the same price fill in arrival order and the remainder rests
+    @Test
+    void testTimePriorityAndResting() {
+        long first = book.submit(OrderSide.BUY, buyerId, 5, 4);
+        book.submit(OrderSide.BUY, buyerId, 5, 6);
+        book.submit(OrderSide.SELL, sellerId, 5, 5);
+
+        assertFalse(book.cancel(first));  // The first order was filled completely
+        assertEquals(5, book.getDepth(OrderSide.BUY, 5));
+        assertEquals(1, book.getRestingOrderCount());
+        assertEquals(2, settlement.getSettledTrades());
+    }
+
+    // Test cancelling a resting order
+    @Test
+    void testCancel() {
+        long order = book.submit(OrderSide.SELL, sellerId, 20, 10);
+        assertTrue(book.cancel(order));
+        assertFalse(book.cancel(order));
+        assertEquals(0, book.getBestAsk());
+        assertEquals(0, book.getRestingOrderCount());
+    }
+
+    // Test that an order its trader cannot pay for is rejected before it trades
+    @Test
+    void testUnaffordableOrderIsRejected() {
+        book.submit(OrderSide.SELL, sellerId, 100, 20);
+        assertEquals(OrderBook.REJECTED, book.submit(OrderSide.BUY, buyerId, 100, 20));  // Costs 2000, the buyer has 1000
+        assertEquals(20, book.getDepth(OrderSide.SELL, 100));
+        assertEquals(0, settlement.getSettledTrades());
+        assertEquals(1000, buyer.getMoney());
+    }
+
+    // Test that a resting order whose trader can no longer settle it is cancelled instead of reported as filled
+    @Test
+    void testSettlementFailure() throws InvalidQuantity, MaterialNotFound, ExceedingCapacity {
+        book.submit(OrderSide.SELL, sellerId, 10, 20);
+        sellerWarehouse.dropSomeQuantity(iron, 90);  // The seller keeps only 10 units
+
+        long order = book.submit(OrderSide.BUY, buyerId, 10, 20);
+        assertEquals(1, settlement.getFailures().size());
+        assertEquals(0, book.getBestAsk());  // The unfunded ask was cancelled
+        assertEquals(20, book.getDepth(OrderSide.BUY, 10));  // The buy order rests in full
+        assertTrue(book.cancel(order));
+        assertEquals(1000, buyer.getMoney());
+        assertEquals(10, sellerWarehouse.snapshot().getQuantity(iron));
+    }
+
+    // Test that a full book rejects an order that would rest before any of it trades
+    @Test
+    void testFullBookTradesNothing() {
+        OrderBook small = new OrderBook(iron, 100, 1, settlement);
+        small.submit(OrderSide.SELL, sellerId, 10, 5);
+        assertThrows(IllegalStateException.class, () -> small.submit(OrderSide.BUY, buyerId, 10, 8));
+        assertEquals(5, small.getDepth(OrderSide.SELL, 10));
+        assertEquals(0, settlement.getSettledTrades());
+        assertEquals(1000, buyer.getMoney());
+
+        assertEquals(0, small.submit(OrderSide.BUY, buyerId, 10, 5));  // An order filled completely needs no node
+        assertEquals(1, settlement.getSettledTrades());
+    }
+}
@@ -0,0 +1,143 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.management.WareHouse;
+import org.warehouse.management.location.Bin;
+import org.warehouse.management.location.BinLayout;
+import org.warehouse.management.location.BinQuantity;
+import org.warehouse.management.location.OrderLine;
+import org.warehouse.management.location.PickBatch;
+import org.warehouse.management.location.PickWave;
+import org.warehouse.management.location.PickingEngine;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestPickingEngine {
+    private ExecutorService executor;  // Routes the batches
+    private WareHouse warehouse;       // The warehouse picked from
+    private BinLayout layout;          // 20 aisles of 50 bins, the depot at the origin
+    private List<Material> materials;  // The stocked materials
+
+    // Set up a stocked warehouse with aisles of bins
+    @BeforeEach
+    void setUp() throws Exception {
+        executor = Executors.newFixedThreadPool(4);
+        warehouse = new WareHouse(new HashMap<>());
+        layout = new BinLayout(warehouse, 4);
+        for (int aisle = 0; aisle < 20; aisle++) {
+            for (int position = 0; position < 50; position++) {
+                layout.addBin(aisle < 10 ? "A" : "B", aisle, aisle * 4, position);
+            }
+        }
+        materials = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 8; i++) {
+            Material material = new Material(new MaterialType("Material" + i, "Test material", "src/main/resources/materials/iron.png", 100), 0);
+            materials.add(material);
+            for (int load = 0; load < 40; load++) {
+                layout.putAway(material, 100, random.nextDouble() * 80, random.nextDouble() * 50);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Test that a wave is planned into batches, short lines are set aside and the drops are applied once
+    @Test
+    void testPlanAndApply() throws Exception {
+        Material first = materials.get(0);
+        List<OrderLine> lines = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            lines.add(new OrderLine("Order" + i, materials.get(i % materials.size()), 10));
+        }
+        OrderLine tooLarge = new OrderLine("Large", first, 1_000_000);
+        lines.add(tooLarge);
+
+        PickingEngine engine = new PickingEngine(layout, executor, 10, 0, 0);
+        PickWave wave = engine.plan(lines);
+        assertEquals(List.of(tooLarge), wave.getShortLines());
+        assertEquals(3, wave.getBatches().size());
+        for (PickBatch batch : wave.getBatches()) {
+            for (List<BinQuantity> picks : batch.getPicks().values()) {
+                assertEquals(10, picks.stream().mapToInt(BinQuantity::getQuantity).sum());
+            }
+            assertEquals(new LinkedHashSet<>(stops(batch)).size(), batch.getRoute().size());
+        }
+
+        int before = warehouse.snapshot().getQuantity(first);
+        long version = warehouse.snapshot().getVersion();
+        List<Material> changed = new ArrayList<>();
+        warehouse.addChangeListener((inventory, material, previousQuantity, newQuantity) -> changed.add(material));
+        assertEquals(250, engine.apply(wave));
+        assertEquals(version + 1, warehouse.snapshot().getVersion());  // One snapshot for the whole wave
+        assertEquals(materials.size(), changed.size());  // One notification per material, not per bin
+        assertEquals(before - 40, warehouse.snapshot().getQuantity(first));  // Four lines of the first material
+        assertEquals(warehouse.snapshot().getQuantity(first), layout.getBinnedQuantity(first));
+
+        // Applying the same wave twice would pick stock that was already taken
+        layout.pick(first, layout.getBinnedQuantity(first), 0, 0);
+        assertThrows(InvalidQuantity.class, () -> engine.apply(wave));
+        assertEquals(0, warehouse.snapshot().getQuantity(first));
+    }
+
+    // Test that a wave of 10k lines is planned with routes much shorter than picking the lines in arrival order
+    @Test
+    void testLargeWaveRoutes() {
+        Random random = new Random(11);
+        List<OrderLine> lines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            lines.add(new OrderLine("Order" + i / 3, materials.get(random.nextInt(materials.size())), 1 + random.nextInt(3)));
+        }
+
+        PickingEngine engine = new PickingEngine(layout, executor, 40, 0, 0);
+        PickWave wave = engine.plan(lines);
+        assertTrue(wave.getShortLines().isEmpty());
+        assertEquals(250, wave.getBatches().size());
+
+        // Without batching, lines would be picked in arrival order with bins visited in line order
+        Map<OrderLine, List<BinQuantity>> allocations = new HashMap<>();
+        for (PickBatch batch : wave.getBatches()) {
+            double inLineOrder = engine.routeLength(new ArrayList<>(new LinkedHashSet<>(stops(batch))));
+            assertTrue(batch.getRouteLength() <= inLineOrder + 1e-9);
+            allocations.putAll(batch.getPicks());
+        }
+        double unbatched = 0;
+        for (int from = 0; from < lines.size(); from += 40) {
+            LinkedHashSet<Bin> stops = new LinkedHashSet<>();
+            for (OrderLine line : lines.subList(from, from + 40)) {
+                allocations.get(line).forEach(pick -> stops.add(pick.getBin()));
+            }
+            unbatched += engine.routeLength(new ArrayList<>(stops));
+        }
+        assertTrue(wave.getTotalRouteLength() < unbatched * 0.5);
+        assertTrue(wave.getPlanningNanos() > 0);
+    }
+
+    /**
+     * Helper method listing the bins of a batch in the order of its lines.
+     */
+    private static List<Bin> stops(PickBatch batch) {
+        List<Bin> stops = new ArrayList<>();
+        for (List<BinQuantity> picks : batch.getPicks().values()) {
+            for (BinQuantity pick : picks) {
+                stops.add(pick.getBin());
+            }
+        }
+        return stops;
+    }
+}
@@ -0,0 +1,58 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialAlreadyExists;
+import org.warehouse.management.RebalancingPlan;
+import org.warehouse.management.RebalancingPlanner;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestRebalancingPlanner {
+    private List<WareHouse> warehouses;  // The warehouses to balance
+    private Material iron;               // Test material of type iron
+    private Material coal;               // Test material of type coal
+
+    // Set up three warehouses with all the stock in the first one
+    @BeforeEach
+    void setUp() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        warehouses = List.of(new WareHouse(new HashMap<>()), new WareHouse(new HashMap<>()), new WareHouse(new HashMap<>()));
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 200), 0);
+        warehouses.get(0).addMaterial(iron, 300);
+        warehouses.get(0).addMaterial(coal, 150);
+    }
+
+    // Test that executing the plan levels every material across the warehouses
+    @Test
+    void testPlanAndExecute() {
+        RebalancingPlan plan = new RebalancingPlanner().plan(warehouses, 1.0);
+        assertEquals(4, plan.getMoves().size());  // Two receivers for each of the two materials
+        assertTrue(plan.execute().isEmpty());
+
+        for (WareHouse warehouse : warehouses) {
+            assertEquals(100, warehouse.listAllMaterials().get(iron));
+            assertEquals(50, warehouse.listAllMaterials().get(coal));
+        }
+    }
+
+    // Test that no warehouse is filled above the target utilization
+    @Test
+    void testTargetUtilization() {
+        RebalancingPlan plan = new RebalancingPlanner().plan(warehouses, 0.1);
+        assertEquals(2 * 50 + 2 * 20, plan.getTotalQuantity());  // Iron up to 50, coal up to 20 per receiver
+    }
+
+    // Test that balanced warehouses produce an empty plan
+    @Test
+    void testBalancedWarehouses() {
+        new RebalancingPlanner().plan(warehouses, 1.0).execute();
+        assertTrue(new RebalancingPlanner().plan(warehouses, 1.0).getMoves().isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialAlreadyExists;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.StockAggregate;
+import org.warehouse.management.StockHistory;
+import org.warehouse.management.StockPoint;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestStockHistory {
+    private WareHouse warehouse;   // The observed warehouse
+    private StockHistory history;  // The history under test, with chunks of four points
+    private Material iron;         // Test material of type iron
+    private long now;              // The current time of the test clock in milliseconds
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() {
+        warehouse = new WareHouse(new HashMap<>());
+        history = new StockHistory(() -> now, 4, 100);
+        warehouse.addChangeListener(history);
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+    }
+
+    // Test that changes made through the warehouse are recorded and can be queried by time range
+    @Test
+    void testRecordsMutations() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        now = 1000;
+        warehouse.addMaterial(iron, 100);
+        now = 2000;
+        warehouse.updateMaterialQuantity(iron, 50);
+        now = 3500;
+        warehouse.dropSomeQuantity(iron, 120);
+
+        List<StockPoint> points = history.range(warehouse, iron, 1500, 4000);
+        assertEquals(2, points.size());
+        assertEquals(2000, points.get(0).getTimestamp());
+        assertEquals(150, points.get(0).getQuantity());
+        assertEquals(30, points.get(1).getQuantity());
+        assertEquals(3, history.getRecordedCount());
+    }
+
+    // Test that aggregates over many chunks match the recorded points, including partial edge chunks
+    @Test
+    void testAggregateAndDownsample() {
+        for (int i = 0; i < 100; i++) {
+            history.record(warehouse, iron, i * 10L, i % 2 == 0 ? i : -i);
+        }
+
+        StockAggregate all = history.aggregate(warehouse, iron, 0, 1000);
+        assertEquals(100, all.getCount());
+        assertEquals(-99, all.getMinimum());
+        assertEquals(98, all.getMaximum());
+        assertEquals(0, all.getFirst());
+        assertEquals(-99, all.getLast());
+
+        StockAggregate middle = history.aggregate(warehouse, iron, 15, 95);
+        assertEquals(8, middle.getCount());
+        assertEquals(-9, middle.getLast());
+
+        List<StockAggregate> buckets = history.downsample(warehouse, iron, 0, 1000, 250);
+        assertEquals(4, buckets.size());
+        assertEquals(25, buckets.get(1).getCount());
+        assertEquals(50, buckets.get(2).getFirst());
+        assertTrue(history.getEncodedBytes() < 100 * 3);
+    }
+
+    // Test that only the configured number of chunks is kept per series
+    @Test
+    void testRetention() {
+        StockHistory bounded = new StockHistory(() -> now, 4, 2);
+        for (int i = 0; i < 20; i++) {
+            bounded.record(warehouse, iron, i, i);
+        }
+        assertEquals(8, bounded.aggregate(warehouse, iron, 0, 20).getCount());
+        assertEquals(12, bounded.range(warehouse, iron, 0, 20).get(0).getQuantity());
+    }
+}
@@ -0,0 +1,125 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.io.ImportReport;
+import org.warehouse.io.StockExporter;
+import org.warehouse.io.StockFormat;
+import org.warehouse.io.StockImporter;
+import org.warehouse.io.StockRecord;
+import org.warehouse.management.CachingInventory;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestStockImporter {
+    private Map<Integer, WareHouse> warehouses;  // The warehouses imported into, by number
+    private Map<String, Material> materials;     // The known materials, by type name
+    private Material iron;                       // Test material of type iron
+    private Material coal;                       // Test material of type coal
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() {
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 200), 0);
+        materials = Map.of("Iron", iron, "Coal", coal);
+        warehouses = new HashMap<>();
+        warehouses.put(1, new WareHouse(new HashMap<>()));
+        warehouses.put(2, new WareHouse(new HashMap<>()));
+    }
+
+    // Test that a CSV import sums rows in parallel chunks and reports bad rows without aborting
+    @Test
+    void testCsvImport() throws IOException, MaterialNotFound {
+        StringBuilder csv = new StringBuilder("warehouse,material,quantity\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append(i % 2 + 1).append(",Iron,2\n");
+        }
+        csv.append("1,Gold,5\n");      // line 102: unknown material
+        csv.append("3,Iron,5\n");      // line 103: unknown warehouse
+        csv.append("1,Coal,x\n");      // line 104: malformed quantity
+        csv.append("2,Coal,500\n");    // line 105: exceeds capacity
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            StockImporter importer = new StockImporter(warehouses::get, materials::get, executor, 7, 3, 10);
+            ImportReport report = importer.importFrom(new StringReader(csv.toString()), StockFormat.CSV);
+
+            assertEquals(104, report.getRowsRead());
+            assertEquals(100, report.getRowsImported());
+            assertEquals(4, report.getErrorCount());
+            assertEquals(102, report.getErrors().get(0).getLine());
+            assertEquals(105, report.getErrors().get(3).getLine());
+            assertTrue(report.getRowsPerSecond() > 0);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(100, warehouses.get(1).getMaterialQuantity(warehouses.get(1), iron));
+        assertEquals(100, warehouses.get(2).getMaterialQuantity(warehouses.get(2), iron));
+    }
+
+    // Test that an NDJSON export can be imported again into empty warehouses
+    @Test
+    void testNdjsonRoundTrip() throws Exception {
+        warehouses.get(1).addMaterial(iron, 100);
+        warehouses.get(2).addMaterial(coal, 50);
+
+        StringWriter out = new StringWriter();
+        assertEquals(2, new StockExporter().exportTo(out, StockFormat.NDJSON, warehouses));
+
+        Map<Integer, WareHouse> copies = new HashMap<>();
+        copies.put(1, new WareHouse(new HashMap<>()));
+        copies.put(2, new WareHouse(new HashMap<>()));
+        ImportReport report = new StockImporter(copies::get, materials::get)
+                .importFrom(new StringReader(out.toString()), StockFormat.NDJSON);
+
+        assertEquals(0, report.getErrorCount());
+        assertEquals(100, copies.get(1).getMaterialQuantity(copies.get(1), iron));
+        assertEquals(50, copies.get(2).getMaterialQuantity(copies.get(2), coal));
+    }
+
+    // Test that an import through a decorator applies each warehouse group in bulk, splitting batches at the max capacity
+    @Test
+    void testBulkImportThroughDecorator() throws IOException, MaterialNotFound {
+        StringBuilder csv = new StringBuilder("warehouse,material,quantity\n");
+        for (int i = 0; i < 100; i++) {
+            csv.append("1,Iron,1\n");
+            csv.append("1,Coal,3\n");
+        }
+        WareHouse warehouse = warehouses.get(1);
+        CachingInventory cached = new CachingInventory(warehouse, 16, 1, TimeUnit.MINUTES);
+        long version = warehouse.snapshot().getVersion();
+
+        ImportReport report = new StockImporter(number -> number == 1 ? cached : null, materials::get)
+                .importFrom(new StringReader(csv.toString()), StockFormat.CSV);
+
+        assertEquals(0, report.getErrorCount());
+        assertEquals(200, report.getRowsImported());
+        assertEquals(100, cached.getMaterialQuantity(warehouse, iron));
+        assertEquals(300, cached.getMaterialQuantity(warehouse, coal));
+        // 300 units of coal exceed its max of 200, so the single group is applied in two batches
+        assertEquals(version + 2, warehouse.snapshot().getVersion());
+    }
+
+    // Test that material names with separators survive the CSV and NDJSON encodings
+    @Test
+    void testQuoting() throws Exception {
+        for (StockFormat format : StockFormat.values()) {
+            String line = format.format(new StockRecord(7, "Ore, \"raw\"", 3));
+            assertEquals("Ore, \"raw\"", format.parse(line).getMaterialName());
+            assertEquals(7, format.parse(line).getWarehouse());
+        }
+    }
+}
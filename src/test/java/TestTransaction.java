@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.*;
+import org.warehouse.management.Transaction;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+import org.warehouse.model.user.User;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestTransaction {
+    private User buyer;               // The user paying for stock
+    private User seller;              // The user receiving the money
+    private WareHouse buyerWarehouse;   // The warehouse receiving the stock
+    private WareHouse sellerWarehouse;  // The warehouse giving away the stock
+    private Material iron;            // Test material of type iron
+
+    // Set up two users with one warehouse each
+    @BeforeEach
+    void setUp() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        buyerWarehouse = new WareHouse(new HashMap<>());
+        sellerWarehouse = new WareHouse(new HashMap<>());
+        buyer = new User("Buyer", new HashMap<>(), 5, 100, 1);
+        seller = new User("Seller", new HashMap<>(), 5, 100, 1);
+
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        sellerWarehouse.addMaterial(iron, 50);
+    }
+
+    // Test that a purchase moves money and stock together
+    @Test
+    void testCommit() throws TransactionAborted, TransactionConflict, MaterialNotFound {
+        new Transaction()
+                .spendMoney(buyer, 80)
+                .updateMoney(seller, 80)
+                .dropStock(sellerWarehouse, iron, 30)
+                .addStock(buyerWarehouse, iron, 30)
+                .commit();
+
+        assertEquals(20, buyer.getMoney());
+        assertEquals(180, seller.getMoney());
+        assertEquals(20, sellerWarehouse.snapshot().getQuantity(iron));
+        assertEquals(30, buyerWarehouse.snapshot().getQuantity(iron));
+    }
+
+    // Test that an invalid operation aborts the whole transaction without applying anything
+    @Test
+    void testAbort() {
+        Transaction transaction = new Transaction()
+                .dropStock(sellerWarehouse, iron, 30)
+                .addStock(buyerWarehouse, iron, 30)
+                .spendMoney(buyer, 150);  // The buyer only has 100
+
+        TransactionAborted aborted = assertThrows(TransactionAborted.class, transaction::commit);
+        assertTrue(aborted.getCause() instanceof ExceedingAmountOfMoney);
+        assertEquals(100, buyer.getMoney());
+        assertEquals(50, sellerWarehouse.listAllMaterials().get(iron));
+        assertTrue(buyerWarehouse.listAllMaterials().isEmpty());
+    }
+
+    // Test that dropping more stock than available aborts the transaction
+    @Test
+    void testAbortOnMissingStock() {
+        Transaction transaction = new Transaction().dropStock(sellerWarehouse, iron, 60);
+        TransactionAborted aborted = assertThrows(TransactionAborted.class, transaction::commit);
+        assertTrue(aborted.getCause() instanceof InvalidQuantity);
+    }
+}
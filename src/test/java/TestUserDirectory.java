@@ -0,0 +1,84 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.UserAlreadyExists;
+import org.warehouse.exceptions.UserNotFound;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserDirectory;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestUserDirectory {
+    private UserDirectory directory;  // The directory to be tested
+    private User alice;              // A registered user
+    private User alfred;              // A registered user sharing a prefix with alice
+    private User bob;                // A registered user
+
+    // Set up a directory with three users
+    @BeforeEach
+    void setUp() throws UserAlreadyExists {
+        directory = new UserDirectory();
+        alice = new User("alice", new HashMap<>(), 0, 0, 1);
+        alfred = new User("alfred", new HashMap<>(), 0, 0, 1);
+        bob = new User("bob", new HashMap<>(), 0, 0, 1);
+        directory.register(alice);
+        directory.register(alfred);
+        directory.register(bob);
+    }
+
+    // Test exact lookups by id and username
+    @Test
+    void testLookup() throws UserNotFound {
+        assertSame(bob, directory.findById(directory.getId(bob)));
+        assertSame(alice, directory.findByUsername("alice"));
+        assertThrows(UserNotFound.class, () -> directory.findByUsername("carol"));
+        assertThrows(UserAlreadyExists.class, () -> directory.register(new User("bob", new HashMap<>(), 0, 0, 1)));
+    }
+
+    // Test prefix search in username order
+    @Test
+    void testSearchByPrefix() {
+        assertEquals(List.of(alfred, alice), directory.searchByPrefix("al", 10));
+        assertEquals(List.of(alfred), directory.searchByPrefix("al", 1));
+        assertTrue(directory.searchByPrefix("z", 10).isEmpty());
+    }
+
+    // Test that renaming moves only the renamed user's entries
+    @Test
+    void testRename() throws UserNotFound, UserAlreadyExists {
+        directory.rename(bob, "albert");
+        assertEquals("albert", bob.getUsername());
+        assertSame(bob, directory.findByUsername("albert"));
+        assertThrows(UserNotFound.class, () -> directory.findByUsername("bob"));
+        assertEquals(List.of(bob, alfred, alice), directory.searchByPrefix("al", 10));  // "albert" sorts first
+        assertThrows(UserAlreadyExists.class, () -> directory.rename(bob, "alice"));
+    }
+
+    // Test that renaming a registered user directly goes through the directory
+    @Test
+    void testSetUsernameGoesThroughDirectory() throws UserNotFound {
+        bob.setUsername("albert");
+        assertSame(bob, directory.findByUsername("albert"));
+        assertThrows(UserNotFound.class, () -> directory.findByUsername("bob"));
+        assertThrows(IllegalArgumentException.class, () -> alfred.setUsername("alice"));
+        assertEquals("alfred", alfred.getUsername());
+        assertEquals(List.of(bob, alfred, alice), directory.searchByPrefix("al", 10));
+    }
+
+    // Test that removed users leave every index and can register again under a new id
+    @Test
+    void testRemove() throws UserNotFound, UserAlreadyExists {
+        long id = directory.getId(alice);
+        directory.remove(alice);
+        assertEquals(2, directory.size());
+        assertThrows(UserNotFound.class, () -> directory.findById(id));
+        assertThrows(UserNotFound.class, () -> directory.findByUsername("alice"));
+        assertThrows(UserNotFound.class, () -> directory.getId(alice));
+        assertEquals(List.of(alfred), directory.searchByPrefix("al", 10));
+        alice.setUsername("carol");  // No longer registered, so renamed directly
+        assertNotEquals(id, directory.register(alice));
+        assertSame(alice, directory.findByUsername("carol"));
+    }
+}
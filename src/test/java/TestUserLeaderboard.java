@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingAmountOfMoney;
+import org.warehouse.exceptions.InvalidQuantityOfMoney;
+import org.warehouse.exceptions.TransactionAborted;
+import org.warehouse.exceptions.TransactionConflict;
+import org.warehouse.management.Transaction;
+import org.warehouse.model.user.LeaderboardMetric;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.UserFunctionalities;
+import org.warehouse.model.user.UserLeaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestUserLeaderboard {
+    private UserLeaderboard leaderboard;  // The leaderboard to be tested
+    private List<User> users;             // Ten users with money 0, 10, ..., 90
+
+    // Set up a leaderboard with ten users
+    @BeforeEach
+    void setUp() {
+        leaderboard = new UserLeaderboard();
+        users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            User user = new User("User" + i, new HashMap<>(), 10 - i, i * 10, 1);
+            users.add(user);
+            leaderboard.add(user);
+        }
+    }
+
+    // Test rank and top-K queries
+    @Test
+    void testRankAndTop() {
+        assertEquals(1, leaderboard.rankOf(users.get(9), LeaderboardMetric.MONEY));
+        assertEquals(10, leaderboard.rankOf(users.get(9), LeaderboardMetric.GEMS));
+        assertEquals(List.of(users.get(9), users.get(8), users.get(7)), leaderboard.top(LeaderboardMetric.MONEY, 3));
+        assertEquals(List.of(users.get(0), users.get(1)), leaderboard.top(LeaderboardMetric.LEVEL, 2));  // Ties keep join order
+    }
+
+    // Test that wallet operations move the user in the leaderboard
+    @Test
+    void testUpdateThroughFunctionalities() throws InvalidQuantityOfMoney, ExceedingAmountOfMoney {
+        UserFunctionalities functionalities = new UserFunctionalities(users.get(0));
+        functionalities.updateMoney(1000);
+        assertEquals(1, leaderboard.rankOf(users.get(0), LeaderboardMetric.MONEY));
+
+        functionalities.spendMoney(1000);
+        assertEquals(10, leaderboard.rankOf(users.get(0), LeaderboardMetric.MONEY));
+
+        functionalities.upgradeLevel();
+        assertEquals(1, leaderboard.rankOf(users.get(0), LeaderboardMetric.LEVEL));
+    }
+
+    // Test that transactions, rollbacks and direct changes of a user move them in the leaderboard as well
+    @Test
+    void testUpdateThroughTransactions() throws TransactionAborted, TransactionConflict {
+        new Transaction().spendMoney(users.get(9), 90).updateMoney(users.get(0), 90).commit();
+        assertEquals(1, leaderboard.rankOf(users.get(0), LeaderboardMetric.MONEY));
+        assertEquals(10, leaderboard.rankOf(users.get(9), LeaderboardMetric.MONEY));
+
+        // Spending more than the user has rolls back the money already moved
+        assertThrows(TransactionAborted.class, () -> new Transaction().updateMoney(users.get(1), 500).spendMoney(users.get(2), 1000).commit());
+        assertEquals(1, leaderboard.rankOf(users.get(0), LeaderboardMetric.MONEY));
+
+        users.get(5).setGems(100);
+        assertEquals(1, leaderboard.rankOf(users.get(5), LeaderboardMetric.GEMS));
+
+        leaderboard.remove(users.get(5));
+        users.get(5).setGems(0);  // No longer ranked, so no longer followed
+        assertEquals(0, leaderboard.rankOf(users.get(5), LeaderboardMetric.GEMS));
+    }
+
+    // Test around-me queries and removal
+    @Test
+    void testAroundAndRemove() {
+        assertEquals(List.of(users.get(6), users.get(5), users.get(4)), leaderboard.around(users.get(5), LeaderboardMetric.MONEY, 1));
+        assertEquals(List.of(users.get(9), users.get(8)), leaderboard.around(users.get(9), LeaderboardMetric.MONEY, 1));
+
+        leaderboard.remove(users.get(9));
+        assertEquals(0, leaderboard.rankOf(users.get(9), LeaderboardMetric.MONEY));
+        assertEquals(1, leaderboard.rankOf(users.get(8), LeaderboardMetric.MONEY));
+        assertEquals(9, leaderboard.size());
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.WareHouse;
+import org.warehouse.management.WarehouseActor;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestWarehouseActor {
+    private ExecutorService executor;  // The threads shared by all actors
+    private Material iron;             // Test material of type iron
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Test that operations complete through the future with their result or their exception
+    @Test
+    void testOperations() {
+        WarehouseActor actor = new WarehouseActor(new WareHouse(new HashMap<>()), executor);
+
+        assertSame(iron, actor.addMaterial(iron, 100).join());
+        actor.updateMaterialQuantity(iron, 20).join();
+        assertEquals(120, actor.getMaterialQuantity(iron).join());
+
+        actor.removeMaterial(iron).join();
+        CompletionException failure = assertThrows(CompletionException.class, () -> actor.getMaterialQuantity(iron).join());
+        assertTrue(failure.getCause() instanceof MaterialNotFound);
+    }
+
+    // Test that concurrent transfers between actors conserve the total quantity
+    @Test
+    void testConcurrentTransfersConserveStock() {
+        List<WarehouseActor> actors = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            WarehouseActor actor = new WarehouseActor(new WareHouse(new HashMap<>()), executor, 4096, 16);
+            actor.addMaterial(iron, 250).join();
+            actors.add(actor);
+        }
+
+        Random random = new Random(42);
+        List<CompletableFuture<Integer>> transfers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            WarehouseActor from = actors.get(random.nextInt(4));
+            WarehouseActor to = actors.get(random.nextInt(4));
+            transfers.add(from.transferSomeQuantityOfMaterial(to, iron, 1 + random.nextInt(5)));
+        }
+        for (CompletableFuture<Integer> transfer : transfers) {
+            try {
+                transfer.join();
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof InvalidQuantity);  // Only transfers of more than the source holds fail
+            }
+        }
+
+        int total = 0;
+        for (WarehouseActor actor : actors) {
+            int quantity = actor.getMaterialQuantity(iron).join();
+            assertTrue(quantity >= 0);
+            total += quantity;
+        }
+        assertEquals(1000, total);
+    }
+
+    // Test that stock withdrawn for a transfer the destination rejects is refunded to the source
+    @Test
+    void testRejectedDepositIsRefunded() {
+        WarehouseActor source = new WarehouseActor(new WareHouse(new HashMap<>()), executor);
+        WarehouseActor stalled = new WarehouseActor(new WareHouse(new HashMap<>()), task -> { }, 2, 1);
+        stalled.addMaterial(iron, 1);
+        stalled.addMaterial(iron, 1);
+        source.addMaterial(iron, 100).join();
+
+        CompletionException failure = assertThrows(CompletionException.class,
+                () -> source.transferSomeQuantityOfMaterial(stalled, iron, 30).join());
+        assertTrue(failure.getCause() instanceof RejectedExecutionException);
+        assertEquals(100, source.getMaterialQuantity(iron).join());
+        assertEquals(1, stalled.getRejectedCount());
+    }
+}
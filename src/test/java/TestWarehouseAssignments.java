@@ -0,0 +1,61 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.management.WareHouse;
+import org.warehouse.model.user.User;
+import org.warehouse.model.user.WarehouseAssignments;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestWarehouseAssignments {
+    private WarehouseAssignments assignments;  // The assignments to be tested
+    private WareHouse[] warehouses;           // One hundred distinct warehouses
+
+    // Set up empty assignments and a pool of warehouses
+    @BeforeEach
+    void setUp() {
+        assignments = new WarehouseAssignments();
+        warehouses = new WareHouse[100];
+        for (int i = 0; i < warehouses.length; i++) {
+            warehouses[i] = new WareHouse(new HashMap<>());
+        }
+    }
+
+    // Test lookups while the assignments grow from inline arrays to a hash table and shrink again
+    @Test
+    void testPutGetRemove() {
+        for (int i = 0; i < warehouses.length; i++) {
+            assertNull(assignments.put(i * 7, warehouses[i]));
+        }
+        for (int i = 0; i < warehouses.length; i++) {
+            assertSame(warehouses[i], assignments.get(i * 7));
+        }
+
+        for (int i = 0; i < warehouses.length; i += 2) {
+            assertSame(warehouses[i], assignments.remove(i * 7));
+        }
+        assertEquals(50, assignments.size());
+        for (int i = 1; i < warehouses.length; i += 2) {
+            assertSame(warehouses[i], assignments.get(i * 7));  // Entries survive the backward shifts
+        }
+        assertNull(assignments.get(0));
+    }
+
+    // Test that the user's map view writes through to its assignments
+    @Test
+    void testUserMapView() {
+        Map<Integer, WareHouse> map = new HashMap<>();
+        map.put(1, warehouses[0]);
+        User user = new User("User1", map, 5, 100, 1);
+
+        user.getAssignedWarehouses().put(2, warehouses[1]);
+        assertSame(warehouses[1], user.getWarehouseAssignments().get(2));
+        assertEquals(2, user.getAssignedWarehouses().size());
+
+        int[] visited = new int[1];
+        user.getWarehouseAssignments().forEach((id, warehouse) -> visited[0] += id);
+        assertEquals(3, visited[0]);
+    }
+}
@@ -5,11 +5,21 @@ import org.warehouse.exceptions.ExceedingCapacity;
 import org.warehouse.exceptions.InvalidQuantity;
 import org.warehouse.exceptions.MaterialAlreadyExists;
 import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.CachingInventory;
+import org.warehouse.management.Inventory;
+import org.warehouse.management.InventorySnapshot;
+import org.warehouse.management.TransferReport;
 import org.warehouse.management.WareHouse;
+import org.warehouse.metrics.AllocationTracker;
+import org.warehouse.metrics.TrackedInventory;
 import org.warehouse.model.material.Material;
 import org.warehouse.model.material.MaterialType;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
@@ -147,4 +157,126 @@ class TestWarehouseFunctionality {
         warehouse.addMaterial(iron, 100);  // Add iron with 100 quantity
         Assertions.assertFalse(warehouse.listAllMaterials().isEmpty());  // Now it should not be empty
     }
+
+    // Test transferring several materials in one pass, with a capacity conflict for one of them
+    @Test
+    void testTransferMaterials() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        WareHouse otherWarehouse = new WareHouse(new HashMap<>());  // Create another warehouse
+        warehouse.addMaterial(iron, 100);  // Add iron to the first warehouse
+        warehouse.addMaterial(coal, 150);  // Add coal to the first warehouse
+        otherWarehouse.addMaterial(coal, 100);  // Coal would exceed its capacity of 200 in the other warehouse
+
+        TransferReport report = warehouse.transferMaterials(otherWarehouse, List.of(iron, coal));
+        assertEquals(100, report.getTransferred().get(iron));  // Iron was moved
+        Assertions.assertTrue(report.getRejected().get(coal) instanceof ExceedingCapacity);  // Coal was rejected
+        assertEquals(100, otherWarehouse.listAllMaterials().get(iron));
+        assertEquals(150, warehouse.listAllMaterials().get(coal));  // Coal stayed in the first warehouse
+        Assertions.assertFalse(warehouse.listAllMaterials().containsKey(iron));
+    }
+
+    // Test consolidating a whole warehouse into another one
+    @Test
+    void testTransferAllMaterials() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        WareHouse otherWarehouse = new WareHouse(new HashMap<>());  // Create another warehouse
+        warehouse.addMaterial(iron, 100);
+        warehouse.addMaterial(coal, 50);
+
+        Assertions.assertTrue(warehouse.transferAllMaterials(otherWarehouse).isComplete());
+        Assertions.assertTrue(warehouse.listAllMaterials().isEmpty());  // The first warehouse is empty
+        assertEquals(50, otherWarehouse.listAllMaterials().get(coal));
+    }
+
+    // Test that a bulk transfer into a decorated warehouse keeps the warehouse behind the decorator locked throughout
+    @Test
+    void testTransferMaterialsLocksDecoratedDestination() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        WareHouse otherWarehouse = new WareHouse(new HashMap<>());
+        List<Inventory> destinations = List.of(
+                new CachingInventory(otherWarehouse, 10, 1, TimeUnit.MINUTES),
+                new TrackedInventory(otherWarehouse, new AllocationTracker()));
+        List<Boolean> locked = new ArrayList<>();
+        warehouse.addChangeListener((inventory, material, previousQuantity, newQuantity) -> locked.add(Thread.holdsLock(otherWarehouse)));
+
+        for (Inventory destination : destinations) {
+            warehouse.addMaterial(iron, 100);
+            warehouse.addMaterial(coal, 50);
+            locked.clear();
+            Assertions.assertTrue(warehouse.transferAllMaterials(destination).isComplete());
+            assertEquals(List.of(true, true), locked);  // Both removals ran while the real destination was locked
+            otherWarehouse.removeMaterial(iron);
+            otherWarehouse.removeMaterial(coal);
+        }
+    }
+
+    // Test that several materials are dropped together, or not at all if one of them is short
+    @Test
+    void testDropQuantities() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        warehouse.addMaterial(iron, 100);
+        warehouse.addMaterial(coal, 50);
+        long version = warehouse.snapshot().getVersion();
+
+        assertThrows(InvalidQuantity.class, () -> warehouse.dropQuantities(Map.of(iron, 10, coal, 60)));
+        assertEquals(100, warehouse.listAllMaterials().get(iron));  // Nothing was dropped
+        assertEquals(version, warehouse.snapshot().getVersion());
+
+        warehouse.dropQuantities(Map.of(iron, 10, coal, 50));
+        assertEquals(90, warehouse.listAllMaterials().get(iron));
+        assertEquals(0, warehouse.listAllMaterials().get(coal));
+        assertEquals(version + 1, warehouse.snapshot().getVersion());
+    }
+
+    // Test that adding several quantities is all-or-nothing and published as one snapshot
+    @Test
+    void testAddQuantities() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        warehouse.addMaterial(iron, 100);
+        long version = warehouse.snapshot().getVersion();
+
+        assertThrows(InvalidQuantity.class, () -> warehouse.addQuantities(Map.of(iron, 10, coal, 0)));
+        assertEquals(100, warehouse.listAllMaterials().get(iron));  // Nothing was added
+        assertEquals(version, warehouse.snapshot().getVersion());
+
+        warehouse.addQuantities(Map.of(iron, 10, coal, 20));
+        assertEquals(110, warehouse.listAllMaterials().get(iron));
+        assertEquals(20, warehouse.listAllMaterials().get(coal));  // Added as a new material
+        assertEquals(version + 1, warehouse.snapshot().getVersion());
+    }
+
+    // Test that a bulk transfer publishes one snapshot per warehouse and one event per material
+    @Test
+    void testBulkTransferPublishesOnce() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity {
+        WareHouse otherWarehouse = new WareHouse(new HashMap<>());
+        List<Material> materials = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Material material = new Material(new MaterialType("Bulk" + i, "Bulk material", "src/main/resources/materials/iron.png", 100), 0);
+            materials.add(material);
+            warehouse.addMaterial(material, 1 + i % 50);
+        }
+        otherWarehouse.addMaterial(materials.get(0), 100);  // Rejected for exceeding the capacity
+        long sourceVersion = warehouse.snapshot().getVersion();
+        long destinationVersion = otherWarehouse.snapshot().getVersion();
+        List<Material> events = new ArrayList<>();
+        warehouse.addChangeListener((inventory, material, previousQuantity, newQuantity) -> events.add(material));
+
+        TransferReport report = warehouse.transferAllMaterials(otherWarehouse);
+        assertEquals(499, report.getTransferred().size());
+        assertEquals(1, report.getRejected().size());
+        assertEquals(sourceVersion + 1, warehouse.snapshot().getVersion());
+        assertEquals(destinationVersion + 1, otherWarehouse.snapshot().getVersion());
+        assertEquals(499, events.size());
+        assertEquals(1, warehouse.snapshot().getMaterials().size());
+        assertEquals(500, otherWarehouse.snapshot().getMaterials().size());
+    }
+
+    // Test that a snapshot keeps its point-in-time view while the warehouse keeps changing
+    @Test
+    void testSnapshot() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        warehouse.addMaterial(iron, 100);
+        InventorySnapshot snapshot = warehouse.snapshot();  // Take a snapshot with 100 iron
+
+        warehouse.updateMaterialQuantity(iron, 50);
+        warehouse.addMaterial(coal, 10);
+        assertEquals(100, snapshot.getQuantity(iron));  // The snapshot still sees the old quantity
+        Assertions.assertFalse(snapshot.contains(coal));
+        assertEquals(snapshot.getVersion() + 2, warehouse.snapshot().getVersion());  // Two changes were published since
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getMaterials().put(coal, 1));
+    }
 }
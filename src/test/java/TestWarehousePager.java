@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.warehouse.exceptions.ExceedingCapacity;
+import org.warehouse.exceptions.InvalidQuantity;
+import org.warehouse.exceptions.MaterialAlreadyExists;
+import org.warehouse.exceptions.MaterialNotFound;
+import org.warehouse.management.PagedInventory;
+import org.warehouse.management.WareHouse;
+import org.warehouse.management.WarehousePager;
+import org.warehouse.model.material.Material;
+import org.warehouse.model.material.MaterialType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestWarehousePager {
+    private WarehousePager pager;     // The pager under test, with room for two small warehouses
+    private Material iron;            // Test material of type iron
+    private Material coal;            // Test material of type coal
+
+    // Set up initial conditions for the tests
+    @BeforeEach
+    void setUp() throws IOException {
+        iron = new Material(new MaterialType("Iron", "Used for construction", "src/main/resources/materials/iron.png", 500), 0);
+        coal = new Material(new MaterialType("Coal", "Used for energy production", "src/main/resources/materials/coal.png", 200), 0);
+        Map<String, Material> materials = Map.of("Iron", iron, "Coal", coal);
+        pager = new WarehousePager(Files.createTempDirectory("pager"), 800, materials::get);
+    }
+
+    // Test that cold warehouses are paged out and loaded back with their stock on access
+    @Test
+    void testEvictionAndReload() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        PagedInventory first = pager.register(1, new WareHouse(new HashMap<>()));
+        first.addMaterial(iron, 100);
+        PagedInventory second = pager.register(2, new WareHouse(new HashMap<>()));
+        second.addMaterial(coal, 50);
+        PagedInventory third = pager.register(3, new WareHouse(new HashMap<>()));
+        third.addMaterial(iron, 10);
+
+        assertEquals(2, pager.getResidentCount());
+        assertEquals(1, pager.getEvictionCount());
+
+        assertEquals(100, first.getMaterialQuantity(first, iron));
+        assertEquals(1, pager.getLoadCount());
+        assertEquals(2, pager.getResidentCount());
+        assertSame(first, pager.getInventory(1));
+    }
+
+    // Test that transfers between paged warehouses keep both sides consistent
+    @Test
+    void testTransferBetweenPagedWarehouses() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        PagedInventory from = pager.register(1, new WareHouse(new HashMap<>()));
+        from.addMaterial(iron, 100);
+        PagedInventory to = pager.register(2, new WareHouse(new HashMap<>()));
+        pager.register(3, new WareHouse(new HashMap<>()));
+
+        from.transferSomeQuantityOfMaterial(to, iron, 30);
+
+        assertEquals(70, from.getMaterialQuantity(from, iron));
+        assertEquals(30, to.getMaterialQuantity(to, iron));
+    }
+
+    // Test that prefetching loads paged-out warehouses before they are accessed
+    @Test
+    void testPrefetch() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        pager.register(1, new WareHouse(new HashMap<>())).addMaterial(iron, 100);
+        pager.register(2, new WareHouse(new HashMap<>()));
+        pager.register(3, new WareHouse(new HashMap<>()));
+
+        pager.prefetch(List.of(1L));
+
+        assertEquals(1, pager.getLoadCount());
+        assertEquals(100, pager.getInventory(1).snapshot().getQuantity(iron));
+        assertEquals(1, pager.getLoadCount());
+    }
+
+    // Test that warehouses holding two materials of the same type are never paged out, since they could not be read back distinctly
+    @Test
+    void testSameTypeMaterialsStayResident() throws ExceedingCapacity, MaterialAlreadyExists, InvalidQuantity, MaterialNotFound {
+        Material otherIron = new Material(iron.getMaterialType(), 0);
+        Map<Material, Integer> both = new HashMap<>();
+        both.put(iron, 1);
+        both.put(otherIron, 2);
+        assertThrows(IllegalArgumentException.class, () -> pager.register(1, new WareHouse(both)));
+
+        PagedInventory first = pager.register(1, new WareHouse(new HashMap<>()));
+        first.addMaterial(iron, 100);
+        first.addMaterial(otherIron, 20);
+        pager.register(2, new WareHouse(new HashMap<>()));
+        pager.register(3, new WareHouse(new HashMap<>()));
+
+        assertEquals(1, pager.getEvictionCount());
+        assertEquals(2, pager.getResidentCount());
+        assertEquals(100, first.getMaterialQuantity(first, iron));
+        assertEquals(20, first.getMaterialQuantity(first, otherIron));
+        assertEquals(0, pager.getLoadCount());
+        assertThrows(IllegalStateException.class, pager::flush);
+    }
+
+    // Test that unknown warehouse ids are rejected
+    @Test
+    void testUnknownWarehouse() {
+        assertThrows(IllegalArgumentException.class, () -> pager.getInventory(42));
+    }
+}